@@ -0,0 +1,49 @@
+package texasholdem.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Checks that reseeding a deck deals the same cards as before and keeps its generator.
+ */
+class DeckTest {
+    @Test
+    void reseededDeckDealsLikeSplittableRandom() {
+        SplittableRandom seeds = new SplittableRandom(1);
+        Deck deck = new Deck();
+        RandomGenerator generator = deck.getRandom();
+        for (int hand = 0; hand < 10_000; hand++) {
+            long seed = seeds.nextLong();
+            deck.reset(seed);
+            Deck expected = new Deck(new SplittableRandom(seed));
+            for (int card = 0; card < Card.COUNT; card++) {
+                assertEquals(expected.dealIndex(), deck.dealIndex());
+            }
+        }
+        assertSame(generator, deck.getRandom());
+    }
+
+    @Test
+    void reseedsAnInjectedRandomInPlace() {
+        Random random = new Random();
+        Deck deck = new Deck(random);
+        deck.reset(42L);
+        long first = deck.dealMask(9);
+        deck.reset(42L);
+        assertEquals(first, deck.dealMask(9));
+        assertSame(random, deck.getRandom());
+    }
+
+    @Test
+    void refusesToReseedOtherGenerators() {
+        Deck deck = new Deck(new SplittableRandom(3));
+        assertThrows(UnsupportedOperationException.class, () -> deck.reset(42L));
+    }
+}
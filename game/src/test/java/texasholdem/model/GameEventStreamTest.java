@@ -0,0 +1,199 @@
+package texasholdem.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that readers of a {@link GameEventStream} that fall behind skip ahead by exactly what
+ * they missed and never see a half-written event, and that the game's events add up.
+ */
+class GameEventStreamTest {
+    private static final GameEvent.Type[] TYPES = GameEvent.Type.values();
+
+    @Test
+    void lappedCursorSkipsToTheOldestEvent() {
+        GameEventStream stream = new GameEventStream(8);
+        GameEventStream.Cursor cursor = stream.cursor();
+        for (long sequence = 0; sequence < 20; sequence++) {
+            publish(stream, sequence);
+        }
+        GameEvent event = new GameEvent();
+        for (long expected = 12; expected < 20; expected++) {
+            assertTrue(cursor.poll(event));
+            assertEquals(expected, event.getSequence());
+            checkWhole(event);
+        }
+        assertEquals(12, cursor.getMissed());
+        assertFalse(cursor.poll(event));
+    }
+
+    @Test
+    void slowReaderIsLappedWithoutSeeingTornEvents() throws InterruptedException {
+        long events = 2_000_000;
+        GameEventStream stream = new GameEventStream(64);
+        GameEventStream.Cursor cursor = stream.cursor();
+        Thread producer = new Thread(() -> {
+            for (long sequence = 0; sequence < events; sequence++) {
+                publish(stream, sequence);
+            }
+        });
+        producer.start();
+
+        GameEvent event = new GameEvent();
+        SplittableRandom random = new SplittableRandom(43);
+        long read = 0;
+        long last = -1;
+        while (producer.isAlive() || cursor.getPosition() < events) {
+            if (!cursor.poll(event)) {
+                Thread.onSpinWait();
+                continue;
+            }
+            long sequence = event.getSequence();
+            assertTrue(sequence > last, "went back from " + last + " to " + sequence);
+            checkWhole(event);
+            last = sequence;
+            read++;
+            assertEquals(cursor.getPosition(), read + cursor.getMissed());
+            // Now and then stop for long enough to be lapped
+            if (random.nextInt(1000) == 0) {
+                for (int spin = random.nextInt(20_000); spin > 0; spin--) {
+                    Thread.onSpinWait();
+                }
+            }
+        }
+        producer.join();
+        assertEquals(events - 1, last);
+        assertEquals(events, read + cursor.getMissed());
+        assertTrue(cursor.getMissed() > 0, "the reader was never lapped");
+    }
+
+    @Test
+    void subscriptionCountsMissedEventsAndFailures() throws InterruptedException {
+        GameEventStream stream = new GameEventStream(16);
+        AtomicLong handled = new AtomicLong();
+        AtomicLong torn = new AtomicLong();
+        IllegalStateException failure = new IllegalStateException("listener failed");
+        try (GameEventStream.Subscription subscription = stream.subscribe(event -> {
+            if (!isWhole(event)) {
+                torn.incrementAndGet();
+            }
+            handled.incrementAndGet();
+            if (event.getSequence() % 10 == 0) {
+                throw failure;
+            }
+        })) {
+            assertNull(subscription.getLastFailure());
+            for (long sequence = 0; sequence < 5_000; sequence++) {
+                publish(stream, sequence);
+                if (sequence % 100 == 0) {
+                    subscription.awaitCaughtUp();
+                }
+            }
+            subscription.awaitCaughtUp();
+            assertEquals(5_000, handled.get() + subscription.getMissed());
+            assertEquals(0, torn.get());
+            assertTrue(subscription.getFailures() > 0);
+            assertSame(failure, subscription.getLastFailure());
+        }
+    }
+
+    @Test
+    void blindsAndActionsAddUpToThePotsWon() {
+        List<Player> players = TestGames.players("You", "AI Bot", "Computer 2");
+        for (Player player : players) {
+            player.addChips(1_000);
+        }
+        Game game = new Game(players, 10, 47L);
+        game.setVerbose(false);
+        game.setAutoDeal(false);
+        GameEventStream.Cursor cursor = game.getEvents().cursor();
+        game.startNewRound();
+
+        SplittableRandom random = new SplittableRandom(53);
+        GameEvent event = new GameEvent();
+        int[] stacks = new int[players.size()];
+        int[] net = new int[players.size()];
+        long putIn = 0;
+        long won = 0;
+        int hands = 0;
+        while (hands < 20_000) {
+            if (game.getCurrentRound() == Game.BettingRound.SHOWDOWN) {
+                for (Player player : players) {
+                    if (player.getChips() < game.getMinBet()) {
+                        player.addChips(1_000);
+                    }
+                }
+            }
+            TestGames.act(game, random);
+            while (cursor.poll(event)) {
+                switch (event.getType()) {
+                    case HAND_START:
+                        putIn = 0;
+                        won = 0;
+                        Arrays.fill(stacks, -1);
+                        Arrays.fill(net, 0);
+                        break;
+                    case SEAT:
+                        stacks[event.getSeat()] = event.getAmount();
+                        break;
+                    case BLIND:
+                    case ACTION:
+                        putIn += event.getAmount();
+                        net[event.getSeat()] -= event.getAmount();
+                        break;
+                    case POT_AWARD:
+                        won += event.getAmount();
+                        net[event.getSeat()] += event.getAmount();
+                        break;
+                    case HAND_END:
+                        assertEquals(putIn, won, "hand " + event.getHandNumber());
+                        for (int seat = 0; seat < stacks.length; seat++) {
+                            if (stacks[seat] >= 0) {
+                                assertEquals(stacks[seat] + net[seat], players.get(seat).getChips());
+                            }
+                        }
+                        hands++;
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+        assertEquals(0, cursor.getMissed());
+    }
+
+    /**
+     * Publishes an event whose every field is worked out from its sequence number.
+     */
+    private static void publish(GameEventStream stream, long sequence) {
+        stream.publish(TYPES[(int) (sequence % TYPES.length)], sequence, Game.BettingRound.FLOP,
+            (int) (sequence % 10), Action.Type.CALL, (int) sequence * 3, sequence * 0x9E3779B97F4A7C15L, ~(int) sequence);
+    }
+
+    private static void checkWhole(GameEvent event) {
+        assertTrue(isWhole(event), () -> "torn event " + event);
+    }
+
+    /**
+     * Checks that an event's fields all belong to its sequence number.
+     */
+    private static boolean isWhole(GameEvent event) {
+        long sequence = event.getSequence();
+        return event.getType() == TYPES[(int) (sequence % TYPES.length)]
+            && event.getHandNumber() == sequence
+            && event.getSeat() == (int) (sequence % 10)
+            && event.getAmount() == (int) sequence * 3
+            && event.getCards() == sequence * 0x9E3779B97F4A7C15L
+            && event.getValue() == ~(int) sequence;
+    }
+}
@@ -0,0 +1,104 @@
+package texasholdem.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that a game saved mid-hand and restored carries on exactly as the original does.
+ */
+class GameSnapshotTest {
+    private static final String[] NAMES = { "You", "AI Bot", "Zoë", "Computer 3" };
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void restoredGameContinuesLikeTheOriginal() throws IOException {
+        SplittableRandom random = new SplittableRandom(9);
+        Path file = directory.resolve(GameSnapshot.DEFAULT_FILE);
+        int compared = 0;
+        for (int table = 0; table < 100; table++) {
+            Game game = newGame(random);
+            int steps = random.nextInt(60);
+            for (int i = 0; i < steps && !game.isGameOver(); i++) {
+                TestGames.act(game, random);
+            }
+            if (game.isGameOver()) {
+                continue;
+            }
+
+            GameSnapshot.take(game).write(file);
+            GameSnapshot snapshot = GameSnapshot.read(file);
+            assertArrayEquals(NAMES, snapshot.getPlayerNames());
+            Game restored = snapshot.restore(TestGames.players(NAMES));
+            restored.setAutoDeal(false);
+            assertEquals(TestGames.describe(game.getState()), TestGames.describe(restored.getState()));
+
+            // The same actions from here on, through the hands still to be dealt
+            long seed = random.nextLong();
+            SplittableRandom original = new SplittableRandom(seed);
+            SplittableRandom copy = new SplittableRandom(seed);
+            for (int i = 0; i < 200 && !game.isGameOver(); i++) {
+                TestGames.act(game, original);
+                TestGames.act(restored, copy);
+                assertEquals(TestGames.describe(game.getState()), TestGames.describe(restored.getState()),
+                    "table " + table + ", step " + i);
+                compared++;
+            }
+        }
+        assertTrue(compared > 1000, "only " + compared + " steps compared");
+    }
+
+    @Test
+    void takingSnapshotsLeavesTheGameAlone() {
+        Game watched = newGame(new SplittableRandom(4));
+        Game untouched = newGame(new SplittableRandom(4));
+        SplittableRandom first = new SplittableRandom(8);
+        SplittableRandom second = new SplittableRandom(8);
+        for (int i = 0; i < 2000 && !watched.isGameOver(); i++) {
+            GameSnapshot.take(watched);
+            TestGames.act(watched, first);
+            TestGames.act(untouched, second);
+            assertEquals(TestGames.describe(untouched.getState()), TestGames.describe(watched.getState()));
+        }
+    }
+
+    @Test
+    void rejectsFilesThatAreNotSnapshots() throws IOException {
+        Path file = directory.resolve("other.bin");
+        Files.write(file, new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 });
+        assertThrows(IOException.class, () -> GameSnapshot.read(file));
+
+        GameSnapshot.take(newGame(new SplittableRandom(1))).write(file);
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 3));
+        assertThrows(IOException.class, () -> GameSnapshot.read(file));
+    }
+
+    /**
+     * Deals the first hand of a four-handed game with random stacks.
+     */
+    private static Game newGame(SplittableRandom random) {
+        List<Player> players = TestGames.players(NAMES);
+        for (Player player : players) {
+            player.addChips(200 + random.nextInt(800));
+        }
+        Game game = new Game(players, 10, random.nextLong());
+        game.setVerbose(false);
+        game.setAutoDeal(false);
+        game.startNewRound();
+        return game;
+    }
+}
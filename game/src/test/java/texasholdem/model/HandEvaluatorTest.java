@@ -0,0 +1,162 @@
+package texasholdem.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks {@link HandEvaluator} against a plain five-card scorer that counts ranks and suits,
+ * taking the best five of seven cards by trying all 21.
+ */
+class HandEvaluatorTest {
+    private static final int RANKS = Card.Rank.COUNT;
+
+    @Test
+    void countsEveryFiveCardHandOfEachRank() {
+        long[] counts = new long[HandEvaluator.HandRank.values().length];
+        int[] cards = new int[5];
+        forEachHand(cards, 0, 0, () -> {
+            long mask = 0L;
+            for (int card : cards) {
+                mask |= CardMask.bit(card);
+            }
+            counts[HandEvaluator.rankOf(HandEvaluator.evaluate(mask)).getValue()]++;
+        });
+        // High card up to royal flush, out of the 2,598,960 hands
+        assertArrayEquals(new long[] { 1_302_540, 1_098_240, 123_552, 54_912, 10_200, 5_108, 3_744, 624, 36, 4 }, counts);
+    }
+
+    @Test
+    void ranksSevenCardHandsLikeTheBestFiveOfThem() {
+        SplittableRandom random = new SplittableRandom(11);
+        Deck deck = new Deck(random.nextLong());
+        long previousMask = 0L;
+        int previousStrength = 0;
+        long previousScore = 0L;
+        for (int trial = 0; trial < 50_000; trial++) {
+            deck.resetWithout(0L);
+            long mask = deck.dealMask(5 + random.nextInt(3));
+            int strength = HandEvaluator.evaluate(mask);
+            long score = bestFive(mask);
+            assertEquals(score >>> 20, HandEvaluator.rankOf(strength).getValue(), () -> CardMask.toList(mask).toString());
+            if (trial > 0) {
+                long previous = previousMask;
+                assertEquals(Long.signum(score - previousScore), Integer.signum(strength - previousStrength),
+                    () -> CardMask.toList(mask) + " against " + CardMask.toList(previous));
+            }
+            previousMask = mask;
+            previousStrength = strength;
+            previousScore = score;
+        }
+    }
+
+    /**
+     * Calls an action for every set of five distinct cards, in increasing order.
+     */
+    private static void forEachHand(int[] cards, int depth, int from, Runnable action) {
+        if (depth == cards.length) {
+            action.run();
+            return;
+        }
+        for (int card = from; card < Card.COUNT; card++) {
+            cards[depth] = card;
+            forEachHand(cards, depth + 1, card + 1, action);
+        }
+    }
+
+    /**
+     * Scores the best five cards of a mask by trying every five of them; the category is the
+     * score's bits from 20 up.
+     */
+    private static long bestFive(long mask) {
+        int[] cards = new int[CardMask.count(mask)];
+        int count = 0;
+        for (long rest = mask; rest != 0; rest &= rest - 1) {
+            cards[count++] = CardMask.lowestIndex(rest);
+        }
+        long best = -1;
+        int[] five = new int[5];
+        for (int subset = 0; subset < 1 << count; subset++) {
+            if (Integer.bitCount(subset) != 5) {
+                continue;
+            }
+            int n = 0;
+            for (int i = 0; i < count; i++) {
+                if ((subset & 1 << i) != 0) {
+                    five[n++] = cards[i];
+                }
+            }
+            best = Math.max(best, scoreFive(five));
+        }
+        return best;
+    }
+
+    /**
+     * Scores five cards: the category (0 for high card up to 9 for a royal flush) above the
+     * ranks that break ties, in order of importance.
+     */
+    private static long scoreFive(int[] five) {
+        int[] rankCounts = new int[RANKS];
+        boolean flush = true;
+        for (int card : five) {
+            rankCounts[card % RANKS]++;
+            flush &= card / RANKS == five[0] / RANKS;
+        }
+        // Ranks ordered by how many of each there are, then by rank
+        int[] order = new int[5];
+        int n = 0;
+        for (int copies = 4; copies >= 1; copies--) {
+            for (int rank = RANKS - 1; rank >= 0; rank--) {
+                if (rankCounts[rank] == copies) {
+                    for (int c = 0; c < copies; c++) {
+                        order[n++] = rank;
+                    }
+                }
+            }
+        }
+        int straightHigh = -1;
+        if (rankCounts[order[0]] == 1) {
+            if (order[0] - order[4] == 4) {
+                straightHigh = order[0];
+            } else if (order[0] == RANKS - 1 && order[1] == 3) {
+                // A-2-3-4-5, with the five high
+                straightHigh = 3;
+            }
+        }
+
+        int category;
+        int first = rankCounts[order[0]];
+        int second = rankCounts[order[first]];
+        if (straightHigh >= 0 && flush) {
+            category = straightHigh == RANKS - 1 ? 9 : 8;
+        } else if (first == 4) {
+            category = 7;
+        } else if (first == 3 && second == 2) {
+            category = 6;
+        } else if (flush) {
+            category = 5;
+        } else if (straightHigh >= 0) {
+            category = 4;
+        } else if (first == 3) {
+            category = 3;
+        } else if (first == 2 && second == 2) {
+            category = 2;
+        } else if (first == 2) {
+            category = 1;
+        } else {
+            category = 0;
+        }
+
+        long score = category;
+        if (straightHigh >= 0) {
+            return score << 20 | straightHigh;
+        }
+        for (int rank : order) {
+            score = score << 4 | rank;
+        }
+        return score;
+    }
+}
@@ -0,0 +1,261 @@
+package texasholdem.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Records hands to a hand history and checks the PokerStars text {@link HandHistoryExporter}
+ * makes of them.
+ */
+class HandHistoryExporterTest {
+    /** Zoë's name takes two bytes in UTF-8 */
+    private static final String[] NAMES = { "You", "AI Bot", "Zoë" };
+
+    /** 14:30 in New York, the day before the clocks change */
+    private static final Instant WRITTEN = Instant.parse("2024-03-09T19:30:00Z");
+
+    /**
+     * The three hands {@link #playScriptedHands(Path)} plays: a split pot after a raise before
+     * the flop and a bet on the turn, an all-in called short that leaves an uncalled bet and
+     * knocks Zoë out, and a heads-up hand with a re-raise and a river bet no one calls.
+     */
+    private static final String EXPECTED = """
+        PokerStars Hand #1: Hold'em No Limit (5/10) - 2024/03/09 14:30:00 ET
+        Table 'hands-000000' 3-max Seat #2 is the button
+        Seat 1: You (1000 in chips)
+        Seat 2: AI Bot (1000 in chips)
+        Seat 3: Zoë (150 in chips)
+        Zoë: posts small blind 5
+        You: posts big blind 10
+        *** HOLE CARDS ***
+        Dealt to You [Ks Tc]
+        Dealt to AI Bot [Kd Th]
+        Dealt to Zoë [Js 2d]
+        AI Bot: raises 20 to 30
+        Zoë: calls 25
+        You: calls 20
+        *** FLOP *** [4h 7d 2c]
+        Zoë: checks
+        You: checks
+        AI Bot: checks
+        *** TURN *** [4h 7d 2c] [9h]
+        Zoë: checks
+        You: bets 40
+        AI Bot: calls 40
+        Zoë: folds
+        *** RIVER *** [4h 7d 2c 9h] [Ac]
+        You: checks
+        AI Bot: checks
+        *** SHOW DOWN ***
+        You: shows [Ks Tc] (High Card)
+        AI Bot: shows [Kd Th] (High Card)
+        You collected 85 from pot
+        AI Bot collected 85 from pot
+        *** SUMMARY ***
+        Total pot 170 | Rake 0
+        Board [4h 7d 2c 9h Ac]
+        Seat 1: You (big blind) showed [Ks Tc] and won (85) with High Card
+        Seat 2: AI Bot (button) showed [Kd Th] and won (85) with High Card
+        Seat 3: Zoë (small blind) folded on the Turn
+
+
+        PokerStars Hand #2: Hold'em No Limit (5/10) - 2024/03/09 14:30:00 ET
+        Table 'hands-000000' 3-max Seat #3 is the button
+        Seat 1: You (1015 in chips)
+        Seat 2: AI Bot (1015 in chips)
+        Seat 3: Zoë (120 in chips)
+        You: posts small blind 5
+        AI Bot: posts big blind 10
+        *** HOLE CARDS ***
+        Dealt to You [Qs 2c]
+        Dealt to AI Bot [9s 5c]
+        Dealt to Zoë [6h 4d]
+        Zoë: calls 10
+        You: raises 1005 to 1015 and is all-in
+        AI Bot: folds
+        Zoë: calls 110 and is all-in
+        Uncalled bet (895) returned to You
+        *** FLOP *** [7d Qd 4c]
+        *** TURN *** [7d Qd 4c] [Tc]
+        *** RIVER *** [7d Qd 4c Tc] [Qc]
+        *** SHOW DOWN ***
+        You: shows [Qs 2c] (Three of a Kind)
+        Zoë: shows [6h 4d] (Two Pair)
+        You collected 250 from pot
+        *** SUMMARY ***
+        Total pot 250 | Rake 0
+        Board [7d Qd 4c Tc Qc]
+        Seat 1: You (small blind) showed [Qs 2c] and won (250) with Three of a Kind
+        Seat 2: AI Bot (big blind) folded before Flop
+        Seat 3: Zoë (button) showed [6h 4d] and lost with Two Pair
+
+
+        PokerStars Hand #3: Hold'em No Limit (5/10) - 2024/03/09 14:30:00 ET
+        Table 'hands-000000' 3-max Seat #1 is the button
+        Seat 1: You (1145 in chips)
+        Seat 2: AI Bot (1005 in chips)
+        You: posts small blind 5
+        AI Bot: posts big blind 10
+        *** HOLE CARDS ***
+        Dealt to You [Qc 3d]
+        Dealt to AI Bot [9c 8s]
+        You: raises 20 to 30
+        AI Bot: raises 40 to 70
+        You: calls 40
+        *** FLOP *** [3h Tc 5s]
+        AI Bot: checks
+        You: checks
+        *** TURN *** [3h Tc 5s] [8d]
+        AI Bot: checks
+        You: checks
+        *** RIVER *** [3h Tc 5s 8d] [As]
+        AI Bot: bets 50
+        You: folds
+        Uncalled bet (50) returned to AI Bot
+        AI Bot collected 140 from pot
+        *** SUMMARY ***
+        Total pot 140 | Rake 0
+        Board [3h Tc 5s 8d As]
+        Seat 1: You (button) (small blind) folded on the River
+        Seat 2: AI Bot (big blind) collected (140)
+
+
+        """;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void writesRecordedHandsAsPokerStarsText() throws IOException {
+        playScriptedHands(directory);
+        List<Path> segments = HandHistoryReader.findSegments(directory);
+        for (Path segment : segments) {
+            Files.setLastModifiedTime(segment, FileTime.from(WRITTEN));
+        }
+        Path output = directory.resolve("hands.txt");
+        assertEquals(3, new HandHistoryExporter().export(segments, output));
+        assertEquals(EXPECTED, Files.readString(output, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void encodesEveryHandAcrossBufferFlushes() throws IOException {
+        List<Player> players = TestGames.players(NAMES);
+        Game game = new Game(players, 10, 59L);
+        game.setVerbose(false);
+        game.setAutoDeal(false);
+        // Written from a cursor drained after every action, as the game doesn't wait for a
+        // subscription that falls a ring of events behind
+        GameEventStream.Cursor cursor = game.getEvents().cursor();
+        GameEvent event = new GameEvent();
+        HandHistoryWriter writer = new HandHistoryWriter(directory, NAMES);
+        SplittableRandom random = new SplittableRandom(61);
+        int hands = 0;
+        while (hands < 6_000 || game.getCurrentRound() != Game.BettingRound.SHOWDOWN) {
+            if (game.getCurrentRound() == Game.BettingRound.SHOWDOWN || hands == 0) {
+                for (Player player : players) {
+                    if (player.getChips() < game.getMinBet()) {
+                        player.addChips(1_000);
+                    }
+                }
+                game.startNewRound();
+                hands++;
+            } else {
+                TestGames.act(game, random);
+            }
+            while (cursor.poll(event)) {
+                writer.onEvent(event);
+            }
+        }
+        writer.close();
+        assertEquals(0, cursor.getMissed());
+
+        Path output = directory.resolve("hands.txt");
+        assertEquals(hands, new HandHistoryExporter().export(HandHistoryReader.findSegments(directory), output));
+        byte[] bytes = Files.readAllBytes(output);
+        assertTrue(bytes.length > HandHistoryExporter.BUFFER_BYTES, "the buffer never filled");
+        // Throws if a character was cut in two where the buffer was written out
+        String text = StandardCharsets.UTF_8.newDecoder().decode(ByteBuffer.wrap(bytes)).toString();
+        assertEquals(hands, text.split("PokerStars Hand #", -1).length - 1);
+        assertEquals(hands, text.split("\nDealt to Zoë ", -1).length - 1);
+    }
+
+    /**
+     * Plays the three hands of {@link #EXPECTED}, recording them to a history directory. The
+     * cards come from the game's seed; the actions are set by hand.
+     */
+    private static void playScriptedHands(Path directory) {
+        List<Player> players = TestGames.players(NAMES);
+        players.get(0).addChips(1_000);
+        players.get(1).addChips(1_000);
+        players.get(2).addChips(150);
+        Game game = new Game(players, 10, 31L);
+        game.setVerbose(false);
+        game.setAutoDeal(false);
+        game.setHistoryDirectory(directory);
+        for (int hand = 1; hand <= 3; hand++) {
+            game.startNewRound();
+            while (game.getCurrentRound() != Game.BettingRound.SHOWDOWN) {
+                assertTrue(act(game, hand), "hand " + hand + ", " + game.getCurrentRound());
+            }
+        }
+        // Waits for the writer to catch up and closes the history
+        game.setHistoryDirectory(null);
+    }
+
+    /**
+     * Takes the current player's action in one of the scripted hands.
+     */
+    private static boolean act(Game game, int hand) {
+        Player player = game.getCurrentPlayer();
+        boolean zoe = player == game.getPlayers().get(2);
+        boolean you = player == game.getPlayers().get(0);
+        int maxBet = game.getMaxBet();
+        boolean facingBet = maxBet > player.getCurrentBet();
+        Game.BettingRound round = game.getCurrentRound();
+        switch (hand) {
+            case 1:
+                // A raise and two calls, then a bet on the turn Zoë folds to
+                if (round == Game.BettingRound.PREFLOP) {
+                    return maxBet == game.getMinBet() ? game.raise(20) : game.call();
+                }
+                if (round == Game.BettingRound.TURN) {
+                    if (zoe) {
+                        return facingBet ? game.fold() : game.check();
+                    }
+                    return maxBet == 0 ? game.bet(40) : game.call();
+                }
+                return game.check();
+            case 2:
+                // You move all-in, AI Bot folds and Zoë calls with less
+                if (you && maxBet == game.getMinBet()) {
+                    return game.raise(2_000);
+                }
+                if (!zoe && maxBet > game.getMinBet()) {
+                    return game.fold();
+                }
+                return facingBet ? game.call() : game.check();
+            default:
+                // A raise and a re-raise heads-up, then a river bet that goes uncalled
+                if (round == Game.BettingRound.PREFLOP) {
+                    return maxBet == game.getMinBet() ? game.raise(20) : maxBet == 30 ? game.raise(40) : game.call();
+                }
+                if (round == Game.BettingRound.RIVER) {
+                    return maxBet == 0 ? game.bet(50) : game.fold();
+                }
+                return game.check();
+        }
+    }
+}
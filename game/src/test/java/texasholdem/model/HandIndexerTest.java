@@ -0,0 +1,98 @@
+package texasholdem.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that {@link HandIndexer} gives every suit renaming of a hand the same index, and that
+ * its indexes turn back into hands with those indexes.
+ */
+class HandIndexerTest {
+    private static final HandIndexer[] INDEXERS = {
+        HandIndexer.PREFLOP, HandIndexer.FLOP, HandIndexer.TURN, HandIndexer.RIVER
+    };
+
+    @Test
+    void countsHandsUpToSuits() {
+        assertEquals(169, HandIndexer.PREFLOP.size());
+        assertEquals(1_286_792, HandIndexer.FLOP.size());
+        assertEquals(13_960_050, HandIndexer.TURN.size());
+        assertEquals(123_156_254, HandIndexer.RIVER.size());
+    }
+
+    @Test
+    void renamingSuitsKeepsTheIndex() {
+        SplittableRandom random = new SplittableRandom(3);
+        Deck deck = new Deck(random.nextLong());
+        int[] suits = { 0, 1, 2, 3 };
+        for (HandIndexer indexer : INDEXERS) {
+            long[] rounds = new long[indexer.getRounds()];
+            long[] renamed = new long[rounds.length];
+            for (int trial = 0; trial < 20_000; trial++) {
+                deck.resetWithout(0L);
+                for (int r = 0; r < rounds.length; r++) {
+                    rounds[r] = deck.dealMask(indexer.getCards(r));
+                }
+                shuffle(suits, random);
+                for (int r = 0; r < rounds.length; r++) {
+                    renamed[r] = renameSuits(rounds[r], suits);
+                }
+                long index = indexer.index(rounds);
+                assertTrue(index >= 0 && index < indexer.size());
+                assertEquals(index, indexer.index(renamed));
+            }
+        }
+    }
+
+    @Test
+    void everyPreflopAndFlopIndexRoundTrips() {
+        for (HandIndexer indexer : new HandIndexer[] { HandIndexer.PREFLOP, HandIndexer.FLOP }) {
+            long[] rounds = new long[indexer.getRounds()];
+            for (long index = 0; index < indexer.size(); index++) {
+                indexer.unindex(index, rounds);
+                assertEquals(index, indexer.index(rounds));
+            }
+        }
+    }
+
+    @Test
+    void sampledTurnAndRiverIndexesRoundTrip() {
+        SplittableRandom random = new SplittableRandom(5);
+        for (HandIndexer indexer : new HandIndexer[] { HandIndexer.TURN, HandIndexer.RIVER }) {
+            long[] rounds = new long[indexer.getRounds()];
+            for (int trial = 0; trial < 200_000; trial++) {
+                long index = random.nextLong(indexer.size());
+                indexer.unindex(index, rounds);
+                assertEquals(2, CardMask.count(rounds[0]));
+                assertEquals(indexer.getCards(1), CardMask.count(rounds[1]));
+                assertEquals(0L, rounds[0] & rounds[1]);
+                assertEquals(index, indexer.index(rounds));
+            }
+        }
+    }
+
+    /**
+     * Moves each suit's cards to another suit.
+     */
+    private static long renameSuits(long mask, int[] suits) {
+        long renamed = 0L;
+        for (int suit = 0; suit < suits.length; suit++) {
+            long lane = mask >>> suit * CardMask.LANE_WIDTH & (1L << CardMask.LANE_WIDTH) - 1;
+            renamed |= lane << suits[suit] * CardMask.LANE_WIDTH;
+        }
+        return renamed;
+    }
+
+    private static void shuffle(int[] values, SplittableRandom random) {
+        for (int i = values.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = values[i];
+            values[i] = values[j];
+            values[j] = swap;
+        }
+    }
+}
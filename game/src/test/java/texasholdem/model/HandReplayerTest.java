@@ -0,0 +1,106 @@
+package texasholdem.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Records hands to a hand history, replays them with {@link HandReplayer} and checks that the
+ * table goes through the same states as when the hands were played.
+ */
+class HandReplayerTest {
+    private static final String[] NAMES = { "You", "AI Bot", "Zoë", "Computer 3", "Computer 4" };
+
+    private static final int HANDS = 300;
+
+    private static final int STARTING_CHIPS = 500;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void replaysRecordedHandsThroughTheSameStates() throws IOException {
+        Map<Long, List<String>> played = play();
+
+        int replayed = 0;
+        HandRecord record = new HandRecord();
+        for (Path segment : HandHistoryReader.findSegments(directory)) {
+            HandHistoryReader reader = HandHistoryReader.open(segment);
+            assertArrayEquals(NAMES, reader.getPlayerNames());
+            HandReplayer replayer = new HandReplayer(NAMES);
+            while (reader.next(record)) {
+                List<String> states = played.get(record.getHandNumber());
+                replayer.load(record);
+                assertEquals(states.size() - 1, replayer.getActionCount());
+                assertEquals(states.get(0), TestGames.describe(replayer.getState()));
+                for (int action = 1; action < states.size(); action++) {
+                    replayer.step();
+                    assertEquals(states.get(action), TestGames.describe(replayer.getState()),
+                        "hand " + record.getHandNumber() + ", action " + action);
+                }
+                assertFalse(replayer.step());
+                for (int seat = 0; seat < NAMES.length; seat++) {
+                    assertEquals(record.getWinnings(seat), replayer.getGame().getLastWinnings(seat));
+                }
+
+                // Seeking back goes through the checkpoints, and must land on the same states
+                for (int action = states.size() - 1; action >= 0; action -= 3) {
+                    replayer.seek(action);
+                    assertEquals(states.get(action), TestGames.describe(replayer.getState()));
+                }
+                replayed++;
+            }
+        }
+        assertEquals(played.size(), replayed);
+    }
+
+    /**
+     * Plays hands with random actions, recording them to the history directory, and keeps the
+     * state of the table after the blinds and after every action of each hand.
+     */
+    private Map<Long, List<String>> play() {
+        List<Player> players = TestGames.players(NAMES);
+        for (Player player : players) {
+            player.addChips(STARTING_CHIPS);
+        }
+        Game game = new Game(players, 10, 21L);
+        game.setVerbose(false);
+        game.setAutoDeal(false);
+        game.setHistoryDirectory(directory);
+
+        SplittableRandom random = new SplittableRandom(17);
+        Map<Long, List<String>> states = new HashMap<>();
+        List<String> hand = null;
+        while (states.size() < HANDS || game.getCurrentRound() != Game.BettingRound.SHOWDOWN) {
+            if (game.getCurrentRound() == Game.BettingRound.SHOWDOWN || hand == null) {
+                // Top up anyone who can't cover the big blind, so the table keeps going
+                for (Player player : players) {
+                    if (player.getChips() < game.getMinBet()) {
+                        player.addChips(STARTING_CHIPS);
+                    }
+                }
+                game.startNewRound();
+                hand = new ArrayList<>();
+                hand.add(TestGames.describe(game.getState()));
+                states.put(game.getHandNumber(), hand);
+                continue;
+            }
+            TestGames.act(game, random);
+            hand.add(TestGames.describe(game.getState()));
+        }
+        // Waits for the writer to catch up and closes the history
+        game.setHistoryDirectory(null);
+        return states;
+    }
+}
@@ -0,0 +1,93 @@
+package texasholdem.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks {@link IncrementalHand} against {@link HandEvaluator#evaluate(long)} card by card.
+ */
+class IncrementalHandTest {
+    @Test
+    void everyPrefixOfADealMatchesTheEvaluator() {
+        SplittableRandom random = new SplittableRandom(13);
+        Deck deck = new Deck(random.nextLong());
+        IncrementalHand hand = new IncrementalHand();
+        IncrementalHand copy = new IncrementalHand();
+        for (int trial = 0; trial < 100_000; trial++) {
+            deck.resetWithout(0L);
+            hand.reset();
+            int node = IncrementalHand.EMPTY;
+            long cards = 0L;
+            for (int n = 1; n <= 7; n++) {
+                int index = deck.dealIndex();
+                hand.add(index);
+                node = IncrementalHand.addCard(node, index);
+                cards |= CardMask.bit(index);
+
+                int expected = HandEvaluator.evaluate(cards);
+                assertEquals(expected, hand.getStrength(), () -> CardMask.toList(hand.getCards()).toString());
+                assertEquals(expected, IncrementalHand.strength(node, cards));
+                assertEquals(cards, hand.getCards());
+                assertEquals(n, hand.getCardCount());
+            }
+            // Carrying a board forward gives the same hand as dealing it all at once
+            copy.copyFrom(hand);
+            assertEquals(hand.getStrength(), copy.getStrength());
+        }
+    }
+
+    @Test
+    void addingAMaskMatchesTheEvaluator() {
+        SplittableRandom random = new SplittableRandom(19);
+        Deck deck = new Deck(random.nextLong());
+        IncrementalHand hand = new IncrementalHand();
+        for (int trial = 0; trial < 50_000; trial++) {
+            deck.resetWithout(0L);
+            long cards = deck.dealMask(2 + random.nextInt(6));
+            hand.reset();
+            hand.addAll(cards);
+            assertEquals(HandEvaluator.evaluate(cards), hand.getStrength());
+            assertEquals(HandEvaluator.rankOf(HandEvaluator.evaluate(cards)), hand.getRank());
+        }
+    }
+
+    @Test
+    void gameKeepsEverySeatsStrengthUpToDate() {
+        String[] names = { "You", "AI Bot", "Computer 2", "Computer 3", "Computer 4", "Computer 5" };
+        List<Player> players = TestGames.players(names);
+        for (Player player : players) {
+            player.addChips(1_000);
+        }
+        Game game = new Game(players, 10, 31L);
+        game.setVerbose(false);
+        game.setAutoDeal(false);
+        game.startNewRound();
+
+        SplittableRandom random = new SplittableRandom(23);
+        int checked = 0;
+        for (int step = 0; step < 20_000; step++) {
+            if (game.getCurrentRound() == Game.BettingRound.SHOWDOWN) {
+                // Top up anyone who went broke, so all six seats keep getting cards
+                for (Player player : players) {
+                    if (player.getChips() < game.getMinBet()) {
+                        player.addChips(1_000);
+                    }
+                }
+            }
+            TestGames.act(game, random);
+            for (int seat = 0; seat < names.length; seat++) {
+                long hole = players.get(seat).getHoleMask();
+                if (hole != 0L) {
+                    assertEquals(HandEvaluator.evaluate(hole | game.getBoardMask()), game.getHandStrength(seat));
+                    checked++;
+                }
+            }
+        }
+        assertTrue(checked > 50_000, "only " + checked + " seats checked");
+    }
+}
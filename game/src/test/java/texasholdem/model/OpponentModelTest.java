@@ -0,0 +1,203 @@
+package texasholdem.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the stats {@link OpponentModel} keeps from actions, and the ranges it guesses from them.
+ */
+class OpponentModelTest {
+    private static final Game.BettingRound PREFLOP = Game.BettingRound.PREFLOP;
+
+    private static final Game.BettingRound FLOP = Game.BettingRound.FLOP;
+
+    /** 2c 7d Jh, a board that pairs few ranges */
+    private static final long BOARD = CardMask.bit(RangeTest.card("2c")) | CardMask.bit(RangeTest.card("7d"))
+        | CardMask.bit(RangeTest.card("Jh"));
+
+    @Test
+    void countsRaisesAndCallsBeforeTheFlop() {
+        OpponentModel model = new OpponentModel(4, 1f);
+        model.startHand(0);
+        model.recordAction(0, PREFLOP, Action.Type.RAISE);
+        model.recordAction(1, PREFLOP, Action.Type.CALL);
+        model.recordAction(2, PREFLOP, Action.Type.FOLD);
+        model.recordAction(3, PREFLOP, Action.Type.CHECK);
+        model.endHand();
+
+        // One chance each against five of the typical 30% VPIP and 15% PFR
+        assertEquals(2.5f / 6, model.getStats(0).getVpip(), 1e-6);
+        assertEquals(1.75f / 6, model.getStats(0).getPfr(), 1e-6);
+        assertEquals(2.5f / 6, model.getStats(1).getVpip(), 1e-6);
+        assertEquals(0.75f / 6, model.getStats(1).getPfr(), 1e-6);
+        // Folding and checking the big blind put nothing in voluntarily
+        for (int seat = 2; seat < 4; seat++) {
+            assertEquals(1.5f / 6, model.getStats(seat).getVpip(), 1e-6);
+            assertEquals(0.75f / 6, model.getStats(seat).getPfr(), 1e-6);
+            assertEquals(1, model.getStats(seat).getHands());
+        }
+    }
+
+    @Test
+    void recentHandsCountTheMost() {
+        float decay = 0.9f;
+        OpponentModel model = new OpponentModel(2, decay);
+        for (int hand = 0; hand < 100; hand++) {
+            model.startHand(0);
+            model.recordAction(0, PREFLOP, hand < 50 ? Action.Type.RAISE : Action.Type.FOLD);
+            model.recordAction(1, PREFLOP, hand < 50 ? Action.Type.FOLD : Action.Type.RAISE);
+        }
+        model.endHand();
+
+        // Hits in the first 50 of 100 chances have decayed by 0.9^50 or more
+        double chances = (1 - Math.pow(decay, 100)) / (1 - decay);
+        double early = Math.pow(decay, 50) * (1 - Math.pow(decay, 50)) / (1 - decay);
+        double late = chances - early;
+        assertEquals((early + 1.5) / (chances + 5), model.getStats(0).getVpip(), 1e-4);
+        assertEquals((late + 0.75) / (chances + 5), model.getStats(1).getPfr(), 1e-4);
+        assertTrue(model.getStats(0).getVpip() < 0.15f);
+        assertTrue(model.getStats(1).getVpip() > 0.7f);
+        assertEquals(100, model.getStats(0).getHands());
+    }
+
+    @Test
+    void countsFoldsToContinuationBetsOnly() {
+        OpponentModel model = new OpponentModel(3, 1f);
+        // Seat 0 raises, seat 1 calls and folds to the c-bet
+        playFlop(model, Action.Type.FOLD);
+        assertEquals(3.25f / 6, model.getStats(1).getFoldToCbet(), 1e-6);
+        // The same, with a call
+        playFlop(model, Action.Type.CALL);
+        assertEquals(3.25f / 7, model.getStats(1).getFoldToCbet(), 1e-6);
+        model.endHand();
+
+        // A bet from someone who didn't raise before the flop isn't a c-bet
+        model.startHand(0);
+        model.recordAction(0, PREFLOP, Action.Type.RAISE);
+        model.recordAction(1, PREFLOP, Action.Type.CALL);
+        model.recordAction(1, FLOP, Action.Type.BET);
+        model.recordAction(0, FLOP, Action.Type.FOLD);
+        assertEquals(0.45f, model.getStats(0).getFoldToCbet(), 1e-6);
+
+        // Once a c-bet is raised, folding is to the raise
+        model.startHand(0);
+        model.recordAction(0, PREFLOP, Action.Type.RAISE);
+        model.recordAction(1, PREFLOP, Action.Type.CALL);
+        model.recordAction(2, PREFLOP, Action.Type.CALL);
+        model.recordAction(0, FLOP, Action.Type.BET);
+        model.recordAction(1, FLOP, Action.Type.RAISE);
+        model.recordAction(2, FLOP, Action.Type.FOLD);
+        assertEquals(0.45f, model.getStats(2).getFoldToCbet(), 1e-6);
+        assertEquals(3.25f / 8, model.getStats(1).getFoldToCbet(), 1e-6);
+    }
+
+    @Test
+    void callingACbetKeepsTheStrongestShareNotFoldedToCbets() {
+        OpponentModel model = new OpponentModel(3, 1f);
+        playFlop(model, Action.Type.CALL);
+        model.recordAction(2, FLOP, Action.Type.FOLD);
+        // Seats 1 and 2 both called before the flop; only seat 1 called the c-bet
+        Range before = model.estimateRange(2, BOARD, 0L);
+        Range after = model.estimateRange(1, BOARD, 0L);
+        float share = 1f - model.getStats(1).getFoldToCbet();
+        assertEquals(1 - 2.25f / 6, share, 1e-6);
+        checkStrongestKept(before, after, share);
+    }
+
+    @Test
+    void bettingKeepsAShareByAggression() {
+        OpponentModel model = new OpponentModel(3, 1f);
+        OpponentModel passive = new OpponentModel(3, 1f);
+        playFlop(model, Action.Type.CALL);
+        playFlop(passive, null);
+        Range before = passive.estimateRange(0, BOARD, 0L);
+        Range after = model.estimateRange(0, BOARD, 0L);
+        // One bet and no calls after the flop: an aggression factor of 6/5
+        checkStrongestKept(before, after, 0.3f * 6 / 5);
+    }
+
+    @Test
+    void shownHandsStayInTheRange() {
+        OpponentModel model = new OpponentModel(2, 1f);
+        long sevenTwo = CardMask.bit(RangeTest.card("7h")) | CardMask.bit(RangeTest.card("2s"));
+        model.startHand(0);
+        model.recordAction(0, PREFLOP, Action.Type.CALL);
+        model.recordShowdown(0, sevenTwo);
+        model.endHand();
+        assertArrayEquals(new int[] { RangeTest.combo("7h2s") }, model.getStats(0).getShownHands());
+
+        model.startHand(0);
+        model.recordAction(0, PREFLOP, Action.Type.CALL);
+        Range range = model.estimateRange(0, 0L, 0L);
+        // Every offsuit seven-two, not just the one shown; the suited ones are still unlikely
+        assertEquals(1f, range.getWeight(RangeTest.combo("7d2c")));
+        assertEquals(1f, range.getWeight(RangeTest.combo("7h2s")));
+        assertTrue(range.getWeight(RangeTest.combo("7d2d")) < 1f);
+        assertTrue(range.getWeight(RangeTest.combo("8d2c")) < 1f);
+    }
+
+    @Test
+    void remembersTheLastShownHandsInARing() {
+        PlayerStats stats = new PlayerStats(1f);
+        for (int combo = 0; combo < PlayerStats.SHOWN_HANDS + 5; combo++) {
+            stats.recordShown(combo);
+        }
+        assertEquals(PlayerStats.SHOWN_HANDS, stats.getShownCount());
+        int[] shown = stats.getShownHands();
+        for (int i = 0; i < shown.length; i++) {
+            assertEquals(PlayerStats.SHOWN_HANDS + 4 - i, shown[i]);
+            assertEquals(shown[i], stats.getShownHand(i));
+        }
+    }
+
+    /**
+     * Plays a hand to the flop: seat 0 raises and seats 1 and 2 call. On the flop seats 1 and 2
+     * check, seat 0 bets and seat 1 answers the c-bet. With no answer seat 0 checks instead.
+     */
+    private static void playFlop(OpponentModel model, Action.Type answer) {
+        model.startHand(0);
+        model.recordAction(0, PREFLOP, Action.Type.RAISE);
+        model.recordAction(1, PREFLOP, Action.Type.CALL);
+        model.recordAction(2, PREFLOP, Action.Type.CALL);
+        model.recordAction(1, FLOP, Action.Type.CHECK);
+        model.recordAction(2, FLOP, Action.Type.CHECK);
+        if (answer == null) {
+            model.recordAction(0, FLOP, Action.Type.CHECK);
+            return;
+        }
+        model.recordAction(0, FLOP, Action.Type.BET);
+        model.recordAction(1, FLOP, answer);
+    }
+
+    /**
+     * Checks that narrowing a range turned down its weakest combos on the board, and kept about
+     * the share asked for at full weight.
+     */
+    private static void checkStrongestKept(Range before, Range after, float share) {
+        double total = before.getTotalWeight();
+        double kept = 0.0;
+        int weakestKept = Integer.MAX_VALUE;
+        int strongestDropped = 0;
+        for (int combo = 0; combo < Range.COMBOS; combo++) {
+            float weight = before.getWeight(combo);
+            if (weight == 0f) {
+                assertEquals(0f, after.getWeight(combo));
+                continue;
+            }
+            int strength = HandEvaluator.evaluate(Range.comboMask(combo) | BOARD);
+            if (after.getWeight(combo) == weight) {
+                kept += weight;
+                weakestKept = Math.min(weakestKept, strength);
+            } else {
+                assertEquals(weight * 0.05f, after.getWeight(combo), 1e-6);
+                strongestDropped = Math.max(strongestDropped, strength);
+            }
+        }
+        assertTrue(strongestDropped <= weakestKept);
+        assertTrue(kept <= share * total + 1e-3 && kept > share * total - 1.0,
+            "kept " + kept / total + " of the range, asked for " + share);
+    }
+}
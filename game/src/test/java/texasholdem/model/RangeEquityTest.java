@@ -0,0 +1,164 @@
+package texasholdem.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks {@link RangeEquity} against scoring every pair of combos on every runout one by one.
+ */
+class RangeEquityTest {
+    private static final int COMBOS = Range.COMBOS;
+
+    @Test
+    void matchesPairwiseOnTheRiver() {
+        SplittableRandom random = new SplittableRandom(29);
+        Deck deck = new Deck(random.nextLong());
+        for (int trial = 0; trial < 20; trial++) {
+            deck.resetWithout(0L);
+            long board = deck.dealMask(5);
+            checkAgainstPairwise(randomRange(random, 0.5), randomRange(random, 0.3), board);
+        }
+    }
+
+    @Test
+    void matchesPairwiseOnTheTurn() {
+        SplittableRandom random = new SplittableRandom(31);
+        Deck deck = new Deck(random.nextLong());
+        for (int trial = 0; trial < 3; trial++) {
+            deck.resetWithout(0L);
+            long board = deck.dealMask(4);
+            checkAgainstPairwise(randomRange(random, 0.4), randomRange(random, 0.4), board);
+        }
+    }
+
+    @Test
+    void smallRangesAreScoredDirectlyWithTheSameResult() {
+        SplittableRandom random = new SplittableRandom(37);
+        Deck deck = new Deck(random.nextLong());
+        for (int trial = 0; trial < 20; trial++) {
+            deck.resetWithout(0L);
+            long board = deck.dealMask(4 + random.nextInt(2));
+            checkAgainstPairwise(randomRange(random, 0.004), randomRange(random, 0.6), board);
+        }
+    }
+
+    @Test
+    void oneHandAgainstAnyHandMatchesTheEnumerator() {
+        SplittableRandom random = new SplittableRandom(41);
+        Deck deck = new Deck(random.nextLong());
+        for (int trial = 0; trial < 10; trial++) {
+            deck.resetWithout(0L);
+            long hole = deck.dealMask(2);
+            long board = deck.dealMask(3 + random.nextInt(3));
+            int combo = comboOf(hole);
+            Range hand = new Range();
+            hand.setWeight(combo, 1f);
+
+            double expected = EquityEnumerator.enumerate(hole, board).getEquity();
+            RangeEquity equity = RangeEquity.enumerate(hand, Range.full(), board);
+            assertEquals(expected, equity.getEquity(), 1e-9);
+            assertEquals(expected, equity.getComboEquity(combo), 1e-9);
+
+            // Sampling lands close to it
+            double sampled = RangeEquity.sampleHand(hole, Range.full(), board, 20_000, new SplittableRandom(trial));
+            assertEquals(expected, sampled, 0.015);
+        }
+    }
+
+    @Test
+    void sampledHandsFollowTheWeights() {
+        // Aces on the river against kings and a set of nines: the set's three combos carry a
+        // quarter of the weight each and the six kings three quarters
+        long board = CardMask.bit(RangeTest.card("2c")) | CardMask.bit(RangeTest.card("7d"))
+            | CardMask.bit(RangeTest.card("9h")) | CardMask.bit(RangeTest.card("Jc"))
+            | CardMask.bit(RangeTest.card("3s"));
+        long aces = CardMask.bit(RangeTest.card("Ah")) | CardMask.bit(RangeTest.card("As"));
+        Range villain = Range.parse("99:0.25, KK:0.75");
+        double expected = RangeEquity.enumerate(singleCombo(aces), villain, board).getEquity();
+        assertEquals(6 * 0.75 / (6 * 0.75 + 3 * 0.25), expected, 1e-9);
+        double sampled = RangeEquity.sampleHand(aces, villain, board, 40_000, new SplittableRandom(5));
+        assertEquals(expected, sampled, 0.01);
+    }
+
+    /**
+     * Scores every runout, and every pair of live combos on it, one pair at a time, and compares
+     * the totals with {@link RangeEquity#enumerate(Range, Range, long)}.
+     */
+    private static void checkAgainstPairwise(Range hero, Range villain, long board) {
+        double[] shares = new double[COMBOS];
+        double[] matchups = new double[COMBOS];
+        int[] strengths = new int[COMBOS];
+        long live = CardMask.FULL_DECK & ~board;
+        long runouts = CardMask.count(board) == 5 ? 1L : live;
+        for (long rest = runouts; rest != 0; rest &= rest - 1) {
+            long fullBoard = CardMask.count(board) == 5 ? board : board | (rest & -rest);
+            for (int combo = 0; combo < COMBOS; combo++) {
+                if ((Range.comboMask(combo) & fullBoard) == 0) {
+                    strengths[combo] = HandEvaluator.evaluate(Range.comboMask(combo) | fullBoard);
+                }
+            }
+            for (int h = 0; h < COMBOS; h++) {
+                long heroMask = Range.comboMask(h);
+                if (hero.getWeight(h) == 0f || (heroMask & fullBoard) != 0) {
+                    continue;
+                }
+                for (int v = 0; v < COMBOS; v++) {
+                    long villainMask = Range.comboMask(v);
+                    float weight = villain.getWeight(v);
+                    if (weight == 0f || (villainMask & (fullBoard | heroMask)) != 0) {
+                        continue;
+                    }
+                    matchups[h] += weight;
+                    shares[h] += strengths[h] > strengths[v] ? weight : strengths[h] == strengths[v] ? weight / 2.0 : 0.0;
+                }
+            }
+            if (CardMask.count(board) == 5) {
+                break;
+            }
+        }
+
+        RangeEquity equity = RangeEquity.enumerate(hero, villain, board);
+        double share = 0.0;
+        double total = 0.0;
+        int compared = 0;
+        for (int combo = 0; combo < COMBOS; combo++) {
+            if (matchups[combo] > 0.0) {
+                assertEquals(shares[combo] / matchups[combo], equity.getComboEquity(combo), 1e-9);
+                share += hero.getWeight(combo) * shares[combo];
+                total += hero.getWeight(combo) * matchups[combo];
+                compared++;
+            }
+        }
+        assertTrue(compared > 0);
+        assertEquals(share / total, equity.getEquity(), 1e-9);
+    }
+
+    /**
+     * Builds a range holding each combo with some probability, at a random weight.
+     */
+    private static Range randomRange(SplittableRandom random, double density) {
+        Range range = new Range();
+        do {
+            for (int combo = 0; combo < COMBOS; combo++) {
+                if (random.nextDouble() < density) {
+                    range.setWeight(combo, 0.05f + 0.95f * random.nextFloat());
+                }
+            }
+        } while (range.size() == 0);
+        return range;
+    }
+
+    private static Range singleCombo(long mask) {
+        Range range = new Range();
+        range.setWeight(comboOf(mask), 1f);
+        return range;
+    }
+
+    private static int comboOf(long mask) {
+        return PreflopEquityTable.comboIndex(CardMask.lowestIndex(mask), CardMask.lowestIndex(mask & (mask - 1)));
+    }
+}
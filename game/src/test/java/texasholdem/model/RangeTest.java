@@ -0,0 +1,132 @@
+package texasholdem.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Checks reading ranges from notation.
+ */
+class RangeTest {
+    private static final String RANKS = "23456789TJQKA";
+
+    private static final String SUITS = "hdcs";
+
+    @Test
+    void readsSingleClasses() {
+        assertEquals(4, Range.parse("AKs").size());
+        assertEquals(12, Range.parse("AKo").size());
+        assertEquals(16, Range.parse("AK").size());
+        assertEquals(16, Range.parse("ka").size());
+        assertEquals(6, Range.parse("TT").size());
+        assertEquals(1f, Range.parse("AKs").getWeight(combo("AsKs")));
+        assertEquals(0f, Range.parse("AKs").getWeight(combo("AsKh")));
+        assertEquals(0f, Range.parse("AKo").getWeight(combo("AdKd")));
+    }
+
+    @Test
+    void readsPlusForms() {
+        assertEquals(classes("TT", "JJ", "QQ", "KK", "AA"), Range.parse("TT+").size());
+        assertEquals(classes("ATs", "AJs", "AQs", "AKs"), Range.parse("ATs+").size());
+        assertEquals(classes("KTo", "KJo", "KQo"), Range.parse("KTo+").size());
+        assertEquals(0f, Range.parse("ATs+").getWeight(combo("As9s")));
+        assertEquals(6, Range.parse("AA+").size());
+    }
+
+    @Test
+    void readsSpans() {
+        Range kickers = Range.parse("A5s-A2s");
+        assertEquals(classes("A5s", "A4s", "A3s", "A2s"), kickers.size());
+        assertEquals(1f, kickers.getWeight(combo("Ah2h")));
+        assertEquals(0f, kickers.getWeight(combo("Ah6h")));
+        assertEquals(kickers.size(), Range.parse("A2s-A5s").size());
+
+        Range pairs = Range.parse("22-55");
+        assertEquals(24, pairs.size());
+        assertEquals(1f, pairs.getWeight(combo("4c4d")));
+        assertEquals(0f, pairs.getWeight(combo("6c6d")));
+
+        Range connectors = Range.parse("98s-54s");
+        assertEquals(classes("98s", "87s", "76s", "65s", "54s"), connectors.size());
+        assertEquals(1f, connectors.getWeight(combo("7d6d")));
+        assertEquals(0f, connectors.getWeight(combo("7d6c")));
+        assertEquals(0f, connectors.getWeight(combo("4d3d")));
+        assertEquals(0f, connectors.getWeight(combo("Td9d")));
+    }
+
+    @Test
+    void readsWeights() {
+        Range range = Range.parse("AKs:0.5, QQ, 22-33 : 0.25");
+        assertEquals(0.5f, range.getWeight(combo("AhKh")));
+        assertEquals(1f, range.getWeight(combo("QhQs")));
+        assertEquals(0.25f, range.getWeight(combo("3h3s")));
+        assertEquals(4 * 0.5 + 6 + 12 * 0.25, range.getTotalWeight(), 1e-6);
+        // A later part overrides an earlier one
+        assertEquals(0.5f, Range.parse("AA, AsAh:0.5").getWeight(combo("AsAh")));
+    }
+
+    @Test
+    void tellsExactCombosFromClasses() {
+        Range exact = Range.parse("AsKs");
+        assertEquals(1, exact.size());
+        assertEquals(1f, exact.getWeight(combo("AsKs")));
+        assertEquals(1f, exact.getWeight(Card.of(card("Ks")), Card.of(card("As"))));
+
+        assertEquals(1, Range.parse("KsAs").size());
+        assertEquals(1, Range.parse("AhKd:0.5").size());
+        assertEquals(0.5f, Range.parse("AhKd:0.5").getWeight(combo("AhKd")));
+        // Four characters that aren't a combo are still a class
+        assertEquals(classes("AKs", "AQs", "AJs", "ATs", "A9s"), Range.parse("A9s+").size());
+    }
+
+    @Test
+    void skipsEmptyParts() {
+        assertEquals(10, Range.parse(" AKs, , QQ ,").size());
+        assertEquals(0, Range.parse("").size());
+    }
+
+    @Test
+    void rejectsBadNotation() {
+        for (String bad : new String[] {
+            "A", "AKQs", "AKx", "AAs", "AAo", "1K", "AK+s",
+            "A5s-K2s", "A5s-A2o", "22-A5", "55-55s", "98s-64s",
+            "AKs:", "AKs:abc", "AKs:-1", "AKs:NaN",
+            "AhAh", "AxKh", "AhK", "Ahkx"
+        }) {
+            assertThrows(IllegalArgumentException.class, () -> Range.parse(bad), bad);
+        }
+    }
+
+    @Test
+    void takesOutBlockedCombos() {
+        Range range = Range.parse("AA, KK").removeBlocked(CardMask.bit(card("As")));
+        assertEquals(3 + 6, range.size());
+        assertEquals(0f, range.getWeight(combo("AsAh")));
+    }
+
+    /**
+     * Gets the index of a card such as {@code Ah}.
+     */
+    static int card(String text) {
+        return SUITS.indexOf(text.charAt(1)) * Card.Rank.COUNT + RANKS.indexOf(text.charAt(0));
+    }
+
+    /**
+     * Gets the index of a combo such as {@code AhKh}.
+     */
+    static int combo(String text) {
+        return PreflopEquityTable.comboIndex(card(text.substring(0, 2)), card(text.substring(2)));
+    }
+
+    /**
+     * Counts the combos of some classes.
+     */
+    private static int classes(String... classes) {
+        int count = 0;
+        for (String hand : classes) {
+            count += hand.length() == 3 ? hand.charAt(2) == 's' ? 4 : 12 : hand.charAt(0) == hand.charAt(1) ? 6 : 16;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,193 @@
+package texasholdem.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+/**
+ * Checks {@link SidePots} against hand-worked pots and against settling each pot level on its
+ * own.
+ */
+class SidePotsTest {
+    /**
+     * Settles a pot with the button on the last seat, so seat 0 is first to its left.
+     */
+    private static int[] settle(int[] contributions, int[] strengths, int folded) {
+        return settle(contributions.length - 1, contributions, strengths, folded);
+    }
+
+    private static int[] settle(int dealer, int[] contributions, int[] strengths, int folded) {
+        int[] winnings = new int[contributions.length];
+        SidePots.settle(contributions.length, dealer, contributions, strengths, folded, new int[contributions.length], winnings);
+        return winnings;
+    }
+
+    @Test
+    void shortAllInWinsOnlyTheMainPot() {
+        // Seat 0 is all-in for 100 with the best hand; seat 1 beats seat 2 for the side pot
+        int[] winnings = settle(new int[] { 100, 300, 300 }, new int[] { 3, 2, 1 }, 0);
+        assertArrayEquals(new int[] { 300, 400, 0 }, winnings);
+    }
+
+    @Test
+    void tiedHandsSplitTheMainPotAndTheDeeperStackTakesTheSidePot() {
+        int[] winnings = settle(new int[] { 100, 300, 300 }, new int[] { 5, 5, 1 }, 0);
+        assertArrayEquals(new int[] { 150, 550, 0 }, winnings);
+    }
+
+    @Test
+    void severalAllInsMakeOnePotPerLevel() {
+        // All-ins for 50, 120 and 200 against a 400 stack; the weakest stacks hold the best hands
+        int[] winnings = settle(new int[] { 50, 120, 200, 400 }, new int[] { 4, 3, 2, 1 }, 0);
+        assertArrayEquals(new int[] { 200, 210, 160, 200 }, winnings);
+    }
+
+    @Test
+    void threeWayTieSplitsEveryLevelItReaches() {
+        int[] winnings = settle(new int[] { 60, 90, 90, 30 }, new int[] { 7, 7, 7, 2 }, 0);
+        // 210 up to 60 over three, then 60 over the two who reached 90
+        assertArrayEquals(new int[] { 70, 100, 100, 0 }, winnings);
+    }
+
+    @Test
+    void oddChipGoesToTheFirstTiedPlayerLeftOfTheButton() {
+        int[] contributions = { 5, 5, 5 };
+        int[] strengths = { 9, 1, 9 };
+        assertArrayEquals(new int[] { 8, 0, 7 }, settle(2, contributions, strengths, 0));
+        // With the button on seat 0, seat 1 is first to act but lost, so seat 2 is next
+        assertArrayEquals(new int[] { 7, 0, 8 }, settle(0, contributions, strengths, 0));
+        assertArrayEquals(new int[] { 7, 0, 8 }, settle(1, contributions, strengths, 0));
+    }
+
+    @Test
+    void oddChipOfASidePotGoesLeftOfTheButtonToo() {
+        // Seats 0, 2 and 3 tie: the main pot of 80 splits three ways, the side pot of 33 between
+        // seats 0 and 3, and seat 3 gets its last chip back
+        int[] contributions = { 31, 31, 20, 32 };
+        int[] strengths = { 5, 1, 5, 5 };
+        assertArrayEquals(new int[] { 42, 0, 26, 46 }, settle(2, contributions, strengths, 0b010));
+        assertArrayEquals(new int[] { 45, 0, 26, 43 }, settle(3, contributions, strengths, 0b010));
+    }
+
+    @Test
+    void foldedChipsGoToWhoeverWinsTheirLevel() {
+        // Seat 0 folded after putting in 50; seat 2 is all-in for 100 with the best hand
+        int[] winnings = settle(new int[] { 50, 200, 100 }, new int[] { 0, 1, 2 }, 0b001);
+        assertArrayEquals(new int[] { 0, 100, 250 }, winnings);
+    }
+
+    @Test
+    void uncalledBetGoesToTheLastPlayerIn() {
+        int[] winnings = settle(new int[] { 10, 40, 20 }, new int[] { 0, 0, 0 }, 0b101);
+        assertArrayEquals(new int[] { 0, 70, 0 }, winnings);
+    }
+
+    @Test
+    void matchesSettlingEachLevelSeparately() {
+        SplittableRandom random = new SplittableRandom(7);
+        for (int trial = 0; trial < 20_000; trial++) {
+            int players = 2 + random.nextInt(9);
+            int dealer = random.nextInt(players);
+            int[] contributions = new int[players];
+            int[] strengths = new int[players];
+            int folded = 0;
+            for (int seat = 0; seat < players; seat++) {
+                contributions[seat] = 1 + random.nextInt(12) * 25 + random.nextInt(3);
+                // Few distinct strengths, so there are plenty of ties
+                strengths[seat] = random.nextInt(4);
+                if (random.nextInt(4) == 0) {
+                    folded |= 1 << seat;
+                }
+            }
+            if (folded == (1 << players) - 1) {
+                folded &= ~1;
+            }
+            int[] expected = settleByLevel(dealer, contributions, strengths, folded);
+            assertArrayEquals(expected, settle(dealer, contributions, strengths, folded),
+                () -> Arrays.toString(contributions) + " " + Arrays.toString(strengths));
+        }
+    }
+
+    /**
+     * Settles a pot the long way: a slice for each level a player still in reached, each won by
+     * the best hands eligible for it. Neighbouring slices with the same winners are one pot, split
+     * once, and whatever is above the last level goes to the best hand of all.
+     */
+    private static int[] settleByLevel(int dealer, int[] contributions, int[] strengths, int folded) {
+        int players = contributions.length;
+        int[] winnings = new int[players];
+        int[] levels = new int[players];
+        int levelCount = 0;
+        for (int seat = 0; seat < players; seat++) {
+            if ((folded & 1 << seat) == 0) {
+                levels[levelCount++] = contributions[seat];
+            }
+        }
+        levels = Arrays.stream(levels, 0, levelCount).distinct().sorted().toArray();
+
+        int previous = 0;
+        int pot = 0;
+        int potWinners = 0;
+        for (int level : levels) {
+            int slice = 0;
+            for (int seat = 0; seat < players; seat++) {
+                slice += Math.min(contributions[seat], level) - Math.min(contributions[seat], previous);
+            }
+            int best = Integer.MIN_VALUE;
+            for (int seat = 0; seat < players; seat++) {
+                if ((folded & 1 << seat) == 0 && contributions[seat] >= level) {
+                    best = Math.max(best, strengths[seat]);
+                }
+            }
+            int sliceWinners = 0;
+            for (int seat = 0; seat < players; seat++) {
+                if ((folded & 1 << seat) == 0 && contributions[seat] >= level && strengths[seat] == best) {
+                    sliceWinners |= 1 << seat;
+                }
+            }
+            if (sliceWinners != potWinners) {
+                split(dealer, pot, potWinners, winnings);
+                pot = 0;
+                potWinners = sliceWinners;
+            }
+            pot += slice;
+            previous = level;
+        }
+        split(dealer, pot, potWinners, winnings);
+
+        int total = Arrays.stream(contributions).sum();
+        int paid = Arrays.stream(winnings).sum();
+        int best = -1;
+        for (int n = 1; n <= players; n++) {
+            int seat = (dealer + n) % players;
+            if ((folded & 1 << seat) == 0 && (best < 0 || strengths[seat] > strengths[best]
+                    || strengths[seat] == strengths[best] && contributions[seat] < contributions[best])) {
+                best = seat;
+            }
+        }
+        winnings[best] += total - paid;
+        return winnings;
+    }
+
+    /**
+     * Splits a pot evenly, with the odd chips going to the first winner left of the button.
+     */
+    private static void split(int dealer, int pot, int winners, int[] winnings) {
+        int count = Integer.bitCount(winners);
+        int first = -1;
+        for (int n = winnings.length; n >= 1; n--) {
+            int seat = (dealer + n) % winnings.length;
+            if ((winners & 1 << seat) != 0) {
+                first = seat;
+            }
+        }
+        for (int seat = 0; seat < winnings.length; seat++) {
+            if ((winners & 1 << seat) != 0) {
+                winnings[seat] += pot / count + (seat == first ? pot % count : 0);
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package texasholdem.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Helpers for tests that play games with made-up actions.
+ */
+final class TestGames {
+    private TestGames() {
+    }
+
+    /**
+     * Seats players with no chips.
+     * @param names the players' names
+     * @return the players, in seat order
+     */
+    static List<Player> players(String... names) {
+        List<Player> players = new ArrayList<>();
+        for (String name : names) {
+            players.add(new Player(name, 0));
+        }
+        return players;
+    }
+
+    /**
+     * Takes a random action for the current player: mostly calls and checks, with folds, bets,
+     * raises and all-ins mixed in. At showdown the next hand is dealt instead.
+     * @param game the game
+     * @param random the source of the choices
+     * @return true if an action was taken, false if a hand was dealt
+     */
+    static boolean act(Game game, SplittableRandom random) {
+        if (game.getCurrentRound() == Game.BettingRound.SHOWDOWN) {
+            game.startNewRound();
+            return false;
+        }
+        Player player = game.getCurrentPlayer();
+        int toCall = game.getMaxBet() - player.getCurrentBet();
+        int choice = random.nextInt(10);
+        boolean taken;
+        if (choice < 2 && toCall > 0) {
+            taken = game.fold();
+        } else if (choice < 4) {
+            int amount = choice == 2 ? player.getChips() - toCall : 10 + random.nextInt(60);
+            taken = game.getMaxBet() == 0 ? game.bet(Math.max(amount, 10)) : game.raise(Math.max(amount, 1));
+            if (!taken) {
+                taken = toCall > 0 ? game.call() : game.check();
+            }
+        } else {
+            taken = toCall > 0 ? game.call() : game.check();
+        }
+        if (!taken) {
+            if (toCall > 0) {
+                game.fold();
+            } else {
+                game.check();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Describes everything in a game state, so two states can be compared.
+     * @param state the state
+     * @return the description
+     */
+    static String describe(GameState state) {
+        StringBuilder text = new StringBuilder()
+            .append("hand ").append(state.getHandNumber()).append(' ').append(state.getRound())
+            .append(" dealer ").append(state.getDealerSeat()).append(" to act ").append(state.getCurrentSeat())
+            .append(" pot ").append(state.getPot()).append(" last raise ").append(state.getLastRaiseAmount())
+            .append(" board ").append(CardMask.toList(state.getBoard()))
+            .append(" folded ").append(Integer.toBinaryString(state.getFoldedSeats()))
+            .append(" acted ").append(Integer.toBinaryString(state.getActedSeats()));
+        for (int seat = 0; seat < state.getPlayerCount(); seat++) {
+            text.append(" | ").append(state.getStack(seat)).append(' ').append(state.getBet(seat))
+                .append(' ').append(state.getContribution(seat))
+                .append(' ').append(CardMask.toList(state.getHoleCards(seat)));
+        }
+        return text.toString();
+    }
+}
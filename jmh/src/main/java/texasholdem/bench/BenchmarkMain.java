@@ -0,0 +1,36 @@
+package texasholdem.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+
+/**
+ * Entry point of the benchmarks jar.
+ *
+ * With no arguments every benchmark in this package runs with the GC profiler, so the report
+ * has ops/s next to the allocation rate. Any arguments are passed straight to JMH instead
+ * (for example {@code -prof gc HandEvaluatorBenchmark}).
+ */
+public class BenchmarkMain {
+    /**
+     * Runs the benchmarks.
+     * @param args optional JMH command line
+     * @throws IOException if JMH can't read its arguments
+     * @throws RunnerException if a benchmark fails
+     */
+    public static void main(String[] args) throws IOException, RunnerException {
+        if (args.length > 0) {
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+        Options options = new OptionsBuilder()
+            .include(BenchmarkMain.class.getPackage().getName() + ".*")
+            .addProfiler(GCProfiler.class)
+            .build();
+        new Runner(options).run();
+    }
+}
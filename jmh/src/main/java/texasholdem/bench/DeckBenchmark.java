@@ -0,0 +1,76 @@
+package texasholdem.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import texasholdem.model.Card;
+import texasholdem.model.Deck;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures resetting the deck and dealing from it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeckBenchmark {
+    private Deck deck;
+    
+    /**
+     * Creates a seeded deck.
+     */
+    @Setup
+    public void setUp() {
+        deck = new Deck(42);
+    }
+    
+    /**
+     * Resets the deck and deals a heads-up hand: two hole cards each, three burns and five
+     * community cards.
+     * @return a value depending on every card dealt
+     */
+    @Benchmark
+    public int resetAndDealHand() {
+        deck.reset();
+        int sum = 0;
+        for (int i = 0; i < 12; i++) {
+            sum += deck.dealCard().getIndex();
+        }
+        return sum;
+    }
+    
+    /**
+     * Resets the deck and deals every card.
+     * @return a value depending on every card dealt
+     */
+    @Benchmark
+    public int resetAndDealAll() {
+        deck.reset();
+        int sum = 0;
+        for (int i = 0; i < Card.COUNT; i++) {
+            sum += deck.dealCard().getIndex();
+        }
+        return sum;
+    }
+    
+    /**
+     * Resets the deck on its own.
+     * @return the cards remaining
+     */
+    @Benchmark
+    public int reset() {
+        deck.reset();
+        return deck.getCardsRemaining();
+    }
+}
@@ -0,0 +1,104 @@
+package texasholdem.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import texasholdem.model.Game;
+import texasholdem.model.GameState;
+import texasholdem.model.Player;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the game engine on its own: a full hand from startNewRound to showdown, with
+ * every player simply calling or checking so no AI time is included, and reading the table
+ * through a snapshot compared with the list getters.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameBenchmark {
+    /** Chips each player is topped back up to */
+    private static final int STARTING_CHIPS = 1000;
+    
+    private Game game;
+    private List<Player> players;
+    
+    /**
+     * Creates a seeded two-player game.
+     */
+    @Setup
+    public void setUp() {
+        players = new ArrayList<>();
+        players.add(new Player("Player 1", STARTING_CHIPS));
+        players.add(new Player("Player 2", STARTING_CHIPS));
+        game = new Game(players, 10, 42);
+        game.setVerbose(false);
+        game.startNewRound();
+    }
+    
+    /**
+     * Plays one hand from the deal to the showdown.
+     * @return the pot that was won
+     */
+    @Benchmark
+    public int startNewRoundToShowdown() {
+        for (Player player : players) {
+            if (player.getChips() < STARTING_CHIPS / 2) {
+                player.addChips(STARTING_CHIPS);
+            }
+        }
+        
+        game.startNewRound();
+        long hand = game.getHandNumber();
+        for (int actions = 0; actions < 100 && game.getHandNumber() == hand
+                && game.getCurrentRound() != Game.BettingRound.SHOWDOWN; actions++) {
+            Player player = game.getCurrentPlayer();
+            if (player.getCurrentBet() < game.getMaxBet()) {
+                game.call();
+            } else if (!game.check()) {
+                game.fold();
+            }
+        }
+        return game.getLastPotWon();
+    }
+    
+    /**
+     * Reads what a player needs to act from a snapshot.
+     * @return a value depending on everything read
+     */
+    @Benchmark
+    public long readState() {
+        GameState state = game.getState();
+        long sum = state.getBoard() + state.getPot() + state.getMaxBet();
+        for (int seat = 0; seat < state.getPlayerCount(); seat++) {
+            sum += state.getStack(seat) + state.getBet(seat) + state.getHoleCards(seat);
+        }
+        return sum;
+    }
+    
+    /**
+     * Reads the same values through the list getters, which copy on every call.
+     * @return a value depending on everything read
+     */
+    @Benchmark
+    public long readLists() {
+        long sum = game.getCommunityCards().size() + game.getPot() + game.getMaxBet();
+        for (Player player : game.getPlayers()) {
+            sum += player.getChips() + player.getCurrentBet() + player.getHoleCards().size();
+        }
+        return sum;
+    }
+}
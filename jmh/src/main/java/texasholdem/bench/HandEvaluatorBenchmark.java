@@ -0,0 +1,175 @@
+package texasholdem.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import texasholdem.model.Card;
+import texasholdem.model.CardMask;
+import texasholdem.model.Deck;
+import texasholdem.model.HandEvaluator;
+import texasholdem.model.IncrementalHand;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures hand evaluation and comparison on 5, 6 and 7 cards, and building the same hands a
+ * card at a time with {@link IncrementalHand}.
+ *
+ * Hands come either from plain random deals ("natural", mostly high cards and pairs) or from
+ * a pool with the same number of hands in every category ("uniform"), so the rare branches of
+ * the evaluator are measured as well.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HandEvaluatorBenchmark {
+    /** Number of prepared hands; a power of two so the index can wrap with a mask */
+    private static final int HANDS = 4096;
+    
+    /** Number of hand categories */
+    private static final int CATEGORIES = HandEvaluator.HandRank.values().length;
+    
+    @Param({ "5", "6", "7" })
+    public int cards;
+    
+    @Param({ "natural", "uniform" })
+    public String distribution;
+    
+    private List<List<Card>> holeCards;
+    private List<List<Card>> communityCards;
+    private long[] masks;
+    private HandEvaluator.HandResult[] results;
+    private final IncrementalHand incremental = new IncrementalHand();
+    private int next;
+    
+    /**
+     * Prepares the hands to evaluate.
+     */
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        List<Long> hands = "uniform".equals(distribution) ? uniformHands(random) : naturalHands(random);
+        
+        holeCards = new ArrayList<>();
+        communityCards = new ArrayList<>();
+        masks = new long[HANDS];
+        results = new HandEvaluator.HandResult[HANDS];
+        for (int i = 0; i < HANDS; i++) {
+            List<Card> hand = CardMask.toList(hands.get(i));
+            holeCards.add(new ArrayList<>(hand.subList(0, 2)));
+            communityCards.add(new ArrayList<>(hand.subList(2, hand.size())));
+            masks[i] = hands.get(i);
+            results[i] = HandEvaluator.evaluateHand(holeCards.get(i), communityCards.get(i));
+        }
+    }
+    
+    /**
+     * Deals random hands.
+     */
+    private List<Long> naturalHands(SplittableRandom random) {
+        Deck deck = new Deck(random);
+        List<Long> hands = new ArrayList<>();
+        while (hands.size() < HANDS) {
+            deck.reset();
+            hands.add(deck.dealMask(cards));
+        }
+        return hands;
+    }
+    
+    /**
+     * Collects the same number of hands in every category. Straight flushes are too rare to
+     * wait for, so some deals start from a random straight flush and fill in the other cards.
+     */
+    private List<Long> uniformHands(SplittableRandom random) {
+        Deck deck = new Deck(random);
+        int perCategory = (HANDS + CATEGORIES - 1) / CATEGORIES;
+        List<List<Long>> buckets = new ArrayList<>();
+        for (int i = 0; i < CATEGORIES; i++) {
+            buckets.add(new ArrayList<>());
+        }
+        
+        int filled = 0;
+        while (filled < CATEGORIES) {
+            long hand = 0L;
+            if (random.nextInt(4) == 0) {
+                int suit = random.nextInt(Card.Suit.COUNT);
+                int high = 3 + random.nextInt(Card.Rank.COUNT - 3);
+                for (int rank = high - 4; rank <= high; rank++) {
+                    // rank -1 is the ace playing low
+                    hand |= CardMask.bit(suit * Card.Rank.COUNT + (rank < 0 ? Card.Rank.COUNT - 1 : rank));
+                }
+            }
+            deck.resetWithout(hand);
+            hand |= deck.dealMask(cards - CardMask.count(hand));
+            
+            List<Long> bucket = buckets.get(HandEvaluator.rankOf(HandEvaluator.evaluate(hand)).getValue());
+            if (bucket.size() < perCategory) {
+                bucket.add(hand);
+                if (bucket.size() == perCategory) {
+                    filled++;
+                }
+            }
+        }
+        
+        // Interleave the categories so neighbouring hands differ
+        List<Long> hands = new ArrayList<>();
+        for (int i = 0; hands.size() < HANDS; i++) {
+            hands.add(buckets.get(i % CATEGORIES).get(i / CATEGORIES));
+        }
+        return hands;
+    }
+    
+    /**
+     * Evaluates a hand from lists of cards, including building the HandResult.
+     * @return the result
+     */
+    @Benchmark
+    public HandEvaluator.HandResult evaluateHand() {
+        int i = next++ & (HANDS - 1);
+        return HandEvaluator.evaluateHand(holeCards.get(i), communityCards.get(i));
+    }
+    
+    /**
+     * Evaluates a hand that is already a card mask.
+     * @return the strength
+     */
+    @Benchmark
+    public int evaluateMask() {
+        return HandEvaluator.evaluate(masks[next++ & (HANDS - 1)]);
+    }
+    
+    /**
+     * Builds a hand one card at a time, one table lookup per card.
+     * @return the strength
+     */
+    @Benchmark
+    public int addIncrementally() {
+        incremental.reset();
+        incremental.addAll(masks[next++ & (HANDS - 1)]);
+        return incremental.getStrength();
+    }
+    
+    /**
+     * Compares two evaluated hands.
+     * @return the comparison
+     */
+    @Benchmark
+    public int compareHands() {
+        int i = next++ & (HANDS - 1);
+        return HandEvaluator.compareHands(results[i], results[i ^ 1]);
+    }
+}
@@ -0,0 +1,99 @@
+package texasholdem.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import texasholdem.model.Game;
+import texasholdem.model.GameEvent;
+import texasholdem.model.GameEventStream;
+import texasholdem.model.HandHistoryWriter;
+import texasholdem.model.Player;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures the hand history writer: collecting the events of one three-handed hand that goes
+ * to showdown and appending its record to a mapped segment.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HandHistoryBenchmark {
+    private Path directory;
+    private HandHistoryWriter writer;
+    private GameEvent[] hand;
+
+    /**
+     * Records the events of one hand and opens a writer in a temporary directory.
+     */
+    @Setup
+    public void setUp() throws IOException {
+        List<Player> players = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            players.add(new Player("Player " + i, 1000));
+        }
+        Game game = new Game(players, 10, 42);
+        GameEventStream.Cursor cursor = game.getEvents().cursor();
+        game.startNewRound();
+        while (game.getCurrentRound() != Game.BettingRound.SHOWDOWN) {
+            if (game.getCurrentPlayer().getCurrentBet() < game.getMaxBet()) {
+                game.call();
+            } else {
+                game.check();
+            }
+        }
+
+        List<GameEvent> events = new ArrayList<>();
+        GameEvent event = new GameEvent();
+        while (cursor.poll(event)) {
+            events.add(event.copy());
+        }
+        hand = events.toArray(new GameEvent[0]);
+
+        directory = Files.createTempDirectory("hand-history");
+        writer = new HandHistoryWriter(directory, new String[] { "Player 1", "Player 2", "Player 3" });
+    }
+
+    /**
+     * Closes the writer and deletes its segments.
+     */
+    @TearDown
+    public void tearDown() throws IOException {
+        writer.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    /**
+     * Collects and writes one hand.
+     * @return the number of events written
+     */
+    @Benchmark
+    public int writeHand() {
+        for (GameEvent event : hand) {
+            writer.onEvent(event);
+        }
+        return hand.length;
+    }
+}
@@ -0,0 +1,80 @@
+package texasholdem.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import texasholdem.model.Deck;
+import texasholdem.model.HandIndexer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures turning hole cards and a board into a suit-isomorphic index and back, on the flop,
+ * turn and river.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HandIndexerBenchmark {
+    /** Number of prepared hands; a power of two so the index can wrap with a mask */
+    private static final int HANDS = 4096;
+
+    @Param({ "3", "4", "5" })
+    public int boardCards;
+
+    private HandIndexer indexer;
+    private long[] holeCards;
+    private long[] boards;
+    private long[] indexes;
+    private final long[] cards = new long[2];
+    private int next;
+
+    /**
+     * Deals the hands to index.
+     */
+    @Setup
+    public void setUp() {
+        indexer = boardCards == 3 ? HandIndexer.FLOP : boardCards == 4 ? HandIndexer.TURN : HandIndexer.RIVER;
+        Deck deck = new Deck(42);
+        holeCards = new long[HANDS];
+        boards = new long[HANDS];
+        indexes = new long[HANDS];
+        for (int i = 0; i < HANDS; i++) {
+            deck.reset();
+            holeCards[i] = deck.dealMask(2);
+            boards[i] = deck.dealMask(boardCards);
+            indexes[i] = indexer.index(holeCards[i], boards[i]);
+        }
+    }
+
+    /**
+     * Indexes one hand.
+     * @return the index
+     */
+    @Benchmark
+    public long index() {
+        int i = next++ & (HANDS - 1);
+        return indexer.index(holeCards[i], boards[i]);
+    }
+
+    /**
+     * Turns one index back into a hand.
+     * @return the hand's cards
+     */
+    @Benchmark
+    public long unindex() {
+        indexer.unindex(indexes[next++ & (HANDS - 1)], cards);
+        return cards[0] | cards[1];
+    }
+}
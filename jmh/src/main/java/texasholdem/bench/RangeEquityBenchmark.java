@@ -0,0 +1,56 @@
+package texasholdem.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import texasholdem.model.Deck;
+import texasholdem.model.Range;
+import texasholdem.model.RangeEquity;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures exact range-against-range equity on the river and the turn, for a full range
+ * against a typical raising range.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RangeEquityBenchmark {
+    @Param({ "4", "5" })
+    public int boardCards;
+
+    private Range hero;
+    private Range villain;
+    private long board;
+
+    /**
+     * Deals the board and builds the ranges.
+     */
+    @Setup
+    public void setUp() {
+        hero = Range.full();
+        villain = Range.parse("22+, A2s+, K9s+, QTs+, JTs, T9s, 98s, ATo+, KJo+");
+        board = new Deck(42).dealMask(boardCards);
+    }
+
+    /**
+     * Calculates the equity over every runout.
+     * @return the equity
+     */
+    @Benchmark
+    public double enumerate() {
+        return RangeEquity.enumerate(hero, villain, board).getEquity();
+    }
+}
@@ -1,17 +1,28 @@
 package texasholdem.controller;
 
+import texasholdem.model.Action;
+import texasholdem.model.BlueprintPlayer;
 import texasholdem.model.Game;
+import texasholdem.model.GameSnapshot;
+import texasholdem.model.GameState;
+import texasholdem.model.HandHistoryWriter;
 import texasholdem.model.Player;
 import texasholdem.model.ComputerPlayer;
 import texasholdem.view.ActionPanel;
 import texasholdem.view.PlayerView;
 import texasholdem.view.TableView;
 import texasholdem.view.GameView;
-import texasholdem.model.HandEvaluator;
 
 import javax.swing.JOptionPane;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 import javax.swing.SwingUtilities;
 
 /**
@@ -40,7 +51,18 @@ public class GameController {
     /** Game view */
     private GameView gameView;
 
-    
+    /** The file the table is saved to after every action, and restored from at startup */
+    private final Path sessionFile = GameSnapshot.getDefaultFile();
+
+    /** Writes the session file off the event dispatch thread, one snapshot at a time */
+    private final ExecutorService sessionWriter = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "session-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /** The newest snapshot not yet written, or null if the file is up to date */
+    private final AtomicReference<GameSnapshot> pendingSnapshot = new AtomicReference<>();
     
     /**
      * Constructs a new game controller.
@@ -57,9 +79,14 @@ public class GameController {
         
         // Add action listeners
         setupActionListeners();
+
+        // Let the last snapshot reach the disk when the window is closed
+        Runtime.getRuntime().addShutdownHook(new Thread(this::finishSaving, "session-flush"));
         
-        // Create initial game
-        createNewGame();
+        // Carry on from the last session, or start a new game if there isn't one
+        if (!restoreSession()) {
+            createNewGame();
+        }
     }
     
     /**
@@ -70,24 +97,129 @@ public class GameController {
         actionPanel.addCheckListener(e -> handleCheck());
         actionPanel.addCallListener(e -> handleCall());
         actionPanel.addBetListener(e -> handleBet());
-        actionPanel.addNewGameListener(e -> createNewGame());
+        actionPanel.addNewGameListener(e -> handleNewGame());
     }
     
+    /**
+     * Handles the New Game button: starts everyone over with the default chips once the
+     * player has confirmed it.
+     */
+    public void handleNewGame() {
+        int choice = JOptionPane.showConfirmDialog(gameView,
+            "Start a new game? Everyone's chips go back to $" + DEFAULT_STARTING_CHIPS + ".",
+            "New Game", JOptionPane.YES_NO_OPTION);
+        if (choice == JOptionPane.YES_OPTION) {
+            createNewGame();
+        }
+    }
+
     /**
      * Creates a new game with the default settings.
      */
     public void createNewGame() {
         // Create players - first is human, second is AI
+        List<Player> players = createPlayers(new String[] {"You", "AI Bot"});
+        stopGame();
+        game = new Game(players, DEFAULT_MIN_BET);
+        startGame(true);
+    }
+
+    /**
+     * Restores the table saved by the last session, if there is one. A hand that was in
+     * progress carries on from where it was; a finished one is followed by the next hand.
+     * @return false if there is no session to restore, it can't be read, or its game is over
+     */
+    private boolean restoreSession() {
+        if (!Files.exists(sessionFile)) {
+            return false;
+        }
+        Game restored;
+        try {
+            GameSnapshot snapshot = GameSnapshot.read(sessionFile);
+            restored = snapshot.restore(createPlayers(snapshot.getPlayerNames()));
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Not restoring session: " + e);
+            return false;
+        }
+        if (restored.isGameOver()) {
+            return false;
+        }
+        stopGame();
+        game = restored;
+        startGame(game.getCurrentRound() == Game.BettingRound.SHOWDOWN);
+        return true;
+    }
+
+    /**
+     * Saves the table so the next start carries on from here. The snapshot is taken here, on
+     * the event dispatch thread, and written on the session writer's; only the newest one
+     * matters, so a write still waiting to start picks this one up instead of queueing another.
+     */
+    private void saveSession() {
+        if (pendingSnapshot.getAndSet(GameSnapshot.take(game)) == null) {
+            sessionWriter.execute(this::writeSession);
+        }
+    }
+
+    /**
+     * Writes the newest snapshot, on the session writer's thread.
+     */
+    private void writeSession() {
+        GameSnapshot snapshot = pendingSnapshot.getAndSet(null);
+        if (snapshot == null) {
+            return;
+        }
+        try {
+            snapshot.write(sessionFile);
+        } catch (IOException e) {
+            System.err.println("Not saving session: " + e);
+        }
+    }
+
+    /**
+     * Waits briefly for the session writer to finish what it has been given.
+     */
+    private void finishSaving() {
+        sessionWriter.shutdown();
+        try {
+            sessionWriter.awaitTermination(2, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Creates the players: the first is human, the rest play from the trained blueprint if
+     * data/blueprint.bin exists, otherwise as computer players always have.
+     */
+    private static List<Player> createPlayers(String[] names) {
         List<Player> players = new ArrayList<>();
-        Player humanPlayer = new Player("You", DEFAULT_STARTING_CHIPS);
-        ComputerPlayer aiPlayer = new ComputerPlayer("AI Bot", DEFAULT_STARTING_CHIPS, 60, 50);
-        players.add(humanPlayer);
-        players.add(aiPlayer);
-        game = new Game(new String[] { humanPlayer.getName(), aiPlayer.getName() }, DEFAULT_STARTING_CHIPS, DEFAULT_MIN_BET);
-        
-        // Replace the second player in the game with the ComputerPlayer instance
+        players.add(new Player(names[0], DEFAULT_STARTING_CHIPS));
+        for (int i = 1; i < names.length; i++) {
+            players.add(new BlueprintPlayer(names[i], DEFAULT_STARTING_CHIPS, 60, 50));
+        }
+        return players;
+    }
+
+    /**
+     * Stops the current game, if any, logging and recording its hands.
+     */
+    private void stopGame() {
+        if (game != null) {
+            game.setVerbose(false);
+            game.setHistoryDirectory(null);
+        }
+    }
+
+    /**
+     * Starts logging and recording the game's hands, shows its table and lets whoever is to
+     * act go ahead.
+     * @param deal true to deal the next hand first
+     */
+    private void startGame(boolean deal) {
+        game.setVerbose(true);
+        game.setHistoryDirectory(HandHistoryWriter.getConfiguredDirectory());
         List<Player> gamePlayers = game.getPlayers();
-        gamePlayers.set(1, aiPlayer);
         
         // Reset player views to use the correct Player instances
         if (gameView != null) {
@@ -95,7 +227,10 @@ public class GameController {
         }
         
         // Start the game
-        game.startNewRound();
+        if (deal) {
+            game.startNewRound();
+        }
+        saveSession();
         
         // Update the view and trigger AI turn if needed
         SwingUtilities.invokeLater(() -> {
@@ -116,17 +251,20 @@ public class GameController {
      * Updates the game view to match the current game state.
      */
     public void updateGameView() {
+        // Read the table from one snapshot rather than asking the game for each value
+        GameState state = game.getState();
+        boolean showdown = state.getRound() == Game.BettingRound.SHOWDOWN;
+        
         // Update table view
         tableView.setCommunityCards(game.getCommunityCards());
-        tableView.setPot(game.getPot());
+        tableView.setPot(state.getPot());
         
         // Update round display
-        String roundName = getRoundName(game.getCurrentRound());
+        String roundName = getRoundName(state.getRound());
         tableView.setRoundName(roundName);
         
         // Update player views
         List<Player> players = game.getPlayers();
-        Player currentPlayer = game.getCurrentPlayer();
         Player humanPlayer = players.get(0);  // First player is always human
         
         for (int i = 0; i < playerViews.size() && i < players.size(); i++) {
@@ -136,23 +274,21 @@ public class GameController {
             playerView.setPlayer(player);
             
             // Show cards for human, hide for AI unless showdown
-            boolean showCards = (i == 0) || game.getCurrentRound() == Game.BettingRound.SHOWDOWN;
+            boolean showCards = (i == 0) || showdown;
             playerView.setCards(player.getHoleCards(), showCards);
-            playerView.setFolded(player.hasFolded());
-            playerView.setCurrentPlayer(player == currentPlayer);
-            if (i==0) {
-                playerView.setDealer(true);
-            } else {
-                playerView.setDealer(false);
-            }
+            playerView.setFolded(state.isFolded(i));
+            boolean showHand = showCards && !state.isFolded(i) && state.getHoleCards(i) != 0;
+            playerView.setHandDescription(showHand ? game.getHandRank(i).toString() : null);
+            playerView.setCurrentPlayer(i == state.getCurrentSeat());
+            playerView.setDealer(i == state.getDealerSeat());
             
             // Update chips display
             playerView.updateView();
         }
         
         // Update action panel
-        int maxBet = game.getMaxBet();
-        int callAmount = maxBet - humanPlayer.getCurrentBet();
+        int maxBet = state.getMaxBet();
+        int callAmount = maxBet - state.getBet(0);
         
         boolean canCheck = callAmount == 0;
         boolean hasBet = maxBet > 0;
@@ -164,21 +300,22 @@ public class GameController {
         
         // Set bet slider limits
         int minBetAmount = Math.max(DEFAULT_MIN_BET, maxBet * 2);
-        int maxBetAmount = humanPlayer.getChips();
+        int maxBetAmount = state.getStack(0);
         actionPanel.setBetLimits(minBetAmount, maxBetAmount);
         
         // Only enable actions if it's the human player's turn
-        boolean isHumanTurn = currentPlayer == humanPlayer && !humanPlayer.hasFolded();
+        Player currentPlayer = players.get(state.getCurrentSeat());
+        boolean isHumanTurn = state.getCurrentSeat() == 0 && !state.isFolded(0);
         actionPanel.setActionsEnabled(isHumanTurn);
         
         // Check for end of round
-        if (game.getCurrentRound() == Game.BettingRound.SHOWDOWN) {
+        if (showdown) {
             handleShowdown();
             return;
         }
         
         // If it's AI's turn, trigger AI action after a short delay
-        if (currentPlayer instanceof ComputerPlayer && game.getCurrentRound() != Game.BettingRound.SHOWDOWN) {
+        if (currentPlayer instanceof ComputerPlayer) {
             triggerAiTurn();
         } else if (isHumanTurn) {
             if (gameView != null) {
@@ -207,6 +344,7 @@ public class GameController {
     public void handleFold() {
         if (!(game.getCurrentPlayer() instanceof ComputerPlayer)) {
             game.fold();
+            saveSession();
             updateGameView();
         }
     }
@@ -217,6 +355,7 @@ public class GameController {
     public void handleCheck() {
         if (!(game.getCurrentPlayer() instanceof ComputerPlayer)) {
             game.check();
+            saveSession();
             updateGameView();
         }
     }
@@ -227,6 +366,7 @@ public class GameController {
     public void handleCall() {
         if (!(game.getCurrentPlayer() instanceof ComputerPlayer)) {
             game.call();
+            saveSession();
             updateGameView();
         }
     }
@@ -250,6 +390,7 @@ public class GameController {
             } else {
                 game.raise(amount);
             }
+            saveSession();
             updateGameView();
             
             Player currentPlayer = game.getCurrentPlayer();
@@ -276,45 +417,44 @@ public class GameController {
             Player player = game.getPlayers().get(i);
             PlayerView playerView = playerViews.get(i);
             playerView.setCards(player.getHoleCards(), true);
+            if (!player.hasFolded() && !player.getHoleCards().isEmpty()) {
+                playerView.setHandDescription(game.getHandRank(i).toString());
+            }
             playerView.updateView();
         }
 
-        // Evaluate hands and determine winner
-        java.util.List<Player> players = game.getPlayers();
-        Player player1 = players.get(0);
-        Player player2 = players.get(1);
-        HandEvaluator.HandResult hand1 = HandEvaluator.evaluateHand(player1.getHoleCards(), game.getCommunityCards());
-        HandEvaluator.HandResult hand2 = HandEvaluator.evaluateHand(player2.getHoleCards(), game.getCommunityCards());
-        int comparison = HandEvaluator.compareHands(hand1, hand2);
-        String winnerName;
-        if (player1.hasFolded()) {
-            winnerName = player2.getName();
-        } else if (player2.hasFolded()) {
-            winnerName = player1.getName();
-        } else if (comparison > 0) {
-            winnerName = player1.getName();
-        } else if (comparison < 0) {
-            winnerName = player2.getName();
-        } else {
-            winnerName = "It's a tie!";
-        }
-
-        // Build showdown message
+        // Describe each hand still in and what it won; side pots may pay several players
+        List<Player> players = game.getPlayers();
         StringBuilder message = new StringBuilder();
         message.append("Showdown!\n\n");
-        message.append(player1.getName()).append("'s hand: ").append(hand1.getRank()).append("\n");
-        message.append(player2.getName()).append("'s hand: ").append(hand2.getRank()).append("\n\n");
-        if (!winnerName.equals("It's a tie!")) {
-            message.append("Winner: ").append(winnerName).append("\n");
-            message.append("Pot won: $").append(potAmount).append("\n");
-        } else {
-            message.append("It's a tie! Pot is split.\n");
+        for (int i = 0; i < players.size(); i++) {
+            Player player = players.get(i);
+            if (player.hasFolded() || player.getHoleCards().isEmpty()) {
+                continue;
+            }
+            message.append(player.getName()).append("'s hand: ").append(game.getHandRank(i)).append("\n");
+        }
+        message.append("\n");
+        for (int i = 0; i < players.size(); i++) {
+            int won = game.getLastWinnings(i);
+            if (won > 0) {
+                message.append(players.get(i).getName()).append(" wins $").append(won).append("\n");
+            }
         }
+        message.append("Pot: $").append(potAmount).append("\n");
 
         JOptionPane.showMessageDialog(gameView, message.toString(), "Showdown", JOptionPane.INFORMATION_MESSAGE);
 
+        // Start over once only one player has chips left
+        if (game.isGameOver()) {
+            JOptionPane.showMessageDialog(gameView, "Game over! Starting a new game.", "Game Over", JOptionPane.INFORMATION_MESSAGE);
+            createNewGame();
+            return;
+        }
+
         // Start new round
         game.startNewRound();
+        saveSession();
         updateGameView();
     }
 
@@ -343,63 +483,11 @@ public class GameController {
         
         ComputerPlayer ai = (ComputerPlayer) currentPlayer;
         int maxBet = game.getMaxBet();
-        int potSize = game.getPot();
-        
-        
-        System.out.println("AI's turn. Current player: " + ai.getName() + ", Max bet: " + maxBet + ", Pot size: " + potSize);
         
         // Get AI's decision
-        String action = ai.decideAction(
-            game,
-            game.getCommunityCards(),
-            maxBet,
-            DEFAULT_MIN_BET,
-            potSize
-        );
-        
-        String message = "";
-        boolean actionTaken = false;
-        
-        // Execute AI's action
-        switch (action) {
-            case "fold":
-                actionTaken = game.fold();
-                message = ai.getName() + " folds";
-                break;
-                
-            case "check":
-                actionTaken = game.check();
-                message = ai.getName() + " checks";
-                break;
-                
-            case "call":
-                actionTaken = game.call();
-                message = ai.getName() + " calls";
-                break;
-                
-            case "bet":
-                if (maxBet == 0) {
-                    int betAmount = ai.decideBetAmount(game, 0.5, potSize, DEFAULT_MIN_BET, ai.getChips());
-                    actionTaken = game.bet(betAmount);
-                    message = ai.getName() + " bets $" + betAmount;
-                } else {
-                    actionTaken = game.call();
-                    message = ai.getName() + " calls";
-                }
-                break;
-                
-            case "raise":
-                if (maxBet > 0) {
-                    int raiseAmount = ai.decideBetAmount(game, 0.7, potSize, DEFAULT_MIN_BET, ai.getChips());
-                    actionTaken = game.raise(raiseAmount);
-                    message = ai.getName() + " raises to $" + raiseAmount;
-                } else {
-                    int betAmount = ai.decideBetAmount(game, 0.6, potSize, DEFAULT_MIN_BET, ai.getChips());
-                    actionTaken = game.bet(betAmount);
-                    message = ai.getName() + " bets $" + betAmount;
-                }
-                break;
-        }
+        Action action = ai.decide(game);
+        boolean actionTaken = game.perform(action);
+        String message = describeAction(ai, action);
         
         // If action failed, try fallback actions
         if (!actionTaken) {
@@ -411,6 +499,7 @@ public class GameController {
                 message = ai.getName() + " folds";
             }
         }
+        saveSession();
         
         if (gameView != null) {
             gameView.setStatusMessage(message);
@@ -419,4 +508,21 @@ public class GameController {
         // Update the view after AI's action
         SwingUtilities.invokeLater(this::updateGameView);
     }
+    
+    /**
+     * Builds the status message for a computer player's action.
+     * @param player the player who acted
+     * @param action the action taken
+     * @return the message to show
+     */
+    private String describeAction(Player player, Action action) {
+        switch (action.getType()) {
+            case FOLD: return player.getName() + " folds";
+            case CHECK: return player.getName() + " checks";
+            case CALL: return player.getName() + " calls";
+            case BET: return player.getName() + " bets $" + action.getAmount();
+            case RAISE: return player.getName() + " raises to $" + action.getAmount();
+            default: return player.getName() + " acts";
+        }
+    }
 } 
\ No newline at end of file
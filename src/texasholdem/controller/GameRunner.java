@@ -0,0 +1,216 @@
+package texasholdem.controller;
+
+import texasholdem.model.Action;
+import texasholdem.model.ComputerPlayer;
+import texasholdem.model.EquityCalculator;
+import texasholdem.model.Game;
+import texasholdem.model.MctsPlayer;
+import texasholdem.model.MctsSearch;
+import texasholdem.model.Player;
+import texasholdem.model.Strategy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Plays a game with no user interface, as fast as the players can decide.
+ *
+ * This does the same job as the GameController, but every player must be a {@link Strategy}
+ * (such as a ComputerPlayer) and actions are applied in a tight loop on the calling thread,
+ * with no timers, dialogs or event-thread hand-offs. Busted players can be topped back up
+ * between hands so a session can run for any number of hands.
+ */
+public class GameRunner {
+    /** Maximum number of actions in one hand before the runner gives up on it */
+    private static final int MAX_ACTIONS_PER_HAND = 1_000;
+    
+    /** The game being played */
+    private final Game game;
+    
+    /** The players, in seat order */
+    private final List<Player> players;
+    
+    /** Each player's chip count when the runner was created */
+    private final int[] startingChips;
+    
+    /** Chips added to each player by rebuys */
+    private final long[] rebuyChips;
+    
+    /** Whether busted players are topped back up to their starting chips */
+    private boolean rebuy = true;
+    
+    /** The number of hands played */
+    private long handsPlayed;
+    
+    /** The number of actions taken */
+    private long actionsTaken;
+    
+    /** Time spent playing, in nanoseconds */
+    private long elapsedNanos;
+    
+    /**
+     * Constructs a runner for a game whose players are all strategies.
+     * @param game the game to play
+     * @throws IllegalArgumentException if a player can't decide its own actions
+     */
+    public GameRunner(Game game) {
+        this.game = game;
+        this.players = game.getPlayers();
+        this.startingChips = new int[players.size()];
+        this.rebuyChips = new long[players.size()];
+        for (int i = 0; i < players.size(); i++) {
+            if (!(players.get(i) instanceof Strategy)) {
+                throw new IllegalArgumentException(players.get(i).getName() + " has no strategy");
+            }
+            startingChips[i] = players.get(i).getChips();
+        }
+        game.setVerbose(false);
+        // Rebuys go in between hands, before the next hand's stacks are dealt and recorded
+        game.setAutoDeal(false);
+    }
+    
+    /**
+     * Plays a number of hands.
+     * @param hands the number of hands to play
+     * @return the number of hands played, which is less than asked if only one player has
+     *         chips left and rebuys are off
+     */
+    public long run(long hands) {
+        long start = System.nanoTime();
+        long played = 0;
+        while (played < hands && (rebuy || !game.isGameOver())) {
+            playHand();
+            played++;
+        }
+        elapsedNanos += System.nanoTime() - start;
+        return played;
+    }
+    
+    /**
+     * Plays one complete hand, dealing it first if the last hand is over.
+     */
+    public void playHand() {
+        if (game.getHandNumber() == 0 || game.getCurrentRound() == Game.BettingRound.SHOWDOWN) {
+            game.startNewRound();
+        }
+        
+        long hand = game.getHandNumber();
+        int actions = 0;
+        while (game.getCurrentRound() != Game.BettingRound.SHOWDOWN) {
+            if (++actions > MAX_ACTIONS_PER_HAND) {
+                throw new IllegalStateException("Hand " + hand + " did not finish");
+            }
+            step();
+        }
+        
+        actionsTaken += actions;
+        handsPlayed++;
+        if (rebuy) {
+            topUpBrokePlayers();
+        }
+    }
+    
+    /**
+     * Lets the current player act, falling back to check or fold if the action isn't allowed.
+     */
+    private void step() {
+        Player player = game.getCurrentPlayer();
+        int maxBet = game.getMaxBet();
+        Action action = ((Strategy) player).decide(game);
+        if (!game.perform(action)) {
+            if (maxBet == 0) {
+                game.check();
+            } else {
+                game.fold();
+            }
+        }
+    }
+    
+    /**
+     * Gives players who can't cover the big blind their starting chips again.
+     */
+    private void topUpBrokePlayers() {
+        for (int i = 0; i < players.size(); i++) {
+            Player player = players.get(i);
+            if (player.getChips() < game.getMinBet()) {
+                player.addChips(startingChips[i]);
+                rebuyChips[i] += startingChips[i];
+            }
+        }
+    }
+    
+    /**
+     * Gets how many chips a player has won or lost since the runner was created, not counting rebuys.
+     * @param seat the player's seat
+     * @return the net chip result
+     */
+    public long getChipDelta(int seat) {
+        return players.get(seat).getChips() - startingChips[seat] - rebuyChips[seat];
+    }
+    
+    /**
+     * Sets whether busted players are topped back up between hands.
+     * @param rebuy true to allow rebuys
+     */
+    public void setRebuy(boolean rebuy) {
+        this.rebuy = rebuy;
+    }
+    
+    /**
+     * Gets the number of hands played.
+     * @return the number of hands
+     */
+    public long getHandsPlayed() {
+        return handsPlayed;
+    }
+    
+    /**
+     * Gets the number of actions taken.
+     * @return the number of actions
+     */
+    public long getActionsTaken() {
+        return actionsTaken;
+    }
+    
+    /**
+     * Gets the average number of hands played per second of running time.
+     * @return the hands per second
+     */
+    public double getHandsPerSecond() {
+        return elapsedNanos == 0 ? 0.0 : handsPlayed * 1e9 / elapsedNanos;
+    }
+    
+    /**
+     * Plays two computer players against each other and reports the speed.
+     * @param args optional number of hands (default 100000), and "mcts" to make the second
+     *             player search the game tree instead
+     */
+    public static void main(String[] args) {
+        long hands = args.length > 0 ? Long.parseLong(args[0]) : 100_000;
+        boolean mcts = args.length > 1 && args[1].equalsIgnoreCase("mcts");
+        
+        // A small sampling budget keeps each decision in the microsecond range
+        EquityCalculator calculator = new EquityCalculator(ForkJoinPool.commonPool(), 500, 10);
+        List<Player> players = new ArrayList<>();
+        for (String name : new String[] { "Bot 1", "Bot 2" }) {
+            ComputerPlayer player;
+            if (mcts && !players.isEmpty()) {
+                player = new MctsPlayer(name, 1000, new MctsSearch(ForkJoinPool.commonPool(),
+                    Runtime.getRuntime().availableProcessors(), MctsSearch.DEFAULT_NODES, 10));
+            } else {
+                player = new ComputerPlayer(name, 1000, 60, 50);
+            }
+            player.setEquityCalculator(calculator);
+            players.add(player);
+        }
+        
+        GameRunner runner = new GameRunner(new Game(players, 10));
+        runner.run(hands);
+        System.out.printf("%d hands, %d actions, %.0f hands/s%n",
+            runner.getHandsPlayed(), runner.getActionsTaken(), runner.getHandsPerSecond());
+        for (int seat = 0; seat < players.size(); seat++) {
+            System.out.printf("%s: %+d chips%n", players.get(seat).getName(), runner.getChipDelta(seat));
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package texasholdem.model;
+
+/**
+ * A betting action chosen by a player: fold, check, call, bet or raise, with an amount for
+ * bets and raises.
+ */
+public class Action {
+    /**
+     * Enumeration of the kinds of action a player can take.
+     */
+    public enum Type {
+        FOLD, CHECK, CALL, BET, RAISE;
+        
+        @Override
+        public String toString() {
+            return name().toLowerCase();
+        }
+    }
+    
+    /** Shared fold action */
+    public static final Action FOLD = new Action(Type.FOLD, 0);
+    
+    /** Shared check action */
+    public static final Action CHECK = new Action(Type.CHECK, 0);
+    
+    /** Shared call action */
+    public static final Action CALL = new Action(Type.CALL, 0);
+    
+    /** The kind of action */
+    private final Type type;
+    
+    /** The amount to bet or raise by (0 for the other actions) */
+    private final int amount;
+    
+    private Action(Type type, int amount) {
+        this.type = type;
+        this.amount = amount;
+    }
+    
+    /**
+     * Creates a bet action.
+     * @param amount the amount to bet
+     * @return the action
+     */
+    public static Action bet(int amount) {
+        return new Action(Type.BET, amount);
+    }
+    
+    /**
+     * Creates a raise action.
+     * @param amount the amount to raise by
+     * @return the action
+     */
+    public static Action raise(int amount) {
+        return new Action(Type.RAISE, amount);
+    }
+    
+    /**
+     * Gets the kind of action.
+     * @return the action type
+     */
+    public Type getType() {
+        return type;
+    }
+    
+    /**
+     * Gets the amount to bet or raise by.
+     * @return the amount, or 0 for fold, check and call
+     */
+    public int getAmount() {
+        return amount;
+    }
+    
+    /**
+     * Returns a string representation of this action.
+     * @return the action type, followed by the amount for bets and raises
+     */
+    @Override
+    public String toString() {
+        return amount > 0 ? type + " " + amount : type.toString();
+    }
+}
@@ -0,0 +1,279 @@
+package texasholdem.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A trained heads-up strategy: the probability of each abstract action in each information
+ * set of a {@link CfrAbstraction}, read straight out of a memory-mapped file.
+ *
+ * Training only reaches a small part of the information sets, so the file only holds those.
+ * After the header comes an open-addressing hash index of information sets (one int per slot,
+ * the information set plus one, or zero for an empty slot), then each slot's action
+ * probabilities quantized to 8 or 16 bits. A lookup hashes the information set, probes the
+ * mapped index and reads the probabilities in place, so nothing is deserialized at startup and
+ * the strategy takes no heap at all.
+ *
+ * The file is written by {@code texasholdem.tools.BlueprintTrainer} from the average strategy
+ * of a {@link CfrTrainer}.
+ */
+public class Blueprint {
+    /** Default location of the blueprint file */
+    public static final String DEFAULT_PATH = "data/blueprint.bin";
+
+    /** System property that overrides the blueprint location */
+    public static final String PATH_PROPERTY = "texasholdem.blueprint";
+
+    /** Default bits per quantized probability */
+    public static final int DEFAULT_BITS = 8;
+
+    /** File signature ("CFRB") */
+    private static final int MAGIC = 0x43465242;
+
+    /** File format version */
+    private static final int VERSION = 2;
+
+    /** Size of the header: magic, version, buckets, samples, actions, bits, slots, entries */
+    private static final int HEADER_BYTES = 32;
+
+    /** Largest fraction of the slots that are filled */
+    private static final double LOAD_FACTOR = 0.5;
+
+    /** The abstraction the strategy was trained with */
+    private final CfrAbstraction abstraction;
+
+    /** The mapped file */
+    private final ByteBuffer buffer;
+
+    /** Number of slots in the index, a power of two */
+    private final int slots;
+
+    /** Number of information sets in the file */
+    private final int entries;
+
+    /** Bytes per quantized probability */
+    private final int probabilityBytes;
+
+    /** Value of a probability of one */
+    private final float scale;
+
+    /** Offset of the probabilities */
+    private final int probabilityOffset;
+
+    private Blueprint(CfrAbstraction abstraction, ByteBuffer buffer, int bits, int slots, int entries) {
+        this.abstraction = abstraction;
+        this.buffer = buffer;
+        this.slots = slots;
+        this.entries = entries;
+        this.probabilityBytes = bits / 8;
+        this.scale = (1 << bits) - 1;
+        this.probabilityOffset = HEADER_BYTES + slots * Integer.BYTES;
+    }
+
+    /**
+     * Maps a blueprint file into memory.
+     * @param path the blueprint file
+     * @return the blueprint
+     * @throws IOException if the file can't be read or isn't a blueprint
+     */
+    public static Blueprint load(Path path) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not a blueprint: " + path);
+        }
+        CfrAbstraction abstraction = new CfrAbstraction(buffer.getInt(8), buffer.getInt(12));
+        int bits = buffer.getInt(20);
+        int slots = buffer.getInt(24);
+        long expected = HEADER_BYTES + (long) slots * (Integer.BYTES + HandSimulation.ACTIONS * (bits / 8));
+        if (buffer.getInt(16) != HandSimulation.ACTIONS || (bits != 8 && bits != 16)
+                || Integer.bitCount(slots) != 1 || buffer.capacity() != expected) {
+            throw new IOException("Unexpected blueprint layout: " + path);
+        }
+        return new Blueprint(abstraction, buffer, bits, slots, buffer.getInt(28));
+    }
+
+    /**
+     * Gets the blueprint at the default location, mapping it the first time it is asked for.
+     * @return the blueprint, or null if there is no usable blueprint file
+     */
+    public static Blueprint getDefault() {
+        return DefaultHolder.BLUEPRINT;
+    }
+
+    /**
+     * Lazily maps the default blueprint (class initialization makes this thread-safe).
+     */
+    private static class DefaultHolder {
+        static final Blueprint BLUEPRINT = loadDefault();
+
+        private static Blueprint loadDefault() {
+            Path path = Paths.get(System.getProperty(PATH_PROPERTY, DEFAULT_PATH));
+            if (!Files.isReadable(path)) {
+                return null;
+            }
+            try {
+                return load(path);
+            } catch (IOException e) {
+                System.err.println("Ignoring blueprint: " + e.getMessage());
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Gets the abstraction the strategy was trained with.
+     * @return the abstraction
+     */
+    public CfrAbstraction getAbstraction() {
+        return abstraction;
+    }
+
+    /**
+     * Gets the number of information sets in the blueprint.
+     * @return the number of information sets training reached
+     */
+    public int getInfoSetCount() {
+        return entries;
+    }
+
+    /**
+     * Finds an information set in the index.
+     * @param infoSet the information set from {@link CfrAbstraction#infoSet}
+     * @return the slot holding its probabilities, or -1 if training never reached it
+     */
+    public int find(int infoSet) {
+        int mask = slots - 1;
+        for (int slot = hash(infoSet) & mask; ; slot = (slot + 1) & mask) {
+            int key = buffer.getInt(HEADER_BYTES + slot * Integer.BYTES);
+            if (key == infoSet + 1) {
+                return slot;
+            }
+            if (key == 0) {
+                return -1;
+            }
+        }
+    }
+
+    /**
+     * Gets the probability of an action.
+     * @param slot the slot from {@link #find(int)}
+     * @param action the abstract action
+     * @return the probability, to within the quantization
+     */
+    public float getProbability(int slot, int action) {
+        int offset = probabilityOffset + (slot * HandSimulation.ACTIONS + action) * probabilityBytes;
+        int value = probabilityBytes == 1 ? buffer.get(offset) & 0xFF : buffer.getShort(offset) & 0xFFFF;
+        return value / scale;
+    }
+
+    /**
+     * Spreads information-set numbers over the index.
+     */
+    private static int hash(int infoSet) {
+        int h = infoSet * 0x9E3779B1;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Writes a blueprint file with the information sets that have a strategy.
+     * @param path the file to write
+     * @param abstraction the abstraction the strategy was trained with
+     * @param strategy the probability of each action, by information set and then action;
+     *        information sets that are all zero are left out
+     * @param bits the bits per probability, 8 or 16
+     * @throws IOException if the file can't be written
+     */
+    public static void write(Path path, CfrAbstraction abstraction, float[] strategy, int bits) throws IOException {
+        int actions = HandSimulation.ACTIONS;
+        if (strategy.length != abstraction.getInfoSetCount() * actions) {
+            throw new IllegalArgumentException("Wrong strategy size");
+        }
+        if (bits != 8 && bits != 16) {
+            throw new IllegalArgumentException("Probabilities must be 8 or 16 bits");
+        }
+
+        int entries = 0;
+        for (int infoSet = 0; infoSet < abstraction.getInfoSetCount(); infoSet++) {
+            if (hasStrategy(strategy, infoSet)) {
+                entries++;
+            }
+        }
+        int slots = Integer.highestOneBit(Math.max(1, (int) (entries / LOAD_FACTOR)) * 2 - 1);
+        if (slots <= entries) {
+            slots *= 2;
+        }
+
+        int probabilityBytes = bits / 8;
+        int scale = (1 << bits) - 1;
+        int probabilityOffset = HEADER_BYTES + slots * Integer.BYTES;
+        ByteBuffer buffer = ByteBuffer.allocate(probabilityOffset + slots * actions * probabilityBytes);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(abstraction.getBuckets()).putInt(abstraction.getSamples())
+            .putInt(actions).putInt(bits).putInt(slots).putInt(entries);
+
+        int[] quantized = new int[actions];
+        for (int infoSet = 0; infoSet < abstraction.getInfoSetCount(); infoSet++) {
+            if (!hasStrategy(strategy, infoSet)) {
+                continue;
+            }
+            int slot = hash(infoSet) & (slots - 1);
+            while (buffer.getInt(HEADER_BYTES + slot * Integer.BYTES) != 0) {
+                slot = (slot + 1) & (slots - 1);
+            }
+            buffer.putInt(HEADER_BYTES + slot * Integer.BYTES, infoSet + 1);
+
+            // Round each probability, then give the rounding error to the likeliest action
+            int sum = 0;
+            int likeliest = 0;
+            for (int action = 0; action < actions; action++) {
+                float probability = strategy[infoSet * actions + action];
+                quantized[action] = Math.round(probability * scale);
+                sum += quantized[action];
+                if (probability > strategy[infoSet * actions + likeliest]) {
+                    likeliest = action;
+                }
+            }
+            quantized[likeliest] = Math.max(0, quantized[likeliest] + scale - sum);
+            for (int action = 0; action < actions; action++) {
+                int offset = probabilityOffset + (slot * actions + action) * probabilityBytes;
+                if (probabilityBytes == 1) {
+                    buffer.put(offset, (byte) quantized[action]);
+                } else {
+                    buffer.putShort(offset, (short) quantized[action]);
+                }
+            }
+        }
+        buffer.position(0);
+
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    /**
+     * Checks whether training reached an information set.
+     */
+    private static boolean hasStrategy(float[] strategy, int infoSet) {
+        for (int action = 0; action < HandSimulation.ACTIONS; action++) {
+            if (strategy[infoSet * HandSimulation.ACTIONS + action] > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,98 @@
+package texasholdem.model;
+
+import java.util.SplittableRandom;
+
+/**
+ * A computer player that plays heads-up from a trained {@link Blueprint}.
+ *
+ * At each decision it works out its information set from the game state, then picks one of
+ * the blueprint's abstract actions at random with the trained probabilities. With more than
+ * one opponent, without a blueprint, or in an information set training never reached, it
+ * falls back to the ordinary computer player's decision.
+ */
+public class BlueprintPlayer extends ComputerPlayer {
+    private Blueprint blueprint;
+    private final SplittableRandom random;
+    private final Deck bucketDeck;
+    private final HandSimulation simulation = new HandSimulation();
+
+    /**
+     * Constructs a blueprint player that uses the blueprint at the default location, if any.
+     * @param name the player's name
+     * @param initialChips the initial number of chips
+     * @param aggressiveness 0-100, used when falling back to the ordinary decision
+     * @param tightness 0-100, used when falling back to the ordinary decision
+     */
+    public BlueprintPlayer(String name, int initialChips, int aggressiveness, int tightness) {
+        this(name, initialChips, aggressiveness, tightness, Blueprint.getDefault(), new SplittableRandom());
+    }
+
+    /**
+     * Constructs a blueprint player whose decisions are reproducible for a given seed.
+     * @param name the player's name
+     * @param initialChips the initial number of chips
+     * @param blueprint the trained strategy, or null to always fall back
+     * @param seed the seed for the player's random choices
+     */
+    public BlueprintPlayer(String name, int initialChips, Blueprint blueprint, long seed) {
+        this(name, initialChips, 50, 50, blueprint, new SplittableRandom(seed));
+    }
+
+    private BlueprintPlayer(String name, int initialChips, int aggressiveness, int tightness,
+            Blueprint blueprint, SplittableRandom random) {
+        super(name, initialChips, aggressiveness, tightness, random.nextLong());
+        this.blueprint = blueprint;
+        this.random = random;
+        this.bucketDeck = new Deck(random.split());
+    }
+
+    /**
+     * Decides the action for this player from the blueprint when it covers the situation.
+     * @param game The game state
+     * @return the action to take
+     */
+    @Override
+    public Action decide(Game game) {
+        GameState state = game.getState();
+        if (blueprint == null || state.getActivePlayerCount() != 2
+                || state.getRound() == Game.BettingRound.SHOWDOWN) {
+            return super.decide(game);
+        }
+
+        CfrAbstraction abstraction = blueprint.getAbstraction();
+        int seat = state.getCurrentSeat();
+        int street = state.getRound().ordinal();
+        int bucket = abstraction.bucket(state.getHoleCards(seat), state.getBoard(), bucketDeck);
+        simulation.reset(state);
+        int infoSet = abstraction.infoSet(street, seat == state.getDealerSeat(), bucket, simulation.getPot(),
+            simulation.getAmountToCall(), simulation.getEffectiveStack(), state.getMinBet());
+        int slot = blueprint.find(infoSet);
+        if (slot < 0) {
+            return super.decide(game);
+        }
+
+        // Pick an action in proportion to its probability, among the ones allowed here
+        int legal = simulation.legalActions();
+        double total = 0.0;
+        for (int bits = legal; bits != 0; bits &= bits - 1) {
+            total += blueprint.getProbability(slot, Integer.numberOfTrailingZeros(bits));
+        }
+        if (total <= 0) {
+            return super.decide(game);
+        }
+        double roll = random.nextDouble() * total;
+        int chosen = HandSimulation.CALL;
+        for (int bits = legal; bits != 0; bits &= bits - 1) {
+            int action = Integer.numberOfTrailingZeros(bits);
+            chosen = action;
+            roll -= blueprint.getProbability(slot, action);
+            if (roll < 0) {
+                break;
+            }
+        }
+        return simulation.toAction(chosen);
+    }
+
+    public Blueprint getBlueprint() { return blueprint; }
+    public void setBlueprint(Blueprint blueprint) { this.blueprint = blueprint; }
+}
@@ -0,0 +1,194 @@
+package texasholdem.model;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * What hands are clustered by when they are grouped into buckets.
+ *
+ * Every feature is worked out from a sample of the hand's strength on the river: for each of
+ * a number of random runouts of the board, the share of the pot the hand wins against random
+ * opposing hands (its hand strength, or HS). On a complete board there is nothing left to
+ * sample, and {@link #riverStrengths} works out the exact HS of every hand at once. The
+ * features are all float vectors meant to be compared by L1 distance, which for the histogram
+ * is the earth mover's distance.
+ */
+public enum BucketFeature {
+    /** Expected hand strength, E[HS] */
+    EHS(1),
+
+    /** Expected squared hand strength, E[HS^2], which also rewards hands that might improve */
+    EHS2(1),
+
+    /**
+     * The distribution of hand strength as a cumulative histogram, so that the L1 distance
+     * between two hands is the earth mover's distance between their distributions
+     */
+    HISTOGRAM(16);
+
+    private final int dimensions;
+
+    BucketFeature(int dimensions) {
+        this.dimensions = dimensions;
+    }
+
+    /**
+     * Gets the length of the feature vector.
+     * @return the number of floats per hand
+     */
+    public int getDimensions() {
+        return dimensions;
+    }
+
+    /**
+     * Works out the feature from a sample of hand strengths.
+     * @param strengths the hand strengths from {@link #sampleStrengths}
+     * @param count the number of strengths
+     * @param features receives the feature vector
+     * @param offset the position of the vector in the features array
+     */
+    public void compute(float[] strengths, int count, float[] features, int offset) {
+        switch (this) {
+            case EHS:
+                features[offset] = (float) mean(strengths, count);
+                break;
+            case EHS2:
+                double squares = 0.0;
+                for (int i = 0; i < count; i++) {
+                    squares += strengths[i] * strengths[i];
+                }
+                features[offset] = (float) (squares / count);
+                break;
+            default:
+                for (int bin = 0; bin < dimensions; bin++) {
+                    features[offset + bin] = 0f;
+                }
+                for (int i = 0; i < count; i++) {
+                    features[offset + Math.min(dimensions - 1, (int) (strengths[i] * dimensions))] += 1f / count;
+                }
+                for (int bin = 1; bin < dimensions; bin++) {
+                    features[offset + bin] += features[offset + bin - 1];
+                }
+                break;
+        }
+    }
+
+    /**
+     * Averages a sample of hand strengths.
+     * @param strengths the hand strengths
+     * @param count the number of strengths
+     * @return the expected hand strength
+     */
+    public static double mean(float[] strengths, int count) {
+        double sum = 0.0;
+        for (int i = 0; i < count; i++) {
+            sum += strengths[i];
+        }
+        return sum / count;
+    }
+
+    /**
+     * Samples a hand's strength on the river. Nothing is allocated, so this can be called for
+     * millions of hands.
+     * @param holeCards the hole card mask
+     * @param board the board so far
+     * @param deck a deck to deal runouts from; its contents are replaced
+     * @param runouts the number of runouts to deal (only one is used on the river)
+     * @param opponents the number of random opposing hands per runout
+     * @param strengths receives one hand strength per runout
+     * @return the number of strengths written
+     */
+    public static int sampleStrengths(long holeCards, long board, Deck deck, int runouts, int opponents,
+            float[] strengths) {
+        int missing = 5 - CardMask.count(board);
+        if (missing == 0) {
+            runouts = 1;
+        }
+        RandomGenerator random = deck.getRandom();
+        deck.resetWithout(holeCards | board);
+        for (int r = 0; r < runouts; r++) {
+            deck.collect();
+            long fullBoard = board | deck.dealMask(missing);
+            long dead = holeCards | fullBoard;
+            int strength = HandEvaluator.evaluate(holeCards | fullBoard);
+            double share = 0.0;
+            for (int o = 0; o < opponents; o++) {
+                // Draw an opposing hand from the cards that are left, by rejection
+                long card1;
+                long card2;
+                do {
+                    card1 = CardMask.bit(random.nextInt(Card.COUNT));
+                } while ((dead & card1) != 0);
+                do {
+                    card2 = CardMask.bit(random.nextInt(Card.COUNT));
+                } while (((dead | card1) & card2) != 0);
+                int opponentStrength = HandEvaluator.evaluate(card1 | card2 | fullBoard);
+                share += strength > opponentStrength ? 1.0 : strength == opponentStrength ? 0.5 : 0.0;
+            }
+            strengths[r] = (float) (share / opponents);
+        }
+        return runouts;
+    }
+
+    /**
+     * Works out the exact strength of every pair of hole cards on a complete board, against
+     * all 990 opposing hands each. The pairs are evaluated once and sorted by strength; walking
+     * them from the weakest up, a pair beats every pair below it except those sharing one of
+     * its cards, which running counts per card take away.
+     * @param board the mask of the five community cards
+     * @param holeCards receives the hole card mask of each of the 1081 pairs that miss the board
+     * @param strengths receives each pair's hand strength
+     * @return the number of pairs written
+     */
+    public static int riverStrengths(long board, long[] holeCards, float[] strengths) {
+        if (CardMask.count(board) != 5) {
+            throw new IllegalArgumentException("Need a complete board");
+        }
+        int count = 0;
+        for (int combo = 0; combo < Range.COMBOS; combo++) {
+            long mask = Range.comboMask(combo);
+            if ((mask & board) == 0) {
+                holeCards[count++] = (long) HandEvaluator.evaluate(mask | board) << 32 | combo;
+            }
+        }
+        Arrays.sort(holeCards, 0, count);
+
+        // Pairs below the current group of equal strength, in all and holding each card
+        int[] below = new int[Card.COUNT];
+        int[] tied = new int[Card.COUNT];
+        int belowCount = 0;
+        // Every pair but this one and the 45 others holding each of its cards
+        double opponents = count - 2 * (Card.COUNT - 5 - 2) - 1;
+        for (int start = 0; start < count; ) {
+            int strength = (int) (holeCards[start] >>> 32);
+            int end = start;
+            while (end < count && (int) (holeCards[end] >>> 32) == strength) {
+                int combo = (int) holeCards[end++];
+                tied[Range.firstCard(combo)]++;
+                tied[Range.secondCard(combo)]++;
+            }
+            for (int i = start; i < end; i++) {
+                int combo = (int) holeCards[i];
+                int first = Range.firstCard(combo);
+                int second = Range.secondCard(combo);
+                int beaten = belowCount - below[first] - below[second];
+                // Only this pair holds both of its cards, so it is taken away twice and added back once
+                int ties = end - start - tied[first] - tied[second] + 1;
+                strengths[i] = (float) ((beaten + ties / 2.0) / opponents);
+            }
+            for (int i = start; i < end; i++) {
+                int combo = (int) holeCards[i];
+                int first = Range.firstCard(combo);
+                int second = Range.secondCard(combo);
+                tied[first]--;
+                tied[second]--;
+                below[first]++;
+                below[second]++;
+                holeCards[i] = Range.comboMask(combo);
+            }
+            belowCount += end - start;
+            start = end;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,216 @@
+package texasholdem.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Precomputed hand-strength buckets for one betting round, read straight out of a
+ * memory-mapped file.
+ *
+ * The file is a plain array of buckets, one short per hand, in {@link HandIndexer} order: hands
+ * that only differ by their suits share an entry, and there are no keys or empty slots. Buckets
+ * are numbered from the weakest hands to the strongest. A lookup indexes the hand and reads one
+ * short from the mapping, so it takes constant time and nothing is read in at startup.
+ *
+ * The tables are written by {@code texasholdem.tools.BucketTableGenerator}.
+ */
+public class BucketTable {
+    /** Directory the tables are looked for in by default */
+    public static final String DEFAULT_DIRECTORY = "data";
+
+    /** System property that overrides the table directory */
+    public static final String DIRECTORY_PROPERTY = "texasholdem.buckets";
+
+    /** File signature ("BCKT") */
+    private static final int MAGIC = 0x42434B54;
+
+    /** File format version */
+    private static final int VERSION = 2;
+
+    /** Size of the header: magic, version, board cards, buckets, entries */
+    private static final int HEADER_BYTES = 20;
+
+    /** The mapped file */
+    private final ByteBuffer buffer;
+
+    /** Number of board cards the table is for */
+    private final int boardCards;
+
+    /** Number of buckets */
+    private final int buckets;
+
+    /** The indexer for hands with this many board cards */
+    private final HandIndexer indexer;
+
+    private BucketTable(ByteBuffer buffer, int boardCards, int buckets) {
+        this.buffer = buffer;
+        this.boardCards = boardCards;
+        this.buckets = buckets;
+        this.indexer = getIndexer(boardCards);
+    }
+
+    /**
+     * Maps a table file into memory.
+     * @param path the table file
+     * @return the table
+     * @throws IOException if the file can't be read or isn't a bucket table
+     */
+    public static BucketTable load(Path path) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not a bucket table: " + path);
+        }
+        int boardCards = buffer.getInt(8);
+        if ((boardCards != 0 && (boardCards < 3 || boardCards > 5))
+                || buffer.getInt(16) != getIndexer(boardCards).size()
+                || buffer.capacity() != HEADER_BYTES + (long) buffer.getInt(16) * Short.BYTES) {
+            throw new IOException("Unexpected bucket table layout: " + path);
+        }
+        return new BucketTable(buffer, boardCards, buffer.getInt(12));
+    }
+
+    /**
+     * Gets the indexer for hands with a number of board cards.
+     * @param boardCards 0, 3, 4 or 5
+     * @return the indexer for the hole cards and board
+     */
+    public static HandIndexer getIndexer(int boardCards) {
+        switch (boardCards) {
+            case 0: return HandIndexer.PREFLOP;
+            case 3: return HandIndexer.FLOP;
+            case 4: return HandIndexer.TURN;
+            case 5: return HandIndexer.RIVER;
+            default: throw new IllegalArgumentException("No betting round has " + boardCards + " board cards");
+        }
+    }
+
+    /**
+     * Gets the default location of the table for a betting round.
+     * @param round PREFLOP to RIVER
+     * @return the path of the table file
+     */
+    public static Path getDefaultPath(Game.BettingRound round) {
+        String directory = System.getProperty(DIRECTORY_PROPERTY, DEFAULT_DIRECTORY);
+        return Paths.get(directory, "buckets-" + round.name().toLowerCase() + ".bin");
+    }
+
+    /**
+     * Gets the table at the default location for a betting round, mapping the tables the
+     * first time they are asked for.
+     * @param round PREFLOP to RIVER
+     * @return the table, or null if there is no usable table file for the round
+     */
+    public static BucketTable getDefault(Game.BettingRound round) {
+        return round == Game.BettingRound.SHOWDOWN ? null : DefaultHolder.TABLES[round.ordinal()];
+    }
+
+    /**
+     * Lazily maps the default tables (class initialization makes this thread-safe).
+     */
+    private static class DefaultHolder {
+        static final BucketTable[] TABLES = loadDefaults();
+
+        private static BucketTable[] loadDefaults() {
+            BucketTable[] tables = new BucketTable[Game.BettingRound.SHOWDOWN.ordinal()];
+            for (int i = 0; i < tables.length; i++) {
+                Path path = getDefaultPath(Game.BettingRound.values()[i]);
+                if (Files.isReadable(path)) {
+                    try {
+                        tables[i] = load(path);
+                    } catch (IOException e) {
+                        System.err.println("Ignoring bucket table: " + e.getMessage());
+                    }
+                }
+            }
+            return tables;
+        }
+    }
+
+    /**
+     * Gets the number of board cards the table is for.
+     * @return 0, 3, 4 or 5
+     */
+    public int getBoardCards() {
+        return boardCards;
+    }
+
+    /**
+     * Gets the number of buckets.
+     * @return one more than the strongest bucket
+     */
+    public int getBuckets() {
+        return buckets;
+    }
+
+    /**
+     * Gets the number of distinct hands in the table.
+     * @return the number of hands up to suits
+     */
+    public int getEntries() {
+        return (int) indexer.size();
+    }
+
+    /**
+     * Gets the bucket of a hand.
+     * @param holeCards the hole card mask
+     * @param board the board card mask, with as many cards as the table is for
+     * @return the bucket, from 0 for the weakest hands
+     */
+    public int getBucket(long holeCards, long board) {
+        long index = boardCards == 0 ? indexer.index(holeCards) : indexer.index(holeCards, board);
+        return getBucket((int) index);
+    }
+
+    /**
+     * Gets the bucket of a hand by its index.
+     * @param index the hand's index from the table's {@link #getIndexer(int) indexer}
+     * @return the bucket, from 0 for the weakest hands
+     */
+    public int getBucket(int index) {
+        return buffer.getShort(HEADER_BYTES + index * Short.BYTES);
+    }
+
+    /**
+     * Writes a table file.
+     * @param path the file to write
+     * @param boardCards the number of board cards the table is for
+     * @param buckets the number of buckets
+     * @param assignments the bucket of each hand, in {@link HandIndexer} order
+     * @throws IOException if the file can't be written
+     */
+    public static void write(Path path, int boardCards, int buckets, int[] assignments) throws IOException {
+        if (assignments.length != getIndexer(boardCards).size()) {
+            throw new IllegalArgumentException("Need one bucket per hand");
+        }
+        if (buckets > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many buckets");
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + assignments.length * Short.BYTES);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(boardCards).putInt(buckets).putInt(assignments.length);
+        for (int assignment : assignments) {
+            buffer.putShort((short) assignment);
+        }
+        buffer.flip();
+
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+}
@@ -2,22 +2,103 @@ package texasholdem.model;
 
 /**
  * Represents a standard playing card with a suit and rank.
+ *
+ * There are only ever 52 Card objects: one interned instance per suit and rank, created
+ * when the class is loaded and handed out by {@link #of(Suit, Rank)} and {@link #of(int)}.
+ * Each card also has primitive forms for code that works on ints and longs instead of lists:
+ * an index from 0 to 51, a single bit in a 64-bit card mask (see {@link CardMask}), and a
+ * packed int holding its rank prime, rank number, suit bit and rank bit.
  */
 public class Card {
+    /** Number of distinct cards in a deck */
+    public static final int COUNT = 52;
+    
+    /** Prime number for each rank, lowest rank first, used to identify rank multisets by product */
+    private static final int[] PRIMES = { 2, 3, 5, 7, 11, 13, 17, 19, 23, 29, 31, 37, 41 };
+    
+    /** Suits in ordinal order, cached so lookups don't copy the values() array */
+    private static final Suit[] SUITS = Suit.values();
+    
+    /** Ranks in ordinal order, cached so lookups don't copy the values() array */
+    private static final Rank[] RANKS = Rank.values();
+    
+    /** The interned cards, indexed by {@link #getIndex()} */
+    private static final Card[] CARDS = new Card[COUNT];
+    
+    static {
+        for (Suit suit : SUITS) {
+            for (Rank rank : RANKS) {
+                Card card = new Card(suit, rank);
+                CARDS[card.index] = card;
+            }
+        }
+    }
+    
     /** The suit of this card (HEARTS, DIAMONDS, CLUBS, SPADES) */
-    private Suit suit;
+    private final Suit suit;
     
     /** The rank of this card (ACE, TWO, THREE, etc.) */
-    private Rank rank;
+    private final Rank rank;
+    
+    /** The index of this card, from 0 to 51 */
+    private final int index;
+    
+    /** The single bit representing this card in a card mask */
+    private final long mask;
+    
+    /** The packed prime/rank/suit form of this card */
+    private final int packed;
     
     /**
      * Constructs a card with the specified suit and rank.
+     * Only used to build the interned cards; everything else goes through {@link #of(Suit, Rank)}.
      * @param suit the suit of the card
      * @param rank the rank of the card
      */
-    public Card(Suit suit, Rank rank) {
+    private Card(Suit suit, Rank rank) {
         this.suit = suit;
         this.rank = rank;
+        this.index = suit.ordinal() * Rank.COUNT + rank.ordinal();
+        this.mask = 1L << (suit.ordinal() * CardMask.LANE_WIDTH + rank.ordinal());
+        this.packed = (1 << (16 + rank.ordinal())) | (1 << (12 + suit.ordinal()))
+                | (rank.ordinal() << 8) | PRIMES[rank.ordinal()];
+    }
+    
+    /**
+     * Gets the interned card with the given suit and rank.
+     * @param suit the suit of the card
+     * @param rank the rank of the card
+     * @return the card
+     */
+    public static Card of(Suit suit, Rank rank) {
+        return CARDS[suit.ordinal() * Rank.COUNT + rank.ordinal()];
+    }
+    
+    /**
+     * Gets the interned card with the given index.
+     * @param index the card index, from 0 to 51
+     * @return the card
+     */
+    public static Card of(int index) {
+        return CARDS[index];
+    }
+    
+    /**
+     * Gets the suit of a card index without looking up the card.
+     * @param index the card index, from 0 to 51
+     * @return the suit
+     */
+    public static Suit suitOf(int index) {
+        return SUITS[index / Rank.COUNT];
+    }
+    
+    /**
+     * Gets the rank of a card index without looking up the card.
+     * @param index the card index, from 0 to 51
+     * @return the rank
+     */
+    public static Rank rankOf(int index) {
+        return RANKS[index % Rank.COUNT];
     }
     
     /**
@@ -44,6 +125,31 @@ public class Card {
         return rank.getValue();
     }
     
+    /**
+     * Gets the index of this card (suit ordinal * 13 + rank ordinal).
+     * @return the index, from 0 to 51
+     */
+    public int getIndex() {
+        return index;
+    }
+    
+    /**
+     * Gets the bit representing this card in a card mask.
+     * @return a long with exactly one bit set
+     */
+    public long getMask() {
+        return mask;
+    }
+    
+    /**
+     * Gets the packed form of this card: a rank bit in bits 16-28, a suit bit in bits 12-15,
+     * the rank ordinal in bits 8-11 and the rank prime in bits 0-5.
+     * @return the packed card
+     */
+    public int getPacked() {
+        return packed;
+    }
+    
     /**
      * Returns a string representation of this card.
      * @return a string with the rank and suit of the card
@@ -59,6 +165,9 @@ public class Card {
     public enum Suit {
         HEARTS, DIAMONDS, CLUBS, SPADES;
         
+        /** Number of suits */
+        public static final int COUNT = 4;
+        
         @Override
         public String toString() {
             return name().charAt(0) + name().substring(1).toLowerCase();
@@ -72,6 +181,9 @@ public class Card {
         TWO(2), THREE(3), FOUR(4), FIVE(5), SIX(6), SEVEN(7), EIGHT(8), NINE(9), TEN(10), 
         JACK(11), QUEEN(12), KING(13), ACE(14);
         
+        /** Number of ranks */
+        public static final int COUNT = 13;
+        
         private final int value;
         
         Rank(int value) {
@@ -97,4 +209,4 @@ public class Card {
             }
         }
     }
-} 
\ No newline at end of file
+}
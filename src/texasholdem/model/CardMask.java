@@ -0,0 +1,116 @@
+package texasholdem.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Static helpers for card masks: sets of cards stored in a single long.
+ *
+ * Each suit gets a 16-bit lane (in {@link Card.Suit} ordinal order) and each card is the bit
+ * {@code suit * 16 + rank} inside it, so the 13 ranks of one suit can be read out with a
+ * shift and a mask. Converting between a bit, a card index and an interned {@link Card}
+ * is a constant-time operation.
+ */
+public final class CardMask {
+    /** Width of one suit lane in a card mask */
+    public static final int LANE_WIDTH = 16;
+    
+    /** Mask of every card in the deck */
+    public static final long FULL_DECK = 0x1FFF_1FFF_1FFF_1FFFL;
+    
+    /** Card index for each bit position in a mask, or -1 for unused bits */
+    private static final byte[] INDEX_BY_BIT = new byte[64];
+    
+    static {
+        for (int bit = 0; bit < 64; bit++) {
+            int rank = bit % LANE_WIDTH;
+            INDEX_BY_BIT[bit] = (byte) (rank < Card.Rank.COUNT ? bit / LANE_WIDTH * Card.Rank.COUNT + rank : -1);
+        }
+    }
+    
+    private CardMask() {
+    }
+    
+    /**
+     * Gets the mask bit for a card index.
+     * @param index the card index, from 0 to 51
+     * @return a long with exactly the card's bit set
+     */
+    public static long bit(int index) {
+        return 1L << (index / Card.Rank.COUNT * LANE_WIDTH + index % Card.Rank.COUNT);
+    }
+    
+    /**
+     * Gets the card index of the lowest card in a mask.
+     * @param mask a non-empty card mask
+     * @return the card index, from 0 to 51
+     */
+    public static int lowestIndex(long mask) {
+        return INDEX_BY_BIT[Long.numberOfTrailingZeros(mask)];
+    }
+    
+    /**
+     * Gets the lowest card in a mask.
+     * @param mask a non-empty card mask
+     * @return the interned card
+     */
+    public static Card lowestCard(long mask) {
+        return Card.of(lowestIndex(mask));
+    }
+    
+    /**
+     * Builds the mask of a list of cards.
+     * @param cards the cards
+     * @return the card mask
+     */
+    public static long of(List<Card> cards) {
+        long mask = 0L;
+        for (int i = 0; i < cards.size(); i++) {
+            mask |= cards.get(i).getMask();
+        }
+        return mask;
+    }
+    
+    /**
+     * Counts the cards in a mask.
+     * @param mask the card mask
+     * @return the number of cards
+     */
+    public static int count(long mask) {
+        return Long.bitCount(mask);
+    }
+    
+    /**
+     * Checks whether a mask contains a card.
+     * @param mask the card mask
+     * @param card the card to look for
+     * @return true if the card is in the mask
+     */
+    public static boolean contains(long mask, Card card) {
+        return (mask & card.getMask()) != 0;
+    }
+    
+    /**
+     * Gets the 13-bit rank mask of one suit.
+     * @param mask the card mask
+     * @param suit the suit
+     * @return a mask with bit {@code rank.ordinal()} set for each card of that suit
+     */
+    public static int suitRanks(long mask, Card.Suit suit) {
+        return (int) (mask >>> (suit.ordinal() * LANE_WIDTH)) & 0x1FFF;
+    }
+    
+    /**
+     * Lists the cards in a mask, lowest index first.
+     * @param mask the card mask
+     * @return a new list of interned cards
+     */
+    public static List<Card> toList(long mask) {
+        List<Card> cards = new ArrayList<>(Long.bitCount(mask));
+        while (mask != 0) {
+            cards.add(lowestCard(mask));
+            mask &= mask - 1;
+        }
+        return cards;
+    }
+}
@@ -0,0 +1,174 @@
+package texasholdem.model;
+
+/**
+ * Maps what a player knows at a decision to an information-set index, for training and
+ * playing a counterfactual regret minimization blueprint.
+ *
+ * Cards are bucketed by equity: before the flop each of the 169 starting-hand classes is its
+ * own bucket, and after it hands are bucketed by their expected share of the pot against one
+ * random hand, sampled with {@link HandEvaluator}. The betting is described by what can be
+ * seen on the table rather than the exact history: the street, whether the player has the
+ * button, the pot in big blinds, the bet to call as a fraction of the pot and the effective
+ * stack against the pot, each on a coarse scale. Because the index only depends on the
+ * current state, a player can find its information set from a {@link GameState} whatever bet
+ * sizes were actually used.
+ */
+public class CfrAbstraction {
+    /** Default number of buckets after the flop */
+    public static final int DEFAULT_BUCKETS = 16;
+
+    /** Default number of samples per equity bucket */
+    public static final int DEFAULT_SAMPLES = 128;
+
+    /** Number of betting rounds with decisions */
+    private static final int STREETS = 4;
+
+    /** Number of pot sizes, on a doubling scale in big blinds */
+    private static final int POT_LEVELS = 16;
+
+    /** Number of bet-to-call sizes relative to the pot */
+    private static final int CALL_LEVELS = 8;
+
+    /** Number of stack-to-pot ratios */
+    private static final int STACK_LEVELS = 8;
+
+    private final int buckets;
+    private final int samples;
+    private final int bucketLevels;
+
+    /**
+     * Constructs the default abstraction.
+     */
+    public CfrAbstraction() {
+        this(DEFAULT_BUCKETS, DEFAULT_SAMPLES);
+    }
+
+    /**
+     * Constructs an abstraction.
+     * @param buckets the number of equity buckets after the flop
+     * @param samples the number of boards sampled to estimate a hand's equity
+     */
+    public CfrAbstraction(int buckets, int samples) {
+        if (buckets <= 0 || samples <= 0) {
+            throw new IllegalArgumentException("Buckets and samples must be positive");
+        }
+        this.buckets = buckets;
+        this.samples = samples;
+        this.bucketLevels = Math.max(buckets, PreflopEquityTable.CLASSES);
+    }
+
+    /**
+     * Gets the number of equity buckets after the flop.
+     * @return the number of buckets
+     */
+    public int getBuckets() {
+        return buckets;
+    }
+
+    /**
+     * Gets the number of boards sampled per equity bucket.
+     * @return the number of samples
+     */
+    public int getSamples() {
+        return samples;
+    }
+
+    /**
+     * Gets the number of information sets, so tables can be sized.
+     * @return one more than the largest index
+     */
+    public int getInfoSetCount() {
+        return STREETS * 2 * bucketLevels * POT_LEVELS * CALL_LEVELS * STACK_LEVELS;
+    }
+
+    /**
+     * Gets the bucket of a hand.
+     * @param holeCards the hole card mask
+     * @param board the community cards dealt so far
+     * @param deck a deck to sample with; its contents are replaced
+     * @return the starting-hand class before the flop, or the equity bucket after it
+     */
+    public int bucket(long holeCards, long board, Deck deck) {
+        if (board == 0) {
+            int card1 = CardMask.lowestIndex(holeCards);
+            int card2 = CardMask.lowestIndex(holeCards & (holeCards - 1));
+            return PreflopEquityTable.classIndex(card1, card2);
+        }
+
+        deck.resetWithout(holeCards | board);
+        int missing = 5 - CardMask.count(board);
+        double share = 0.0;
+        for (int i = 0; i < samples; i++) {
+            deck.collect();
+            long opponent = deck.dealMask(2);
+            long fullBoard = board | deck.dealMask(missing);
+            int strength = HandEvaluator.evaluate(holeCards | fullBoard);
+            int opponentStrength = HandEvaluator.evaluate(opponent | fullBoard);
+            share += strength > opponentStrength ? 1.0 : strength == opponentStrength ? 0.5 : 0.0;
+        }
+        return Math.min(buckets - 1, (int) (share / samples * buckets));
+    }
+
+    /**
+     * Gets the information set of a decision.
+     * @param street the betting round's ordinal, PREFLOP to RIVER
+     * @param button true if the player has the dealer button
+     * @param bucket the player's bucket from {@link #bucket(long, long, Deck)}
+     * @param pot the chips in the pot
+     * @param toCall the chips the player has to put in to call
+     * @param effectiveStack the most the player can still put in, including the call
+     * @param minBet the big blind
+     * @return the information-set index
+     */
+    public int infoSet(int street, boolean button, int bucket, int pot, int toCall, int effectiveStack, int minBet) {
+        int index = street * 2 + (button ? 1 : 0);
+        index = index * bucketLevels + bucket;
+        index = index * POT_LEVELS + potLevel(pot, minBet);
+        index = index * CALL_LEVELS + callLevel(pot, toCall);
+        return index * STACK_LEVELS + stackLevel(pot + toCall, effectiveStack - toCall);
+    }
+
+    /**
+     * Gets the pot on a doubling scale of big blinds.
+     */
+    private static int potLevel(int pot, int minBet) {
+        int blinds = pot / Math.max(1, minBet);
+        return Math.min(POT_LEVELS - 1, 32 - Integer.numberOfLeadingZeros(blinds));
+    }
+
+    /**
+     * Gets the bet to call as a fraction of the pot: none, then up to a fifth, two fifths,
+     * three fifths, four fifths, a little over the pot, twice the pot, and more.
+     */
+    private static int callLevel(int pot, int toCall) {
+        if (toCall <= 0) {
+            return 0;
+        }
+        double ratio = (double) toCall / Math.max(1, pot);
+        if (ratio <= 0.2) return 1;
+        if (ratio <= 0.4) return 2;
+        if (ratio <= 0.6) return 3;
+        if (ratio <= 0.8) return 4;
+        if (ratio <= 1.1) return 5;
+        if (ratio <= 2.0) return 6;
+        return 7;
+    }
+
+    /**
+     * Gets the stack left after calling against the pot after calling: nothing, then under
+     * half, one, two, four, eight and sixteen pots, and more.
+     */
+    private static int stackLevel(int pot, int stack) {
+        if (stack <= 0) {
+            return 0;
+        }
+        double ratio = (double) stack / Math.max(1, pot);
+        if (ratio < 0.5) return 1;
+        if (ratio < 1) return 2;
+        if (ratio < 2) return 3;
+        if (ratio < 4) return 4;
+        if (ratio < 8) return 5;
+        if (ratio < 16) return 6;
+        return 7;
+    }
+}
@@ -0,0 +1,374 @@
+package texasholdem.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+/**
+ * Trains a heads-up strategy by Monte Carlo counterfactual regret minimization.
+ *
+ * Each iteration deals both hands and the whole board, then walks the betting of a
+ * {@link HandSimulation} (the same rules as {@link Game}, with the bet sizes of its abstract
+ * actions) from the blinds to the end of the hand. The traversing player tries every legal
+ * action and updates its regrets; the other player's action is sampled from the current
+ * strategy, whose probabilities are added to the average strategy (external sampling).
+ * Regrets are floored at zero as in CFR+, which makes the current strategy react faster.
+ * Information sets come from a {@link CfrAbstraction}.
+ *
+ * Regrets and strategy sums are float arrays indexed by information set and action. Several
+ * threads train at once and update the shared arrays without locking; an occasional lost
+ * update only adds a little noise. Training can be saved to a checkpoint and resumed, and the
+ * average strategy is written out as a {@link Blueprint}.
+ */
+public class CfrTrainer {
+    /** Deepest betting sequence a traversal can follow */
+    private static final int MAX_DEPTH = 256;
+
+    /** Checkpoint file signature ("CFRC") */
+    private static final int MAGIC = 0x43465243;
+
+    /** Checkpoint file format version */
+    private static final int VERSION = 1;
+
+    /** Size of the chunks floats are written and read in */
+    private static final int CHUNK_BYTES = 1 << 20;
+
+    private final CfrAbstraction abstraction;
+    private final int stack;
+    private final int minBet;
+    private final float[] regrets;
+    private final float[] strategySums;
+    private final AtomicLong iterations = new AtomicLong();
+    private final SplittableRandom seeds;
+    private final GameState start;
+
+    /**
+     * Constructs a trainer with empty tables.
+     * @param abstraction the information-set abstraction
+     * @param stack the chips each player starts a hand with
+     * @param minBet the big blind
+     * @param seed the seed for dealing
+     */
+    public CfrTrainer(CfrAbstraction abstraction, int stack, int minBet, long seed) {
+        if (stack <= minBet || minBet < 2) {
+            throw new IllegalArgumentException("Stacks must cover the blinds");
+        }
+        this.abstraction = abstraction;
+        this.stack = stack;
+        this.minBet = minBet;
+        int size = abstraction.getInfoSetCount() * HandSimulation.ACTIONS;
+        this.regrets = new float[size];
+        this.strategySums = new float[size];
+        this.seeds = new SplittableRandom(seed);
+
+        // Seat 0 has the button, posts the small blind and acts first
+        int smallBlind = minBet / 2;
+        int[] bets = { smallBlind, minBet };
+        this.start = new GameState(0, Game.BettingRound.PREFLOP, 0, 0, smallBlind + minBet, minBet, minBet,
+            0L, 0, 0, new int[] { stack - smallBlind, stack - minBet }, bets, bets.clone(), new long[2]);
+    }
+
+    /**
+     * Gets the information-set abstraction.
+     * @return the abstraction
+     */
+    public CfrAbstraction getAbstraction() {
+        return abstraction;
+    }
+
+    /**
+     * Gets the number of iterations trained so far, including any before a checkpoint.
+     * @return the number of iterations
+     */
+    public long getIterations() {
+        return iterations.get();
+    }
+
+    /**
+     * Runs training iterations spread over several threads of the common ForkJoinPool.
+     * @param count the number of iterations
+     * @param threads the number of threads to train on
+     */
+    public void train(long count, int threads) {
+        SplittableRandom[] randoms = new SplittableRandom[threads];
+        for (int i = 0; i < threads; i++) {
+            randoms[i] = seeds.split();
+        }
+        IntStream.range(0, threads).parallel().forEach(thread -> {
+            long share = count / threads + (thread < count % threads ? 1 : 0);
+            new Worker(randoms[thread]).run(share);
+        });
+    }
+
+    /**
+     * Gets the average strategy, normalized per information set.
+     * @return the probability of each action by information set and then action; all zero for
+     *         information sets training never reached
+     */
+    public float[] getAverageStrategy() {
+        float[] strategy = new float[strategySums.length];
+        for (int base = 0; base < strategy.length; base += HandSimulation.ACTIONS) {
+            double total = 0.0;
+            for (int a = 0; a < HandSimulation.ACTIONS; a++) {
+                total += strategySums[base + a];
+            }
+            if (total > 0) {
+                for (int a = 0; a < HandSimulation.ACTIONS; a++) {
+                    strategy[base + a] = (float) (strategySums[base + a] / total);
+                }
+            }
+        }
+        return strategy;
+    }
+
+    /**
+     * Saves the regrets and strategy sums. The checkpoint is written to a temporary file that
+     * then replaces the old one, so a crash never leaves a half-written checkpoint behind.
+     * @param path the checkpoint file
+     * @throws IOException if the checkpoint can't be written
+     */
+    public void save(Path path) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(36);
+            header.putInt(MAGIC).putInt(VERSION).putInt(abstraction.getBuckets()).putInt(abstraction.getSamples())
+                .putInt(stack).putInt(minBet).putLong(iterations.get()).putInt(regrets.length);
+            header.flip();
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+            writeFloats(channel, regrets);
+            writeFloats(channel, strategySums);
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Loads a trainer from a checkpoint to carry on training.
+     * @param path the checkpoint file
+     * @param seed the seed for dealing from here on
+     * @return the trainer
+     * @throws IOException if the file can't be read or isn't a checkpoint
+     */
+    public static CfrTrainer load(Path path, long seed) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(36);
+            readFully(channel, header);
+            header.flip();
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException("Not a training checkpoint: " + path);
+            }
+            CfrAbstraction abstraction = new CfrAbstraction(header.getInt(), header.getInt());
+            CfrTrainer trainer = new CfrTrainer(abstraction, header.getInt(), header.getInt(), seed);
+            trainer.iterations.set(header.getLong());
+            if (header.getInt() != trainer.regrets.length) {
+                throw new IOException("Unexpected checkpoint size: " + path);
+            }
+            readFloats(channel, trainer.regrets);
+            readFloats(channel, trainer.strategySums);
+            return trainer;
+        }
+    }
+
+    /**
+     * Writes floats to a channel in chunks.
+     */
+    static void writeFloats(FileChannel channel, float[] values) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(CHUNK_BYTES);
+        for (int i = 0; i < values.length; ) {
+            buffer.clear();
+            while (i < values.length && buffer.remaining() >= Float.BYTES) {
+                buffer.putFloat(values[i++]);
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    /**
+     * Reads floats from a channel in chunks.
+     */
+    private static void readFloats(FileChannel channel, float[] values) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(CHUNK_BYTES);
+        for (int i = 0; i < values.length; ) {
+            buffer.clear();
+            buffer.limit(Math.min(CHUNK_BYTES, (values.length - i) * Float.BYTES));
+            readFully(channel, buffer);
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                values[i++] = buffer.getFloat();
+            }
+        }
+    }
+
+    /**
+     * Fills a buffer from a channel.
+     */
+    private static void readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new IOException("Checkpoint is truncated");
+            }
+        }
+    }
+
+    /**
+     * One training thread, with its own random generator, deck and scratch space.
+     */
+    private class Worker {
+        private final SplittableRandom random;
+        private final Deck deck;
+        private final Deck bucketDeck;
+        private final HandSimulation[] simulations = new HandSimulation[MAX_DEPTH];
+        private final double[] strategy = new double[MAX_DEPTH * HandSimulation.ACTIONS];
+        private final double[] utilities = new double[MAX_DEPTH * HandSimulation.ACTIONS];
+        private final double[] results = new double[Game.MAX_PLAYERS];
+        private final long[] holeCards = new long[2];
+        private final long[] boards = new long[4];
+        private final int[] buckets = new int[8];
+
+        Worker(SplittableRandom random) {
+            this.random = random;
+            this.deck = new Deck(random);
+            this.bucketDeck = new Deck(random.split());
+            for (int i = 0; i < MAX_DEPTH; i++) {
+                simulations[i] = new HandSimulation();
+            }
+        }
+
+        /**
+         * Runs iterations, alternating which player traverses.
+         */
+        void run(long count) {
+            for (long i = 0; i < count; i++) {
+                deal();
+                traverse(0, (int) (i & 1));
+                iterations.incrementAndGet();
+            }
+        }
+
+        /**
+         * Deals both hands and the board, and sets up the first simulation.
+         */
+        private void deal() {
+            deck.reset();
+            holeCards[0] = deck.dealMask(2);
+            holeCards[1] = deck.dealMask(2);
+            boards[0] = 0L;
+            boards[1] = deck.dealMask(3);
+            boards[2] = boards[1] | deck.dealMask(1);
+            boards[3] = boards[2] | deck.dealMask(1);
+            Arrays.fill(buckets, -1);
+
+            HandSimulation simulation = simulations[0];
+            simulation.reset(start);
+            simulation.setHoleCards(0, holeCards[0]);
+            simulation.setHoleCards(1, holeCards[1]);
+            simulation.completeBoard(boards[3]);
+        }
+
+        /**
+         * Gets a player's bucket on a street, working it out the first time it is needed.
+         */
+        private int bucket(int seat, int street) {
+            int slot = seat * 4 + street;
+            if (buckets[slot] < 0) {
+                buckets[slot] = abstraction.bucket(holeCards[seat], boards[street], bucketDeck);
+            }
+            return buckets[slot];
+        }
+
+        /**
+         * Walks the betting from a simulation and returns the traverser's result in chips.
+         */
+        private double traverse(int depth, int traverser) {
+            HandSimulation simulation = simulations[depth];
+            if (simulation.isOver()) {
+                simulation.results(results);
+                return results[traverser];
+            }
+            if (depth + 1 == MAX_DEPTH) {
+                throw new IllegalStateException("Betting sequence too long");
+            }
+
+            int seat = simulation.getCurrentSeat();
+            int street = simulation.getRound();
+            int legal = simulation.legalActions();
+            int infoSet = abstraction.infoSet(street, seat == simulation.getDealerSeat(), bucket(seat, street),
+                simulation.getPot(), simulation.getAmountToCall(), simulation.getEffectiveStack(), minBet);
+            int base = infoSet * HandSimulation.ACTIONS;
+            int offset = depth * HandSimulation.ACTIONS;
+            matchRegrets(base, legal, offset);
+
+            HandSimulation next = simulations[depth + 1];
+            if (seat == traverser) {
+                // Try every action and move the regrets towards the ones that did better
+                double value = 0.0;
+                for (int bits = legal; bits != 0; bits &= bits - 1) {
+                    int action = Integer.numberOfTrailingZeros(bits);
+                    next.copyFrom(simulation);
+                    next.apply(action);
+                    double utility = traverse(depth + 1, traverser);
+                    utilities[offset + action] = utility;
+                    value += strategy[offset + action] * utility;
+                }
+                for (int bits = legal; bits != 0; bits &= bits - 1) {
+                    int action = Integer.numberOfTrailingZeros(bits);
+                    regrets[base + action] = (float) Math.max(0.0, regrets[base + action] + utilities[offset + action] - value);
+                }
+                return value;
+            }
+
+            // Sample the opponent's action and count its strategy towards the average
+            double roll = random.nextDouble();
+            int chosen = -1;
+            for (int bits = legal; bits != 0; bits &= bits - 1) {
+                int action = Integer.numberOfTrailingZeros(bits);
+                strategySums[base + action] += strategy[offset + action];
+                roll -= strategy[offset + action];
+                if (chosen < 0 && (roll < 0 || (bits & (bits - 1)) == 0)) {
+                    chosen = action;
+                }
+            }
+            next.copyFrom(simulation);
+            next.apply(chosen);
+            return traverse(depth + 1, traverser);
+        }
+
+        /**
+         * Sets the current strategy at a depth from the positive regrets of the legal actions,
+         * or evenly over them if none is positive.
+         */
+        private void matchRegrets(int base, int legal, int offset) {
+            double total = 0.0;
+            for (int bits = legal; bits != 0; bits &= bits - 1) {
+                total += Math.max(0.0f, regrets[base + Integer.numberOfTrailingZeros(bits)]);
+            }
+            int count = Integer.bitCount(legal);
+            for (int action = 0; action < HandSimulation.ACTIONS; action++) {
+                if ((legal & (1 << action)) == 0) {
+                    strategy[offset + action] = 0.0;
+                } else if (total > 0) {
+                    strategy[offset + action] = Math.max(0.0f, regrets[base + action]) / total;
+                } else {
+                    strategy[offset + action] = 1.0 / count;
+                }
+            }
+        }
+    }
+}
@@ -1,36 +1,105 @@
 package texasholdem.model;
 
-import java.util.List;
 import java.util.Random;
+import java.util.SplittableRandom;
 
 /**
  * Represents a computer-controlled player (AI) for Texas Holdem.
- * Not yet integrated into the game loop or UI.
+ * Driven by the GameController in the UI, or by a GameRunner when no UI is involved.
  */
-public class ComputerPlayer extends Player {
+public class ComputerPlayer extends Player implements Strategy {
     private int aggressiveness; // 0-100, higher = more likely to bet/raise
     private int tightness;      // 0-100, higher = more likely to fold weak hands
     private Random random;
+    private EquityCalculator equityCalculator; // estimates win probability against the remaining opponents
+    private PreflopEquityTable preflopTable;   // precomputed preflop equities, or null if no table file was found
+
+    /** Hands an opponent must have been seen for before their guessed range is trusted */
+    private static final int MODELED_HANDS = 20;
+
+    /** Scratch ranges for the opponent's guessed hands and this player's own, reused every decision */
+    private final Range opponentRange = new Range();
+    private final Range ownRange = new Range();
+    private final SplittableRandom sampler;
+
+    /** The last strength worked out against a guessed range, and what it was worked out for */
+    private double modeledStrength;
+    private long modeledHand = -1;
+    private long modeledCards;
+    private int modeledOpponent = -1;
+    private int modeledContribution;
 
     public ComputerPlayer(String name, int initialChips, int aggressiveness, int tightness) {
+        this(name, initialChips, aggressiveness, tightness, new Random());
+    }
+
+    /**
+     * Constructs a computer player whose decisions are reproducible for a given seed.
+     * @param name the player's name
+     * @param initialChips the initial number of chips
+     * @param aggressiveness 0-100, higher = more likely to bet/raise
+     * @param tightness 0-100, higher = more likely to fold weak hands
+     * @param seed the seed for the player's random choices
+     */
+    public ComputerPlayer(String name, int initialChips, int aggressiveness, int tightness, long seed) {
+        this(name, initialChips, aggressiveness, tightness, new Random(seed));
+    }
+
+    private ComputerPlayer(String name, int initialChips, int aggressiveness, int tightness, Random random) {
         super(name, initialChips);
         this.aggressiveness = aggressiveness;
         this.tightness = tightness;
-        this.random = new Random();
+        this.random = random;
+        this.sampler = new SplittableRandom(random.nextLong());
+        this.equityCalculator = EquityCalculator.getDefault();
+        this.preflopTable = PreflopEquityTable.getDefault();
     }
 
     /**
-     * Decides the action for this AI player.
+     * Decides the complete action for this AI player, including the bet or raise amount.
      * @param game The game state
-     * @param communityCards The community cards
+     * @return the action to take
+     */
+    @Override
+    public Action decide(Game game) {
+        GameState state = game.getState();
+        int maxBet = state.getMaxBet();
+        int potSize = state.getPot();
+        int minBet = state.getMinBet();
+        
+        switch (decideAction(game, state, maxBet, minBet, potSize)) {
+            case "fold":
+                return Action.FOLD;
+            case "check":
+                return Action.CHECK;
+            case "bet":
+                // Can't open the betting once someone has bet, so just call
+                if (maxBet > 0) {
+                    return Action.CALL;
+                }
+                return Action.bet(decideBetAmount(game, 0.5, potSize, minBet, getChips()));
+            case "raise":
+                if (maxBet > 0) {
+                    return Action.raise(decideBetAmount(game, 0.7, potSize, minBet, getChips()));
+                }
+                return Action.bet(decideBetAmount(game, 0.6, potSize, minBet, getChips()));
+            default:
+                return Action.CALL;
+        }
+    }
+
+    /**
+     * Decides the action for this AI player.
+     * @param game The game
+     * @param state A snapshot of the game
      * @param maxBet The current max bet
      * @param minBet The minimum bet
      * @param potSize The current pot size
      * @return "fold", "check", "call", "bet", or "raise"
      */
-    public String decideAction(Game game, List<Card> communityCards, int maxBet, int minBet, int potSize) {
+    public String decideAction(Game game, GameState state, int maxBet, int minBet, int potSize) {
         // Simple logic: fold if hand is weak and tight, otherwise call/check, sometimes raise if aggressive
-        double handStrength = evaluateHandStrength(game, communityCards);
+        double handStrength = evaluateHandStrength(game, state);
         if (handStrength < 0.2 && random.nextInt(100) < tightness) {
             return "fold";
         }
@@ -68,14 +137,91 @@ public class ComputerPlayer extends Player {
 
     /**
      * Evaluates the hand strength (0 = worst, 1 = best) for the AI's current hand.
-     * @param game The game state
-     * @param communityCards The community cards
+     * The strength is the expected share of the pot against random hands for every
+     * opponent still in the hand, so it accounts for the board and the number of opponents.
+     * Heads-up it is read from the preflop table before the flop, and calculated exactly on the
+     * turn and river whenever that takes no more evaluations than the sampling budget (each
+     * sample costs two); otherwise it is sampled. Once the flop is out heads-up against a
+     * player the table has seen for a while, the opponent is assumed to hold the range the
+     * {@link OpponentModel} guesses for them rather than any two cards, on the same budget; that
+     * strength is kept until the street, the hand or the opponent's bet changes.
+     * @param game The game
+     * @param state A snapshot of the game
      * @return A value between 0 and 1
      */
-    private double evaluateHandStrength(Game game, List<Card> communityCards) {
-        // Very basic: use hand rank as a proxy for strength
-        HandEvaluator.HandResult result = HandEvaluator.evaluateHand(getHoleCards(), communityCards);
-        return result.getRank().getValue() / 9.0; // 9 = Royal Flush
+    private double evaluateHandStrength(Game game, GameState state) {
+        int opponents = Math.max(1, state.getActivePlayerCount() - 1);
+        long hole = getHoleMask();
+        long board = state.getBoard();
+        int boardCount = state.getBoardCount();
+        if (opponents == 1 && boardCount >= 3 && game != null) {
+            int opponent = headsUpOpponent(state);
+            if (game.getOpponentModel().getStats(opponent).getHands() >= MODELED_HANDS) {
+                return evaluateAgainstRange(game, state, opponent, hole, board);
+            }
+        }
+        if (opponents == 1 && boardCount == 0 && preflopTable != null) {
+            int first = CardMask.lowestIndex(hole);
+            int second = CardMask.lowestIndex(hole & (hole - 1));
+            return preflopTable.getEquity(PreflopEquityTable.comboIndex(first, second));
+        }
+        if (opponents == 1 && boardCount >= 4
+                && EquityEnumerator.countEvaluations(boardCount) <= 2L * equityCalculator.getMaxSamples()) {
+            return EquityEnumerator.enumerate(hole, board).getEquity();
+        }
+        return equityCalculator.calculate(hole, board, opponents).getEquity();
+    }
+
+    /**
+     * Works out the strength of the hole cards against the range the opponent model guesses for
+     * one opponent, or reuses the last one if nothing it depends on has changed.
+     */
+    private double evaluateAgainstRange(Game game, GameState state, int opponent, long hole, long board) {
+        long cards = hole | board;
+        int contribution = state.getContribution(opponent);
+        if (state.getHandNumber() == modeledHand && cards == modeledCards && opponent == modeledOpponent
+                && contribution == modeledContribution) {
+            return modeledStrength;
+        }
+
+        Range range = game.getOpponentModel().estimateRange(opponent, board, hole, opponentRange);
+        int live = Card.COUNT - 2 - state.getBoardCount();
+        long runouts = state.getBoardCount() == 5 ? 1 : state.getBoardCount() == 4 ? live : (long) live * (live - 1) / 2;
+        double strength;
+        if (runouts * range.size() <= 2L * equityCalculator.getMaxSamples()) {
+            int combo = comboOf(hole);
+            ownRange.setWeight(combo, 1f);
+            strength = RangeEquity.enumerate(ownRange, range, board).getEquity();
+            ownRange.setWeight(combo, 0f);
+        } else {
+            strength = RangeEquity.sampleHand(hole, range, board, equityCalculator.getMaxSamples(), sampler);
+        }
+
+        modeledHand = state.getHandNumber();
+        modeledCards = cards;
+        modeledOpponent = opponent;
+        modeledContribution = contribution;
+        modeledStrength = strength;
+        return strength;
+    }
+
+    /**
+     * Gets the seat of the one other player still in the hand.
+     */
+    private static int headsUpOpponent(GameState state) {
+        for (int seat = 0; seat < state.getPlayerCount(); seat++) {
+            if (seat != state.getCurrentSeat() && !state.isFolded(seat)) {
+                return seat;
+            }
+        }
+        return state.getCurrentSeat();
+    }
+
+    /**
+     * Gets the combo index of two hole cards.
+     */
+    private static int comboOf(long hole) {
+        return PreflopEquityTable.comboIndex(CardMask.lowestIndex(hole), CardMask.lowestIndex(hole & (hole - 1)));
     }
 
     // Getters and setters for AI personality
@@ -83,4 +229,8 @@ public class ComputerPlayer extends Player {
     public void setAggressiveness(int aggressiveness) { this.aggressiveness = aggressiveness; }
     public int getTightness() { return tightness; }
     public void setTightness(int tightness) { this.tightness = tightness; }
+    public EquityCalculator getEquityCalculator() { return equityCalculator; }
+    public void setEquityCalculator(EquityCalculator equityCalculator) { this.equityCalculator = equityCalculator; }
+    public PreflopEquityTable getPreflopTable() { return preflopTable; }
+    public void setPreflopTable(PreflopEquityTable preflopTable) { this.preflopTable = preflopTable; }
 } 
\ No newline at end of file
@@ -1,21 +1,69 @@
 package texasholdem.model;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
 
 /**
  * Represents a standard deck of 52 playing cards.
+ *
+ * The deck is a byte array of card indexes with a cursor marking the top. Shuffling is an
+ * in-place Fisher-Yates over the undealt cards, and it can be done lazily: after a reset the
+ * deck only shuffles as far as cards are actually dealt, so dealing a hand costs one random
+ * swap per card and nothing is ever allocated. The random generator can be injected, and a
+ * seeded deck always deals the same cards in the same order. Reseeding a deck for the next
+ * hand reseeds its generator in place rather than replacing it.
  */
 public class Deck {
-    /** The list of cards in the deck */
-    private List<Card> cards;
+    /** Card indexes in their initial order */
+    private static final byte[] ORDERED = new byte[Card.COUNT];
+    
+    static {
+        for (int i = 0; i < Card.COUNT; i++) {
+            ORDERED[i] = (byte) i;
+        }
+    }
+    
+    /** The card indexes in the deck; cards before the cursor have been dealt */
+    private final byte[] cards = new byte[Card.COUNT];
+    
+    /** The number of cards in the deck */
+    private int size;
+    
+    /** The position of the next card to deal */
+    private int cursor;
+    
+    /** The number of positions that have already been fixed by shuffling */
+    private int shuffled;
+    
+    /** The random generator used for shuffling */
+    private RandomGenerator random;
     
     /**
-     * Constructs a new deck with all 52 cards in order.
+     * Constructs a new deck with all 52 cards in order, shuffled by an unseeded generator.
      */
     public Deck() {
-        cards = new ArrayList<>();
+        this(new SplittableRandom().nextLong());
+    }
+    
+    /**
+     * Constructs a new deck with all 52 cards in order and a seeded generator. The generator
+     * deals exactly what a {@link SplittableRandom} with the same seed would, and can be
+     * reseeded by {@link #reset(long)}.
+     * @param seed the seed for shuffling
+     */
+    public Deck(long seed) {
+        this(new SplitMix(seed));
+    }
+    
+    /**
+     * Constructs a new deck with all 52 cards in order.
+     * @param random the random generator used for shuffling
+     */
+    public Deck(RandomGenerator random) {
+        this.random = random;
         initializeDeck();
     }
     
@@ -23,19 +71,55 @@ public class Deck {
      * Initializes the deck with all 52 cards.
      */
     private void initializeDeck() {
-        cards.clear();
-        for (Card.Suit suit : Card.Suit.values()) {
-            for (Card.Rank rank : Card.Rank.values()) {
-                cards.add(new Card(suit, rank));
-            }
-        }
+        System.arraycopy(ORDERED, 0, cards, 0, Card.COUNT);
+        size = Card.COUNT;
+        cursor = 0;
+        shuffled = 0;
     }
     
     /**
      * Shuffles the deck, randomizing the order of the cards.
      */
     public void shuffle() {
-        Collections.shuffle(cards);
+        shuffle(size - cursor);
+    }
+    
+    /**
+     * Shuffles only the next cards to be dealt. Each of them is drawn uniformly from all
+     * the undealt cards, so dealing them is exactly as random as after a full shuffle.
+     * @param numCards the number of cards from the top of the deck to shuffle
+     */
+    public void shuffle(int numCards) {
+        int end = Math.min(size, cursor + numCards);
+        for (int i = cursor; i < end; i++) {
+            swap(i, i + random.nextInt(size - i));
+        }
+        shuffled = Math.max(shuffled, end);
+    }
+    
+    /**
+     * Swaps two positions in the deck.
+     */
+    private void swap(int i, int j) {
+        byte card = cards[i];
+        cards[i] = cards[j];
+        cards[j] = card;
+    }
+    
+    /**
+     * Deals the index of a single card from the top of the deck.
+     * @return the card index, or -1 if the deck is empty
+     */
+    public int dealIndex() {
+        if (cursor >= size) {
+            return -1;
+        }
+        // Lazy Fisher-Yates step for the part of the deck that hasn't been shuffled yet
+        if (cursor >= shuffled) {
+            swap(cursor, cursor + random.nextInt(size - cursor));
+            shuffled = cursor + 1;
+        }
+        return cards[cursor++];
     }
     
     /**
@@ -43,10 +127,8 @@ public class Deck {
      * @return the top card of the deck, or null if the deck is empty
      */
     public Card dealCard() {
-        if (cards.isEmpty()) {
-            return null;
-        }
-        return cards.remove(0);
+        int index = dealIndex();
+        return index < 0 ? null : Card.of(index);
     }
     
     /**
@@ -56,25 +138,131 @@ public class Deck {
      */
     public List<Card> dealCards(int numCards) {
         List<Card> dealtCards = new ArrayList<>();
-        for (int i = 0; i < numCards && !cards.isEmpty(); i++) {
+        for (int i = 0; i < numCards && cursor < size; i++) {
             dealtCards.add(dealCard());
         }
         return dealtCards;
     }
     
+    /**
+     * Deals a specific number of cards from the deck into a card mask.
+     * @param numCards the number of cards to deal
+     * @return the mask of the dealt cards
+     */
+    public long dealMask(int numCards) {
+        long mask = 0L;
+        for (int i = 0; i < numCards && cursor < size; i++) {
+            mask |= CardMask.bit(dealIndex());
+        }
+        return mask;
+    }
+    
     /**
      * Gets the number of cards remaining in the deck.
      * @return the number of cards remaining
      */
     public int getCardsRemaining() {
-        return cards.size();
+        return size - cursor;
+    }
+    
+    /**
+     * Gets the random generator used for shuffling.
+     * @return the random generator
+     */
+    public RandomGenerator getRandom() {
+        return random;
+    }
+    
+    /**
+     * Sets the random generator used for shuffling.
+     * @param random the random generator
+     */
+    public void setRandom(RandomGenerator random) {
+        this.random = random;
     }
     
     /**
      * Resets the deck to its initial state with all 52 cards and shuffles them.
+     * The shuffle is lazy: each card is picked at random as it is dealt.
      */
     public void reset() {
         initializeDeck();
-        shuffle();
     }
-} 
\ No newline at end of file
+    
+    /**
+     * Resets the deck and reseeds its generator in place, so the same seed always deals the same
+     * cards. Only the deck's own seeded generator and {@link Random} can be reseeded.
+     * @param seed the seed for shuffling
+     * @throws UnsupportedOperationException if the deck's generator can't be reseeded
+     */
+    public void reset(long seed) {
+        if (random instanceof SplitMix) {
+            ((SplitMix) random).setSeed(seed);
+        } else if (random instanceof Random) {
+            ((Random) random).setSeed(seed);
+        } else {
+            throw new UnsupportedOperationException(random.getClass().getSimpleName() + " can't be reseeded");
+        }
+        initializeDeck();
+    }
+    
+    /**
+     * Puts every dealt card back into the deck (cards left out by {@link #resetWithout(long)}
+     * stay out) and shuffles lazily again. The order left behind by the last deal is already
+     * random, so this is a constant-time way to deal another independent runout.
+     */
+    public void collect() {
+        cursor = 0;
+        shuffled = 0;
+    }
+    
+    /**
+     * Resets the deck without the given cards (for example cards already known to be
+     * in someone's hand or on the board) and shuffles the rest.
+     * @param deadCards the mask of cards to leave out
+     */
+    public void resetWithout(long deadCards) {
+        size = 0;
+        for (int i = 0; i < Card.COUNT; i++) {
+            if ((deadCards & CardMask.bit(i)) == 0) {
+                cards[size++] = (byte) i;
+            }
+        }
+        cursor = 0;
+        shuffled = 0;
+    }
+    
+    /**
+     * A SplitMix64 generator whose seed can be set again. It gives the same numbers as a
+     * {@link SplittableRandom} created with the same seed, so hands dealt before it existed
+     * still deal the same way.
+     */
+    private static final class SplitMix implements RandomGenerator {
+        private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+        
+        private long seed;
+        
+        SplitMix(long seed) {
+            this.seed = seed;
+        }
+        
+        void setSeed(long seed) {
+            this.seed = seed;
+        }
+        
+        @Override
+        public long nextLong() {
+            long z = seed += GOLDEN_GAMMA;
+            z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+            z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+            return z ^ (z >>> 31);
+        }
+        
+        @Override
+        public int nextInt() {
+            long z = seed += GOLDEN_GAMMA;
+            z = (z ^ (z >>> 33)) * 0x62a9d9ed799705f5L;
+            return (int) (((z ^ (z >>> 28)) * 0xcb24d0a5c88c35b3L) >>> 32);
+        }
+    }
+}
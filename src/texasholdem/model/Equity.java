@@ -0,0 +1,127 @@
+package texasholdem.model;
+
+/**
+ * The result of an equity calculation: how often a hand wins, ties and loses.
+ */
+public class Equity {
+    /** An empty result with no samples */
+    public static final Equity NONE = new Equity(0, 0, 0, 0.0);
+    
+    /** The number of runouts the hand won outright */
+    private final long wins;
+    
+    /** The number of runouts the hand split with at least one opponent */
+    private final long ties;
+    
+    /** The number of runouts the hand lost */
+    private final long losses;
+    
+    /** The total share of the pot won, counting a split between n players as 1/n */
+    private final double share;
+    
+    /**
+     * Constructs an equity result.
+     * @param wins the number of runouts won outright
+     * @param ties the number of runouts split
+     * @param losses the number of runouts lost
+     * @param share the total pot share won over all runouts
+     */
+    public Equity(long wins, long ties, long losses, double share) {
+        this.wins = wins;
+        this.ties = ties;
+        this.losses = losses;
+        this.share = share;
+    }
+    
+    /**
+     * Combines this result with another one over different runouts.
+     * @param other the other result
+     * @return a new result with the counts of both
+     */
+    public Equity plus(Equity other) {
+        return new Equity(wins + other.wins, ties + other.ties, losses + other.losses, share + other.share);
+    }
+    
+    /**
+     * Gets the number of runouts the hand won outright.
+     * @return the number of wins
+     */
+    public long getWins() {
+        return wins;
+    }
+    
+    /**
+     * Gets the number of runouts the hand split the pot.
+     * @return the number of ties
+     */
+    public long getTies() {
+        return ties;
+    }
+    
+    /**
+     * Gets the number of runouts the hand lost.
+     * @return the number of losses
+     */
+    public long getLosses() {
+        return losses;
+    }
+    
+    /**
+     * Gets the number of runouts this result is based on.
+     * @return the number of samples
+     */
+    public long getSamples() {
+        return wins + ties + losses;
+    }
+    
+    /**
+     * Gets the probability of winning outright.
+     * @return a value between 0 and 1
+     */
+    public double getWinProbability() {
+        return fraction(wins);
+    }
+    
+    /**
+     * Gets the probability of splitting the pot.
+     * @return a value between 0 and 1
+     */
+    public double getTieProbability() {
+        return fraction(ties);
+    }
+    
+    /**
+     * Gets the probability of losing.
+     * @return a value between 0 and 1
+     */
+    public double getLossProbability() {
+        return fraction(losses);
+    }
+    
+    /**
+     * Gets the expected share of the pot, counting split pots by the number of players splitting.
+     * @return a value between 0 and 1
+     */
+    public double getEquity() {
+        long samples = getSamples();
+        return samples == 0 ? 0.0 : share / samples;
+    }
+    
+    /**
+     * Divides a count by the number of samples.
+     */
+    private double fraction(long count) {
+        long samples = getSamples();
+        return samples == 0 ? 0.0 : (double) count / samples;
+    }
+    
+    /**
+     * Returns a string representation of this result.
+     * @return the win, tie and loss percentages
+     */
+    @Override
+    public String toString() {
+        return String.format("win %.2f%%, tie %.2f%%, loss %.2f%% (%d samples)",
+            getWinProbability() * 100, getTieProbability() * 100, getLossProbability() * 100, getSamples());
+    }
+}
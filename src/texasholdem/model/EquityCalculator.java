@@ -0,0 +1,216 @@
+package texasholdem.model;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Estimates the equity of a hand by Monte Carlo sampling.
+ *
+ * Each sample deals random hole cards to every opponent and completes the board from the
+ * cards nobody can see, then scores all the hands with {@link HandEvaluator#evaluate(long)}.
+ * The samples are split into chunks that run in parallel on a ForkJoinPool, each chunk with
+ * its own random generator and deck, and the chunks stop early once the time budget is spent.
+ * Budgets small enough for a single chunk run directly on the calling thread.
+ */
+public class EquityCalculator {
+    /** Default number of samples per calculation */
+    public static final int DEFAULT_SAMPLES = 100_000;
+    
+    /** Default time budget per calculation, in milliseconds */
+    public static final long DEFAULT_TIME_BUDGET_MILLIS = 50;
+    
+    /** Number of samples a single task runs without splitting further */
+    private static final int CHUNK_SIZE = 8_192;
+    
+    /** Number of samples between checks of the deadline */
+    private static final int DEADLINE_CHECK_INTERVAL = 512;
+    
+    /** Shared calculator with the default budgets on the common pool */
+    private static final EquityCalculator DEFAULT = new EquityCalculator(
+        ForkJoinPool.commonPool(), DEFAULT_SAMPLES, DEFAULT_TIME_BUDGET_MILLIS);
+    
+    /** The pool the samples run on */
+    private final ForkJoinPool pool;
+    
+    /** The maximum number of samples per calculation */
+    private final int maxSamples;
+    
+    /** The maximum time per calculation, in nanoseconds */
+    private final long timeBudgetNanos;
+    
+    /** Source of the random generators handed to each calculation */
+    private final SplittableRandom seeds;
+    
+    /**
+     * Constructs an equity calculator.
+     * @param pool the pool to run samples on
+     * @param maxSamples the maximum number of samples per calculation
+     * @param timeBudgetMillis the maximum time per calculation, in milliseconds
+     */
+    public EquityCalculator(ForkJoinPool pool, int maxSamples, long timeBudgetMillis) {
+        this(pool, maxSamples, timeBudgetMillis, new SplittableRandom());
+    }
+    
+    /**
+     * Constructs an equity calculator whose results are reproducible for a given seed
+     * (as long as the time budget doesn't cut a calculation short).
+     * @param pool the pool to run samples on
+     * @param maxSamples the maximum number of samples per calculation
+     * @param timeBudgetMillis the maximum time per calculation, in milliseconds
+     * @param seed the seed for sampling
+     */
+    public EquityCalculator(ForkJoinPool pool, int maxSamples, long timeBudgetMillis, long seed) {
+        this(pool, maxSamples, timeBudgetMillis, new SplittableRandom(seed));
+    }
+    
+    private EquityCalculator(ForkJoinPool pool, int maxSamples, long timeBudgetMillis, SplittableRandom seeds) {
+        if (maxSamples <= 0 || timeBudgetMillis <= 0) {
+            throw new IllegalArgumentException("Sample and time budgets must be positive");
+        }
+        this.pool = pool;
+        this.maxSamples = maxSamples;
+        this.timeBudgetNanos = timeBudgetMillis * 1_000_000L;
+        this.seeds = seeds;
+    }
+    
+    /**
+     * Gets the shared calculator with the default budgets, running on the common pool.
+     * @return the default calculator
+     */
+    public static EquityCalculator getDefault() {
+        return DEFAULT;
+    }
+    
+    /**
+     * Gets the maximum number of samples per calculation.
+     * @return the sample budget
+     */
+    public int getMaxSamples() {
+        return maxSamples;
+    }
+    
+    /**
+     * Calculates the equity of a hand against random opponent hands.
+     * @param holeCards the player's hole cards
+     * @param communityCards the community cards dealt so far (0 to 5)
+     * @param opponents the number of opponents still in the hand
+     * @return the estimated equity
+     */
+    public Equity calculate(List<Card> holeCards, List<Card> communityCards, int opponents) {
+        return calculate(CardMask.of(holeCards), CardMask.of(communityCards), opponents);
+    }
+    
+    /**
+     * Calculates the equity of a hand against random opponent hands.
+     * @param holeCards the mask of the player's hole cards
+     * @param board the mask of the community cards dealt so far (0 to 5)
+     * @param opponents the number of opponents still in the hand
+     * @return the estimated equity
+     */
+    public Equity calculate(long holeCards, long board, int opponents) {
+        int boardCards = CardMask.count(board);
+        if (CardMask.count(holeCards) != 2 || boardCards > 5 || (holeCards & board) != 0) {
+            throw new IllegalArgumentException("Need 2 hole cards and at most 5 distinct community cards");
+        }
+        if (opponents < 1 || 7 + 2 * opponents > Card.COUNT) {
+            throw new IllegalArgumentException("Invalid number of opponents: " + opponents);
+        }
+        
+        SplittableRandom random;
+        synchronized (seeds) {
+            random = seeds.split();
+        }
+        long deadline = System.nanoTime() + timeBudgetNanos;
+        Rollouts rollouts = new Rollouts(holeCards, board, opponents, maxSamples, deadline, random);
+        
+        // A single chunk isn't worth a hand-off to the pool; neither is re-entering from a pool worker
+        if (maxSamples <= CHUNK_SIZE || ForkJoinTask.inForkJoinPool()) {
+            return rollouts.invoke();
+        }
+        return pool.invoke(rollouts);
+    }
+    
+    /**
+     * A batch of samples that splits itself in half until it is small enough to run directly.
+     */
+    @SuppressWarnings("serial")
+    private static class Rollouts extends RecursiveTask<Equity> {
+        private final long holeCards;
+        private final long board;
+        private final int opponents;
+        private final int samples;
+        private final long deadline;
+        private final SplittableRandom random;
+        
+        Rollouts(long holeCards, long board, int opponents, int samples, long deadline, SplittableRandom random) {
+            this.holeCards = holeCards;
+            this.board = board;
+            this.opponents = opponents;
+            this.samples = samples;
+            this.deadline = deadline;
+            this.random = random;
+        }
+        
+        @Override
+        protected Equity compute() {
+            if (samples > CHUNK_SIZE) {
+                int half = samples / 2;
+                Rollouts left = new Rollouts(holeCards, board, opponents, half, deadline, random.split());
+                Rollouts right = new Rollouts(holeCards, board, opponents, samples - half, deadline, random);
+                left.fork();
+                Equity rightResult = right.compute();
+                return left.join().plus(rightResult);
+            }
+            return run();
+        }
+        
+        /**
+         * Runs this batch's samples on the current thread.
+         */
+        private Equity run() {
+            Deck deck = new Deck(random);
+            deck.resetWithout(holeCards | board);
+            int missing = 5 - CardMask.count(board);
+            
+            long wins = 0;
+            long ties = 0;
+            long losses = 0;
+            double share = 0.0;
+            for (int i = 0; i < samples; i++) {
+                if (i % DEADLINE_CHECK_INTERVAL == 0 && i > 0 && System.nanoTime() - deadline > 0) {
+                    break;
+                }
+                deck.collect();
+                long fullBoard = board | deck.dealMask(missing);
+                int heroStrength = HandEvaluator.evaluate(holeCards | fullBoard);
+                
+                // Find the best opponent hand and how many opponents share it
+                int bestOpponent = -1;
+                int tied = 0;
+                for (int j = 0; j < opponents; j++) {
+                    int strength = HandEvaluator.evaluate(deck.dealMask(2) | fullBoard);
+                    if (strength > bestOpponent) {
+                        bestOpponent = strength;
+                        tied = 1;
+                    } else if (strength == bestOpponent) {
+                        tied++;
+                    }
+                }
+                
+                if (heroStrength > bestOpponent) {
+                    wins++;
+                    share += 1.0;
+                } else if (heroStrength == bestOpponent) {
+                    ties++;
+                    share += 1.0 / (tied + 1);
+                } else {
+                    losses++;
+                }
+            }
+            return new Equity(wins, ties, losses, share);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package texasholdem.model;
+
+import java.util.List;
+
+/**
+ * Calculates exact heads-up equity by walking every possible runout.
+ *
+ * Once two or fewer community cards are left to come, there are few enough runouts that
+ * enumerating them all is both faster and more accurate than sampling. The walk works on card
+ * masks only: each runout is added to the board with a single OR, the player's hand is scored
+ * once per runout, and then every opponent hand that is still possible is scored against it.
+ */
+public class EquityEnumerator {
+    
+    /**
+     * Calculates the exact equity of a hand against one random opponent hand.
+     * @param holeCards the player's hole cards
+     * @param communityCards the community cards (3 to 5)
+     * @return the exact equity, with one sample per runout and opponent hand
+     */
+    public static Equity enumerate(List<Card> holeCards, List<Card> communityCards) {
+        return enumerate(CardMask.of(holeCards), CardMask.of(communityCards));
+    }
+    
+    /**
+     * Calculates the exact equity of a hand against one random opponent hand.
+     * @param holeCards the mask of the player's hole cards
+     * @param board the mask of the community cards (3 to 5)
+     * @return the exact equity, with one sample per runout and opponent hand
+     */
+    public static Equity enumerate(long holeCards, long board) {
+        checkCards(holeCards, board);
+        long live = CardMask.FULL_DECK & ~holeCards & ~board;
+        Tally tally = new Tally();
+        
+        switch (5 - CardMask.count(board)) {
+            case 0:
+                scoreOpponents(holeCards, board, live, tally);
+                break;
+            case 1:
+                for (long first = live; first != 0; first &= first - 1) {
+                    long card = first & -first;
+                    scoreOpponents(holeCards, board | card, live & ~card, tally);
+                }
+                break;
+            default:
+                for (long first = live; first != 0; first &= first - 1) {
+                    long card1 = first & -first;
+                    for (long second = first & (first - 1); second != 0; second &= second - 1) {
+                        long card2 = second & -second;
+                        scoreOpponents(holeCards, board | card1 | card2, live & ~card1 & ~card2, tally);
+                    }
+                }
+                break;
+        }
+        return tally.toEquity();
+    }
+    
+    /**
+     * Calculates the exact equity of a hand against a known opponent hand.
+     * @param holeCards the mask of the player's hole cards
+     * @param opponentCards the mask of the opponent's hole cards
+     * @param board the mask of the community cards (3 to 5)
+     * @return the exact equity, with one sample per runout
+     */
+    public static Equity enumerate(long holeCards, long opponentCards, long board) {
+        checkCards(holeCards, board);
+        if (CardMask.count(opponentCards) != 2 || ((holeCards | board) & opponentCards) != 0) {
+            throw new IllegalArgumentException("Opponent needs 2 hole cards not already in use");
+        }
+        long live = CardMask.FULL_DECK & ~holeCards & ~opponentCards & ~board;
+        Tally tally = new Tally();
+        
+        switch (5 - CardMask.count(board)) {
+            case 0:
+                tally.add(HandEvaluator.evaluate(holeCards | board), HandEvaluator.evaluate(opponentCards | board));
+                break;
+            case 1:
+                for (long first = live; first != 0; first &= first - 1) {
+                    long runout = board | (first & -first);
+                    tally.add(HandEvaluator.evaluate(holeCards | runout), HandEvaluator.evaluate(opponentCards | runout));
+                }
+                break;
+            default:
+                for (long first = live; first != 0; first &= first - 1) {
+                    long card1 = first & -first;
+                    for (long second = first & (first - 1); second != 0; second &= second - 1) {
+                        long runout = board | card1 | (second & -second);
+                        tally.add(HandEvaluator.evaluate(holeCards | runout), HandEvaluator.evaluate(opponentCards | runout));
+                    }
+                }
+                break;
+        }
+        return tally.toEquity();
+    }
+    
+    /**
+     * Counts the hand evaluations {@link #enumerate(long, long)} does for a board size, so
+     * callers can tell whether enumerating is cheaper than sampling.
+     * @param boardCards the number of community cards dealt (3 to 5)
+     * @return the number of evaluations
+     */
+    public static long countEvaluations(int boardCards) {
+        int missing = 5 - boardCards;
+        int live = Card.COUNT - 2 - boardCards;
+        long runouts = missing == 0 ? 1 : missing == 1 ? live : (long) live * (live - 1) / 2;
+        int opponentCards = live - missing;
+        return runouts * (1 + (long) opponentCards * (opponentCards - 1) / 2);
+    }
+    
+    /**
+     * Scores the player's hand on a complete board against every opponent hand from the live cards.
+     */
+    private static void scoreOpponents(long holeCards, long fullBoard, long live, Tally tally) {
+        int heroStrength = HandEvaluator.evaluate(holeCards | fullBoard);
+        for (long first = live; first != 0; first &= first - 1) {
+            long card1 = first & -first;
+            for (long second = first & (first - 1); second != 0; second &= second - 1) {
+                tally.add(heroStrength, HandEvaluator.evaluate(fullBoard | card1 | (second & -second)));
+            }
+        }
+    }
+    
+    /**
+     * Checks that the hole cards and board are a valid turn, river or flop spot.
+     */
+    private static void checkCards(long holeCards, long board) {
+        int boardCards = CardMask.count(board);
+        if (CardMask.count(holeCards) != 2 || boardCards < 3 || boardCards > 5 || (holeCards & board) != 0) {
+            throw new IllegalArgumentException("Need 2 hole cards and 3 to 5 distinct community cards");
+        }
+    }
+    
+    /**
+     * Running win/tie/loss counts for one enumeration.
+     */
+    private static class Tally {
+        private long wins;
+        private long ties;
+        private long losses;
+        
+        /**
+         * Counts one showdown.
+         */
+        void add(int heroStrength, int opponentStrength) {
+            if (heroStrength > opponentStrength) {
+                wins++;
+            } else if (heroStrength == opponentStrength) {
+                ties++;
+            } else {
+                losses++;
+            }
+        }
+        
+        Equity toEquity() {
+            return new Equity(wins, ties, losses, wins + ties / 2.0);
+        }
+    }
+}
@@ -1,265 +1,428 @@
 package texasholdem.model;
 
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.SplittableRandom;
 
 /**
  * Manages the game state and rules for a Texas Holdem poker game.
+ *
+ * A game seats 2 to 10 players. Players who run out of chips sit out until they have chips
+ * again, players who can't cover a bet go all-in, and the pot is split into side pots at
+ * showdown according to how much each player put in.
+ *
+ * Each hand is shuffled from its own seed, drawn from the game's generator, so any hand can
+ * be dealt again from its seed alone.
  */
 public class Game {
+    /** The smallest number of players in a game */
+    public static final int MIN_PLAYERS = 2;
+
+    /** The largest number of players in a game */
+    public static final int MAX_PLAYERS = 10;
+
     /** The deck of cards */
     private Deck deck;
-    
+
+    /**
+     * The state of the generator each hand's seed is drawn from. It steps and mixes exactly as
+     * a SplittableRandom seeded the same way would, but is kept as a plain long so a snapshot
+     * can save it without drawing from it
+     */
+    private long seedState;
+
+    /** The seed the current hand was shuffled from */
+    private long handSeed;
+
     /** The list of players */
     private List<Player> players;
-    
+
     /** The index of the current player */
     private int currentPlayerIndex;
-    
+
     /** The index of the dealer */
     private int dealerIndex;
-    
+
     /** The community cards on the table */
     private List<Card> communityCards;
-    
+
+    /** The community cards as a card mask */
+    private long boardMask;
+
     /** The current betting round */
     private BettingRound currentRound;
-    
+
     /** The total amount of chips in the pot */
     private int pot;
-    
+
     /** The minimum bet amount (big blind) */
     private int minBet;
-    
-    /** The player that bet last (for tracking betting rounds) */
-    private Player lastBettor;
-    
+
     /** The amount of the last raise */
     private int lastRaiseAmount;
-    
+
+    /** The total each player has put into the pot this hand, by seat */
+    private int[] contributions;
+
+    /** Whether each player has acted since the last bet or raise, by seat */
+    private boolean[] hasActed;
+
+    /** The chips each player won in the last hand, by seat */
+    private int[] lastWinnings;
+
+    /** Each player's hand strength at showdown, by seat */
+    private int[] showdownStrengths;
+
+    /** Scratch space for settling the pot, one entry per seat */
+    private int[] showdownSeats;
+
+    /** Each player's hole cards and the board so far, evaluated as the cards arrive, by seat */
+    private IncrementalHand[] hands;
+
+    /** Running stats on how each player plays, by seat */
+    private OpponentModel opponentModel;
+
     /** The amount of the last pot won (for display in showdown) */
     private int lastPotWon = 0;
-    
+
+    /** The number of hands started so far */
+    private long handNumber = 0;
+
+    /** Every change to the game, for listeners on other threads */
+    private GameEventStream events;
+
+    /** Whether a hand won by a fold deals the next hand straight away */
+    private boolean autoDeal = true;
+
+    /** The listener printing events to the console, or null when the game is quiet */
+    private GameEventStream.Subscription consoleLog;
+
+    /** The hand history being written, and the listener feeding it, or null when nothing is recorded */
+    private HandHistoryWriter history;
+    private GameEventStream.Subscription historyFeed;
+
     /**
      * Enumeration representing the different betting rounds in Texas Holdem.
      */
     public enum BettingRound {
         PREFLOP, FLOP, TURN, RIVER, SHOWDOWN
     }
-    
+
     /**
-     * Constructs a new game with exactly two players and starting chips.
-     * @param playerNames the names of the two players
+     * Constructs a new game with a human player, computer opponents and starting chips.
+     * @param playerNames the names of the players; the first is human, the rest are computer players
      * @param startingChips the number of chips each player starts with
      * @param minBet the minimum bet amount (big blind)
-     * @throws IllegalArgumentException if number of players is not exactly 2
+     * @throws IllegalArgumentException if there are fewer than 2 or more than 10 players
      */
     public Game(String[] playerNames, int startingChips, int minBet) {
-        if (playerNames.length != 2) {
-            throw new IllegalArgumentException("Game must have exactly 2 players");
-        }
-        
+        this(createPlayers(playerNames, startingChips), minBet);
+    }
+
+    /**
+     * Constructs a new game with the given players, for example computer players only.
+     * @param players the players, in seat order
+     * @param minBet the minimum bet amount (big blind)
+     * @throws IllegalArgumentException if there are fewer than 2 or more than 10 players
+     */
+    public Game(List<Player> players, int minBet) {
+        this(players, minBet, new SplittableRandom().nextLong());
+    }
+
+    /**
+     * Constructs a new game whose deals are reproducible for a given seed.
+     * @param players the players, in seat order
+     * @param minBet the minimum bet amount (big blind)
+     * @param seed the seed the hands' shuffles are drawn from
+     * @throws IllegalArgumentException if there are fewer than 2 or more than 10 players
+     */
+    public Game(List<Player> players, int minBet, long seed) {
+        checkPlayerCount(players.size());
+
         this.deck = new Deck();
-        this.players = new ArrayList<>();
+        this.seedState = seed;
+        this.players = new ArrayList<>(players);
         this.communityCards = new ArrayList<>();
         this.minBet = minBet;
-        
-        // Create two players
-        players.add(new Player(playerNames[0], startingChips));
-        players.add(new ComputerPlayer(playerNames[1], startingChips, 60, 50));
-        
-        // Start with a random dealer
+        this.contributions = new int[players.size()];
+        this.hasActed = new boolean[players.size()];
+        this.lastWinnings = new int[players.size()];
+        this.showdownStrengths = new int[players.size()];
+        this.showdownSeats = new int[players.size()];
+        this.hands = new IncrementalHand[players.size()];
+        for (int i = 0; i < hands.length; i++) {
+            hands[i] = new IncrementalHand();
+        }
+        this.opponentModel = new OpponentModel(players.size(), OpponentModel.DEFAULT_DECAY);
+        this.events = new GameEventStream(GameEventStream.DEFAULT_CAPACITY);
+
+        // The button moves to the next seat when the first hand starts
         this.dealerIndex = 0;
-        
+
         // Initialize game state
         resetRound();
     }
-    
+
+    /**
+     * Checks that a number of players fits at the table.
+     */
+    private static void checkPlayerCount(int count) {
+        if (count < MIN_PLAYERS || count > MAX_PLAYERS) {
+            throw new IllegalArgumentException("Game must have between " + MIN_PLAYERS + " and " + MAX_PLAYERS + " players");
+        }
+    }
+
+    /**
+     * Creates a human player followed by computer players from their names.
+     */
+    private static List<Player> createPlayers(String[] playerNames, int startingChips) {
+        checkPlayerCount(playerNames.length);
+        List<Player> players = new ArrayList<>();
+        players.add(new Player(playerNames[0], startingChips));
+        for (int i = 1; i < playerNames.length; i++) {
+            players.add(new ComputerPlayer(playerNames[i], startingChips, 60, 50));
+        }
+        return players;
+    }
+
     /**
      * Starts a new round of Texas Holdem.
+     * If fewer than two players have chips left the game is over and the round goes
+     * straight to the showdown state.
      */
     public void startNewRound() {
-        // Move the dealer button to the next player
-        dealerIndex = 1;
-        
+        // Move the dealer button to the next player with chips
+        int dealer = dealerIndex;
+        for (int i = 1; i <= players.size(); i++) {
+            int seat = (dealerIndex + i) % players.size();
+            if (players.get(seat).getChips() > 0) {
+                dealer = seat;
+                break;
+            }
+        }
+        startHand(handNumber + 1, dealer, nextHandSeed());
+    }
+
+    /**
+     * Draws the next hand's seed: a SplitMix64 step, the same as SplittableRandom.nextLong().
+     */
+    private long nextHandSeed() {
+        long z = seedState += 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Starts a hand with the button and the shuffle given, for replaying a recorded hand.
+     * @param number the hand number
+     * @param dealer the dealer's seat
+     * @param seed the seed to shuffle the deck from
+     */
+    void startHand(long number, int dealer, long seed) {
+        handNumber = number;
+        handSeed = seed;
+        dealerIndex = dealer;
+
         // Reset game state for new round
         resetRound();
-        
+
+        if (isGameOver()) {
+            opponentModel.endHand();
+            currentRound = BettingRound.SHOWDOWN;
+            return;
+        }
+
+        int sittingOut = 0;
+        for (int i = 0; i < players.size(); i++) {
+            if (players.get(i).hasFolded()) {
+                sittingOut |= 1 << i;
+            }
+        }
+        opponentModel.startHand(sittingOut);
+        emit(GameEvent.Type.HAND_START, dealerIndex, null, minBet, handSeed, 0);
+        for (int i = 0; i < players.size(); i++) {
+            if (!players.get(i).hasFolded()) {
+                emit(GameEvent.Type.SEAT, i, null, players.get(i).getChips(), 0L, 0);
+            }
+        }
+
         // Deal hole cards to each player
         dealHoleCards();
-        
+        for (int i = 0; i < players.size(); i++) {
+            if (!players.get(i).hasFolded()) {
+                emit(GameEvent.Type.HOLE_CARDS, i, null, 0, players.get(i).getHoleMask(), 0);
+            }
+        }
+
         // Set blinds
-        postBlinds();
-        
+        int bigBlindIndex = postBlinds();
+
         // Start from the player after the big blind
-        currentPlayerIndex = (dealerIndex + 3) % players.size();
-        if (currentPlayerIndex >= players.size()) {
-            currentPlayerIndex = 0;
+        currentPlayerIndex = nextSeat(bigBlindIndex, true);
+
+        // Everyone may already be all-in from the blinds
+        if (isBettingComplete()) {
+            advanceToNextRound();
         }
     }
-    
+
     /**
      * Resets the game state for a new round.
      */
     private void resetRound() {
         // Reset deck
-        deck.reset();
-        
+        deck.reset(handSeed);
+
         // Clear community cards
         communityCards.clear();
-        
-        // Reset player hands and bets
-        for (Player player : players) {
+        boardMask = 0;
+
+        // Reset player hands and bets; players without chips sit this hand out
+        for (int i = 0; i < players.size(); i++) {
+            Player player = players.get(i);
             player.clearHand();
-            player.setFolded(false);
+            player.setFolded(player.getChips() == 0);
+            player.setDealer(i == dealerIndex);
+            contributions[i] = 0;
+            hasActed[i] = false;
+            hands[i].reset();
         }
-        
-        // Reset dealer flag
-        players.get(dealerIndex).setDealer(true);
-        
+
         // Reset pot and betting state
         pot = 0;
         currentRound = BettingRound.PREFLOP;
-        lastBettor = null;
         lastRaiseAmount = 0;
     }
-    
+
     /**
-     * Deals two hole cards to each player.
+     * Deals two hole cards to each player in the hand.
      */
     private void dealHoleCards() {
-        // First card to each player
-        for (int i = 0; i < players.size(); i++) {
-            int playerIndex = (dealerIndex + i + 1) % players.size();
-            players.get(playerIndex).addCard(deck.dealCard());
-        }
-        
-        // Second card to each player
-        for (int i = 0; i < players.size(); i++) {
-            int playerIndex = (dealerIndex + i + 1) % players.size();
-            players.get(playerIndex).addCard(deck.dealCard());
+        for (int round = 0; round < 2; round++) {
+            for (int i = 1; i <= players.size(); i++) {
+                int seat = (dealerIndex + i) % players.size();
+                Player player = players.get(seat);
+                if (!player.hasFolded()) {
+                    Card card = deck.dealCard();
+                    player.addCard(card);
+                    hands[seat].add(card);
+                }
+            }
         }
     }
-    
+
     /**
-     * Posts the small and big blinds.
+     * Posts the small and big blinds. Heads-up the dealer posts the small blind;
+     * otherwise the two players after the dealer post them.
+     * @return the index of the big blind
      */
-    private void postBlinds() {
-        // Small blind is the player after the dealer
-        int smallBlindIndex = (dealerIndex + 1) % 2;
-        
-        // Big blind is the player after the small blind
-        int bigBlindIndex = (dealerIndex + 2) % 2;
-        
-        // Post small blind (half of minimum bet)
-        Player smallBlindPlayer = players.get(smallBlindIndex);
-        int smallBlindAmount = minBet / 2;
-        if (smallBlindPlayer.removeChips(smallBlindAmount)) {
-            pot += smallBlindAmount;
-            smallBlindPlayer.setCurrentBet(smallBlindAmount);
-        }
-        
+    private int postBlinds() {
+        boolean headsUp = getActivePlayerCount() == 2;
+        int smallBlindIndex = headsUp ? dealerIndex : nextSeat(dealerIndex, false);
+        int bigBlindIndex = nextSeat(smallBlindIndex, false);
+
+        // Post small blind (half of minimum bet), all-in if short
+        emit(GameEvent.Type.BLIND, smallBlindIndex, null, putChips(smallBlindIndex, minBet / 2), 0L, 0);
+
         // Post big blind (minimum bet)
-        Player bigBlindPlayer = players.get(bigBlindIndex);
-        if (bigBlindPlayer.removeChips(minBet)) {
-            pot += minBet;
-            bigBlindPlayer.setCurrentBet(minBet);
-            lastBettor = bigBlindPlayer;
-            lastRaiseAmount = minBet;
+        emit(GameEvent.Type.BLIND, bigBlindIndex, null, putChips(bigBlindIndex, minBet), 0L, 0);
+        lastRaiseAmount = minBet;
+        return bigBlindIndex;
+    }
+
+    /**
+     * Moves chips from a player to the pot, capped at the player's stack.
+     * @return the amount actually put in
+     */
+    private int putChips(int seat, int amount) {
+        Player player = players.get(seat);
+        amount = Math.min(amount, player.getChips());
+        if (amount > 0) {
+            player.removeChips(amount);
+            player.setCurrentBet(player.getCurrentBet() + amount);
+            contributions[seat] += amount;
+            pot += amount;
         }
+        return amount;
     }
-    
+
     /**
      * Processes a player's fold action.
      * @return true if the action was successful, false otherwise
      */
     public boolean fold() {
         Player currentPlayer = players.get(currentPlayerIndex);
+        opponentModel.recordAction(currentPlayerIndex, currentRound, Action.Type.FOLD);
+        emit(GameEvent.Type.ACTION, currentPlayerIndex, Action.Type.FOLD, 0, 0L, 0);
         currentPlayer.setFolded(true);
-        
-        // Move to the next player
-        advanceToNextPlayer();
-        
+        hasActed[currentPlayerIndex] = true;
+
         // Check if only one player remains
         if (getActivePlayerCount() == 1) {
             // End the hand - the remaining player wins
-            for (Player player : players) {
-                if (!player.hasFolded()) {
-                    player.addChips(pot);
-                    pot = 0;
-                    startNewRound();
+            for (int i = 0; i < players.size(); i++) {
+                if (!players.get(i).hasFolded()) {
+                    awardUncontested(i);
+                    if (autoDeal) {
+                        startNewRound();
+                    } else {
+                        currentRound = BettingRound.SHOWDOWN;
+                    }
                     return true;
                 }
             }
         }
-        
-        // Check if betting round is over
-        checkEndOfBettingRound();
-        
+
+        finishAction();
         return true;
     }
-    
+
     /**
      * Processes a player's check action.
      * @return true if the action was successful, false otherwise
      */
     public boolean check() {
         Player currentPlayer = players.get(currentPlayerIndex);
-        
+
         // Can only check if no one has bet or the player has matched the current bet
         int maxBet = getMaxBet();
         if (currentPlayer.getCurrentBet() < maxBet) {
             return false;
         }
-        
-        // Move to the next player
-        advanceToNextPlayer();
-        
-        // Check if betting round is over
-        checkEndOfBettingRound();
-        
+
+        opponentModel.recordAction(currentPlayerIndex, currentRound, Action.Type.CHECK);
+        emit(GameEvent.Type.ACTION, currentPlayerIndex, Action.Type.CHECK, 0, 0L, 0);
+        hasActed[currentPlayerIndex] = true;
+        finishAction();
         return true;
     }
-    
+
     /**
      * Processes a player's call action.
      * @return true if the action was successful, false otherwise
      */
     public boolean call() {
         Player currentPlayer = players.get(currentPlayerIndex);
-        
+
         int maxBet = getMaxBet();
         int amountToCall = maxBet - currentPlayer.getCurrentBet();
-        
-        
-        System.out.println(currentPlayer.getName() + " is calling. Max bet: " + maxBet + ", Current bet: " + currentPlayer.getCurrentBet() + ", Amount to call: " + amountToCall);
-        
-        // If the player doesn't have enough chips, go all-in
-        if (amountToCall > currentPlayer.getChips()) {
-            amountToCall = currentPlayer.getChips();
-        }
-        
+
         // If there's nothing to call, treat as a check
-        if (amountToCall == 0) {
+        if (amountToCall <= 0) {
             return check();
         }
-        
-        // Take chips from player and add to pot
-        currentPlayer.removeChips(amountToCall);
-        pot += amountToCall;
-        currentPlayer.setCurrentBet(currentPlayer.getCurrentBet() + amountToCall);
-        
-        // Check if betting round is over BEFORE advancing to next player
-        checkEndOfBettingRound();
-        
-        
-        if (!isBettingComplete()) {
-            advanceToNextPlayer();
-        }
-        
+
+        // If the player doesn't have enough chips, go all-in
+        opponentModel.recordAction(currentPlayerIndex, currentRound, Action.Type.CALL);
+        emit(GameEvent.Type.ACTION, currentPlayerIndex, Action.Type.CALL, putChips(currentPlayerIndex, amountToCall), 0L, 0);
+        hasActed[currentPlayerIndex] = true;
+        finishAction();
         return true;
     }
-    
+
     /**
      * Processes a player's bet action.
      * @param amount the amount to bet
@@ -267,38 +430,27 @@ public class Game {
      */
     public boolean bet(int amount) {
         Player currentPlayer = players.get(currentPlayerIndex);
-        
+
+        // Can only bet if no one else has bet in this round
+        if (getMaxBet() > 0 || currentPlayer.getChips() == 0) {
+            return false;
+        }
+
         // Bet must be at least the minimum bet
         if (amount < minBet) {
             amount = minBet;
         }
-        
+
         // If the player doesn't have enough chips, go all-in
-        if (amount > currentPlayer.getChips()) {
-            amount = currentPlayer.getChips();
-        }
-        
-        // Can only bet if no one else has bet in this round
-        if (getMaxBet() > 0) {
-            return false;
-        }
-        
-        // Take chips from player and add to pot
-        if (currentPlayer.removeChips(amount)) {
-            pot += amount;
-            currentPlayer.setCurrentBet(amount);
-            lastBettor = currentPlayer;
-            lastRaiseAmount = amount;
-            
-            // Move to next player
-            advanceToNextPlayer();
-            
-            return true;
-        }
-        
-        return false;
+        opponentModel.recordAction(currentPlayerIndex, currentRound, Action.Type.BET);
+        amount = putChips(currentPlayerIndex, amount);
+        emit(GameEvent.Type.ACTION, currentPlayerIndex, Action.Type.BET, amount, 0L, 0);
+        lastRaiseAmount = amount;
+        reopenBetting();
+        finishAction();
+        return true;
     }
-    
+
     /**
      * Processes a player's raise action.
      * @param amount the amount to raise
@@ -306,20 +458,18 @@ public class Game {
      */
     public boolean raise(int amount) {
         Player currentPlayer = players.get(currentPlayerIndex);
-        
+
         int maxBet = getMaxBet();
         int currentBet = currentPlayer.getCurrentBet();
-        int callAmount = maxBet - currentBet;
-        
-        // Total amount should be the current max bet plus the raise amount
-        int totalAmount = maxBet + amount;
-        
+
         // Raise must be at least the minimum bet
         if (amount < minBet) {
             amount = minBet;
-            totalAmount = maxBet + amount;
         }
-        
+
+        // Total amount should be the current max bet plus the raise amount
+        int totalAmount = maxBet + amount;
+
         // If the player doesn't have enough chips, go all-in
         if (totalAmount > currentPlayer.getChips() + currentBet) {
             totalAmount = currentPlayer.getChips() + currentBet;
@@ -329,111 +479,119 @@ public class Game {
                 return false; // Can't raise with insufficient chips
             }
         }
-        
-        // Take chips from player and add to pot
-        int chipsToRemove = totalAmount - currentBet; // Only remove the difference
-        if (currentPlayer.removeChips(chipsToRemove)) {
-            pot += chipsToRemove;
-            currentPlayer.setCurrentBet(totalAmount); // Set to the new total
-            lastBettor = currentPlayer;
-            lastRaiseAmount = amount;
-            
-            // Move to next player
-            advanceToNextPlayer();
-            
-            // Check if betting round is complete
-            checkEndOfBettingRound();
-            
-            return true;
-        }
-        
-        return false;
+
+        // Only remove the difference between the new total and what's already in
+        opponentModel.recordAction(currentPlayerIndex, currentRound, Action.Type.RAISE);
+        emit(GameEvent.Type.ACTION, currentPlayerIndex, Action.Type.RAISE,
+            putChips(currentPlayerIndex, totalAmount - currentBet), 0L, 0);
+        lastRaiseAmount = amount;
+        reopenBetting();
+        finishAction();
+        return true;
     }
-    
+
     /**
-     * Advances the game to the next player who hasn't folded.
+     * Processes an action for the current player.
+     * @param action the action to take
+     * @return true if the action was successful, false otherwise
      */
-    private void advanceToNextPlayer() {
-        currentPlayerIndex = (currentPlayerIndex + 1) % players.size();
+    public boolean perform(Action action) {
+        switch (action.getType()) {
+            case FOLD: return fold();
+            case CHECK: return check();
+            case CALL: return call();
+            case BET: return bet(action.getAmount());
+            case RAISE: return raise(action.getAmount());
+            default: return false;
+        }
     }
-    
+
     /**
-     * Checks if the current betting round is over and advances to the next round if needed.
+     * After a bet or raise, everyone else has to act again.
      */
-    private void checkEndOfBettingRound() {
-        // If there's only one player left, the hand is over
-        if (getActivePlayerCount() <= 1) {
-            currentRound = BettingRound.SHOWDOWN;
-            return;
+    private void reopenBetting() {
+        for (int i = 0; i < hasActed.length; i++) {
+            hasActed[i] = i == currentPlayerIndex;
         }
-        
-        // Check if all active players have had a chance to act and bets are even
-        boolean bettingComplete = isBettingComplete();
-        
-        if (bettingComplete) {
+    }
+
+    /**
+     * Moves on after an action: to the next round if betting is complete, otherwise to the
+     * next player who can still act.
+     */
+    private void finishAction() {
+        if (isBettingComplete()) {
             advanceToNextRound();
+        } else {
+            currentPlayerIndex = nextSeat(currentPlayerIndex, true);
         }
     }
-    
+
+    /**
+     * Gets the next seat after the given one whose player is still in the hand.
+     * @param seat the seat to start after
+     * @param canAct true to also skip players who are all-in
+     * @return the next seat, or the starting seat if there is none
+     */
+    private int nextSeat(int seat, boolean canAct) {
+        for (int i = 1; i <= players.size(); i++) {
+            int next = (seat + i) % players.size();
+            Player player = players.get(next);
+            if (!player.hasFolded() && (!canAct || player.getChips() > 0)) {
+                return next;
+            }
+        }
+        return seat;
+    }
+
     /**
-     * Determines if the current betting round is complete.
+     * Determines if the current betting round is complete: every player who can still act has
+     * acted since the last bet and matched it. Players who are all-in don't need to act, and a
+     * lone player with chips left has no one to bet against once their bet is matched.
      * @return true if betting is complete, false otherwise
      */
     private boolean isBettingComplete() {
-        int activePlayers = getActivePlayerCount();
         int maxBet = getMaxBet();
-
-        
-        if (players.size() == 2 && activePlayers == 2) {
-            boolean allMatched = true;
-            for (Player player : players) {
-                if (!player.hasFolded() && player.getCurrentBet() != maxBet) {
-                    allMatched = false;
-                    break;
-                }
+        int canAct = 0;
+        boolean allSettled = true;
+        for (int i = 0; i < players.size(); i++) {
+            Player player = players.get(i);
+            if (player.hasFolded() || player.getChips() == 0) {
+                continue;
             }
-            if (allMatched) {
-                return true;
+            canAct++;
+            if (!hasActed[i] || player.getCurrentBet() < maxBet) {
+                allSettled = false;
             }
         }
-
-        if (lastBettor == null) {
-            // If no bet has been made, check if all players have acted
-            return currentPlayerIndex == dealerIndex;
+        if (canAct == 0) {
+            return true;
         }
-
-        // Check if all active players have matched the highest bet
-        for (Player player : players) {
-            if (!player.hasFolded() && player.getCurrentBet() != maxBet) {
-                return false;
+        if (canAct == 1) {
+            // Nobody left to bet against; just make sure the last player has matched the bet
+            for (Player player : players) {
+                if (!player.hasFolded() && player.getChips() > 0) {
+                    return player.getCurrentBet() >= maxBet;
+                }
             }
         }
-
-        // Check if all players have had a chance to act after the last bettor
-        return players.get(currentPlayerIndex) == lastBettor;
+        return allSettled;
     }
-    
+
     /**
-     * Advances the game to the next round.
+     * Advances the game to the next round. If at most one player can still bet, the remaining
+     * community cards are dealt straight away and the hand goes to showdown.
      */
     private void advanceToNextRound() {
         // Reset player bets for the next round
-        for (Player player : players) {
-            player.setCurrentBet(0);
+        for (int i = 0; i < players.size(); i++) {
+            players.get(i).setCurrentBet(0);
+            hasActed[i] = false;
         }
-        
+
         // Reset betting state
-        lastBettor = null;
         lastRaiseAmount = 0;
-        
-        // Start with player after the dealer
-        currentPlayerIndex = (dealerIndex + 1) % players.size();
-        
-        // Skip folded players
-        while (players.get(currentPlayerIndex).hasFolded()) {
-            currentPlayerIndex = (currentPlayerIndex + 1) % players.size();
-        }
-        
+
         // Advance to the next round
         switch (currentRound) {
             case PREFLOP:
@@ -451,85 +609,137 @@ public class Game {
             case RIVER:
                 currentRound = BettingRound.SHOWDOWN;
                 determineWinner();
-                break;
+                return;
+            default:
+                return;
+        }
+        emit(GameEvent.Type.STREET, -1, null, 0, boardMask, 0);
+
+        // Start with the first player after the dealer who can act
+        currentPlayerIndex = nextSeat(dealerIndex, true);
+
+        if (isBettingComplete()) {
+            advanceToNextRound();
         }
     }
-    
+
     /**
      * Deals the flop (the first three community cards).
      */
     private void dealFlop() {
         // Burn a card
         deck.dealCard();
-        
+
         // Deal the flop (3 cards)
         for (int i = 0; i < 3; i++) {
-            communityCards.add(deck.dealCard());
+            dealCommunityCard();
+        }
+        for (int i = 0; i < players.size(); i++) {
+            if (!players.get(i).hasFolded()) {
+                opponentModel.recordSawFlop(i);
+            }
         }
     }
-    
+
     /**
      * Deals the turn (the fourth community card).
      */
     private void dealTurn() {
         // Burn a card
         deck.dealCard();
-        
+
         // Deal the turn (1 card)
-        communityCards.add(deck.dealCard());
+        dealCommunityCard();
     }
-    
+
     /**
      * Deals the river (the fifth community card).
      */
     private void dealRiver() {
         // Burn a card
         deck.dealCard();
-        
+
         // Deal the river (1 card)
-        communityCards.add(deck.dealCard());
+        dealCommunityCard();
+    }
+
+    /**
+     * Deals one community card.
+     */
+    private void dealCommunityCard() {
+        Card card = deck.dealCard();
+        communityCards.add(card);
+        boardMask |= card.getMask();
+
+        // Carry every hand forward a card, so showdown and the hand labels need no evaluation
+        for (IncrementalHand hand : hands) {
+            hand.add(card);
+        }
     }
-    
+
+    /**
+     * Publishes an event about the hand in progress.
+     */
+    private void emit(GameEvent.Type type, int seat, Action.Type action, int amount, long cards, int value) {
+        events.publish(type, handNumber, currentRound, seat, action, amount, cards, value);
+    }
+
     /**
-     * Determines the winner of the hand.
+     * Gives the whole pot to the last player left in the hand.
+     */
+    private void awardUncontested(int seat) {
+        Arrays.fill(lastWinnings, 0);
+        lastWinnings[seat] = pot;
+        lastPotWon = pot;
+        players.get(seat).addChips(pot);
+        emit(GameEvent.Type.POT_AWARD, seat, null, pot, 0L, 0);
+        emit(GameEvent.Type.HAND_END, -1, null, 0, 0L, 0);
+        pot = 0;
+        opponentModel.endHand();
+    }
+
+    /**
+     * Determines the winners of the hand and settles the main pot and any side pots
+     * (see {@link SidePots}).
      */
     private void determineWinner() {
+        lastPotWon = pot;
+
         // If only one player is left, they win
         if (getActivePlayerCount() == 1) {
-            for (Player player : players) {
-                if (!player.hasFolded()) {
-                    lastPotWon = pot;
-                    player.addChips(pot);
-                    pot = 0;
+            for (int i = 0; i < players.size(); i++) {
+                if (!players.get(i).hasFolded()) {
+                    awardUncontested(i);
                     return;
                 }
             }
         }
-        
-        // Evaluate each player's hand
-        Player winner = null;
-        HandEvaluator.HandResult bestHand = null;
-        
-        for (Player player : players) {
-            if (!player.hasFolded()) {
-                HandEvaluator.HandResult handResult = HandEvaluator.evaluateHand(
-                    player.getHoleCards(), communityCards);
-                
-                if (bestHand == null || HandEvaluator.compareHands(handResult, bestHand) > 0) {
-                    bestHand = handResult;
-                    winner = player;
-                }
+
+        // Evaluate each player's hand and split the pot between them
+        int folded = 0;
+        for (int i = 0; i < players.size(); i++) {
+            Player player = players.get(i);
+            if (player.hasFolded()) {
+                folded |= 1 << i;
+            } else {
+                showdownStrengths[i] = hands[i].getStrength();
+                opponentModel.recordShowdown(i, player.getHoleMask());
+                emit(GameEvent.Type.SHOWDOWN, i, null, 0, player.getHoleMask(), showdownStrengths[i]);
             }
         }
-        
-        // Award the pot to the winner
-        if (winner != null) {
-            lastPotWon = pot;
-            winner.addChips(pot);
-            pot = 0;
+        SidePots.settle(players.size(), dealerIndex, contributions, showdownStrengths, folded, showdownSeats, lastWinnings);
+
+        for (int i = 0; i < players.size(); i++) {
+            players.get(i).addChips(lastWinnings[i]);
+            if (lastWinnings[i] > 0) {
+                emit(GameEvent.Type.POT_AWARD, i, null, lastWinnings[i], 0L, 0);
+            }
         }
+        emit(GameEvent.Type.HAND_END, -1, null, 0, 0L, 0);
+        pot = 0;
+        opponentModel.endHand();
     }
-    
+
     /**
      * Gets the player whose turn it is.
      * @return the current player
@@ -537,7 +747,159 @@ public class Game {
     public Player getCurrentPlayer() {
         return players.get(currentPlayerIndex);
     }
-    
+
+    /**
+     * Gets the seat of the player whose turn it is.
+     * @return the current player's seat
+     */
+    public int getCurrentPlayerIndex() {
+        return currentPlayerIndex;
+    }
+
+    /**
+     * Takes a snapshot of the game. Players' chips can change outside the game (for example
+     * rebuys), so each call builds a new snapshot; that costs a handful of small arrays, never
+     * a list copy.
+     * @return the current state
+     */
+    public GameState getState() {
+        int count = players.size();
+        int[] stacks = new int[count];
+        int[] bets = new int[count];
+        long[] holeCards = new long[count];
+        int folded = 0;
+        int acted = 0;
+        for (int i = 0; i < count; i++) {
+            Player player = players.get(i);
+            if (hasActed[i]) {
+                acted |= 1 << i;
+            }
+            stacks[i] = player.getChips();
+            bets[i] = player.getCurrentBet();
+            holeCards[i] = player.getHoleMask();
+            if (player.hasFolded()) {
+                folded |= 1 << i;
+            }
+        }
+        return new GameState(handNumber, currentRound, dealerIndex, currentPlayerIndex, pot, minBet,
+                lastRaiseAmount, boardMask, folded, acted, stacks, bets, contributions.clone(), holeCards);
+    }
+
+    /**
+     * Puts the hand in progress back the way it was when a snapshot was taken in it. The
+     * cards aren't copied from the snapshot but dealt again from the hand's seed, so the deck
+     * carries on exactly as it did; the opponent model is left as it is.
+     * @param state a snapshot taken during the hand
+     * @param seed the seed the hand was shuffled from
+     * @throws IllegalArgumentException if the snapshot is from another table or its cards
+     *         don't come from the seed
+     */
+    void restore(GameState state, long seed) {
+        if (state.getPlayerCount() != players.size()) {
+            throw new IllegalArgumentException("Snapshot is from a table with " + state.getPlayerCount() + " seats");
+        }
+        handNumber = state.getHandNumber();
+        handSeed = seed;
+        dealerIndex = state.getDealerSeat();
+        deck.reset(seed);
+        communityCards.clear();
+        boardMask = 0;
+        for (int i = 0; i < players.size(); i++) {
+            Player player = players.get(i);
+            player.clearHand();
+            player.setDealer(i == dealerIndex);
+            hands[i].reset();
+        }
+
+        // Deal the same cards in the same order as the hand did
+        for (int round = 0; round < 2; round++) {
+            for (int i = 1; i <= players.size(); i++) {
+                int seat = (dealerIndex + i) % players.size();
+                if (state.getHoleCards(seat) != 0) {
+                    Card card = deck.dealCard();
+                    players.get(seat).addCard(card);
+                    hands[seat].add(card);
+                }
+            }
+        }
+        int boardCount = state.getBoardCount();
+        for (int dealt = 0; dealt < boardCount; dealt++) {
+            if (dealt == 0 || dealt >= 3) {
+                deck.dealCard();
+            }
+            dealCommunityCard();
+        }
+        for (int i = 0; i < players.size(); i++) {
+            if (players.get(i).getHoleMask() != state.getHoleCards(i)) {
+                throw new IllegalArgumentException("Snapshot's cards don't come from seed " + seed);
+            }
+        }
+        if (boardMask != state.getBoard()) {
+            throw new IllegalArgumentException("Snapshot's board doesn't come from seed " + seed);
+        }
+
+        for (int i = 0; i < players.size(); i++) {
+            Player player = players.get(i);
+            player.removeChips(player.getChips());
+            player.addChips(state.getStack(i));
+            player.setCurrentBet(state.getBet(i));
+            player.setFolded(state.isFolded(i));
+            contributions[i] = state.getContribution(i);
+            hasActed[i] = state.hasActed(i);
+        }
+        currentRound = state.getRound();
+        currentPlayerIndex = state.getCurrentSeat();
+        pot = state.getPot();
+        lastRaiseAmount = state.getLastRaiseAmount();
+    }
+
+    /**
+     * Sets whether a hand won by a fold deals the next hand straight away, which it does
+     * unless told otherwise. With this off every hand ends in the SHOWDOWN round and waits for
+     * {@link #startNewRound()}, which gives a runner the chance to change stacks between hands
+     * and a replay the chance to stop at the end of its hand.
+     * @param autoDeal true to deal the next hand straight away
+     */
+    public void setAutoDeal(boolean autoDeal) {
+        this.autoDeal = autoDeal;
+    }
+
+    /**
+     * Gets the community cards as a card mask.
+     * @return the board mask (see {@link CardMask})
+     */
+    public long getBoardMask() {
+        return boardMask;
+    }
+
+    /**
+     * Gets the strength of a player's best hand with the board so far, as
+     * {@link HandEvaluator#evaluate(long)} would give it. The hand is kept up to date as cards
+     * are dealt, so this costs nothing.
+     * @param seat the player's seat
+     * @return the hand strength
+     */
+    public int getHandStrength(int seat) {
+        return hands[seat].getStrength();
+    }
+
+    /**
+     * Gets the rank of a player's best hand with the board so far.
+     * @param seat the player's seat
+     * @return the hand rank, {@link HandEvaluator.HandRank#HIGH_CARD} if the player has no cards
+     */
+    public HandEvaluator.HandRank getHandRank(int seat) {
+        return hands[seat].getRank();
+    }
+
+    /**
+     * Gets the running stats on how each player at the table plays.
+     * @return the opponent model
+     */
+    public OpponentModel getOpponentModel() {
+        return opponentModel;
+    }
+
     /**
      * Gets the number of players who haven't folded.
      * @return the number of active players
@@ -551,7 +913,21 @@ public class Game {
         }
         return count;
     }
-    
+
+    /**
+     * Checks whether the game is over because fewer than two players have chips left.
+     * @return true if no more hands can be played
+     */
+    public boolean isGameOver() {
+        int funded = 0;
+        for (Player player : players) {
+            if (player.getChips() > 0) {
+                funded++;
+            }
+        }
+        return funded < MIN_PLAYERS && pot == 0;
+    }
+
     /**
      * Gets the maximum bet amount among all players.
      * @return the maximum bet amount
@@ -565,7 +941,7 @@ public class Game {
         }
         return maxBet;
     }
-    
+
     /**
      * Gets the list of community cards.
      * @return the community cards
@@ -573,7 +949,7 @@ public class Game {
     public List<Card> getCommunityCards() {
         return new ArrayList<>(communityCards);
     }
-    
+
     /**
      * Gets the current round of betting.
      * @return the current round
@@ -581,7 +957,7 @@ public class Game {
     public BettingRound getCurrentRound() {
         return currentRound;
     }
-    
+
     /**
      * Gets the amount of chips in the pot.
      * @return the pot amount
@@ -589,7 +965,7 @@ public class Game {
     public int getPot() {
         return pot;
     }
-    
+
     /**
      * Gets the list of players.
      * @return the players
@@ -597,11 +973,142 @@ public class Game {
     public List<Player> getPlayers() {
         return new ArrayList<>(players);
     }
-    
+
     /**
      * Gets the amount of the last pot won (for display in showdown).
      */
     public int getLastPotWon() {
         return lastPotWon;
     }
-} 
\ No newline at end of file
+
+    /**
+     * Gets how many chips a player won in the last hand that was settled.
+     * @param seat the player's seat
+     * @return the chips won, including their own contribution returned
+     */
+    public int getLastWinnings(int seat) {
+        return lastWinnings[seat];
+    }
+
+    /**
+     * Gets the total a player has put into the pot in the current hand.
+     * @param seat the player's seat
+     * @return the player's contribution
+     */
+    public int getContribution(int seat) {
+        return contributions[seat];
+    }
+
+    /**
+     * Gets the seat of the dealer.
+     * @return the dealer's seat
+     */
+    public int getDealerIndex() {
+        return dealerIndex;
+    }
+
+    /**
+     * Gets the minimum bet amount (big blind).
+     * @return the minimum bet
+     */
+    public int getMinBet() {
+        return minBet;
+    }
+
+    /**
+     * Gets the number of hands started so far. The number changes whenever a new hand is
+     * dealt, including when a fold ends a hand and the next one starts straight away.
+     * @return the hand number
+     */
+    public long getHandNumber() {
+        return handNumber;
+    }
+
+    /**
+     * Gets the seed the current hand was shuffled from. Dealing from a deck reset with this
+     * seed deals the same cards in the same order.
+     * @return the seed
+     */
+    public long getHandSeed() {
+        return handSeed;
+    }
+
+    /**
+     * Gets the state of the generator the hands' seeds are drawn from. A game constructed with
+     * it as its seed draws the same seeds for the hands to come.
+     * @return the generator state
+     */
+    long getSeedState() {
+        return seedState;
+    }
+
+    /**
+     * Gets the stream of everything that happens in the game: deals, blinds, actions, new
+     * streets, showdowns and pots won. Listeners read it on their own threads, so a slow
+     * listener never holds up the game.
+     * @return the event stream
+     */
+    public GameEventStream getEvents() {
+        return events;
+    }
+
+    /**
+     * Sets whether events are printed to the console, from a listener on the event stream.
+     * Games are quiet until this is turned on.
+     * @param verbose true to print events, false to stay quiet (e.g. for simulations)
+     */
+    public void setVerbose(boolean verbose) {
+        if (verbose && consoleLog == null) {
+            List<Player> seats = getPlayers();
+            consoleLog = events.subscribe(event -> System.out.println(describe(event, seats)));
+        } else if (!verbose && consoleLog != null) {
+            consoleLog.close();
+            consoleLog = null;
+        }
+    }
+
+    /**
+     * Starts or stops writing every hand to a hand history. The history is written by a
+     * listener on the event stream, so recording never slows the game down; stopping waits for
+     * the hands already played to be written.
+     * @param directory the directory to write history segments to, or null to stop recording
+     */
+    public void setHistoryDirectory(Path directory) {
+        if (history != null) {
+            try {
+                historyFeed.awaitCaughtUp();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            historyFeed.close();
+            HandHistoryWriter finished = history;
+            history = null;
+            historyFeed = null;
+            finished.close();
+        }
+        if (directory != null) {
+            String[] names = new String[players.size()];
+            for (int i = 0; i < names.length; i++) {
+                names[i] = players.get(i).getName();
+            }
+            history = new HandHistoryWriter(directory, names);
+            historyFeed = events.subscribe(history);
+        }
+    }
+
+    /**
+     * Describes an event with the player's name in place of their seat. The console is the
+     * human's view of the table, so computer players' hole cards stay hidden until they are
+     * shown down.
+     */
+    private static String describe(GameEvent event, List<Player> seats) {
+        int seat = event.getSeat();
+        String text = event.getType() == GameEvent.Type.HOLE_CARDS && seats.get(seat) instanceof ComputerPlayer
+            ? "Seat " + seat + " is dealt two cards"
+            : event.toString();
+        if (seat >= 0 && seat < seats.size() && text.startsWith("Seat " + seat + " ")) {
+            return seats.get(seat).getName() + text.substring(("Seat " + seat).length());
+        }
+        return text;
+    }
+}
@@ -0,0 +1,211 @@
+package texasholdem.model;
+
+import java.lang.invoke.VarHandle;
+
+/**
+ * One state change of a {@link Game}: a deal, a blind, an action, a new street, a hand shown
+ * down or chips won.
+ *
+ * Events live in the slots of a {@link GameEventStream} and are written over as the stream
+ * wraps around, so an event passed to a listener is only valid during the call; copy it with
+ * {@link #copy()} to keep it. All the fields are primitives or enum constants, so publishing
+ * an event allocates nothing. Fields that don't apply to a type of event are zero or null.
+ */
+public final class GameEvent {
+    /**
+     * The kinds of event, in the order they happen in a hand.
+     */
+    public enum Type {
+        /** A hand starts: seat is the dealer, amount the big blind, cards the seed the deck is shuffled from */
+        HAND_START,
+        /** A player is dealt in: amount is their stack before the blinds */
+        SEAT,
+        /** A player's hole cards: cards is their mask */
+        HOLE_CARDS,
+        /** A blind is posted: amount is what the player put in */
+        BLIND,
+        /** A player acts: action is what they did, amount the chips they put in */
+        ACTION,
+        /** A new betting round: round is the street, cards the whole board so far */
+        STREET,
+        /** A hand is shown down: cards is the hole cards, value the hand strength */
+        SHOWDOWN,
+        /** A player wins chips: amount is what they won */
+        POT_AWARD,
+        /** A hand is over */
+        HAND_END
+    }
+
+    /** The slot's sequence number once written, or -1 while it is being written */
+    private volatile long sequence = -1;
+
+    private Type type;
+    private long handNumber;
+    private Game.BettingRound round;
+    private int seat;
+    private Action.Type action;
+    private int amount;
+    private long cards;
+    private int value;
+
+    /**
+     * Constructs an empty event, to copy events into.
+     */
+    public GameEvent() {
+    }
+
+    /**
+     * Marks the slot as being written, so readers that get to it mid-write try again.
+     */
+    void beginWrite() {
+        sequence = -1;
+        // Keep the field writes below from being seen before the mark
+        VarHandle.storeStoreFence();
+    }
+
+    /**
+     * Fills in the event.
+     */
+    void set(Type type, long handNumber, Game.BettingRound round, int seat, Action.Type action, int amount,
+            long cards, int value) {
+        this.type = type;
+        this.handNumber = handNumber;
+        this.round = round;
+        this.seat = seat;
+        this.action = action;
+        this.amount = amount;
+        this.cards = cards;
+        this.value = value;
+    }
+
+    /**
+     * Publishes the event under its sequence number.
+     */
+    void endWrite(long sequence) {
+        this.sequence = sequence;
+    }
+
+    /**
+     * Copies the event into another if it still holds the given sequence number.
+     * @return false if the slot has been or is being written over
+     */
+    boolean copyTo(GameEvent into, long expected) {
+        if (sequence != expected) {
+            return false;
+        }
+        into.set(type, handNumber, round, seat, action, amount, cards, value);
+        VarHandle.loadLoadFence();
+        if (sequence != expected) {
+            return false;
+        }
+        into.sequence = expected;
+        return true;
+    }
+
+    /**
+     * Gets a copy of this event that is safe to keep.
+     * @return the copy
+     */
+    public GameEvent copy() {
+        GameEvent copy = new GameEvent();
+        copy.set(type, handNumber, round, seat, action, amount, cards, value);
+        copy.sequence = sequence;
+        return copy;
+    }
+
+    /**
+     * Gets the event's position in the stream, counting from zero.
+     * @return the sequence number
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Gets the kind of event.
+     * @return the type
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Gets the number of the hand the event belongs to.
+     * @return the hand number
+     */
+    public long getHandNumber() {
+        return handNumber;
+    }
+
+    /**
+     * Gets the betting round the event happened in.
+     * @return the round
+     */
+    public Game.BettingRound getRound() {
+        return round;
+    }
+
+    /**
+     * Gets the seat the event is about.
+     * @return the seat
+     */
+    public int getSeat() {
+        return seat;
+    }
+
+    /**
+     * Gets what the player did, for {@link Type#ACTION} events.
+     * @return the action type, or null
+     */
+    public Action.Type getAction() {
+        return action;
+    }
+
+    /**
+     * Gets the chips involved: a stack, a blind, chips put in or chips won.
+     * @return the amount
+     */
+    public int getAmount() {
+        return amount;
+    }
+
+    /**
+     * Gets the cards involved: hole cards or the board.
+     * @return the card mask (see {@link CardMask})
+     */
+    public long getCards() {
+        return cards;
+    }
+
+    /**
+     * Gets the seed the hand's deck is shuffled from, for {@link Type#HAND_START} events.
+     * @return the seed
+     */
+    public long getSeed() {
+        return cards;
+    }
+
+    /**
+     * Gets the hand strength, for {@link Type#SHOWDOWN} events.
+     * @return the strength from {@link HandEvaluator#evaluate(long)}
+     */
+    public int getValue() {
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        switch (type == null ? Type.HAND_END : type) {
+            case HAND_START: return "Hand #" + handNumber + ", seat " + seat + " is the dealer";
+            case SEAT: return "Seat " + seat + " has " + amount + " chips";
+            case HOLE_CARDS: return "Seat " + seat + " is dealt " + CardMask.toList(cards);
+            case BLIND: return "Seat " + seat + " posts a blind of " + amount;
+            case ACTION: return "Seat " + seat + " " + action + (amount > 0 ? " " + amount : "");
+            case STREET: return round + ": " + CardMask.toList(cards);
+            case SHOWDOWN: return "Seat " + seat + " shows " + CardMask.toList(cards) + " ("
+                + HandEvaluator.rankOf(value) + ")";
+            case POT_AWARD: return "Seat " + seat + " wins " + amount;
+            default: return "Hand #" + handNumber + " is over";
+        }
+    }
+}
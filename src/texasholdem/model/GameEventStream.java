@@ -0,0 +1,272 @@
+package texasholdem.model;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A single-producer ring buffer of {@link GameEvent}s, written by the game and read by any
+ * number of consumers at their own pace.
+ *
+ * The game is the only writer: it fills the next preallocated slot and publishes it with one
+ * volatile write, so publishing never allocates, locks or waits. Readers each keep their own
+ * position with a {@link Cursor}. A reader that falls more than a ring's worth of events behind
+ * is not waited for; it skips ahead to the oldest event still in the ring and counts what it
+ * missed. Each slot is guarded by its sequence number, so a reader never sees an event that was
+ * half written over.
+ *
+ * {@link #subscribe(Listener)} runs a listener on its own daemon thread, which is how the UI
+ * log, recorders and statistics keep up without slowing the game down; {@link #cursor()} reads
+ * on the caller's thread, for tools and replays that drain the stream themselves.
+ */
+public final class GameEventStream {
+    /** Default number of slots */
+    public static final int DEFAULT_CAPACITY = 1 << 12;
+
+    /** Spins a subscriber makes before it starts to sleep between polls */
+    private static final int SPINS = 100;
+
+    /** Longest sleep between polls of an idle subscriber, in nanoseconds */
+    private static final long MAX_PARK_NANOS = 1_000_000L;
+
+    /** Number of times the sleep doubles before it reaches the longest */
+    private static final int IDLE_STEPS = 10;
+
+    private final GameEvent[] slots;
+    private final int mask;
+
+    /** The sequence number of the last published event, or -1 */
+    private volatile long published = -1;
+
+    /** The sequence number of the next event, only touched by the producer */
+    private long next;
+
+    /**
+     * Something that handles events, one at a time and in order.
+     */
+    public interface Listener {
+        /**
+         * Handles an event. The event is only valid during the call.
+         * @param event the event
+         */
+        void onEvent(GameEvent event);
+    }
+
+    /**
+     * Constructs a stream.
+     * @param capacity the number of slots, a power of two
+     */
+    public GameEventStream(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two");
+        }
+        slots = new GameEvent[capacity];
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new GameEvent();
+        }
+        mask = capacity - 1;
+    }
+
+    /**
+     * Publishes an event. Only the game's thread may call this.
+     */
+    void publish(GameEvent.Type type, long handNumber, Game.BettingRound round, int seat, Action.Type action,
+            int amount, long cards, int value) {
+        long sequence = next++;
+        GameEvent slot = slots[(int) sequence & mask];
+        slot.beginWrite();
+        slot.set(type, handNumber, round, seat, action, amount, cards, value);
+        slot.endWrite(sequence);
+        published = sequence;
+    }
+
+    /**
+     * Gets the sequence number of the last published event.
+     * @return the sequence number, or -1 if nothing has been published
+     */
+    public long getPublished() {
+        return published;
+    }
+
+    /**
+     * Gets the number of slots.
+     * @return the capacity
+     */
+    public int getCapacity() {
+        return slots.length;
+    }
+
+    /**
+     * Opens a cursor at the next event to be published.
+     * @return the cursor
+     */
+    public Cursor cursor() {
+        return new Cursor(published + 1);
+    }
+
+    /**
+     * Runs a listener on its own daemon thread for every event published from now on.
+     * @param listener the listener
+     * @return the subscription, to close when the listener is no longer wanted
+     */
+    public Subscription subscribe(Listener listener) {
+        return new Subscription(cursor(), listener);
+    }
+
+    /**
+     * A reader's position in the stream.
+     */
+    public final class Cursor {
+        private long position;
+        private long missed;
+
+        private Cursor(long position) {
+            this.position = position;
+        }
+
+        /**
+         * Reads the next event, if there is one.
+         * @param into the event to copy the next event into
+         * @return true if an event was read, false if the reader is caught up
+         */
+        public boolean poll(GameEvent into) {
+            while (true) {
+                long available = published;
+                if (position > available) {
+                    return false;
+                }
+                long oldest = available - mask;
+                if (position < oldest) {
+                    // Lapped: the events in between have been written over
+                    missed += oldest - position;
+                    position = oldest;
+                }
+                if (slots[(int) position & mask].copyTo(into, position)) {
+                    position++;
+                    return true;
+                }
+                // Written over while copying; look again from the oldest event
+            }
+        }
+
+        /**
+         * Gets the sequence number of the next event this cursor will read.
+         * @return the position
+         */
+        public long getPosition() {
+            return position;
+        }
+
+        /**
+         * Gets the number of events skipped because this reader fell too far behind.
+         * @return the missed event count
+         */
+        public long getMissed() {
+            return missed;
+        }
+    }
+
+    /**
+     * A listener running on its own thread.
+     */
+    public final class Subscription implements AutoCloseable {
+        private final Cursor cursor;
+        private final Thread thread;
+        private volatile boolean running = true;
+
+        /** The sequence number after the last event the listener finished with */
+        private volatile long delivered;
+
+        /** The number of events the listener threw on, only written by the listener's thread */
+        private volatile long failures;
+
+        /** The last exception the listener threw, or null */
+        private volatile RuntimeException lastFailure;
+
+        private Subscription(Cursor cursor, Listener listener) {
+            this.cursor = cursor;
+            this.delivered = cursor.getPosition();
+            thread = new Thread(() -> run(listener), "game-events");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        /**
+         * Delivers events until closed, spinning briefly and then sleeping longer and longer
+         * while there is nothing to read.
+         */
+        private void run(Listener listener) {
+            GameEvent event = new GameEvent();
+            int idle = 0;
+            while (running) {
+                if (cursor.poll(event)) {
+                    try {
+                        listener.onEvent(event);
+                    } catch (RuntimeException e) {
+                        // One bad event shouldn't stop the listener hearing about the rest
+                        lastFailure = e;
+                        failures++;
+                    }
+                    delivered = cursor.getPosition();
+                    idle = 0;
+                } else if (idle < SPINS) {
+                    idle++;
+                    Thread.onSpinWait();
+                } else {
+                    idle = Math.min(idle + 1, SPINS + IDLE_STEPS);
+                    LockSupport.parkNanos(MAX_PARK_NANOS >> (SPINS + IDLE_STEPS - idle));
+                }
+            }
+        }
+
+        /**
+         * Waits until the listener has handled every event published so far.
+         * @throws InterruptedException if interrupted while waiting
+         */
+        public void awaitCaughtUp() throws InterruptedException {
+            long target = published + 1;
+            while (running && delivered < target) {
+                Thread.sleep(1);
+            }
+        }
+
+        /**
+         * Gets the number of events the listener missed because it fell too far behind.
+         * @return the missed event count
+         */
+        public long getMissed() {
+            return cursor.getMissed();
+        }
+
+        /**
+         * Gets the number of events the listener threw an exception on. The listener goes on
+         * with the next event after a failure.
+         * @return the failed event count
+         */
+        public long getFailures() {
+            return failures;
+        }
+
+        /**
+         * Gets the last exception the listener threw.
+         * @return the exception, or null if the listener has never failed
+         */
+        public RuntimeException getLastFailure() {
+            return lastFailure;
+        }
+
+        /**
+         * Stops delivering events and waits for the listener's thread to finish.
+         */
+        @Override
+        public void close() {
+            running = false;
+            LockSupport.unpark(thread);
+            if (Thread.currentThread() != thread) {
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+}
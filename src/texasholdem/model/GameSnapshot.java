@@ -0,0 +1,231 @@
+package texasholdem.model;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A saved table: everything needed to carry a game on where it was, in a few hundred bytes.
+ *
+ * A snapshot holds the players' names and a {@link GameState} (chips, bets, dealer, round,
+ * pot, board and hole cards), the seed the hand in progress was shuffled from and the state of
+ * the generator the following hands' seeds are drawn from. The deck isn't stored card by card:
+ * dealing again from the hand's seed puts it back in the same order with the same cards gone,
+ * and {@link Game#restore(GameState, long)} checks the cards it deals against the snapshot's.
+ * The generator's state is a single long (see {@link Game#getSeedState()}), so taking a
+ * snapshot leaves the game as it was, and a restored game deals exactly the hands the saved one
+ * would have.
+ *
+ * {@link #write(Path)} writes the snapshot to a temporary file next to the target, forces it to
+ * disk and renames it over the target, so the file on disk is always either the old snapshot
+ * or the new one, never half of each. The file is laid out as:
+ * <pre>
+ *  0 int     magic number
+ *  4 int     version
+ *  8 long    hand number
+ * 16 long    seed the hand was shuffled from
+ * 24 long    state of the generator the next hands' seeds are drawn from
+ * 32 int     big blind
+ * 36 int     pot
+ * 40 int     last raise
+ * 44 byte    betting round
+ * 45 byte    dealer seat
+ * 46 byte    seat to act
+ * 47 byte    number of seats
+ * 48 long    board card mask
+ * 56 short   seats that have folded, a bit each
+ * 58 short   seats that have acted this round, a bit each
+ * </pre>
+ * followed for each seat by its stack, bet and contribution to the pot as ints, its hole card
+ * mask as a long and its player's name (a length byte and UTF-8).
+ */
+public final class GameSnapshot {
+    /** File the session is saved to by default */
+    public static final String DEFAULT_FILE = "session.bin";
+
+    /** System property that overrides the session file */
+    public static final String FILE_PROPERTY = "texasholdem.session";
+
+    /** File signature ("THSS") */
+    static final int MAGIC = 0x54485353;
+
+    /** File format version */
+    static final int VERSION = 1;
+
+    /** Size of the fixed part of the file */
+    private static final int HEADER_BYTES = 60;
+
+    /** Size of a seat's entry, not counting the name */
+    private static final int SEAT_BYTES = 3 * Integer.BYTES + Long.BYTES + 1;
+
+    private static final Game.BettingRound[] ROUNDS = Game.BettingRound.values();
+
+    private final String[] playerNames;
+    private final GameState state;
+    private final long handSeed;
+    private final long nextSeed;
+
+    private GameSnapshot(String[] playerNames, GameState state, long handSeed, long nextSeed) {
+        this.playerNames = playerNames;
+        this.state = state;
+        this.handSeed = handSeed;
+        this.nextSeed = nextSeed;
+    }
+
+    /**
+     * Takes a snapshot of a game, without changing it.
+     * @param game the game
+     * @return the snapshot
+     */
+    public static GameSnapshot take(Game game) {
+        List<Player> players = game.getPlayers();
+        String[] names = new String[players.size()];
+        for (int seat = 0; seat < names.length; seat++) {
+            names[seat] = players.get(seat).getName();
+        }
+        return new GameSnapshot(names, game.getState(), game.getHandSeed(), game.getSeedState());
+    }
+
+    /**
+     * Gets the file the session is saved to unless told otherwise.
+     * @return the file from the system property, or the default
+     */
+    public static Path getDefaultFile() {
+        return Paths.get(System.getProperty(FILE_PROPERTY, DEFAULT_FILE));
+    }
+
+    /**
+     * Reads a snapshot from a file.
+     * @param file the file
+     * @return the snapshot
+     * @throws IOException if the file can't be read or isn't a session snapshot
+     */
+    public static GameSnapshot read(Path file) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+        try {
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException("Not a session snapshot: " + file);
+            }
+            long handNumber = buffer.getLong();
+            long handSeed = buffer.getLong();
+            long nextSeed = buffer.getLong();
+            int minBet = buffer.getInt();
+            int pot = buffer.getInt();
+            int lastRaise = buffer.getInt();
+            int round = buffer.get();
+            int dealer = buffer.get();
+            int current = buffer.get();
+            int seats = buffer.get();
+            long board = buffer.getLong();
+            int folded = buffer.getShort() & 0xFFFF;
+            int acted = buffer.getShort() & 0xFFFF;
+            if (round < 0 || round >= ROUNDS.length || seats < Game.MIN_PLAYERS || seats > Game.MAX_PLAYERS
+                    || dealer < 0 || dealer >= seats || current < 0 || current >= seats) {
+                throw new IOException("Unexpected session snapshot layout: " + file);
+            }
+
+            String[] names = new String[seats];
+            int[] stacks = new int[seats];
+            int[] bets = new int[seats];
+            int[] contributions = new int[seats];
+            long[] holeCards = new long[seats];
+            for (int seat = 0; seat < seats; seat++) {
+                stacks[seat] = buffer.getInt();
+                bets[seat] = buffer.getInt();
+                contributions[seat] = buffer.getInt();
+                holeCards[seat] = buffer.getLong();
+                byte[] name = new byte[buffer.get() & 0xFF];
+                buffer.get(name);
+                names[seat] = new String(name, StandardCharsets.UTF_8);
+            }
+            GameState state = new GameState(handNumber, ROUNDS[round], dealer, current, pot, minBet, lastRaise,
+                board, folded, acted, stacks, bets, contributions, holeCards);
+            return new GameSnapshot(names, state, handSeed, nextSeed);
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Truncated session snapshot: " + file, e);
+        }
+    }
+
+    /**
+     * Writes the snapshot to a file, replacing it atomically.
+     * @param file the file, whose directory must exist
+     * @throws IOException if the file can't be written
+     */
+    public void write(Path file) throws IOException {
+        byte[][] names = new byte[playerNames.length][];
+        int size = HEADER_BYTES;
+        for (int seat = 0; seat < names.length; seat++) {
+            byte[] name = playerNames[seat].getBytes(StandardCharsets.UTF_8);
+            names[seat] = name.length > 255 ? Arrays.copyOf(name, 255) : name;
+            size += SEAT_BYTES + names[seat].length;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putInt(MAGIC).putInt(VERSION)
+            .putLong(state.getHandNumber()).putLong(handSeed).putLong(nextSeed)
+            .putInt(state.getMinBet()).putInt(state.getPot()).putInt(state.getLastRaiseAmount())
+            .put((byte) state.getRound().ordinal()).put((byte) state.getDealerSeat())
+            .put((byte) state.getCurrentSeat()).put((byte) names.length)
+            .putLong(state.getBoard())
+            .putShort((short) state.getFoldedSeats()).putShort((short) state.getActedSeats());
+        for (int seat = 0; seat < names.length; seat++) {
+            buffer.putInt(state.getStack(seat)).putInt(state.getBet(seat)).putInt(state.getContribution(seat))
+                .putLong(state.getHoleCards(seat))
+                .put((byte) names[seat].length).put(names[seat]);
+        }
+        buffer.flip();
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+        try {
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Builds a game from the snapshot, at the point it was taken.
+     * @param players the players, in seat order; their chips are set from the snapshot
+     * @return the game
+     * @throws IllegalArgumentException if the number of players doesn't match the snapshot or
+     *         its cards don't come from its seed
+     */
+    public Game restore(List<Player> players) {
+        Game game = new Game(players, state.getMinBet(), nextSeed);
+        game.restore(state, handSeed);
+        return game;
+    }
+
+    /**
+     * Gets the name of the player in each seat.
+     * @return the names, by seat
+     */
+    public String[] getPlayerNames() {
+        return playerNames.clone();
+    }
+
+    /**
+     * Gets the table as it was when the snapshot was taken.
+     * @return the state
+     */
+    public GameState getState() {
+        return state;
+    }
+}
@@ -0,0 +1,232 @@
+package texasholdem.model;
+
+/**
+ * An immutable snapshot of a game at one moment, held in flat primitive fields.
+ *
+ * Seats are indexed the same way as {@link Game#getPlayers()}. Cards are card masks (see
+ * {@link CardMask}), folded players and players who have acted are bits of an int, and
+ * stacks, bets and contributions are int arrays that never leave the snapshot, so a snapshot
+ * can be shared freely between the UI, the computer players and search code without
+ * copying anything.
+ */
+public final class GameState {
+    private final long handNumber;
+    private final Game.BettingRound round;
+    private final int dealerSeat;
+    private final int currentSeat;
+    private final int pot;
+    private final int minBet;
+    private final int lastRaiseAmount;
+    private final int maxBet;
+    private final long board;
+    private final int folded;
+    private final int acted;
+    private final int[] stacks;
+    private final int[] bets;
+    private final int[] contributions;
+    private final long[] holeCards;
+
+    /**
+     * Constructs a snapshot. The arrays are owned by the snapshot from then on and must not be
+     * changed by the caller.
+     */
+    GameState(long handNumber, Game.BettingRound round, int dealerSeat, int currentSeat, int pot, int minBet,
+            int lastRaiseAmount, long board, int folded, int acted, int[] stacks, int[] bets, int[] contributions, long[] holeCards) {
+        this.handNumber = handNumber;
+        this.round = round;
+        this.dealerSeat = dealerSeat;
+        this.currentSeat = currentSeat;
+        this.pot = pot;
+        this.minBet = minBet;
+        this.lastRaiseAmount = lastRaiseAmount;
+        this.board = board;
+        this.folded = folded;
+        this.acted = acted;
+        this.stacks = stacks;
+        this.bets = bets;
+        this.contributions = contributions;
+        this.holeCards = holeCards;
+
+        int max = 0;
+        for (int bet : bets) {
+            max = Math.max(max, bet);
+        }
+        this.maxBet = max;
+    }
+
+    /**
+     * Gets the number of the hand this snapshot was taken in.
+     * @return the hand number
+     */
+    public long getHandNumber() {
+        return handNumber;
+    }
+
+    /**
+     * Gets the betting round.
+     * @return the round
+     */
+    public Game.BettingRound getRound() {
+        return round;
+    }
+
+    /**
+     * Gets the number of seats at the table.
+     * @return the number of players
+     */
+    public int getPlayerCount() {
+        return stacks.length;
+    }
+
+    /**
+     * Gets the seat of the dealer.
+     * @return the dealer's seat
+     */
+    public int getDealerSeat() {
+        return dealerSeat;
+    }
+
+    /**
+     * Gets the seat of the player whose turn it is.
+     * @return the current seat
+     */
+    public int getCurrentSeat() {
+        return currentSeat;
+    }
+
+    /**
+     * Gets the amount of chips in the pot.
+     * @return the pot
+     */
+    public int getPot() {
+        return pot;
+    }
+
+    /**
+     * Gets the minimum bet amount (big blind).
+     * @return the minimum bet
+     */
+    public int getMinBet() {
+        return minBet;
+    }
+
+    /**
+     * Gets the amount of the last bet or raise in this betting round.
+     * @return the last raise amount
+     */
+    public int getLastRaiseAmount() {
+        return lastRaiseAmount;
+    }
+
+    /**
+     * Gets the highest bet in this betting round.
+     * @return the maximum bet
+     */
+    public int getMaxBet() {
+        return maxBet;
+    }
+
+    /**
+     * Gets the community cards.
+     * @return the board card mask
+     */
+    public long getBoard() {
+        return board;
+    }
+
+    /**
+     * Gets the number of community cards dealt.
+     * @return 0, 3, 4 or 5
+     */
+    public int getBoardCount() {
+        return Long.bitCount(board);
+    }
+
+    /**
+     * Gets a player's chips, not counting what they have put in the pot.
+     * @param seat the player's seat
+     * @return the player's stack
+     */
+    public int getStack(int seat) {
+        return stacks[seat];
+    }
+
+    /**
+     * Gets a player's bet in this betting round.
+     * @param seat the player's seat
+     * @return the player's bet
+     */
+    public int getBet(int seat) {
+        return bets[seat];
+    }
+
+    /**
+     * Gets the amount a player still has to put in to call, capped at their stack.
+     * @param seat the player's seat
+     * @return the amount to call
+     */
+    public int getAmountToCall(int seat) {
+        return Math.min(maxBet - bets[seat], stacks[seat]);
+    }
+
+    /**
+     * Gets the total a player has put into the pot this hand.
+     * @param seat the player's seat
+     * @return the player's contribution
+     */
+    public int getContribution(int seat) {
+        return contributions[seat];
+    }
+
+    /**
+     * Checks whether a player is out of the hand, either by folding or by sitting out.
+     * @param seat the player's seat
+     * @return true if the player has folded
+     */
+    public boolean isFolded(int seat) {
+        return (folded & (1 << seat)) != 0;
+    }
+
+    /**
+     * Gets the folded players as a bit set, one bit per seat.
+     * @return the folded seats
+     */
+    public int getFoldedSeats() {
+        return folded;
+    }
+
+    /**
+     * Checks whether a player has acted since the last bet or raise in this betting round.
+     * @param seat the player's seat
+     * @return true if the player has acted
+     */
+    public boolean hasActed(int seat) {
+        return (acted & (1 << seat)) != 0;
+    }
+
+    /**
+     * Gets the players who have acted since the last bet or raise, one bit per seat.
+     * @return the seats that have acted
+     */
+    public int getActedSeats() {
+        return acted;
+    }
+
+    /**
+     * Gets the number of players who haven't folded.
+     * @return the number of active players
+     */
+    public int getActivePlayerCount() {
+        return stacks.length - Integer.bitCount(folded);
+    }
+
+    /**
+     * Gets a player's hole cards. Every player's cards are included, so a computer player should
+     * only look at its own seat.
+     * @param seat the player's seat
+     * @return the hole card mask, empty if the player wasn't dealt in
+     */
+    public long getHoleCards(int seat) {
+        return holeCards[seat];
+    }
+}
@@ -1,17 +1,20 @@
 package texasholdem.model;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 /**
  * Evaluates poker hands to determine their rankings.
+ *
+ * Hands are evaluated as a 64-bit card mask (one 16-bit lane per suit, one bit per rank)
+ * into a single int strength. The strength holds the hand rank in bits 20-23 followed by
+ * the five card values in order of importance, one 4-bit nibble each, so two strengths
+ * compare exactly like the hands they came from. All of the work is done with bit
+ * operations and small precomputed tables indexed by 13-bit rank masks, so evaluating
+ * a mask of 5, 6 or 7 cards never allocates.
  */
 public class HandEvaluator {
-    
+
     /**
      * Enum representing the different types of poker hands from highest to lowest.
      */
@@ -26,53 +29,127 @@ public class HandEvaluator {
         TWO_PAIR(2, "Two Pair"),
         ONE_PAIR(1, "One Pair"),
         HIGH_CARD(0, "High Card");
-        
+
         private final int value;
         private final String name;
-        
+
         HandRank(int value, String name) {
             this.value = value;
             this.name = name;
         }
-        
+
         public int getValue() {
             return value;
         }
-        
+
         @Override
         public String toString() {
             return name;
         }
     }
-    
+
     /**
      * Represents the result of a hand evaluation, including the hand rank and relevant cards.
+     * This is a thin view over the int strength returned by {@link #evaluate(long)}.
      */
     public static class HandResult {
-        private HandRank rank;
+        private final int strength;
+        private final List<Card> cards;
         private List<Card> relevantCards;
-        
-        public HandResult(HandRank rank, List<Card> relevantCards) {
-            this.rank = rank;
-            this.relevantCards = new ArrayList<>(relevantCards);
+
+        /**
+         * Constructs a hand result from an evaluated strength.
+         * @param strength the strength returned by {@link #evaluate(long)}
+         * @param cards the cards that were evaluated, used to look up the relevant cards
+         */
+        public HandResult(int strength, List<Card> cards) {
+            this.strength = strength;
+            this.cards = cards;
         }
-        
+
+        /**
+         * Gets the evaluated strength of this hand (higher is better).
+         * @return the hand strength
+         */
+        public int getStrength() {
+            return strength;
+        }
+
         public HandRank getRank() {
-            return rank;
+            return rankOf(strength);
         }
-        
+
+        /**
+         * Gets the five cards (or fewer, for short hands) that make up this hand,
+         * in order of importance. The list is built the first time it is asked for.
+         * @return the relevant cards
+         */
         public List<Card> getRelevantCards() {
+            if (relevantCards == null) {
+                relevantCards = findRelevantCards(strength, cards);
+            }
             return relevantCards;
         }
-        
+
         @Override
         public String toString() {
-            return rank.toString();
+            return getRank().toString();
         }
     }
-    
+
+    /** Number of ranks in a suit */
+    private static final int RANKS = 13;
+
+    /** Mask of all 13 rank bits in one suit lane */
+    private static final int RANK_BITS = (1 << RANKS) - 1;
+
+    /** Bit position of the hand rank inside a strength */
+    private static final int RANK_SHIFT = 20;
+
+    /** Hand ranks indexed by their value */
+    private static final HandRank[] RANKS_BY_VALUE = new HandRank[10];
+
+    /** High card value of the best straight in a rank mask, or 0 if there is none */
+    private static final byte[] STRAIGHT_HIGH = new byte[1 << RANKS];
+
+    /** Values of the five highest ranks in a rank mask, packed as nibbles from bit 16 down */
+    private static final int[] TOP_FIVE = new int[1 << RANKS];
+
+    static {
+        for (HandRank rank : HandRank.values()) {
+            RANKS_BY_VALUE[rank.getValue()] = rank;
+        }
+
+        for (int mask = 0; mask <= RANK_BITS; mask++) {
+            // Top five values, highest first
+            int packed = 0;
+            int shift = 16;
+            for (int bit = RANKS - 1; bit >= 0 && shift >= 0; bit--) {
+                if ((mask & (1 << bit)) != 0) {
+                    packed |= (bit + 2) << shift;
+                    shift -= 4;
+                }
+            }
+            TOP_FIVE[mask] = packed;
+
+            // Highest run of five, with the ace also playing low for the wheel
+            for (int high = RANKS - 1; high >= 4; high--) {
+                int run = 0x1F << (high - 4);
+                if ((mask & run) == run) {
+                    STRAIGHT_HIGH[mask] = (byte) (high + 2);
+                    break;
+                }
+            }
+            int wheel = (1 << 12) | 0xF;
+            if (STRAIGHT_HIGH[mask] == 0 && (mask & wheel) == wheel) {
+                STRAIGHT_HIGH[mask] = 5;
+            }
+        }
+    }
+
     /**
      * Evaluates the best 5-card poker hand from 7 cards (2 hole cards and 5 community cards).
+     * Fewer cards may be passed before the board is complete; missing cards simply don't count.
      * @param holeCards the player's 2 hole cards
      * @param communityCards the 5 community cards
      * @return a HandResult object containing the rank and relevant cards
@@ -80,375 +157,186 @@ public class HandEvaluator {
     public static HandResult evaluateHand(List<Card> holeCards, List<Card> communityCards) {
         List<Card> allCards = new ArrayList<>(holeCards);
         allCards.addAll(communityCards);
-        
-        // Sort the cards by rank value (highest to lowest)
-        Collections.sort(allCards, Comparator.comparing((Card c) -> c.getRank().getValue()).reversed());
-        
-        // Check for each hand type from highest to lowest
-        HandResult result = checkRoyalFlush(allCards);
-        if (result != null) return result;
-        
-        result = checkStraightFlush(allCards);
-        if (result != null) return result;
-        
-        result = checkFourOfAKind(allCards);
-        if (result != null) return result;
-        
-        result = checkFullHouse(allCards);
-        if (result != null) return result;
-        
-        result = checkFlush(allCards);
-        if (result != null) return result;
-        
-        result = checkStraight(allCards);
-        if (result != null) return result;
-        
-        result = checkThreeOfAKind(allCards);
-        if (result != null) return result;
-        
-        result = checkTwoPair(allCards);
-        if (result != null) return result;
-        
-        result = checkOnePair(allCards);
-        if (result != null) return result;
-        
-        // If nothing else, return high card
-        int numCards = Math.min(allCards.size(), 5);
-        return new HandResult(HandRank.HIGH_CARD, allCards.subList(0, numCards));
+        return new HandResult(evaluate(CardMask.of(allCards)), allCards);
     }
-    
+
     /**
-     * Checks if the cards contain a royal flush (A, K, Q, J, 10 of the same suit).
+     * Evaluates a card mask of up to 7 cards without allocating.
+     * @param cards the card mask (see {@link CardMask})
+     * @return the hand strength; a higher strength always beats a lower one
      */
-    private static HandResult checkRoyalFlush(List<Card> cards) {
-        for (Card.Suit suit : Card.Suit.values()) {
-            boolean hasAce = false;
-            boolean hasKing = false;
-            boolean hasQueen = false;
-            boolean hasJack = false;
-            boolean hasTen = false;
-            
-            List<Card> relevantCards = new ArrayList<>();
-            
-            for (Card card : cards) {
-                if (card.getSuit() == suit) {
-                    if (card.getRank() == Card.Rank.ACE) {
-                        hasAce = true;
-                        relevantCards.add(card);
-                    } else if (card.getRank() == Card.Rank.KING) {
-                        hasKing = true;
-                        relevantCards.add(card);
-                    } else if (card.getRank() == Card.Rank.QUEEN) {
-                        hasQueen = true;
-                        relevantCards.add(card);
-                    } else if (card.getRank() == Card.Rank.JACK) {
-                        hasJack = true;
-                        relevantCards.add(card);
-                    } else if (card.getRank() == Card.Rank.TEN) {
-                        hasTen = true;
-                        relevantCards.add(card);
-                    }
-                }
+    public static int evaluate(long cards) {
+        int hearts = (int) cards & RANK_BITS;
+        int diamonds = (int) (cards >>> 16) & RANK_BITS;
+        int clubs = (int) (cards >>> 32) & RANK_BITS;
+        int spades = (int) (cards >>> 48) & RANK_BITS;
+
+        // A flush can only come from one suit when there are 7 cards or fewer
+        int flushSuit = -1;
+        if (Integer.bitCount(hearts) >= 5) flushSuit = hearts;
+        else if (Integer.bitCount(diamonds) >= 5) flushSuit = diamonds;
+        else if (Integer.bitCount(clubs) >= 5) flushSuit = clubs;
+        else if (Integer.bitCount(spades) >= 5) flushSuit = spades;
+
+        if (flushSuit >= 0) {
+            int high = STRAIGHT_HIGH[flushSuit];
+            if (high == 14) {
+                return straightStrength(HandRank.ROYAL_FLUSH, high);
             }
-            
-            if (hasAce && hasKing && hasQueen && hasJack && hasTen) {
-                Collections.sort(relevantCards, Comparator.comparing((Card c) -> c.getRank().getValue()).reversed());
-                return new HandResult(HandRank.ROYAL_FLUSH, relevantCards);
+            if (high != 0) {
+                return straightStrength(HandRank.STRAIGHT_FLUSH, high);
             }
         }
-        return null;
-    }
-    
-    /**
-     * Checks if the cards contain a straight flush (5 consecutive cards of the same suit).
-     */
-    private static HandResult checkStraightFlush(List<Card> cards) {
-        Map<Card.Suit, List<Card>> suitMap = new HashMap<>();
-        
-        // Group cards by suit
-        for (Card card : cards) {
-            if (!suitMap.containsKey(card.getSuit())) {
-                suitMap.put(card.getSuit(), new ArrayList<>());
+
+        int ranks = clubs | diamonds | hearts | spades;
+        int pairs = (clubs & diamonds) | (clubs & hearts) | (clubs & spades)
+                | (diamonds & hearts) | (diamonds & spades) | (hearts & spades);
+        int trips = ((clubs & diamonds) & (hearts | spades)) | ((hearts & spades) & (clubs | diamonds));
+        int quads = clubs & diamonds & hearts & spades;
+
+        if (quads != 0) {
+            int quad = highestValue(quads);
+            int kicker = TOP_FIVE[ranks & ~highestBit(quads)] >>> 16;
+            return (HandRank.FOUR_OF_A_KIND.getValue() << RANK_SHIFT)
+                    | repeat(quad, 4) << 4 | kicker;
+        }
+
+        if (trips != 0) {
+            int tripBit = highestBit(trips);
+            int rest = pairs & ~tripBit;
+            if (rest != 0) {
+                return (HandRank.FULL_HOUSE.getValue() << RANK_SHIFT)
+                        | repeat(highestValue(trips), 3) << 8 | repeat(highestValue(rest), 2);
             }
-            suitMap.get(card.getSuit()).add(card);
         }
-        
-        // Check each suit group for a straight
-        for (List<Card> suitCards : suitMap.values()) {
-            if (suitCards.size() >= 5) {
-                Collections.sort(suitCards, Comparator.comparing((Card c) -> c.getRank().getValue()).reversed());
-                List<Card> straight = findStraight(suitCards);
-                if (straight != null) {
-                    return new HandResult(HandRank.STRAIGHT_FLUSH, straight);
-                }
+
+        if (flushSuit >= 0) {
+            return (HandRank.FLUSH.getValue() << RANK_SHIFT) | TOP_FIVE[flushSuit];
+        }
+
+        int high = STRAIGHT_HIGH[ranks];
+        if (high != 0) {
+            return straightStrength(HandRank.STRAIGHT, high);
+        }
+
+        if (trips != 0) {
+            int tripBit = highestBit(trips);
+            return (HandRank.THREE_OF_A_KIND.getValue() << RANK_SHIFT)
+                    | repeat(highestValue(trips), 3) << 8 | TOP_FIVE[ranks & ~tripBit] >>> 12;
+        }
+
+        if (pairs != 0) {
+            int firstBit = highestBit(pairs);
+            int second = pairs & ~firstBit;
+            if (second != 0) {
+                int secondBit = highestBit(second);
+                int kicker = TOP_FIVE[ranks & ~firstBit & ~secondBit] >>> 16;
+                return (HandRank.TWO_PAIR.getValue() << RANK_SHIFT)
+                        | repeat(highestValue(pairs), 2) << 12 | repeat(highestValue(second), 2) << 4 | kicker;
             }
+            return (HandRank.ONE_PAIR.getValue() << RANK_SHIFT)
+                    | repeat(highestValue(pairs), 2) << 12 | TOP_FIVE[ranks & ~firstBit] >>> 8;
         }
-        return null;
+
+        return (HandRank.HIGH_CARD.getValue() << RANK_SHIFT) | TOP_FIVE[ranks];
     }
-    
+
     /**
-     * Checks if the cards contain four of a kind (4 cards of the same rank).
+     * Gets the strength of a flush (or straight or royal flush) from the ranks of its suit.
+     * @param suitRanks the 13-bit rank mask of a suit holding at least five cards
+     * @return the same strength {@link #evaluate(long)} gives the flush
      */
-    private static HandResult checkFourOfAKind(List<Card> cards) {
-        Map<Card.Rank, List<Card>> rankMap = groupByRank(cards);
-        
-        for (Map.Entry<Card.Rank, List<Card>> entry : rankMap.entrySet()) {
-            if (entry.getValue().size() == 4) {
-                List<Card> relevantCards = new ArrayList<>(entry.getValue());
-                
-                // Add highest kicker
-                for (Card card : cards) {
-                    if (card.getRank() != entry.getKey()) {
-                        relevantCards.add(card);
-                        break;
-                    }
-                }
-                
-                return new HandResult(HandRank.FOUR_OF_A_KIND, relevantCards);
-            }
+    static int flushStrength(int suitRanks) {
+        int high = STRAIGHT_HIGH[suitRanks];
+        if (high == 14) {
+            return straightStrength(HandRank.ROYAL_FLUSH, high);
+        }
+        if (high != 0) {
+            return straightStrength(HandRank.STRAIGHT_FLUSH, high);
         }
-        return null;
+        return (HandRank.FLUSH.getValue() << RANK_SHIFT) | TOP_FIVE[suitRanks];
     }
-    
+
     /**
-     * Checks if the cards contain a full house (3 cards of one rank, 2 of another).
+     * Gets the hand rank encoded in a strength.
+     * @param strength a strength returned by {@link #evaluate(long)}
+     * @return the hand rank
      */
-    private static HandResult checkFullHouse(List<Card> cards) {
-        Map<Card.Rank, List<Card>> rankMap = groupByRank(cards);
-        
-        List<Card> threeOfAKind = null;
-        List<Card> pair = null;
-        
-        // Find the highest three of a kind
-        for (Map.Entry<Card.Rank, List<Card>> entry : rankMap.entrySet()) {
-            if (entry.getValue().size() >= 3) {
-                if (threeOfAKind == null || entry.getKey().getValue() > threeOfAKind.get(0).getRank().getValue()) {
-                    threeOfAKind = entry.getValue();
-                }
-            }
-        }
-        
-        if (threeOfAKind != null) {
-            // Find the highest pair different from the three of a kind
-            for (Map.Entry<Card.Rank, List<Card>> entry : rankMap.entrySet()) {
-                if (entry.getValue().size() >= 2 && entry.getKey() != threeOfAKind.get(0).getRank()) {
-                    if (pair == null || entry.getKey().getValue() > pair.get(0).getRank().getValue()) {
-                        pair = entry.getValue();
-                    }
-                }
-            }
-            
-            if (pair != null) {
-                List<Card> relevantCards = new ArrayList<>();
-                relevantCards.addAll(threeOfAKind.subList(0, 3));
-                relevantCards.addAll(pair.subList(0, 2));
-                return new HandResult(HandRank.FULL_HOUSE, relevantCards);
-            }
-        }
-        return null;
+    public static HandRank rankOf(int strength) {
+        return RANKS_BY_VALUE[strength >>> RANK_SHIFT];
     }
-    
+
     /**
-     * Checks if the cards contain a flush (5 cards of the same suit).
+     * Builds the strength of a straight (or straight flush) from its high card value.
      */
-    private static HandResult checkFlush(List<Card> cards) {
-        Map<Card.Suit, List<Card>> suitMap = new HashMap<>();
-        
-        // Group cards by suit
-        for (Card card : cards) {
-            if (!suitMap.containsKey(card.getSuit())) {
-                suitMap.put(card.getSuit(), new ArrayList<>());
-            }
-            suitMap.get(card.getSuit()).add(card);
+    private static int straightStrength(HandRank rank, int high) {
+        int packed = 0;
+        for (int i = 0; i < 5; i++) {
+            int value = high - i;
+            // The ace plays low at the bottom of the wheel
+            packed = (packed << 4) | (value == 1 ? 14 : value);
         }
-        
-        // Check each suit group for a flush
-        for (List<Card> suitCards : suitMap.values()) {
-            if (suitCards.size() >= 5) {
-                Collections.sort(suitCards, Comparator.comparing((Card c) -> c.getRank().getValue()).reversed());
-                return new HandResult(HandRank.FLUSH, suitCards.subList(0, 5));
-            }
-        }
-        return null;
+        return (rank.getValue() << RANK_SHIFT) | packed;
     }
-    
+
     /**
-     * Checks if the cards contain a straight (5 consecutive cards of any suit).
+     * Packs the same card value into several consecutive nibbles.
      */
-    private static HandResult checkStraight(List<Card> cards) {
-        List<Card> distinctRanks = new ArrayList<>();
-        Card.Rank lastRank = null;
-        
-        // Get one card of each rank
-        for (Card card : cards) {
-            if (lastRank == null || card.getRank() != lastRank) {
-                distinctRanks.add(card);
-                lastRank = card.getRank();
-            }
+    private static int repeat(int value, int count) {
+        int packed = 0;
+        for (int i = 0; i < count; i++) {
+            packed = (packed << 4) | value;
         }
-        
-        if (distinctRanks.size() >= 5) {
-            List<Card> straight = findStraight(distinctRanks);
-            if (straight != null) {
-                return new HandResult(HandRank.STRAIGHT, straight);
-            }
-        }
-        return null;
+        return packed;
     }
-    
+
     /**
-     * Helper method to find a straight in a list of cards.
-     * Returns a list of 5 cards forming a straight, or null if no straight is found.
+     * Gets the highest set bit of a rank mask.
      */
-    private static List<Card> findStraight(List<Card> cards) {
-        // Special case for A-5 straight (where Ace counts as 1)
-        boolean hasAce = false;
-        boolean has5 = false;
-        boolean has4 = false;
-        boolean has3 = false;
-        boolean has2 = false;
-        
-        for (Card card : cards) {
-            if (card.getRank() == Card.Rank.ACE) hasAce = true;
-            if (card.getRank() == Card.Rank.FIVE) has5 = true;
-            if (card.getRank() == Card.Rank.FOUR) has4 = true;
-            if (card.getRank() == Card.Rank.THREE) has3 = true;
-            if (card.getRank() == Card.Rank.TWO) has2 = true;
-        }
-        
-        if (hasAce && has2 && has3 && has4 && has5) {
-            List<Card> straight = new ArrayList<>();
-            // Find the cards that make up this straight
-            for (Card card : cards) {
-                if (card.getRank() == Card.Rank.FIVE ||
-                    card.getRank() == Card.Rank.FOUR ||
-                    card.getRank() == Card.Rank.THREE ||
-                    card.getRank() == Card.Rank.TWO) {
-                    straight.add(card);
-                }
-                if (card.getRank() == Card.Rank.ACE) {
-                    // Add the ace at the end since it's low in this straight
-                    straight.add(card);
-                }
-                if (straight.size() == 5) break;
-            }
-            return straight;
-        }
-        
-        // Check for standard straights
-        for (int i = 0; i <= cards.size() - 5; i++) {
-            if (cards.get(i).getRank().getValue() - cards.get(i + 4).getRank().getValue() == 4) {
-                return cards.subList(i, i + 5);
-            }
-        }
-        
-        return null;
+    private static int highestBit(int mask) {
+        return Integer.highestOneBit(mask);
     }
-    
+
     /**
-     * Checks if the cards contain three of a kind (3 cards of the same rank).
+     * Gets the card value (2-14) of the highest rank in a rank mask.
      */
-    private static HandResult checkThreeOfAKind(List<Card> cards) {
-        Map<Card.Rank, List<Card>> rankMap = groupByRank(cards);
-        
-        for (Map.Entry<Card.Rank, List<Card>> entry : rankMap.entrySet()) {
-            if (entry.getValue().size() == 3) {
-                List<Card> relevantCards = new ArrayList<>(entry.getValue());
-                
-                // Add highest kickers
-                int kickersNeeded = 2;
-                for (Card card : cards) {
-                    if (card.getRank() != entry.getKey()) {
-                        relevantCards.add(card);
-                        kickersNeeded--;
-                        if (kickersNeeded == 0) break;
-                    }
-                }
-                
-                return new HandResult(HandRank.THREE_OF_A_KIND, relevantCards);
-            }
-        }
-        return null;
+    private static int highestValue(int mask) {
+        return 31 - Integer.numberOfLeadingZeros(mask) + 2;
     }
-    
+
     /**
-     * Checks if the cards contain two pair (2 cards of one rank, 2 of another).
+     * Picks the cards named by the value nibbles of a strength out of the evaluated cards.
+     * Flushes and straight flushes only take cards of the flush suit.
      */
-    private static HandResult checkTwoPair(List<Card> cards) {
-        Map<Card.Rank, List<Card>> rankMap = groupByRank(cards);
-        
-        List<List<Card>> pairs = new ArrayList<>();
-        
-        for (List<Card> rankCards : rankMap.values()) {
-            if (rankCards.size() >= 2) {
-                pairs.add(rankCards);
+    private static List<Card> findRelevantCards(int strength, List<Card> cards) {
+        HandRank rank = rankOf(strength);
+        Card.Suit flushSuit = null;
+        if (rank == HandRank.FLUSH || rank == HandRank.STRAIGHT_FLUSH || rank == HandRank.ROYAL_FLUSH) {
+            int[] suitCounts = new int[Card.Suit.values().length];
+            for (Card card : cards) {
+                if (++suitCounts[card.getSuit().ordinal()] >= 5) {
+                    flushSuit = card.getSuit();
+                }
             }
         }
-        
-        if (pairs.size() >= 2) {
-            // Sort pairs by rank
-            Collections.sort(pairs, Comparator.comparing((List<Card> p) -> p.get(0).getRank().getValue()).reversed());
-            
-            List<Card> relevantCards = new ArrayList<>();
-            relevantCards.addAll(pairs.get(0).subList(0, 2));
-            relevantCards.addAll(pairs.get(1).subList(0, 2));
-            
-            // Add highest kicker
+
+        List<Card> relevantCards = new ArrayList<>();
+        for (int shift = 16; shift >= 0; shift -= 4) {
+            int value = (strength >>> shift) & 0xF;
+            if (value == 0) {
+                break;
+            }
             for (Card card : cards) {
-                if (card.getRank() != pairs.get(0).get(0).getRank() && 
-                    card.getRank() != pairs.get(1).get(0).getRank()) {
+                if (card.getValue() == value && (flushSuit == null || card.getSuit() == flushSuit)
+                        && !relevantCards.contains(card)) {
                     relevantCards.add(card);
                     break;
                 }
             }
-            
-            return new HandResult(HandRank.TWO_PAIR, relevantCards);
-        }
-        return null;
-    }
-    
-    /**
-     * Checks if the cards contain one pair (2 cards of the same rank).
-     */
-    private static HandResult checkOnePair(List<Card> cards) {
-        Map<Card.Rank, List<Card>> rankMap = groupByRank(cards);
-        
-        for (Map.Entry<Card.Rank, List<Card>> entry : rankMap.entrySet()) {
-            if (entry.getValue().size() == 2) {
-                List<Card> relevantCards = new ArrayList<>(entry.getValue());
-                
-                // Add highest kickers
-                int kickersNeeded = 3;
-                for (Card card : cards) {
-                    if (card.getRank() != entry.getKey()) {
-                        relevantCards.add(card);
-                        kickersNeeded--;
-                        if (kickersNeeded == 0) break;
-                    }
-                }
-                
-                return new HandResult(HandRank.ONE_PAIR, relevantCards);
-            }
         }
-        return null;
+        return relevantCards;
     }
-    
-    /**
-     * Helper method to group cards by rank.
-     */
-    private static Map<Card.Rank, List<Card>> groupByRank(List<Card> cards) {
-        Map<Card.Rank, List<Card>> rankMap = new HashMap<>();
-        
-        for (Card card : cards) {
-            if (!rankMap.containsKey(card.getRank())) {
-                rankMap.put(card.getRank(), new ArrayList<>());
-            }
-            rankMap.get(card.getRank()).add(card);
-        }
-        
-        return rankMap;
-    }
-    
+
     /**
      * Compares two hands to determine the winner.
      * @param hand1 the first hand result
@@ -456,25 +344,6 @@ public class HandEvaluator {
      * @return a positive number if hand1 wins, negative if hand2 wins, 0 if tie
      */
     public static int compareHands(HandResult hand1, HandResult hand2) {
-        // First compare hand ranks
-        int rankComparison = hand1.getRank().getValue() - hand2.getRank().getValue();
-        if (rankComparison != 0) {
-            return rankComparison;
-        }
-        
-        // If ranks are the same, compare cards in order of importance
-        List<Card> cards1 = hand1.getRelevantCards();
-        List<Card> cards2 = hand2.getRelevantCards();
-        
-        int minSize = Math.min(cards1.size(), cards2.size());
-        for (int i = 0; i < minSize; i++) {
-            int valueComparison = cards1.get(i).getValue() - cards2.get(i).getValue();
-            if (valueComparison != 0) {
-                return valueComparison;
-            }
-        }
-        
-        // If all cards match, it's a tie
-        return 0;
+        return hand1.getStrength() - hand2.getStrength();
     }
-} 
\ No newline at end of file
+}
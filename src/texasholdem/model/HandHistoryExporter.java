@@ -0,0 +1,506 @@
+package texasholdem.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Exports a hand history written by {@link HandHistoryWriter} as PokerStars-style text, the
+ * format most hand history tools read.
+ *
+ * The binary history is the game's event stream kept on disk: each record holds the stacks,
+ * cards, blinds and actions of one hand as {@link Game} played them, so the text is rebuilt
+ * from the record with the blinds posted, raises stated as "raises X to Y", uncalled bets
+ * returned and the summary PokerStars ends each hand with. Cards are written in the short
+ * form PokerStars uses ({@code Ah}, {@code Td}), taken once per card from its {@link Card}
+ * rank and suit. The records don't carry the time a hand was played, so every hand of a
+ * segment is stamped with the time the segment was last written to, and each segment is
+ * named as its own table.
+ *
+ * Exporting runs on two threads. The calling thread reads the mapped segments and appends
+ * {@link #BATCH_HANDS} hands at a time to a StringBuilder taken from a pool of
+ * {@link #POOLED_BUILDERS}; a writer thread encodes each full builder as UTF-8, with one
+ * encoder it reuses, into a direct {@link #BUFFER_BYTES} buffer, writes the buffer to the output
+ * channel whenever it fills and hands the builder back to the pool. Nothing is allocated per hand, the disk sees a few large
+ * writes, and when the disk is the slower side the formatting thread waits for a free builder
+ * rather than piling text up in memory. The exporter only reads the segments, so it can run
+ * while a live game is still writing them; the writer thread runs at the lowest priority, and
+ * {@link #exportInBackground(Path, Path)} runs the formatting on a low-priority daemon thread
+ * as well, off the common pool the computer players think on.
+ *
+ * An exporter is not thread-safe; use one per export.
+ */
+public final class HandHistoryExporter {
+    /** Number of hands formatted into each pooled builder before it is written */
+    public static final int BATCH_HANDS = 256;
+
+    /** Number of builders shared between the formatting and writing threads */
+    public static final int POOLED_BUILDERS = 4;
+
+    /** Size of the buffer text is encoded into before it is written */
+    public static final int BUFFER_BYTES = 4 << 20;
+
+    /** Initial capacity of a pooled builder, enough for a batch of long hands */
+    private static final int BUILDER_CHARS = BATCH_HANDS * 2048;
+
+    /** Timestamp format of the hand header */
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy/MM/dd HH:mm:ss 'ET'")
+        .withZone(ZoneId.of("America/New_York"));
+
+    /** Street names after the pre-flop, for the street headers and the summary */
+    private static final String[] STREET_HEADERS = {null, "*** FLOP *** [", "*** TURN *** [", "*** RIVER *** ["};
+    private static final String[] STREET_NAMES = {null, "Flop", "Turn", "River"};
+
+    /** PokerStars card codes by card index */
+    private static final String[] CARD_CODES = new String[Card.COUNT];
+
+    /** Marks the end of the batches handed to the writer thread */
+    private static final StringBuilder END = new StringBuilder();
+
+    static {
+        String ranks = "23456789TJQKA";
+        for (int index = 0; index < Card.COUNT; index++) {
+            Card card = Card.of(index);
+            CARD_CODES[index] = "" + ranks.charAt(card.getRank().getValue() - 2)
+                + Character.toLowerCase(card.getSuit().name().charAt(0));
+        }
+    }
+
+    private final BlockingQueue<StringBuilder> free = new ArrayBlockingQueue<>(POOLED_BUILDERS);
+    private final BlockingQueue<StringBuilder> full = new ArrayBlockingQueue<>(POOLED_BUILDERS + 1);
+
+    /** The segment being exported */
+    private String[] names;
+    private String table;
+    private String date;
+
+    /** Per-seat state of the hand being formatted */
+    private final int[] remaining = new int[Game.MAX_PLAYERS];
+    private final int[] committed = new int[Game.MAX_PLAYERS];
+    private final int[] streetBets = new int[Game.MAX_PLAYERS];
+    private final int[] foldRounds = new int[Game.MAX_PLAYERS];
+
+    /**
+     * Constructs an exporter.
+     */
+    public HandHistoryExporter() {
+        for (int i = 0; i < POOLED_BUILDERS; i++) {
+            free.add(new StringBuilder(BUILDER_CHARS));
+        }
+    }
+
+    /**
+     * Starts exporting every segment in a history directory on a background thread.
+     * @param directory the history directory
+     * @param output the text file to write, replaced if it exists
+     * @return the export, whose result is the number of hands written
+     */
+    public static FutureTask<Long> exportInBackground(Path directory, Path output) {
+        FutureTask<Long> task = new FutureTask<>(
+            () -> new HandHistoryExporter().export(HandHistoryReader.findSegments(directory), output));
+        Thread thread = new Thread(task, "hand-history-export");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+        return task;
+    }
+
+    /**
+     * Exports segments to a text file, in the order given.
+     * @param segments the segment files
+     * @param output the text file to write, replaced if it exists
+     * @return the number of hands written
+     * @throws IOException if a segment can't be read or the output can't be written
+     */
+    public long export(List<Path> segments, Path output) throws IOException {
+        try (FileChannel channel = FileChannel.open(output, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            Writer writer = new Writer(channel);
+            Thread thread = new Thread(writer, "hand-history-export-writer");
+            thread.setDaemon(true);
+            // Encoding and writing yield to the live table just as formatting does
+            thread.setPriority(Thread.MIN_PRIORITY);
+            thread.start();
+
+            long hands = 0;
+            try {
+                HandRecord record = new HandRecord();
+                StringBuilder batch = take(free);
+                int batched = 0;
+                for (Path segment : segments) {
+                    HandHistoryReader reader = HandHistoryReader.open(segment);
+                    names = reader.getPlayerNames();
+                    table = segment.getFileName().toString().replaceFirst("\\.hh$", "");
+                    date = DATE_FORMAT.format(Files.getLastModifiedTime(segment).toInstant());
+                    while (reader.next(record) && writer.error == null) {
+                        appendHand(batch, record);
+                        hands++;
+                        if (++batched == BATCH_HANDS) {
+                            full.add(batch);
+                            batch = take(free);
+                            batched = 0;
+                        }
+                    }
+                }
+                full.add(batch);
+            } finally {
+                full.add(END);
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while exporting", e);
+                }
+            }
+            if (writer.error != null) {
+                throw writer.error;
+            }
+            return hands;
+        }
+    }
+
+    /**
+     * Appends one hand in PokerStars format.
+     */
+    private void appendHand(StringBuilder out, HandRecord record) {
+        int seats = record.getSeatCount();
+        int dealer = record.getDealer();
+        int bigBlind = record.getBigBlind();
+
+        out.append("PokerStars Hand #").append(record.getHandNumber()).append(": Hold'em No Limit (")
+            .append(bigBlind / 2).append('/').append(bigBlind).append(") - ").append(date).append('\n');
+        out.append("Table '").append(table).append("' ").append(seats).append("-max Seat #")
+            .append(dealer + 1).append(" is the button\n");
+        for (int seat = 0; seat < seats; seat++) {
+            committed[seat] = 0;
+            streetBets[seat] = 0;
+            foldRounds[seat] = -1;
+            remaining[seat] = record.getStack(seat);
+            if (record.isDealt(seat)) {
+                out.append("Seat ").append(seat + 1).append(": ").append(names[seat])
+                    .append(" (").append(remaining[seat]).append(" in chips)\n");
+            }
+        }
+
+        // The blinds, posted the way Game posts them
+        int smallBlindSeat = record.getPlayerCount() == 2 ? dealer : nextDealt(record, dealer);
+        int bigBlindSeat = nextDealt(record, smallBlindSeat);
+        int maxBet = Math.max(post(out, smallBlindSeat, "small", bigBlind / 2), post(out, bigBlindSeat, "big", bigBlind));
+
+        out.append("*** HOLE CARDS ***\n");
+        for (int seat = 0; seat < seats; seat++) {
+            if (record.isDealt(seat)) {
+                out.append("Dealt to ").append(names[seat]).append(' ');
+                appendCards(out, record.getHoleCards(seat));
+                out.append('\n');
+            }
+        }
+
+        int round = 0;
+        int actions = record.getActionCount();
+        for (int i = 0; i < actions; i++) {
+            int actionRound = record.getActionRound(i).ordinal();
+            while (round < actionRound) {
+                appendStreet(out, record, ++round);
+                Arrays.fill(streetBets, 0);
+                maxBet = 0;
+            }
+            int seat = record.getActionSeat(i);
+            int amount = record.getActionAmount(i);
+            out.append(names[seat]);
+            switch (record.getActionType(i)) {
+                case FOLD:
+                    out.append(": folds");
+                    foldRounds[seat] = round;
+                    break;
+                case CHECK:
+                    out.append(": checks");
+                    break;
+                case CALL:
+                    out.append(": calls ").append(amount);
+                    break;
+                case BET:
+                    out.append(": bets ").append(amount);
+                    break;
+                case RAISE:
+                    out.append(": raises ").append(streetBets[seat] + amount - maxBet)
+                        .append(" to ").append(streetBets[seat] + amount);
+                    break;
+                default:
+                    break;
+            }
+            remaining[seat] -= amount;
+            committed[seat] += amount;
+            streetBets[seat] += amount;
+            maxBet = Math.max(maxBet, streetBets[seat]);
+            if (amount > 0 && remaining[seat] == 0) {
+                out.append(" and is all-in");
+            }
+            out.append('\n');
+        }
+
+        // Chips no one matched go back to whoever put them in rather than into the pot
+        int top = -1;
+        int second = 0;
+        for (int seat = 0; seat < seats; seat++) {
+            if (top < 0 || committed[seat] > committed[top]) {
+                if (top >= 0) {
+                    second = Math.max(second, committed[top]);
+                }
+                top = seat;
+            } else {
+                second = Math.max(second, committed[seat]);
+            }
+        }
+        int uncalled = committed[top] - second;
+        if (uncalled > 0) {
+            out.append("Uncalled bet (").append(uncalled).append(") returned to ").append(names[top]).append('\n');
+        }
+
+        // Streets dealt with no one left to act
+        int streets = record.getBoardCount() == 0 ? 0 : record.getBoardCount() - 2;
+        while (round < streets) {
+            appendStreet(out, record, ++round);
+        }
+
+        boolean showdown = false;
+        for (int seat = 0; seat < seats; seat++) {
+            if (record.showedDown(seat)) {
+                if (!showdown) {
+                    out.append("*** SHOW DOWN ***\n");
+                    showdown = true;
+                }
+                out.append(names[seat]).append(": shows ");
+                appendCards(out, record.getHoleCards(seat));
+                out.append(" (").append(record.getHandRank(seat)).append(")\n");
+            }
+        }
+        for (int seat = 0; seat < seats; seat++) {
+            int collected = collected(record, seat, top, uncalled);
+            if (collected > 0) {
+                out.append(names[seat]).append(" collected ").append(collected).append(" from pot\n");
+            }
+        }
+
+        out.append("*** SUMMARY ***\nTotal pot ").append(record.getPot() - uncalled).append(" | Rake 0\n");
+        if (record.getBoardCount() > 0) {
+            out.append("Board [");
+            appendBoard(out, record, 0, record.getBoardCount());
+            out.append("]\n");
+        }
+        for (int seat = 0; seat < seats; seat++) {
+            if (!record.isDealt(seat)) {
+                continue;
+            }
+            out.append("Seat ").append(seat + 1).append(": ").append(names[seat]);
+            if (seat == dealer) {
+                out.append(" (button)");
+            }
+            if (seat == smallBlindSeat) {
+                out.append(" (small blind)");
+            } else if (seat == bigBlindSeat) {
+                out.append(" (big blind)");
+            }
+            int collected = collected(record, seat, top, uncalled);
+            if (foldRounds[seat] == 0) {
+                out.append(" folded before Flop");
+            } else if (foldRounds[seat] > 0) {
+                out.append(" folded on the ").append(STREET_NAMES[foldRounds[seat]]);
+            } else if (record.showedDown(seat)) {
+                out.append(" showed ");
+                appendCards(out, record.getHoleCards(seat));
+                if (collected > 0) {
+                    out.append(" and won (").append(collected).append(')');
+                } else {
+                    out.append(" and lost");
+                }
+                out.append(" with ").append(record.getHandRank(seat));
+            } else if (collected > 0) {
+                out.append(" collected (").append(collected).append(')');
+            }
+            out.append('\n');
+        }
+        out.append("\n\n");
+    }
+
+    /**
+     * Posts a blind, all-in if the seat is short.
+     * @return the chips posted
+     */
+    private int post(StringBuilder out, int seat, String blind, int amount) {
+        int posted = Math.min(amount, remaining[seat]);
+        remaining[seat] -= posted;
+        committed[seat] += posted;
+        streetBets[seat] += posted;
+        out.append(names[seat]).append(": posts ").append(blind).append(" blind ").append(posted);
+        if (remaining[seat] == 0) {
+            out.append(" and is all-in");
+        }
+        out.append('\n');
+        return posted;
+    }
+
+    /**
+     * Gets what a seat took from the pot, not counting an uncalled bet returned to it.
+     */
+    private static int collected(HandRecord record, int seat, int top, int uncalled) {
+        return record.getWinnings(seat) - (seat == top ? uncalled : 0);
+    }
+
+    /**
+     * Finds the next seat dealt in after a seat.
+     */
+    private static int nextDealt(HandRecord record, int seat) {
+        int seats = record.getSeatCount();
+        for (int i = 1; i <= seats; i++) {
+            int next = (seat + i) % seats;
+            if (record.isDealt(next)) {
+                return next;
+            }
+        }
+        return seat;
+    }
+
+    /**
+     * Appends a street header: the board before the street, then the street's new card or cards.
+     */
+    private static void appendStreet(StringBuilder out, HandRecord record, int round) {
+        out.append(STREET_HEADERS[round]);
+        if (round == 1) {
+            appendBoard(out, record, 0, 3);
+        } else {
+            appendBoard(out, record, 0, round + 1);
+            out.append("] [");
+            appendBoard(out, record, round + 1, round + 2);
+        }
+        out.append("]\n");
+    }
+
+    /**
+     * Appends board cards, space separated.
+     */
+    private static void appendBoard(StringBuilder out, HandRecord record, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (i > from) {
+                out.append(' ');
+            }
+            out.append(CARD_CODES[record.getBoardCard(i)]);
+        }
+    }
+
+    /**
+     * Appends two hole cards in brackets, the higher first.
+     */
+    private static void appendCards(StringBuilder out, long mask) {
+        int low = CardMask.lowestIndex(mask);
+        int high = CardMask.lowestIndex(mask & ~CardMask.bit(low));
+        if (Card.rankOf(low).compareTo(Card.rankOf(high)) > 0) {
+            int swap = low;
+            low = high;
+            high = swap;
+        }
+        out.append('[').append(CARD_CODES[high]).append(' ').append(CARD_CODES[low]).append(']');
+    }
+
+    /**
+     * Takes a builder from the pool, waiting for the writer to give one back if it must.
+     */
+    private static StringBuilder take(BlockingQueue<StringBuilder> queue) throws IOException {
+        try {
+            return queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while exporting", e);
+        }
+    }
+
+    /**
+     * Encodes full builders into one large buffer and writes it out each time it fills.
+     */
+    private final class Writer implements Runnable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+
+        /** Writes a character that can't be encoded, such as half a surrogate pair, as '?' */
+        private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+        /** Why writing stopped, read by the formatting thread once it has joined this one */
+        private volatile IOException error;
+
+        Writer(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public void run() {
+            try {
+                for (StringBuilder batch = full.take(); batch != END; batch = full.take()) {
+                    if (error == null) {
+                        try {
+                            encode(batch);
+                        } catch (IOException e) {
+                            error = e;
+                        }
+                    }
+                    batch.setLength(0);
+                    free.add(batch);
+                }
+                if (error == null) {
+                    flush();
+                }
+            } catch (IOException e) {
+                error = e;
+            } catch (InterruptedException e) {
+                error = new IOException("Interrupted while exporting", e);
+            }
+        }
+
+        /**
+         * Encodes text as UTF-8 into the buffer, writing the buffer out when it fills.
+         */
+        private void encode(CharSequence text) throws IOException {
+            // Each batch ends on a whole hand, so it is encoded as a whole input
+            CharBuffer chars = CharBuffer.wrap(text);
+            encoder.reset();
+            CoderResult result = encoder.encode(chars, buffer, true);
+            while (!result.isUnderflow()) {
+                if (!result.isOverflow()) {
+                    result.throwException();
+                }
+                flush();
+                result = encoder.encode(chars, buffer, true);
+            }
+            while (encoder.flush(buffer).isOverflow()) {
+                flush();
+            }
+        }
+
+        /**
+         * Writes out what is in the buffer.
+         */
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package texasholdem.model;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Filters the hands in a hand history and adds up how players did in them.
+ *
+ * A query picks hands by player, by the street they reached, by the category of a hand shown
+ * down and by pot size; every filter left unset lets all hands through. {@link #run(List)}
+ * scans the segments in parallel, one segment per task, each task adding up a {@link Summary}
+ * of its own that are merged at the end, so nothing is shared while scanning. Hands are tested
+ * on the record's fixed fields first, and their seats are only decoded for hands that pass, so
+ * filtering out a hand costs a few reads from the mapped file.
+ *
+ * The summary counts, for each position, the hands dealt, won and shown down: for the chosen
+ * player's seat if there is one, otherwise for every seat dealt in.
+ */
+public final class HandHistoryQuery {
+    private String player;
+    private Game.BettingRound street;
+    private HandEvaluator.HandRank handRank;
+    private int minPot = 0;
+    private int maxPot = Integer.MAX_VALUE;
+
+    /**
+     * Only lets through hands a player was dealt into.
+     * @param name the player's name, or null for anyone
+     * @return this query
+     */
+    public HandHistoryQuery player(String name) {
+        this.player = name;
+        return this;
+    }
+
+    /**
+     * Only lets through hands that reached a street.
+     * @param street the street, SHOWDOWN for hands shown down, or null for any
+     * @return this query
+     */
+    public HandHistoryQuery street(Game.BettingRound street) {
+        this.street = street;
+        return this;
+    }
+
+    /**
+     * Only lets through hands in which the player (or, with no player, anyone) showed down a
+     * hand of a category.
+     * @param handRank the category, or null for any
+     * @return this query
+     */
+    public HandHistoryQuery handRank(HandEvaluator.HandRank handRank) {
+        this.handRank = handRank;
+        return this;
+    }
+
+    /**
+     * Only lets through hands whose pot is in a range.
+     * @param min the smallest pot
+     * @param max the largest pot
+     * @return this query
+     */
+    public HandHistoryQuery pot(int min, int max) {
+        this.minPot = min;
+        this.maxPot = max;
+        return this;
+    }
+
+    /**
+     * Runs the query over segments on the common ForkJoinPool.
+     * @param segments the segment files
+     * @return the summary of the hands that passed
+     * @throws IOException if a segment can't be read
+     */
+    public Summary run(List<Path> segments) throws IOException {
+        try {
+            return IntStream.range(0, segments.size()).parallel()
+                .mapToObj(i -> scan(segments.get(i)))
+                .reduce(Summary::add)
+                .orElseGet(Summary::new);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Scans one segment.
+     * @param path the segment file
+     * @return the summary of the segment's hands that passed
+     * @throws UncheckedIOException if the segment can't be read
+     */
+    public Summary scan(Path path) {
+        HandHistoryReader reader;
+        try {
+            reader = HandHistoryReader.open(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        Summary summary = new Summary();
+        int playerSeat = player == null ? -1 : reader.getSeat(player);
+        if (player != null && playerSeat < 0) {
+            summary.scanned = reader.getRecordCount();
+            return summary;
+        }
+
+        HandRecord record = new HandRecord();
+        while (reader.next(record)) {
+            summary.scanned++;
+            if (matches(record, playerSeat)) {
+                summary.add(record, playerSeat);
+            }
+        }
+        return summary;
+    }
+
+    /**
+     * Tests a hand against the filters, the fixed fields first.
+     */
+    private boolean matches(HandRecord record, int playerSeat) {
+        int pot = record.getPot();
+        if (pot < minPot || pot > maxPot) {
+            return false;
+        }
+        if (playerSeat >= 0 && !record.isDealt(playerSeat)) {
+            return false;
+        }
+        if (street != null && record.getLastRound().ordinal() < street.ordinal()) {
+            return false;
+        }
+        if (handRank != null) {
+            if (playerSeat >= 0) {
+                return record.showedDown(playerSeat) && record.getHandRank(playerSeat) == handRank;
+            }
+            for (int seat = 0; seat < record.getSeatCount(); seat++) {
+                if (record.showedDown(seat) && record.getHandRank(seat) == handRank) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * What a query found: how many hands passed and, by position, how often the seats counted
+     * won and went to showdown.
+     */
+    public static final class Summary {
+        private long scanned;
+        private long matched;
+        private long pots;
+        private final long[] dealt = new long[Game.MAX_PLAYERS];
+        private final long[] won = new long[Game.MAX_PLAYERS];
+        private final long[] showdowns = new long[Game.MAX_PLAYERS];
+        private final long[] showdownsWon = new long[Game.MAX_PLAYERS];
+
+        Summary() {
+        }
+
+        /**
+         * Counts a hand that passed.
+         */
+        void add(HandRecord record, int playerSeat) {
+            matched++;
+            pots += record.getPot();
+            for (int seat = 0; seat < record.getSeatCount(); seat++) {
+                if ((playerSeat < 0 || seat == playerSeat) && record.isDealt(seat)) {
+                    int position = record.getPosition(seat);
+                    boolean winner = record.isWinner(seat);
+                    dealt[position]++;
+                    if (winner) {
+                        won[position]++;
+                    }
+                    if (record.showedDown(seat)) {
+                        showdowns[position]++;
+                        if (winner) {
+                            showdownsWon[position]++;
+                        }
+                    }
+                }
+            }
+        }
+
+        /**
+         * Adds another summary into this one.
+         * @return this summary
+         */
+        Summary add(Summary other) {
+            scanned += other.scanned;
+            matched += other.matched;
+            pots += other.pots;
+            for (int i = 0; i < dealt.length; i++) {
+                dealt[i] += other.dealt[i];
+                won[i] += other.won[i];
+                showdowns[i] += other.showdowns[i];
+                showdownsWon[i] += other.showdownsWon[i];
+            }
+            return this;
+        }
+
+        /**
+         * Gets the number of hands read.
+         * @return the hand count
+         */
+        public long getScanned() {
+            return scanned;
+        }
+
+        /**
+         * Gets the number of hands that passed the filters.
+         * @return the hand count
+         */
+        public long getMatched() {
+            return matched;
+        }
+
+        /**
+         * Gets the average pot of the hands that passed.
+         * @return the average pot, 0 if none did
+         */
+        public double getAveragePot() {
+            return matched == 0 ? 0.0 : (double) pots / matched;
+        }
+
+        /**
+         * Gets the number of hands counted at a position.
+         * @param position the number of seats dealt in after the button, 0 for the button
+         * @return the hand count
+         */
+        public long getHands(int position) {
+            return dealt[position];
+        }
+
+        /**
+         * Gets how often the seats counted at a position won chips.
+         * @param position the number of seats dealt in after the button, 0 for the button
+         * @return the rate between 0 and 1, 0 with no hands
+         */
+        public double getWinRate(int position) {
+            return rate(won[position], dealt[position]);
+        }
+
+        /**
+         * Gets how often the seats counted at a position went to showdown.
+         * @param position the number of seats dealt in after the button, 0 for the button
+         * @return the rate between 0 and 1, 0 with no hands
+         */
+        public double getShowdownRate(int position) {
+            return rate(showdowns[position], dealt[position]);
+        }
+
+        /**
+         * Gets how often the seats counted at a position won when they went to showdown.
+         * @param position the number of seats dealt in after the button, 0 for the button
+         * @return the rate between 0 and 1, 0 with no showdowns
+         */
+        public double getShowdownWinRate(int position) {
+            return rate(showdownsWon[position], showdowns[position]);
+        }
+
+        private static double rate(long hits, long chances) {
+            return chances == 0 ? 0.0 : (double) hits / chances;
+        }
+    }
+}
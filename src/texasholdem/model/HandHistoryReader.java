@@ -0,0 +1,144 @@
+package texasholdem.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Reads the hands in one hand history segment written by {@link HandHistoryWriter}.
+ *
+ * The segment is mapped read-only and read front to back; {@link #next(HandRecord)} points a
+ * {@link HandRecord} at each hand in turn, so a scan touches each byte once, copies nothing and
+ * leaves it to the operating system to page the file in ahead of the reader. A segment that is
+ * still being written can be read: the reader stops at the last hand that was complete when it
+ * was opened. Readers are cheap and hold no locks, so any number of threads can each scan
+ * their own segments.
+ */
+public final class HandHistoryReader {
+    private final ByteBuffer buffer;
+    private final String[] playerNames;
+    private final long recordCount;
+    private final int end;
+    private int position;
+
+    private HandHistoryReader(ByteBuffer buffer, String[] playerNames, long recordCount, int start, int end) {
+        this.buffer = buffer;
+        this.playerNames = playerNames;
+        this.recordCount = recordCount;
+        this.position = start;
+        this.end = end;
+    }
+
+    /**
+     * Maps a segment file.
+     * @param path the segment
+     * @return a reader at the first hand
+     * @throws IOException if the file can't be read or isn't a hand history segment
+     */
+    public static HandHistoryReader open(Path path) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.capacity() < HandHistoryWriter.NAMES_OFFSET || buffer.getInt(0) != HandHistoryWriter.MAGIC
+                || buffer.getInt(4) != HandHistoryWriter.VERSION) {
+            throw new IOException("Not a hand history segment: " + path);
+        }
+        long end = buffer.getLong(HandHistoryWriter.END_OFFSET);
+        int seats = buffer.getInt(HandHistoryWriter.SEATS_OFFSET);
+        int start = buffer.getInt(HandHistoryWriter.FIRST_RECORD_OFFSET);
+        if (seats < Game.MIN_PLAYERS || seats > Game.MAX_PLAYERS || start < HandHistoryWriter.NAMES_OFFSET
+                || end < start || end > buffer.capacity()) {
+            throw new IOException("Unexpected hand history layout: " + path);
+        }
+
+        String[] names = new String[seats];
+        int at = HandHistoryWriter.NAMES_OFFSET;
+        for (int seat = 0; seat < seats; seat++) {
+            int length = buffer.get(at) & 0xFF;
+            byte[] bytes = new byte[length];
+            buffer.get(at + 1, bytes);
+            names[seat] = new String(bytes, StandardCharsets.UTF_8);
+            at += 1 + length;
+        }
+        return new HandHistoryReader(buffer, names, buffer.getLong(HandHistoryWriter.COUNT_OFFSET), start, (int) end);
+    }
+
+    /**
+     * Finds the segment files in a directory, in the order they were written.
+     * @param directory the history directory
+     * @return the segment paths, empty if the directory doesn't exist
+     * @throws IOException if the directory can't be listed
+     */
+    public static List<Path> findSegments(Path directory) throws IOException {
+        List<Path> segments = new ArrayList<>();
+        if (Files.isDirectory(directory)) {
+            try (Stream<Path> files = Files.list(directory)) {
+                files.filter(path -> path.getFileName().toString().matches("hands-\\d+\\.hh"))
+                    .sorted()
+                    .forEach(segments::add);
+            }
+        }
+        return segments;
+    }
+
+    /**
+     * Points a record at the next hand.
+     * @param record the record to point at the hand
+     * @return false if there are no more hands
+     */
+    public boolean next(HandRecord record) {
+        if (position >= end) {
+            return false;
+        }
+        record.wrap(buffer, position, playerNames.length);
+        position += record.getLength();
+        return true;
+    }
+
+    /**
+     * Gets the name of the player in each seat.
+     * @return the names, by seat
+     */
+    public String[] getPlayerNames() {
+        return playerNames.clone();
+    }
+
+    /**
+     * Gets the seat of a player.
+     * @param name the player's name
+     * @return the seat, or -1 if no one by that name sat in this segment's game
+     */
+    public int getSeat(String name) {
+        for (int seat = 0; seat < playerNames.length; seat++) {
+            if (playerNames[seat].equals(name)) {
+                return seat;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Gets the number of hands in the segment.
+     * @return the record count
+     */
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * Gets the number of bytes of hands in the segment.
+     * @return the size of the records
+     */
+    public long getDataBytes() {
+        return end - buffer.getInt(HandHistoryWriter.FIRST_RECORD_OFFSET);
+    }
+}
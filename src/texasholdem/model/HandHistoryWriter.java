@@ -0,0 +1,394 @@
+package texasholdem.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes every hand of a game to disk as a compact binary record.
+ *
+ * The writer is a {@link GameEventStream.Listener}: it runs on the stream's listener thread,
+ * collects each hand's events into a few arrays and a scratch buffer, and when the hand ends
+ * copies one record to the end of a segment file. Each segment is created at its full size and
+ * mapped into memory, so appending a record is a few dozen stores into the mapping and the
+ * operating system writes the pages out in its own time; nothing on the game's thread, and
+ * nothing per hand on the writer's, waits for the disk. When a segment is full the next one
+ * is started in the same directory.
+ *
+ * A segment starts with a header: the magic number, the version, the offset just past the
+ * last complete record, the record count, the number of seats, the offset of the first record
+ * and each seat's player name (a length byte and UTF-8). The end offset is updated after
+ * every record, so a reader only ever sees whole records, even in a segment still being
+ * written; the rest of the segment is zeros.
+ *
+ * A record starts with a fixed part:
+ * <pre>
+ *  0 int     record length in bytes
+ *  4 long    hand number
+ * 12 long    seed the deck was shuffled from
+ * 20 int     big blind
+ * 24 int     pot, the total of the chips won
+ * 28 byte    dealer seat
+ * 29 byte    number of board cards
+ * 30 short   seats dealt in, a bit each
+ * 32 short   seats that showed down
+ * 34 short   seats that won chips
+ * 36 byte[5] board card indexes in the order dealt, -1 for cards not dealt
+ * </pre>
+ * followed by, for each seat dealt in from the lowest, its two hole card indexes (lower
+ * first) and its starting stack and winnings as varints; then the number of actions in each
+ * betting round from pre-flop to the river as varints; then the actions in order, each a byte
+ * holding the action type's ordinal in the high four bits and the seat in the low four,
+ * followed for calls, bets and raises by the chips put in as a varint. The blinds aren't
+ * stored: they follow from the stacks, the dealer and the big blind.
+ */
+public final class HandHistoryWriter implements GameEventStream.Listener, AutoCloseable {
+    /** Directory the history is written to by default */
+    public static final String DEFAULT_DIRECTORY = "history";
+
+    /** System property that overrides the history directory */
+    public static final String DIRECTORY_PROPERTY = "texasholdem.history";
+
+    /** Default size of a segment file */
+    public static final int DEFAULT_SEGMENT_BYTES = 16 << 20;
+
+    /** File signature ("HHST") */
+    static final int MAGIC = 0x48485354;
+
+    /** File format version */
+    static final int VERSION = 1;
+
+    /** Offsets of the segment header fields */
+    static final int END_OFFSET = 8;
+    static final int COUNT_OFFSET = 16;
+    static final int SEATS_OFFSET = 24;
+    static final int FIRST_RECORD_OFFSET = 28;
+    static final int NAMES_OFFSET = 32;
+
+    /** Offsets of the fixed record fields */
+    static final int LENGTH = 0;
+    static final int HAND_NUMBER = 4;
+    static final int SEED = 12;
+    static final int BIG_BLIND = 20;
+    static final int POT = 24;
+    static final int DEALER = 28;
+    static final int BOARD_COUNT = 29;
+    static final int DEALT = 30;
+    static final int SHOWDOWN = 32;
+    static final int WINNERS = 34;
+    static final int BOARD = 36;
+
+    /** Size of the fixed part of a record */
+    static final int RECORD_HEADER_BYTES = BOARD + 5;
+
+    /** Betting rounds that have actions */
+    static final int ROUNDS = Game.BettingRound.SHOWDOWN.ordinal();
+
+    /** Largest varint, in bytes */
+    private static final int MAX_VARINT_BYTES = 5;
+
+    /** Largest encoded action: the action byte and an amount */
+    private static final int MAX_ACTION_BYTES = 1 + MAX_VARINT_BYTES;
+
+    private final Path directory;
+    private final byte[] header;
+    private final int segmentBytes;
+
+    /** The segment being written, or null before the first record */
+    private MappedByteBuffer segment;
+    private long records;
+
+    /** The number the next segment file is tried with */
+    private int nextSegment;
+
+    /** Whether a segment couldn't be created, which stops the writer */
+    private boolean failed;
+
+    /** The hand being collected; false if none is, or it can't be recorded because events were missed */
+    private boolean collecting;
+    private long lastSequence = -1;
+    private long handNumber;
+    private long seed;
+    private int bigBlind;
+    private int dealer;
+    private int dealt;
+    private int showdown;
+    private int winners;
+    private int pot;
+    private long board;
+    private final byte[] boardCards = new byte[5];
+    private int boardCount;
+    private final int[] stacks;
+    private final long[] holeCards;
+    private final int[] won;
+    private final int[] roundActions = new int[ROUNDS];
+    private final ByteBuffer actions = ByteBuffer.allocate(1 << 16);
+
+    /**
+     * Constructs a writer with the default segment size. No file is created until the first
+     * hand is written.
+     * @param directory the directory to write segments to, created if needed
+     * @param playerNames the name of the player in each seat
+     */
+    public HandHistoryWriter(Path directory, String[] playerNames) {
+        this(directory, playerNames, DEFAULT_SEGMENT_BYTES);
+    }
+
+    /**
+     * Constructs a writer. No file is created until the first hand is written.
+     * @param directory the directory to write segments to, created if needed
+     * @param playerNames the name of the player in each seat
+     * @param segmentBytes the size of each segment file
+     */
+    public HandHistoryWriter(Path directory, String[] playerNames, int segmentBytes) {
+        if (playerNames.length > Game.MAX_PLAYERS) {
+            throw new IllegalArgumentException("Too many seats");
+        }
+        ByteBuffer names = ByteBuffer.allocate(playerNames.length * 256);
+        for (String name : playerNames) {
+            byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+            int length = Math.min(bytes.length, 255);
+            names.put((byte) length).put(bytes, 0, length);
+        }
+        this.header = new byte[NAMES_OFFSET + names.position()];
+        ByteBuffer.wrap(header).putInt(MAGIC).putInt(VERSION).putLong(header.length).putLong(0)
+            .putInt(playerNames.length).putInt(header.length).put(names.array(), 0, names.position());
+        if (segmentBytes < header.length + RECORD_HEADER_BYTES) {
+            throw new IllegalArgumentException("Segment too small");
+        }
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.stacks = new int[playerNames.length];
+        this.holeCards = new long[playerNames.length];
+        this.won = new int[playerNames.length];
+    }
+
+    /**
+     * Gets the directory the history is written to unless told otherwise.
+     * @return the directory from the system property, or the default
+     */
+    public static Path getDefaultDirectory() {
+        return Paths.get(System.getProperty(DIRECTORY_PROPERTY, DEFAULT_DIRECTORY));
+    }
+
+    /**
+     * Gets the directory the Swing game records its hands to. Recording is opt-in, since every
+     * session starts a segment of its own: it is on only when the system property is set.
+     * @return the directory from the system property, or null if it isn't set
+     */
+    public static Path getConfiguredDirectory() {
+        String directory = System.getProperty(DIRECTORY_PROPERTY);
+        return directory == null ? null : Paths.get(directory);
+    }
+
+    /**
+     * Collects an event, writing the hand out when it ends. A hand some of whose events were
+     * missed is left out.
+     * @param event the event
+     */
+    @Override
+    public void onEvent(GameEvent event) {
+        long sequence = event.getSequence();
+        boolean continuous = sequence == lastSequence + 1;
+        lastSequence = sequence;
+        if (event.getType() == GameEvent.Type.HAND_START) {
+            startHand(event);
+            return;
+        }
+        if (!collecting || !continuous || failed) {
+            collecting = false;
+            return;
+        }
+
+        int seat = event.getSeat();
+        switch (event.getType()) {
+            case SEAT:
+                dealt |= 1 << seat;
+                stacks[seat] = event.getAmount();
+                break;
+            case HOLE_CARDS:
+                holeCards[seat] = event.getCards();
+                break;
+            case ACTION:
+                addAction(event);
+                break;
+            case STREET:
+                // The flop's three cards in index order, then the turn and the river
+                long added = event.getCards() & ~board;
+                board = event.getCards();
+                for (; added != 0 && boardCount < boardCards.length; added &= added - 1) {
+                    boardCards[boardCount++] = (byte) CardMask.lowestIndex(added);
+                }
+                break;
+            case SHOWDOWN:
+                showdown |= 1 << seat;
+                break;
+            case POT_AWARD:
+                winners |= 1 << seat;
+                won[seat] += event.getAmount();
+                pot += event.getAmount();
+                break;
+            case HAND_END:
+                collecting = false;
+                writeHand();
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Clears the collected hand and starts collecting a new one.
+     */
+    private void startHand(GameEvent event) {
+        collecting = true;
+        handNumber = event.getHandNumber();
+        seed = event.getSeed();
+        bigBlind = event.getAmount();
+        dealer = event.getSeat();
+        dealt = 0;
+        showdown = 0;
+        winners = 0;
+        pot = 0;
+        board = 0;
+        boardCount = 0;
+        for (int seat = 0; seat < stacks.length; seat++) {
+            stacks[seat] = 0;
+            holeCards[seat] = 0;
+            won[seat] = 0;
+        }
+        for (int round = 0; round < ROUNDS; round++) {
+            roundActions[round] = 0;
+        }
+        actions.clear();
+    }
+
+    /**
+     * Encodes an action into the scratch buffer.
+     */
+    private void addAction(GameEvent event) {
+        if (actions.remaining() < MAX_ACTION_BYTES || event.getRound().ordinal() >= ROUNDS) {
+            collecting = false;
+            return;
+        }
+        Action.Type type = event.getAction();
+        actions.put((byte) (type.ordinal() << 4 | event.getSeat()));
+        if (type == Action.Type.CALL || type == Action.Type.BET || type == Action.Type.RAISE) {
+            putVarint(actions, event.getAmount());
+        }
+        roundActions[event.getRound().ordinal()]++;
+    }
+
+    /**
+     * Appends the collected hand to the segment, starting a new segment if it doesn't fit.
+     */
+    private void writeHand() {
+        int seats = Integer.bitCount(dealt);
+        int maxBytes = RECORD_HEADER_BYTES + seats * (2 + 2 * MAX_VARINT_BYTES) + ROUNDS * MAX_VARINT_BYTES
+            + actions.position();
+        if (segment == null || segment.remaining() < maxBytes) {
+            if (header.length + maxBytes > segmentBytes) {
+                // Too big for any segment
+                return;
+            }
+            if (!startSegment()) {
+                return;
+            }
+        }
+
+        ByteBuffer out = segment;
+        int start = out.position();
+        out.position(start + HAND_NUMBER);
+        out.putLong(handNumber).putLong(seed).putInt(bigBlind).putInt(pot).put((byte) dealer).put((byte) boardCount)
+            .putShort((short) dealt).putShort((short) showdown).putShort((short) winners);
+        for (int i = 0; i < boardCards.length; i++) {
+            out.put(i < boardCount ? boardCards[i] : -1);
+        }
+        for (int seat = 0; seat < stacks.length; seat++) {
+            if ((dealt & 1 << seat) != 0) {
+                long cards = holeCards[seat];
+                out.put((byte) CardMask.lowestIndex(cards)).put((byte) CardMask.lowestIndex(cards & (cards - 1)));
+                putVarint(out, stacks[seat]);
+                putVarint(out, won[seat]);
+            }
+        }
+        for (int round = 0; round < ROUNDS; round++) {
+            putVarint(out, roundActions[round]);
+        }
+        out.put(actions.array(), 0, actions.position());
+
+        // Publish the record only once it is complete
+        int end = out.position();
+        out.putInt(start + LENGTH, end - start);
+        out.putLong(COUNT_OFFSET, ++records);
+        out.putLong(END_OFFSET, end);
+    }
+
+    /**
+     * Finishes the current segment and creates and maps the next one.
+     * @return false if the segment couldn't be created and the writer has stopped
+     */
+    private boolean startSegment() {
+        try {
+            finishSegment();
+            Files.createDirectories(directory);
+            while (true) {
+                Path path = directory.resolve(String.format("hands-%06d.hh", nextSegment++));
+                try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                        StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                    segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+                    break;
+                } catch (FileAlreadyExistsException e) {
+                    // Taken by an earlier session; try the next number
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Not writing hand history: " + e);
+            segment = null;
+            failed = true;
+            return false;
+        }
+        segment.put(header);
+        records = 0;
+        return true;
+    }
+
+    /**
+     * Flushes the current segment to disk.
+     */
+    private void finishSegment() {
+        if (segment != null) {
+            segment.force();
+            segment = null;
+        }
+    }
+
+    /**
+     * Flushes what has been written to disk. Close the subscription feeding the writer first.
+     */
+    @Override
+    public void close() {
+        finishSegment();
+    }
+
+    /**
+     * Writes an unsigned varint: seven bits a byte, lowest first, with the top bit set on
+     * every byte but the last.
+     * @param buffer the buffer to write to
+     * @param value the value, zero or more
+     */
+    static void putVarint(ByteBuffer buffer, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) (value & 0x7F | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+}
@@ -0,0 +1,469 @@
+package texasholdem.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Numbers hands that are the same up to a renaming of the suits, densely from zero (after
+ * Waugh's hand isomorphism).
+ *
+ * Which suit is which never matters in hold'em: AsKs on a 7h8h9d flop plays exactly like AcKc
+ * on 7d8d9h. An indexer is built for a list of rounds, each dealing some number of cards (two
+ * hole cards, then for example a three-card flop). Within one {@link Card.Suit}, the
+ * {@link Card.Rank}s each round dealt are numbered as combinations, giving the suit's own index
+ * among all suits with the same card counts. A hand's suits are then grouped by their card
+ * counts, each group's suit indexes are numbered as a multiset (so their order doesn't
+ * matter), and the groups are combined in mixed radix after an offset for the hand's card
+ * counts. The result is a number below {@link #size()} that every suit renaming of a hand
+ * shares, and {@link #unindex} turns it back into one of those hands, so tables can be plain
+ * arrays with no gaps and no keys.
+ *
+ * Indexing is a handful of bit operations and small table lookups, and allocates nothing.
+ */
+public final class HandIndexer {
+    /** Most rounds an indexer can have, so a suit's card counts fit in 16 bits */
+    private static final int MAX_ROUNDS = 4;
+
+    private static final int SUITS = Card.Suit.COUNT;
+    private static final int RANKS = Card.Rank.COUNT;
+    private static final int RANK_BITS = (1 << RANKS) - 1;
+
+    /** Binomial coefficients for ranks, n and k up to 13 */
+    private static final int[][] CHOOSE = new int[RANKS + 1][RANKS + 1];
+
+    static {
+        for (int n = 0; n <= RANKS; n++) {
+            CHOOSE[n][0] = 1;
+            for (int k = 1; k <= n; k++) {
+                CHOOSE[n][k] = CHOOSE[n - 1][k - 1] + (k < n ? CHOOSE[n - 1][k] : 0);
+            }
+        }
+    }
+
+    // The indexers are built after the binomial table they use
+    /** Indexer for the hole cards alone: the 169 starting hands */
+    public static final HandIndexer PREFLOP = new HandIndexer(2);
+
+    /** Indexer for the hole cards and the flop */
+    public static final HandIndexer FLOP = new HandIndexer(2, 3);
+
+    /** Indexer for the hole cards and a four-card board */
+    public static final HandIndexer TURN = new HandIndexer(2, 4);
+
+    /** Indexer for the hole cards and a five-card board */
+    public static final HandIndexer RIVER = new HandIndexer(2, 5);
+
+    /** Cards dealt in each round */
+    private final int[] cardsPerRound;
+
+    /** The suits' card counts of every configuration, packed and sorted */
+    private final long[] configurations;
+
+    /** Index of the first hand of each configuration, plus the total at the end */
+    private final long[] offsets;
+
+    /** The number of suits in each group of each configuration, largest card counts first */
+    private final int[][] groupSizes;
+
+    /** The number of possible suit indexes in each group of each configuration */
+    private final long[][] groupSuitIndexes;
+
+    /**
+     * Constructs an indexer.
+     * @param cardsPerRound the cards dealt in each round, for example 2 and 3 for the hole
+     *        cards and the flop
+     */
+    public HandIndexer(int... cardsPerRound) {
+        if (cardsPerRound.length == 0 || cardsPerRound.length > MAX_ROUNDS) {
+            throw new IllegalArgumentException("Indexers have 1 to " + MAX_ROUNDS + " rounds");
+        }
+        int total = 0;
+        for (int cards : cardsPerRound) {
+            if (cards <= 0) {
+                throw new IllegalArgumentException("Every round must deal a card");
+            }
+            total += cards;
+        }
+        if (total > Card.COUNT) {
+            throw new IllegalArgumentException("More cards than in a deck");
+        }
+        this.cardsPerRound = cardsPerRound.clone();
+
+        // Every way to spread each round's cards over the suits, with the suits sorted
+        List<Long> found = new ArrayList<>();
+        spread(0, 0, new int[SUITS], found);
+        configurations = found.stream().mapToLong(Long::longValue).distinct().sorted().toArray();
+
+        offsets = new long[configurations.length + 1];
+        groupSizes = new int[configurations.length][];
+        groupSuitIndexes = new long[configurations.length][];
+        for (int c = 0; c < configurations.length; c++) {
+            int[] codes = unpack(configurations[c]);
+            int groups = 0;
+            int[] sizes = new int[SUITS];
+            long[] suitIndexes = new long[SUITS];
+            long hands = 1;
+            for (int s = 0; s < SUITS; s++) {
+                if (s == 0 || codes[s] != codes[s - 1]) {
+                    suitIndexes[groups++] = suitIndexCount(codes[s]);
+                }
+                sizes[groups - 1]++;
+            }
+            for (int g = 0; g < groups; g++) {
+                hands *= multisetCount(suitIndexes[g], sizes[g]);
+            }
+            groupSizes[c] = Arrays.copyOf(sizes, groups);
+            groupSuitIndexes[c] = Arrays.copyOf(suitIndexes, groups);
+            offsets[c + 1] = offsets[c] + hands;
+        }
+    }
+
+    /**
+     * Gets the number of rounds.
+     * @return the number of card masks a hand is made of
+     */
+    public int getRounds() {
+        return cardsPerRound.length;
+    }
+
+    /**
+     * Gets the number of cards dealt in a round.
+     * @param round the round, from 0
+     * @return the number of cards
+     */
+    public int getCards(int round) {
+        return cardsPerRound[round];
+    }
+
+    /**
+     * Gets the number of hands that differ by more than their suits.
+     * @return one more than the largest index
+     */
+    public long size() {
+        return offsets[configurations.length];
+    }
+
+    /**
+     * Gets the index of a hand with one round, such as hole cards alone.
+     * @param cards the cards
+     * @return the index, shared by every suit renaming of the hand
+     */
+    public long index(long cards) {
+        if (cardsPerRound.length != 1) {
+            throw new IllegalArgumentException("This indexer has " + cardsPerRound.length + " rounds");
+        }
+        return index(cards, 0L, 0L, 0L);
+    }
+
+    /**
+     * Gets the index of a hand with two rounds, such as hole cards and a board.
+     * @param first the cards of the first round
+     * @param second the cards of the second round
+     * @return the index, shared by every suit renaming of the hand
+     */
+    public long index(long first, long second) {
+        if (cardsPerRound.length != 2) {
+            throw new IllegalArgumentException("This indexer has " + cardsPerRound.length + " rounds");
+        }
+        return index(first, second, 0L, 0L);
+    }
+
+    /**
+     * Gets the index of a hand.
+     * @param rounds the cards of each round
+     * @return the index, shared by every suit renaming of the hand
+     */
+    public long index(long[] rounds) {
+        if (rounds.length != cardsPerRound.length) {
+            throw new IllegalArgumentException("This indexer has " + cardsPerRound.length + " rounds");
+        }
+        return index(rounds[0], rounds.length > 1 ? rounds[1] : 0L, rounds.length > 2 ? rounds[2] : 0L,
+            rounds.length > 3 ? rounds[3] : 0L);
+    }
+
+    /**
+     * Gets the index of a hand from lists of cards.
+     * @param holeCards the hole cards
+     * @param board the community cards, which must all be in the second round
+     * @return the index, shared by every suit renaming of the hand
+     */
+    public long index(List<Card> holeCards, List<Card> board) {
+        return index(CardMask.of(holeCards), CardMask.of(board));
+    }
+
+    /**
+     * Gets the index of a hand of up to four rounds; unused rounds are empty.
+     */
+    private long index(long round0, long round1, long round2, long round3) {
+        // Each suit's sort key: its card counts (largest first), then its suit index (smallest first)
+        long k0 = suitKey(round0, round1, round2, round3, 0);
+        long k1 = suitKey(round0, round1, round2, round3, 1);
+        long k2 = suitKey(round0, round1, round2, round3, 2);
+        long k3 = suitKey(round0, round1, round2, round3, 3);
+        long t;
+        if (k0 < k1) { t = k0; k0 = k1; k1 = t; }
+        if (k2 < k3) { t = k2; k2 = k3; k3 = t; }
+        if (k0 < k2) { t = k0; k0 = k2; k2 = t; }
+        if (k1 < k3) { t = k1; k1 = k3; k3 = t; }
+        if (k1 < k2) { t = k1; k1 = k2; k2 = t; }
+
+        long packed = (k0 >>> 40) << 48 | (k1 >>> 40) << 32 | (k2 >>> 40) << 16 | (k3 >>> 40);
+        int configuration = Arrays.binarySearch(configurations, packed);
+        if (configuration < 0) {
+            throw new IllegalArgumentException("Wrong number of cards for this indexer");
+        }
+
+        int[] sizes = groupSizes[configuration];
+        long[] suitIndexes = groupSuitIndexes[configuration];
+        long index = 0;
+        int suit = 0;
+        for (int g = 0; g < sizes.length; g++) {
+            // The group's suit indexes are in ascending order, so number them as a multiset
+            long multiset = 0;
+            for (int i = 1; i <= sizes[g]; i++) {
+                int position = suit++;
+                long key = position == 0 ? k0 : position == 1 ? k1 : position == 2 ? k2 : k3;
+                multiset += choose(suitIndexOf(key) + i - 1, i);
+            }
+            index = index * multisetCount(suitIndexes[g], sizes[g]) + multiset;
+        }
+        return offsets[configuration] + index;
+    }
+
+    /**
+     * Turns an index back into one of its hands.
+     * @param index an index below {@link #size()}
+     * @param rounds receives the cards of each round
+     */
+    public void unindex(long index, long[] rounds) {
+        if (index < 0 || index >= size()) {
+            throw new IllegalArgumentException("Index out of range: " + index);
+        }
+        int configuration = Arrays.binarySearch(offsets, index);
+        if (configuration < 0) {
+            configuration = -configuration - 2;
+        }
+        int[] codes = unpack(configurations[configuration]);
+        int[] sizes = groupSizes[configuration];
+        long[] suitIndexes = groupSuitIndexes[configuration];
+        Arrays.fill(rounds, 0, cardsPerRound.length, 0L);
+
+        // The last group is the lowest digit
+        long rest = index - offsets[configuration];
+        long[] digits = new long[sizes.length];
+        for (int g = sizes.length - 1; g >= 0; g--) {
+            long count = multisetCount(suitIndexes[g], sizes[g]);
+            digits[g] = rest % count;
+            rest /= count;
+        }
+
+        int suit = 0;
+        for (int g = 0; g < sizes.length; g++) {
+            long multiset = digits[g];
+            int first = suit;
+            suit += sizes[g];
+            for (int i = sizes[g]; i >= 1; i--) {
+                long y = largestBelow(multiset, i, suitIndexes[g] + i - 2);
+                multiset -= choose(y, i);
+                addSuit(codes[first + i - 1], y - (i - 1), first + i - 1, rounds);
+            }
+        }
+    }
+
+    /**
+     * Gets a suit's sort key: its card counts above the complement of its suit index.
+     */
+    private long suitKey(long round0, long round1, long round2, long round3, int suit) {
+        int shift = suit * CardMask.LANE_WIDTH;
+        int ranks0 = (int) (round0 >>> shift) & RANK_BITS;
+        int ranks1 = (int) (round1 >>> shift) & RANK_BITS;
+        int ranks2 = (int) (round2 >>> shift) & RANK_BITS;
+        int ranks3 = (int) (round3 >>> shift) & RANK_BITS;
+        int rounds = cardsPerRound.length;
+
+        int code = 0;
+        long index = 0;
+        long multiplier = 1;
+        int used = 0;
+        for (int r = 0; r < rounds; r++) {
+            int ranks = r == 0 ? ranks0 : r == 1 ? ranks1 : r == 2 ? ranks2 : ranks3;
+            int count = Integer.bitCount(ranks);
+            code = code << 4 | count;
+            index += multiplier * colex(ranks, used);
+            multiplier *= CHOOSE[RANKS - Integer.bitCount(used)][count];
+            used |= ranks;
+        }
+        code <<= 4 * (MAX_ROUNDS - rounds);
+        return (long) code << 40 | ((1L << 40) - 1 - index);
+    }
+
+    /**
+     * Gets the suit index from a sort key.
+     */
+    private static long suitIndexOf(long key) {
+        return (1L << 40) - 1 - (key & ((1L << 40) - 1));
+    }
+
+    /**
+     * Numbers a set of ranks as a combination of the ranks not yet used in the suit.
+     */
+    private static int colex(int ranks, int used) {
+        int index = 0;
+        int i = 1;
+        for (int bits = ranks; bits != 0; bits &= bits - 1, i++) {
+            int rank = Integer.numberOfTrailingZeros(bits);
+            int position = rank - Integer.bitCount(used & ((1 << rank) - 1));
+            index += CHOOSE[position][i];
+        }
+        return index;
+    }
+
+    /**
+     * Deals a suit its cards from its suit index.
+     */
+    private void addSuit(int code, long index, int suit, long[] rounds) {
+        int used = 0;
+        int shift = suit * CardMask.LANE_WIDTH;
+        for (int r = 0; r < cardsPerRound.length; r++) {
+            int count = code >>> 4 * (MAX_ROUNDS - 1 - r) & 0xF;
+            int free = RANKS - Integer.bitCount(used);
+            int space = CHOOSE[free][count];
+            int combination = (int) (index % space);
+            index /= space;
+
+            int ranks = 0;
+            for (int i = count; i >= 1; i--) {
+                int position = i - 1;
+                while (position + 1 < free && CHOOSE[position + 1][i] <= combination) {
+                    position++;
+                }
+                combination -= CHOOSE[position][i];
+                ranks |= 1 << nthFree(used, position);
+            }
+            rounds[r] |= (long) ranks << shift;
+            used |= ranks;
+        }
+    }
+
+    /**
+     * Gets the rank at a position among the ranks not yet used.
+     */
+    private static int nthFree(int used, int position) {
+        for (int rank = 0; ; rank++) {
+            if ((used & (1 << rank)) == 0 && position-- == 0) {
+                return rank;
+            }
+        }
+    }
+
+    /**
+     * Finds every way to spread the rounds' cards over the suits.
+     */
+    private void spread(int round, int suit, int[] codes, List<Long> found) {
+        if (round == cardsPerRound.length) {
+            found.add(pack(codes));
+            return;
+        }
+        int dealt = 0;
+        for (int s = 0; s < suit; s++) {
+            dealt += codes[s] >>> 4 * (MAX_ROUNDS - 1 - round) & 0xF;
+        }
+        int left = cardsPerRound[round] - dealt;
+        if (suit == SUITS - 1) {
+            if (placed(codes[suit]) + left <= RANKS) {
+                codes[suit] |= left << 4 * (MAX_ROUNDS - 1 - round);
+                spread(round + 1, 0, codes, found);
+                codes[suit] &= ~(0xF << 4 * (MAX_ROUNDS - 1 - round));
+            }
+            return;
+        }
+        for (int count = 0; count <= left && placed(codes[suit]) + count <= RANKS; count++) {
+            codes[suit] |= count << 4 * (MAX_ROUNDS - 1 - round);
+            spread(round, suit + 1, codes, found);
+            codes[suit] &= ~(0xF << 4 * (MAX_ROUNDS - 1 - round));
+        }
+    }
+
+    /**
+     * Gets the number of cards a suit's counts add up to.
+     */
+    private static int placed(int code) {
+        int total = 0;
+        for (; code != 0; code >>>= 4) {
+            total += code & 0xF;
+        }
+        return total;
+    }
+
+    /**
+     * Packs the suits' card counts, largest first.
+     */
+    private static long pack(int[] codes) {
+        int[] sorted = codes.clone();
+        Arrays.sort(sorted);
+        return (long) sorted[3] << 48 | (long) sorted[2] << 32 | (long) sorted[1] << 16 | sorted[0];
+    }
+
+    /**
+     * Unpacks the suits' card counts, largest first.
+     */
+    private static int[] unpack(long packed) {
+        return new int[] {
+            (int) (packed >>> 48) & 0xFFFF, (int) (packed >>> 32) & 0xFFFF,
+            (int) (packed >>> 16) & 0xFFFF, (int) packed & 0xFFFF
+        };
+    }
+
+    /**
+     * Gets the number of suit indexes for a suit's card counts.
+     */
+    private long suitIndexCount(int code) {
+        long count = 1;
+        int used = 0;
+        for (int r = 0; r < cardsPerRound.length; r++) {
+            int cards = code >>> 4 * (MAX_ROUNDS - 1 - r) & 0xF;
+            count *= CHOOSE[RANKS - used][cards];
+            used += cards;
+        }
+        return count;
+    }
+
+    /**
+     * Gets the number of multisets of a size drawn from a number of values.
+     */
+    private static long multisetCount(long values, int size) {
+        return choose(values + size - 1, size);
+    }
+
+    /**
+     * Gets a binomial coefficient with a small k.
+     */
+    private static long choose(long n, int k) {
+        if (n < k) {
+            return 0;
+        }
+        long result = 1;
+        for (int i = 1; i <= k; i++) {
+            result = result * (n - k + i) / i;
+        }
+        return result;
+    }
+
+    /**
+     * Finds the largest y up to a bound with choose(y, k) at most a value.
+     */
+    private static long largestBelow(long value, int k, long bound) {
+        long low = k - 1;
+        long high = bound;
+        while (low < high) {
+            long middle = (low + high + 1) >>> 1;
+            if (choose(middle, k) <= value) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+}
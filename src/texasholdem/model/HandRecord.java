@@ -0,0 +1,390 @@
+package texasholdem.model;
+
+import java.nio.ByteBuffer;
+
+/**
+ * One hand from a hand history, read in place from the segment it is stored in.
+ *
+ * A record is a view: {@link HandHistoryReader#next(HandRecord)} points it at the next hand
+ * in a mapped segment and the getters read the bytes there, so scanning a history copies and
+ * allocates nothing. The fixed fields (hand number, pot, board, which seats were dealt in,
+ * showed down and won) are read straight from their offsets; the seats' cards and stacks and
+ * the actions are varint-encoded and are only decoded, once per record, when first asked for.
+ * The layout is described in {@link HandHistoryWriter}.
+ */
+public final class HandRecord {
+    private static final Action.Type[] ACTION_TYPES = Action.Type.values();
+
+    private ByteBuffer buffer;
+    private int offset;
+    private int seats;
+
+    /** Where each seat's entry starts, once the seats have been decoded */
+    private final int[] seatOffsets = new int[Game.MAX_PLAYERS];
+    private boolean seatsDecoded;
+
+    /** The decoded actions in order, once the actions have been decoded */
+    private final int[] roundCounts = new int[HandHistoryWriter.ROUNDS];
+    private byte[] actionCodes = new byte[64];
+    private int[] actionAmounts = new int[64];
+    private int actionCount = -1;
+
+    /**
+     * Constructs a record that points at nothing yet, to read hands into.
+     */
+    public HandRecord() {
+    }
+
+    /**
+     * Points the record at a hand.
+     */
+    void wrap(ByteBuffer buffer, int offset, int seats) {
+        this.buffer = buffer;
+        this.offset = offset;
+        this.seats = seats;
+        this.seatsDecoded = false;
+        this.actionCount = -1;
+    }
+
+    /**
+     * Gets the size of the record.
+     * @return the length in bytes
+     */
+    public int getLength() {
+        return buffer.getInt(offset + HandHistoryWriter.LENGTH);
+    }
+
+    /**
+     * Gets the number of the hand in its game.
+     * @return the hand number
+     */
+    public long getHandNumber() {
+        return buffer.getLong(offset + HandHistoryWriter.HAND_NUMBER);
+    }
+
+    /**
+     * Gets the seed the hand's deck was shuffled from.
+     * @return the seed
+     */
+    public long getSeed() {
+        return buffer.getLong(offset + HandHistoryWriter.SEED);
+    }
+
+    /**
+     * Gets the big blind.
+     * @return the big blind
+     */
+    public int getBigBlind() {
+        return buffer.getInt(offset + HandHistoryWriter.BIG_BLIND);
+    }
+
+    /**
+     * Gets the pot: all the chips won in the hand.
+     * @return the pot
+     */
+    public int getPot() {
+        return buffer.getInt(offset + HandHistoryWriter.POT);
+    }
+
+    /**
+     * Gets the dealer's seat.
+     * @return the seat
+     */
+    public int getDealer() {
+        return buffer.get(offset + HandHistoryWriter.DEALER);
+    }
+
+    /**
+     * Gets the number of seats at the table.
+     * @return the seat count
+     */
+    public int getSeatCount() {
+        return seats;
+    }
+
+    /**
+     * Gets the number of players dealt in.
+     * @return the player count
+     */
+    public int getPlayerCount() {
+        return Integer.bitCount(dealtMask());
+    }
+
+    /**
+     * Checks whether a seat was dealt in.
+     * @param seat the seat
+     * @return true if the seat had cards
+     */
+    public boolean isDealt(int seat) {
+        return (dealtMask() & 1 << seat) != 0;
+    }
+
+    /**
+     * Checks whether a seat showed its cards down.
+     * @param seat the seat
+     * @return true if the seat went to showdown
+     */
+    public boolean showedDown(int seat) {
+        return (buffer.getShort(offset + HandHistoryWriter.SHOWDOWN) & 1 << seat) != 0;
+    }
+
+    /**
+     * Checks whether a seat won chips.
+     * @param seat the seat
+     * @return true if the seat won all or part of the pot
+     */
+    public boolean isWinner(int seat) {
+        return (buffer.getShort(offset + HandHistoryWriter.WINNERS) & 1 << seat) != 0;
+    }
+
+    /**
+     * Gets the last betting round the hand reached.
+     * @return SHOWDOWN if hands were shown down, otherwise the street the hand ended on
+     */
+    public Game.BettingRound getLastRound() {
+        if (buffer.getShort(offset + HandHistoryWriter.SHOWDOWN) != 0) {
+            return Game.BettingRound.SHOWDOWN;
+        }
+        int boardCount = getBoardCount();
+        return boardCount == 0 ? Game.BettingRound.PREFLOP : Game.BettingRound.values()[boardCount - 2];
+    }
+
+    /**
+     * Gets the number of community cards dealt.
+     * @return 0, 3, 4 or 5
+     */
+    public int getBoardCount() {
+        return buffer.get(offset + HandHistoryWriter.BOARD_COUNT);
+    }
+
+    /**
+     * Gets a community card in the order they were dealt.
+     * @param index 0 to {@link #getBoardCount()} - 1
+     * @return the card index
+     */
+    public int getBoardCard(int index) {
+        return buffer.get(offset + HandHistoryWriter.BOARD + index);
+    }
+
+    /**
+     * Gets the community cards.
+     * @return the card mask (see {@link CardMask})
+     */
+    public long getBoard() {
+        long board = 0;
+        for (int i = getBoardCount() - 1; i >= 0; i--) {
+            board |= CardMask.bit(getBoardCard(i));
+        }
+        return board;
+    }
+
+    /**
+     * Gets a seat's hole cards.
+     * @param seat the seat
+     * @return the card mask, or 0 if the seat wasn't dealt in
+     */
+    public long getHoleCards(int seat) {
+        if (!isDealt(seat)) {
+            return 0L;
+        }
+        int at = seatOffset(seat);
+        return CardMask.bit(buffer.get(at)) | CardMask.bit(buffer.get(at + 1));
+    }
+
+    /**
+     * Gets a seat's stack before the blinds.
+     * @param seat the seat
+     * @return the stack, or 0 if the seat wasn't dealt in
+     */
+    public int getStack(int seat) {
+        return isDealt(seat) ? getVarint(buffer, seatOffset(seat) + 2) : 0;
+    }
+
+    /**
+     * Gets the chips a seat won.
+     * @param seat the seat
+     * @return the chips won, or 0
+     */
+    public int getWinnings(int seat) {
+        if (!isDealt(seat)) {
+            return 0;
+        }
+        int at = seatOffset(seat) + 2;
+        return getVarint(buffer, skipVarint(buffer, at));
+    }
+
+    /**
+     * Gets a seat's position: how many seats dealt in it sits after the button.
+     * @param seat the seat
+     * @return 0 for the button, 1 for the next seat dealt in and so on, or -1 if the seat wasn't dealt in
+     */
+    public int getPosition(int seat) {
+        if (!isDealt(seat)) {
+            return -1;
+        }
+        int dealer = getDealer();
+        int dealt = dealtMask();
+        int position = 0;
+        for (int s = dealer; s != seat; s = (s + 1) % seats) {
+            if ((dealt & 1 << s) != 0) {
+                position++;
+            }
+        }
+        return position;
+    }
+
+    /**
+     * Gets the category of a seat's best hand with the community cards that were dealt.
+     * @param seat the seat
+     * @return the hand rank, or null if the seat wasn't dealt in
+     */
+    public HandEvaluator.HandRank getHandRank(int seat) {
+        long hole = getHoleCards(seat);
+        return hole == 0L ? null : HandEvaluator.rankOf(HandEvaluator.evaluate(hole | getBoard()));
+    }
+
+    /**
+     * Gets the number of actions taken in the hand.
+     * @return the action count, not counting the blinds
+     */
+    public int getActionCount() {
+        decodeActions();
+        return actionCount;
+    }
+
+    /**
+     * Gets the number of actions taken in a betting round.
+     * @param round PREFLOP to RIVER
+     * @return the action count
+     */
+    public int getActionCount(Game.BettingRound round) {
+        decodeActions();
+        return round.ordinal() < roundCounts.length ? roundCounts[round.ordinal()] : 0;
+    }
+
+    /**
+     * Gets the seat that took an action.
+     * @param index the action's index in the hand
+     * @return the seat
+     */
+    public int getActionSeat(int index) {
+        decodeActions();
+        return actionCodes[index] & 0x0F;
+    }
+
+    /**
+     * Gets what was done in an action.
+     * @param index the action's index in the hand
+     * @return the action type
+     */
+    public Action.Type getActionType(int index) {
+        decodeActions();
+        return ACTION_TYPES[(actionCodes[index] & 0xF0) >>> 4];
+    }
+
+    /**
+     * Gets the chips put in by an action.
+     * @param index the action's index in the hand
+     * @return the amount, 0 for folds and checks
+     */
+    public int getActionAmount(int index) {
+        decodeActions();
+        return actionAmounts[index];
+    }
+
+    /**
+     * Gets the betting round an action was taken in.
+     * @param index the action's index in the hand
+     * @return PREFLOP to RIVER
+     */
+    public Game.BettingRound getActionRound(int index) {
+        decodeActions();
+        int round = 0;
+        int end = roundCounts[0];
+        while (index >= end) {
+            end += roundCounts[++round];
+        }
+        return Game.BettingRound.values()[round];
+    }
+
+    private int dealtMask() {
+        return buffer.getShort(offset + HandHistoryWriter.DEALT);
+    }
+
+    /**
+     * Gets where a dealt seat's entry starts, finding every seat's entry the first time.
+     */
+    private int seatOffset(int seat) {
+        if (!seatsDecoded) {
+            int dealt = dealtMask();
+            int at = offset + HandHistoryWriter.RECORD_HEADER_BYTES;
+            for (int s = 0; s < seats; s++) {
+                if ((dealt & 1 << s) != 0) {
+                    seatOffsets[s] = at;
+                    at = skipVarint(buffer, skipVarint(buffer, at + 2));
+                }
+            }
+            seatsDecoded = true;
+        }
+        return seatOffsets[seat];
+    }
+
+    /**
+     * Decodes the actions the first time they are asked for.
+     */
+    private void decodeActions() {
+        if (actionCount >= 0) {
+            return;
+        }
+        int at = offset + HandHistoryWriter.RECORD_HEADER_BYTES;
+        for (int s = Integer.bitCount(dealtMask()); s > 0; s--) {
+            at = skipVarint(buffer, skipVarint(buffer, at + 2));
+        }
+        int count = 0;
+        for (int round = 0; round < roundCounts.length; round++) {
+            roundCounts[round] = getVarint(buffer, at);
+            at = skipVarint(buffer, at);
+            count += roundCounts[round];
+        }
+        if (count > actionCodes.length) {
+            actionCodes = new byte[Math.max(count, actionCodes.length * 2)];
+            actionAmounts = new int[actionCodes.length];
+        }
+        for (int i = 0; i < count; i++) {
+            byte code = buffer.get(at++);
+            actionCodes[i] = code;
+            Action.Type type = ACTION_TYPES[(code & 0xF0) >>> 4];
+            if (type == Action.Type.CALL || type == Action.Type.BET || type == Action.Type.RAISE) {
+                actionAmounts[i] = getVarint(buffer, at);
+                at = skipVarint(buffer, at);
+            } else {
+                actionAmounts[i] = 0;
+            }
+        }
+        actionCount = count;
+    }
+
+    /**
+     * Reads an unsigned varint written by {@link HandHistoryWriter#putVarint(ByteBuffer, int)}.
+     */
+    static int getVarint(ByteBuffer buffer, int at) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = buffer.get(at++);
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    /**
+     * Gets the offset just past a varint.
+     */
+    private static int skipVarint(ByteBuffer buffer, int at) {
+        while (buffer.get(at++) < 0) {
+            // The top bit is set on every byte but the last
+        }
+        return at;
+    }
+}
@@ -0,0 +1,214 @@
+package texasholdem.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Plays a recorded hand again, action by action, on a real {@link Game}.
+ *
+ * A hand record holds everything the hand started from: the stacks, the dealer, the big
+ * blind and the seed the deck was shuffled from. The replayer seats players with those stacks
+ * and deals the hand from that seed, so the cards come out exactly as they did, then drives the
+ * game with the recorded actions through {@link Game#fold()}, {@link Game#check()},
+ * {@link Game#call()}, {@link Game#bet(int)} and {@link Game#raise(int)}; the game applies its
+ * own rules, and an action the game doesn't accept, or that puts in different chips than it
+ * did, means the record doesn't belong to these rules and stops the replay.
+ *
+ * Every {@link #CHECKPOINT_INTERVAL} actions the replayer keeps a {@link GameState} snapshot,
+ * so {@link #seek(int)} can jump to any action from the nearest checkpoint before it instead
+ * of from the start of the hand; restoring a checkpoint deals the cards again from the seed,
+ * which keeps the deck in step. Each record starts from its own stacks, so the hands of a
+ * history are checkpoints of the whole session in the same way: any one of them replays
+ * without replaying the hands before it.
+ */
+public final class HandReplayer {
+    /** Number of actions between checkpoints */
+    public static final int CHECKPOINT_INTERVAL = 4;
+
+    private final List<Player> players = new ArrayList<>();
+    private Game game;
+    private long handNumber;
+    private long seed;
+
+    /** The recorded actions, copied out of the record */
+    private int actionCount;
+    private int[] seats = new int[64];
+    private Action.Type[] types = new Action.Type[64];
+    private int[] amounts = new int[64];
+
+    /** The game's own report of each action, to check it against the record */
+    private GameEventStream.Cursor events;
+    private final GameEvent event = new GameEvent();
+
+    /** The snapshot before every CHECKPOINT_INTERVAL-th action, as far as the replay has got */
+    private final List<GameState> checkpoints = new ArrayList<>();
+
+    /** The number of actions applied so far */
+    private int position;
+
+    /**
+     * Constructs a replayer for the hands of one table. The same game is used for every hand
+     * loaded, so replaying a whole history costs little more than the actions themselves.
+     * @param playerNames the name of the player in each seat
+     */
+    public HandReplayer(String[] playerNames) {
+        for (String name : playerNames) {
+            players.add(new Player(name, 0));
+        }
+    }
+
+    /**
+     * Constructs a replayer and sets up a recorded hand at its first action, after the blinds.
+     * @param record the hand
+     * @param playerNames the name of the player in each seat
+     */
+    public HandReplayer(HandRecord record, String[] playerNames) {
+        this(playerNames);
+        load(record);
+    }
+
+    /**
+     * Sets up a recorded hand at its first action, after the blinds.
+     * @param record the hand, from a table with as many seats as this replayer
+     */
+    public void load(HandRecord record) {
+        if (record.getSeatCount() != players.size()) {
+            throw new IllegalArgumentException("Hand is from a table with " + record.getSeatCount() + " seats");
+        }
+        for (int seat = 0; seat < players.size(); seat++) {
+            Player player = players.get(seat);
+            player.removeChips(player.getChips());
+            player.addChips(record.getStack(seat));
+        }
+        if (game == null || game.getMinBet() != record.getBigBlind()) {
+            game = new Game(players, record.getBigBlind(), record.getSeed());
+            game.setAutoDeal(false);
+            events = game.getEvents().cursor();
+        }
+        handNumber = record.getHandNumber();
+        seed = record.getSeed();
+
+        actionCount = record.getActionCount();
+        if (actionCount > types.length) {
+            seats = new int[actionCount];
+            types = new Action.Type[actionCount];
+            amounts = new int[actionCount];
+        }
+        for (int i = 0; i < actionCount; i++) {
+            seats[i] = record.getActionSeat(i);
+            types[i] = record.getActionType(i);
+            amounts[i] = record.getActionAmount(i);
+        }
+
+        game.startHand(handNumber, record.getDealer(), seed);
+        while (events.poll(event)) {
+            // Skip the deal and the blinds
+        }
+        position = 0;
+        checkpoints.clear();
+        checkpoints.add(game.getState());
+    }
+
+    /**
+     * Applies the next recorded action.
+     * @return false if every action has been applied
+     * @throws IllegalStateException if the game doesn't take the action as it was recorded
+     */
+    public boolean step() {
+        if (position >= actionCount) {
+            return false;
+        }
+        Player player = game.getCurrentPlayer();
+        Action.Type type = types[position];
+        int amount = amounts[position];
+        switch (type) {
+            case FOLD: game.fold(); break;
+            case CHECK: game.check(); break;
+            case CALL: game.call(); break;
+            case BET: game.bet(amount); break;
+            // A raise is recorded as the chips put in; the game takes the amount above the bet to match
+            case RAISE: game.raise(amount + player.getCurrentBet() - game.getMaxBet()); break;
+            default: break;
+        }
+
+        // The game reports what it made of the action the same way it did when the hand was played
+        boolean matched = false;
+        while (events.poll(event)) {
+            if (event.getType() == GameEvent.Type.ACTION) {
+                matched = event.getSeat() == seats[position] && event.getAction() == type && event.getAmount() == amount;
+            }
+        }
+        if (!matched) {
+            throw new IllegalStateException("Hand " + handNumber + " doesn't replay at action " + position);
+        }
+
+        position++;
+        if (position % CHECKPOINT_INTERVAL == 0 && checkpoints.size() == position / CHECKPOINT_INTERVAL) {
+            checkpoints.add(game.getState());
+        }
+        return true;
+    }
+
+    /**
+     * Moves to a point in the hand, from the nearest checkpoint at or before it if that is
+     * closer than where the replay is now.
+     * @param index the number of actions to have applied, from 0 (after the blinds) to
+     *              {@link #getActionCount()} (the end of the hand)
+     * @throws IllegalArgumentException if there is no such point in the hand
+     * @throws IllegalStateException if the game doesn't take an action as it was recorded
+     */
+    public void seek(int index) {
+        if (index < 0 || index > actionCount) {
+            throw new IllegalArgumentException("No action " + index + " in a hand of " + actionCount);
+        }
+        int checkpoint = Math.min(index / CHECKPOINT_INTERVAL, checkpoints.size() - 1);
+        if (index < position || checkpoint * CHECKPOINT_INTERVAL > position) {
+            game.restore(checkpoints.get(checkpoint), seed);
+            position = checkpoint * CHECKPOINT_INTERVAL;
+        }
+        while (position < index) {
+            step();
+        }
+    }
+
+    /**
+     * Gets the game the hand is replayed on. Acting on it directly leaves the replay out of
+     * step with the record.
+     * @return the game
+     */
+    public Game getGame() {
+        return game;
+    }
+
+    /**
+     * Gets a snapshot of the hand at the current point.
+     * @return the state
+     */
+    public GameState getState() {
+        return game.getState();
+    }
+
+    /**
+     * Gets the number of actions applied so far.
+     * @return the position, from 0 to {@link #getActionCount()}
+     */
+    public int getPosition() {
+        return position;
+    }
+
+    /**
+     * Gets the number of recorded actions.
+     * @return the action count
+     */
+    public int getActionCount() {
+        return actionCount;
+    }
+
+    /**
+     * Gets the number of the hand being replayed.
+     * @return the hand number
+     */
+    public long getHandNumber() {
+        return handNumber;
+    }
+}
@@ -0,0 +1,395 @@
+package texasholdem.model;
+
+/**
+ * A mutable copy of the betting in one hand, for search code to play forward many times.
+ *
+ * It starts from a {@link GameState} and follows the same betting rules as {@link Game}
+ * (minimum bet and raise of one big blind, all-ins, betting complete once everyone who can
+ * act has acted and matched the bet), but with a small fixed set of actions: fold, check or
+ * call, raise half the pot, raise the pot and all-in. Cards only matter at the end, so the
+ * hidden cards are filled in up front and the rest of the board is added at showdown.
+ * Nothing is allocated after construction, so one simulation can be reset and replayed
+ * millions of times.
+ */
+final class HandSimulation {
+    /** Fold; only offered when there is a bet to call */
+    static final int FOLD = 0;
+
+    /** Check, or call the current bet */
+    static final int CALL = 1;
+
+    /** Bet or raise half the pot (after calling) */
+    static final int HALF_POT = 2;
+
+    /** Bet or raise the size of the pot (after calling) */
+    static final int POT = 3;
+
+    /** Put in every chip */
+    static final int ALL_IN = 4;
+
+    /** Number of abstract actions */
+    static final int ACTIONS = 5;
+
+    private static final int SHOWDOWN = Game.BettingRound.SHOWDOWN.ordinal();
+
+    private final int[] stacks = new int[Game.MAX_PLAYERS];
+    private final int[] bets = new int[Game.MAX_PLAYERS];
+    private final int[] contributions = new int[Game.MAX_PLAYERS];
+    private final long[] holeCards = new long[Game.MAX_PLAYERS];
+    private final int[] strengths = new int[Game.MAX_PLAYERS];
+    private final int[] winnings = new int[Game.MAX_PLAYERS];
+    private final int[] seats = new int[Game.MAX_PLAYERS];
+
+    private int players;
+    private int round;
+    private int dealer;
+    private int current;
+    private int minBet;
+    private int maxBet;
+    private int pot;
+    private int folded;
+    private int acted;
+    private long board;
+    private boolean over;
+
+    /**
+     * Copies the betting state of a game.
+     * @param state the state to start from
+     */
+    void reset(GameState state) {
+        players = state.getPlayerCount();
+        for (int i = 0; i < players; i++) {
+            stacks[i] = state.getStack(i);
+            bets[i] = state.getBet(i);
+            contributions[i] = state.getContribution(i);
+            holeCards[i] = state.getHoleCards(i);
+        }
+        round = state.getRound().ordinal();
+        dealer = state.getDealerSeat();
+        current = state.getCurrentSeat();
+        minBet = state.getMinBet();
+        maxBet = state.getMaxBet();
+        pot = state.getPot();
+        folded = state.getFoldedSeats();
+        acted = state.getActedSeats();
+        board = state.getBoard();
+        over = round == SHOWDOWN || Integer.bitCount(folded) >= players - 1;
+    }
+
+    /**
+     * Copies the state of another simulation, for search code that branches.
+     * @param other the simulation to copy
+     */
+    void copyFrom(HandSimulation other) {
+        players = other.players;
+        System.arraycopy(other.stacks, 0, stacks, 0, players);
+        System.arraycopy(other.bets, 0, bets, 0, players);
+        System.arraycopy(other.contributions, 0, contributions, 0, players);
+        System.arraycopy(other.holeCards, 0, holeCards, 0, players);
+        round = other.round;
+        dealer = other.dealer;
+        current = other.current;
+        minBet = other.minBet;
+        maxBet = other.maxBet;
+        pot = other.pot;
+        folded = other.folded;
+        acted = other.acted;
+        board = other.board;
+        over = other.over;
+    }
+
+    /**
+     * Sets a player's hole cards, for example a guess at an opponent's hand.
+     * @param seat the player's seat
+     * @param cards the hole card mask
+     */
+    void setHoleCards(int seat, long cards) {
+        holeCards[seat] = cards;
+    }
+
+    /**
+     * Adds the community cards still to come.
+     * @param cards the card mask of the rest of the board
+     */
+    void completeBoard(long cards) {
+        board |= cards;
+    }
+
+    /**
+     * Checks whether the hand is over, either because everyone else folded or because the
+     * betting on the river is complete.
+     * @return true if no one has to act
+     */
+    boolean isOver() {
+        return over;
+    }
+
+    /**
+     * Gets the seat of the player whose turn it is.
+     * @return the current seat
+     */
+    int getCurrentSeat() {
+        return current;
+    }
+
+    /**
+     * Gets the number of seats.
+     * @return the number of players
+     */
+    int getPlayerCount() {
+        return players;
+    }
+
+    /**
+     * Gets the chips in the pot.
+     * @return the pot
+     */
+    int getPot() {
+        return pot;
+    }
+
+    /**
+     * Gets the betting round, as an ordinal of {@link Game.BettingRound}.
+     * @return the round
+     */
+    int getRound() {
+        return round;
+    }
+
+    /**
+     * Gets the seat of the dealer.
+     * @return the dealer's seat
+     */
+    int getDealerSeat() {
+        return dealer;
+    }
+
+    /**
+     * Gets the amount the current player has to put in to call, capped at their stack.
+     * @return the amount to call
+     */
+    int getAmountToCall() {
+        return Math.min(maxBet - bets[current], stacks[current]);
+    }
+
+    /**
+     * Gets the current player's effective stack: the most they can lose, which is capped by
+     * the biggest stack among their opponents still in the hand.
+     * @return the effective stack
+     */
+    int getEffectiveStack() {
+        int opponents = 0;
+        for (int i = 0; i < players; i++) {
+            if (i != current && (folded & (1 << i)) == 0) {
+                opponents = Math.max(opponents, stacks[i] + bets[i]);
+            }
+        }
+        return Math.max(0, Math.min(stacks[current], opponents - bets[current]));
+    }
+
+    /**
+     * Turns an abstract action for the current player into the game's action.
+     * @param action one of the legal actions
+     * @return the matching action
+     */
+    Action toAction(int action) {
+        switch (action) {
+            case FOLD:
+                return Action.FOLD;
+            case CALL:
+                return bets[current] < maxBet ? Action.CALL : Action.CHECK;
+            default:
+                int target = raiseTarget(action);
+                return maxBet == 0 ? Action.bet(target) : Action.raise(target - maxBet);
+        }
+    }
+
+    /**
+     * Gets the actions the current player may take. Raises are only offered when the player
+     * has chips beyond the call and someone else could still call them, and sizes that come
+     * to the same amount are only offered once.
+     * @return the legal actions, one bit per action
+     */
+    int legalActions() {
+        int toCall = maxBet - bets[current];
+        int legal = 1 << CALL;
+        if (toCall > 0) {
+            legal |= 1 << FOLD;
+        }
+        if (stacks[current] > toCall && canAnyoneElseAct()) {
+            int allIn = bets[current] + stacks[current];
+            int half = raiseTarget(HALF_POT);
+            int full = raiseTarget(POT);
+            legal |= 1 << ALL_IN;
+            if (half < allIn) {
+                legal |= 1 << HALF_POT;
+            }
+            if (full > half && full < allIn) {
+                legal |= 1 << POT;
+            }
+        }
+        return legal;
+    }
+
+    /**
+     * Gets the total the current player's bet comes to after a raise.
+     * @param action HALF_POT, POT or ALL_IN
+     * @return the player's bet for the round after the raise
+     */
+    int raiseTarget(int action) {
+        int allIn = bets[current] + stacks[current];
+        int toCall = maxBet - bets[current];
+        int size;
+        switch (action) {
+            case HALF_POT:
+                size = (pot + toCall) / 2;
+                break;
+            case POT:
+                size = pot + toCall;
+                break;
+            default:
+                return allIn;
+        }
+        return Math.min(maxBet + Math.max(minBet, size), allIn);
+    }
+
+    /**
+     * Plays an action for the current player.
+     * @param action one of the legal actions
+     */
+    void apply(int action) {
+        int bit = 1 << current;
+        switch (action) {
+            case FOLD:
+                folded |= bit;
+                acted |= bit;
+                if (Integer.bitCount(folded) == players - 1) {
+                    over = true;
+                    return;
+                }
+                break;
+            case CALL:
+                put(current, maxBet - bets[current]);
+                acted |= bit;
+                break;
+            default:
+                put(current, raiseTarget(action) - bets[current]);
+                maxBet = Math.max(maxBet, bets[current]);
+                // Everyone else has to act again
+                acted = bit;
+                break;
+        }
+
+        if (isBettingComplete()) {
+            advance();
+        } else {
+            current = nextSeat(current);
+        }
+    }
+
+    /**
+     * Works out each player's result once the hand is over.
+     * @param results receives each seat's chips won minus chips put in this hand
+     */
+    void results(double[] results) {
+        if (Integer.bitCount(folded) == players - 1) {
+            for (int i = 0; i < players; i++) {
+                results[i] = ((folded & (1 << i)) == 0 ? pot : 0) - contributions[i];
+            }
+            return;
+        }
+        for (int i = 0; i < players; i++) {
+            if ((folded & (1 << i)) == 0) {
+                strengths[i] = HandEvaluator.evaluate(holeCards[i] | board);
+            }
+        }
+        SidePots.settle(players, dealer, contributions, strengths, folded, seats, winnings);
+        for (int i = 0; i < players; i++) {
+            results[i] = winnings[i] - contributions[i];
+        }
+    }
+
+    /**
+     * Moves chips from a player to the pot, capped at the player's stack.
+     */
+    private void put(int seat, int amount) {
+        amount = Math.min(amount, stacks[seat]);
+        stacks[seat] -= amount;
+        bets[seat] += amount;
+        contributions[seat] += amount;
+        pot += amount;
+    }
+
+    /**
+     * Checks whether a player other than the current one is still in with chips.
+     */
+    private boolean canAnyoneElseAct() {
+        for (int i = 0; i < players; i++) {
+            if (i != current && (folded & (1 << i)) == 0 && stacks[i] > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Same rule as the game: every player who can act has acted and matched the bet, or at
+     * most one player can act and has matched it.
+     */
+    private boolean isBettingComplete() {
+        int canAct = 0;
+        boolean allSettled = true;
+        int last = -1;
+        for (int i = 0; i < players; i++) {
+            if ((folded & (1 << i)) != 0 || stacks[i] == 0) {
+                continue;
+            }
+            canAct++;
+            last = i;
+            if ((acted & (1 << i)) == 0 || bets[i] < maxBet) {
+                allSettled = false;
+            }
+        }
+        if (canAct == 0) {
+            return true;
+        }
+        if (canAct == 1) {
+            return bets[last] >= maxBet;
+        }
+        return allSettled;
+    }
+
+    /**
+     * Moves on to the next betting round, skipping rounds where no one can bet.
+     */
+    private void advance() {
+        while (true) {
+            for (int i = 0; i < players; i++) {
+                bets[i] = 0;
+            }
+            acted = 0;
+            maxBet = 0;
+            if (++round == SHOWDOWN) {
+                over = true;
+                return;
+            }
+            current = nextSeat(dealer);
+            if (!isBettingComplete()) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Gets the next seat after the given one whose player can still act.
+     */
+    private int nextSeat(int seat) {
+        for (int i = 1; i <= players; i++) {
+            int next = (seat + i) % players;
+            if ((folded & (1 << next)) == 0 && stacks[next] > 0) {
+                return next;
+            }
+        }
+        return seat;
+    }
+}
@@ -0,0 +1,232 @@
+package texasholdem.model;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A hand that is evaluated as its cards arrive, for hole cards that are carried forward as the
+ * board is dealt.
+ *
+ * Apart from flushes, a hand's strength only depends on how many cards of each rank it holds.
+ * Every such rank multiset of up to seven cards is a node in a precomputed graph, and adding a
+ * card moves to the next node with a single lookup in a transition table; each node stores the
+ * strength of its ranks. Flushes are caught on the side: with seven cards or fewer only one
+ * suit can hold five, so the hand only has to re-check the suit of each added card and keep
+ * the best flush it has seen, and its strength is whichever of the two is higher. The graph has about 76,000 nodes and is built
+ * the first time it is needed.
+ *
+ * Besides the object form, the static {@link #addCard(int, int)} and {@link #strength(int, long)}
+ * let inner loops keep a node in an int and never allocate.
+ */
+public final class IncrementalHand {
+    /** The node of a hand with no cards */
+    public static final int EMPTY = 0;
+
+    private static final int RANKS = Card.Rank.COUNT;
+
+    /** The node of the hand's ranks */
+    private int node;
+
+    /** The mask of the hand's cards */
+    private long cards;
+
+    /** The strength of the hand's flush, or zero until one of its suits holds five cards */
+    private int flush;
+
+    /** The strength of the hand's ranks and any flush, kept up to date as cards are added */
+    private int strength;
+
+    /**
+     * Constructs an empty hand.
+     */
+    public IncrementalHand() {
+        reset();
+    }
+
+    /**
+     * Empties the hand, for a new deal.
+     */
+    public void reset() {
+        node = EMPTY;
+        cards = 0L;
+        flush = 0;
+        strength = Graph.STRENGTHS[EMPTY];
+    }
+
+    /**
+     * Copies another hand, for example to carry the board to each player.
+     * @param other the hand to copy
+     */
+    public void copyFrom(IncrementalHand other) {
+        node = other.node;
+        cards = other.cards;
+        flush = other.flush;
+        strength = other.strength;
+    }
+
+    /**
+     * Adds a card with one table lookup.
+     * @param index the card index, from 0 to 51
+     */
+    public void add(int index) {
+        node = addCard(node, index);
+        cards |= CardMask.bit(index);
+        flush = Math.max(flush, flushStrength(cards, index / RANKS));
+        strength = Math.max(Graph.STRENGTHS[node], flush);
+    }
+
+    /**
+     * Adds a card.
+     * @param card the card
+     */
+    public void add(Card card) {
+        add(card.getIndex());
+    }
+
+    /**
+     * Adds every card in a mask.
+     * @param mask the cards to add
+     */
+    public void addAll(long mask) {
+        for (long rest = mask; rest != 0; rest &= rest - 1) {
+            add(CardMask.lowestIndex(rest));
+        }
+    }
+
+    /**
+     * Gets the strength of the hand so far, the same as {@link HandEvaluator#evaluate(long)} of its cards.
+     * @return the hand strength
+     */
+    public int getStrength() {
+        return strength;
+    }
+
+    /**
+     * Gets the rank of the hand so far.
+     * @return the hand rank
+     */
+    public HandEvaluator.HandRank getRank() {
+        return HandEvaluator.rankOf(strength);
+    }
+
+    /**
+     * Gets the cards in the hand.
+     * @return the card mask
+     */
+    public long getCards() {
+        return cards;
+    }
+
+    /**
+     * Gets the number of cards in the hand.
+     * @return the card count
+     */
+    public int getCardCount() {
+        return Long.bitCount(cards);
+    }
+
+    /**
+     * Moves from a node to the node with one more card.
+     * @param node the current node, {@link #EMPTY} for no cards
+     * @param index the card index, from 0 to 51
+     * @return the next node
+     */
+    public static int addCard(int node, int index) {
+        return Graph.NEXT[node * RANKS + index % RANKS];
+    }
+
+    /**
+     * Gets the strength of a hand from its node and its cards.
+     * @param node the node reached by adding the cards
+     * @param cards the card mask, for flushes
+     * @return the same strength as {@link HandEvaluator#evaluate(long)}
+     */
+    public static int strength(int node, long cards) {
+        int strength = Graph.STRENGTHS[node];
+        for (int suit = 0; suit < Card.Suit.COUNT; suit++) {
+            strength = Math.max(strength, flushStrength(cards, suit));
+        }
+        return strength;
+    }
+
+    /**
+     * Gets the strength of a flush in one suit, or zero if the suit has fewer than five cards.
+     */
+    private static int flushStrength(long cards, int suit) {
+        int ranks = (int) (cards >>> suit * CardMask.LANE_WIDTH) & ((1 << RANKS) - 1);
+        return Integer.bitCount(ranks) >= 5 ? HandEvaluator.flushStrength(ranks) : 0;
+    }
+
+    /**
+     * The graph of rank multisets, built on first use (class initialization makes this thread-safe).
+     */
+    private static class Graph {
+        /** The node reached by each rank from each node, or -1 if there is no such hand */
+        static final int[] NEXT;
+
+        /** The strength of each node's ranks, without flushes */
+        static final int[] STRENGTHS;
+
+        static {
+            // Nodes are numbered as they are found, breadth first, keyed by three bits of count per rank
+            Map<Long, Integer> numbers = new HashMap<>();
+            long[] keys = new long[1 << 17];
+            int count = 0;
+            keys[count++] = 0L;
+            numbers.put(0L, 0);
+            int[] next = new int[keys.length * RANKS];
+            for (int n = 0; n < count; n++) {
+                long key = keys[n];
+                int cards = 0;
+                for (int rank = 0; rank < RANKS; rank++) {
+                    cards += (int) (key >>> 3 * rank) & 7;
+                }
+                for (int rank = 0; rank < RANKS; rank++) {
+                    if (cards == 7 || ((key >>> 3 * rank) & 7) == 4) {
+                        next[n * RANKS + rank] = -1;
+                        continue;
+                    }
+                    long child = key + (1L << 3 * rank);
+                    Integer number = numbers.get(child);
+                    if (number == null) {
+                        number = count;
+                        numbers.put(child, number);
+                        keys[count++] = child;
+                    }
+                    next[n * RANKS + rank] = number;
+                }
+            }
+
+            NEXT = Arrays.copyOf(next, count * RANKS);
+            STRENGTHS = new int[count];
+            for (int n = 0; n < count; n++) {
+                STRENGTHS[n] = HandEvaluator.evaluate(spreadOverSuits(keys[n]));
+            }
+        }
+
+        /**
+         * Builds a card mask with the ranks of a node, with no more than two cards in any suit
+         * so there is never a flush.
+         */
+        private static long spreadOverSuits(long key) {
+            long mask = 0L;
+            int[] suitCounts = new int[Card.Suit.COUNT];
+            for (int rank = 0; rank < RANKS; rank++) {
+                int copies = (int) (key >>> 3 * rank) & 7;
+                for (int copy = 0; copy < copies; copy++) {
+                    int suit = -1;
+                    for (int s = 0; s < Card.Suit.COUNT; s++) {
+                        boolean free = (mask & 1L << (s * CardMask.LANE_WIDTH + rank)) == 0;
+                        if (free && (suit < 0 || suitCounts[s] < suitCounts[suit])) {
+                            suit = s;
+                        }
+                    }
+                    suitCounts[suit]++;
+                    mask |= 1L << (suit * CardMask.LANE_WIDTH + rank);
+                }
+            }
+            return mask;
+        }
+    }
+}
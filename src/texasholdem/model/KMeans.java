@@ -0,0 +1,183 @@
+package texasholdem.model;
+
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Parallel k-means clustering over points stored in one flat float array.
+ *
+ * Points are compared by L1 distance: for the cumulative histograms of
+ * {@link BucketFeature#HISTOGRAM} that is the earth mover's distance, and for one-number
+ * features it picks the same nearest centre as the Euclidean distance would. Centres are
+ * seeded with k-means++ on a sample of the points, then each iteration assigns every point to
+ * its nearest centre in parallel chunks (each chunk adding up its own sums, so nothing is
+ * shared while assigning) and moves each centre to the mean of its points.
+ */
+public final class KMeans {
+    /** Points per parallel chunk */
+    private static final int CHUNK = 4096;
+
+    /** Largest number of points k-means++ seeding looks at */
+    private static final int SEEDING_SAMPLE = 50_000;
+
+    /** Fraction of points that may still change cluster when the iterations stop early */
+    private static final double CONVERGED = 0.001;
+
+    private KMeans() {
+    }
+
+    /**
+     * Clusters points.
+     * @param points the points, one after another
+     * @param dimensions the number of floats per point
+     * @param clusters the number of clusters
+     * @param iterations the most assignment iterations to run
+     * @param seed the seed for choosing the starting centres
+     * @return the cluster of each point; with at least as many clusters as points every point
+     *         gets its own cluster
+     */
+    public static int[] cluster(float[] points, int dimensions, int clusters, int iterations, long seed) {
+        int count = points.length / dimensions;
+        int[] assignments = new int[count];
+        if (clusters >= count) {
+            for (int i = 0; i < count; i++) {
+                assignments[i] = i;
+            }
+            return assignments;
+        }
+
+        float[] centres = seed(points, dimensions, clusters, new SplittableRandom(seed));
+        for (int iteration = 0; iteration < iterations; iteration++) {
+            Sums sums = IntStream.range(0, (count + CHUNK - 1) / CHUNK).parallel()
+                .mapToObj(chunk -> assign(points, dimensions, centres, clusters, assignments,
+                    chunk * CHUNK, Math.min(count, (chunk + 1) * CHUNK)))
+                .reduce(Sums::add)
+                .orElseThrow();
+
+            // Move each centre to the mean of its points; an empty cluster keeps its centre
+            for (int c = 0; c < clusters; c++) {
+                if (sums.counts[c] > 0) {
+                    for (int d = 0; d < dimensions; d++) {
+                        centres[c * dimensions + d] = (float) (sums.totals[c * dimensions + d] / sums.counts[c]);
+                    }
+                }
+            }
+            if (iteration > 0 && sums.changed <= count * CONVERGED) {
+                break;
+            }
+        }
+        return assignments;
+    }
+
+    /**
+     * Picks the starting centres with k-means++: each new centre is a point chosen with
+     * probability proportional to its distance from the nearest centre so far.
+     */
+    private static float[] seed(float[] points, int dimensions, int clusters, SplittableRandom random) {
+        int count = points.length / dimensions;
+        int sampleSize = Math.min(count, Math.max(SEEDING_SAMPLE, clusters * 4));
+        int[] sample = new int[sampleSize];
+        for (int i = 0; i < sampleSize; i++) {
+            sample[i] = sampleSize == count ? i : random.nextInt(count);
+        }
+
+        float[] centres = new float[clusters * dimensions];
+        double[] nearest = new double[sampleSize];
+        int first = sample[random.nextInt(sampleSize)];
+        System.arraycopy(points, first * dimensions, centres, 0, dimensions);
+        double total = 0.0;
+        for (int i = 0; i < sampleSize; i++) {
+            nearest[i] = distance(points, sample[i] * dimensions, centres, 0, dimensions, Double.MAX_VALUE);
+            total += nearest[i];
+        }
+
+        for (int c = 1; c < clusters; c++) {
+            int chosen = sample[random.nextInt(sampleSize)];
+            double roll = random.nextDouble() * total;
+            for (int i = 0; i < sampleSize; i++) {
+                roll -= nearest[i];
+                if (roll < 0) {
+                    chosen = sample[i];
+                    break;
+                }
+            }
+            System.arraycopy(points, chosen * dimensions, centres, c * dimensions, dimensions);
+            total = 0.0;
+            for (int i = 0; i < sampleSize; i++) {
+                nearest[i] = distance(points, sample[i] * dimensions, centres, c * dimensions, dimensions, nearest[i]);
+                total += nearest[i];
+            }
+        }
+        return centres;
+    }
+
+    /**
+     * Assigns a range of points to their nearest centres and adds them up by cluster.
+     */
+    private static Sums assign(float[] points, int dimensions, float[] centres, int clusters, int[] assignments,
+            int from, int to) {
+        Sums sums = new Sums(clusters, dimensions);
+        for (int i = from; i < to; i++) {
+            int offset = i * dimensions;
+            // Start from the last centre, which is usually still the nearest and cuts the others short
+            int best = assignments[i];
+            double bestDistance = distance(points, offset, centres, best * dimensions, dimensions, Double.MAX_VALUE);
+            for (int c = 0; c < clusters; c++) {
+                double distance = distance(points, offset, centres, c * dimensions, dimensions, bestDistance);
+                if (distance < bestDistance) {
+                    bestDistance = distance;
+                    best = c;
+                }
+            }
+            if (assignments[i] != best) {
+                assignments[i] = best;
+                sums.changed++;
+            }
+            sums.counts[best]++;
+            for (int d = 0; d < dimensions; d++) {
+                sums.totals[best * dimensions + d] += points[offset + d];
+            }
+        }
+        return sums;
+    }
+
+    /**
+     * Gets the L1 distance between two vectors, or any value at least the bound once it is
+     * clear the distance will be at least that (the sum only grows, so the rest can be skipped).
+     */
+    private static double distance(float[] a, int offsetA, float[] b, int offsetB, int dimensions, double bound) {
+        float sum = 0f;
+        for (int d = 0; d < dimensions; d++) {
+            sum += Math.abs(a[offsetA + d] - b[offsetB + d]);
+            if (sum >= bound) {
+                return bound;
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * The points assigned to each cluster in one chunk, added up.
+     */
+    private static class Sums {
+        final double[] totals;
+        final long[] counts;
+        long changed;
+
+        Sums(int clusters, int dimensions) {
+            totals = new double[clusters * dimensions];
+            counts = new long[clusters];
+        }
+
+        Sums add(Sums other) {
+            for (int i = 0; i < totals.length; i++) {
+                totals[i] += other.totals[i];
+            }
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] += other.counts[i];
+            }
+            changed += other.changed;
+            return this;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package texasholdem.model;
+
+/**
+ * A computer player that decides by searching the game tree (see {@link MctsSearch}) instead of
+ * comparing its hand strength with its aggressiveness and tightness.
+ */
+public class MctsPlayer extends ComputerPlayer {
+    private MctsSearch search;
+
+    /**
+     * Constructs a search player with the default search budgets.
+     * @param name the player's name
+     * @param initialChips the initial number of chips
+     */
+    public MctsPlayer(String name, int initialChips) {
+        this(name, initialChips, new MctsSearch());
+    }
+
+    /**
+     * Constructs a search player. The search keeps its trees between decisions, so it should
+     * not be shared with players who decide at the same time.
+     * @param name the player's name
+     * @param initialChips the initial number of chips
+     * @param search the search to decide with
+     */
+    public MctsPlayer(String name, int initialChips, MctsSearch search) {
+        super(name, initialChips, 50, 50);
+        this.search = search;
+    }
+
+    /**
+     * Decides the action for this player by searching from the current state of the game.
+     * @param game The game state
+     * @return the action to take
+     */
+    @Override
+    public Action decide(Game game) {
+        GameState state = game.getState();
+        if (state.getRound() == Game.BettingRound.SHOWDOWN) {
+            return Action.CHECK;
+        }
+        return search.search(state);
+    }
+
+    public MctsSearch getSearch() { return search; }
+    public void setSearch(MctsSearch search) { this.search = search; }
+}
@@ -0,0 +1,324 @@
+package texasholdem.model;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Chooses an action by information-set Monte Carlo tree search.
+ *
+ * Each iteration guesses the cards nobody can see (random hole cards for every opponent still
+ * in the hand and the rest of the board), then plays the hand forward in a
+ * {@link HandSimulation}. Inside the tree every player picks the action with the best upper
+ * confidence bound on their own result, so the tree is shared by all the guesses and only
+ * depends on the betting; below the tree the hand is finished with a simple random policy.
+ * Results are in chips and are scaled by the largest result seen so far in the search.
+ *
+ * Several trees are searched in parallel on a ForkJoinPool, each with its own random
+ * generator, and their root visit counts are added up to pick the action (root
+ * parallelization). Every tree keeps its nodes in flat arrays sized for the node budget,
+ * allocated once and reused by every decision. A tree stops when its nodes run out or the
+ * time budget is spent, whichever comes first.
+ */
+public class MctsSearch {
+    /** Default number of nodes per tree */
+    public static final int DEFAULT_NODES = 50_000;
+
+    /** Default time budget per decision, in milliseconds */
+    public static final long DEFAULT_TIME_BUDGET_MILLIS = 50;
+
+    /** Weight of the exploration term in the upper confidence bound */
+    private static final double EXPLORATION = 0.7;
+
+    /** The pool the trees are searched on */
+    private final ForkJoinPool pool;
+
+    /** The trees, searched in parallel and reused between decisions */
+    private final Tree[] trees;
+
+    /** The maximum time per decision, in nanoseconds */
+    private final long timeBudgetNanos;
+
+    /** The number of iterations in the last search, over all trees */
+    private int lastIterations;
+
+    /**
+     * Constructs a search with one tree per processor on the common pool and the default budgets.
+     */
+    public MctsSearch() {
+        this(ForkJoinPool.commonPool(), Runtime.getRuntime().availableProcessors(), DEFAULT_NODES,
+            DEFAULT_TIME_BUDGET_MILLIS);
+    }
+
+    /**
+     * Constructs a search.
+     * @param pool the pool to search the trees on
+     * @param trees the number of trees to search in parallel
+     * @param maxNodes the maximum number of nodes in each tree
+     * @param timeBudgetMillis the maximum time per decision, in milliseconds
+     */
+    public MctsSearch(ForkJoinPool pool, int trees, int maxNodes, long timeBudgetMillis) {
+        this(pool, trees, maxNodes, timeBudgetMillis, new SplittableRandom());
+    }
+
+    /**
+     * Constructs a search whose decisions are reproducible for a given seed (as long as the
+     * time budget doesn't cut a search short).
+     * @param pool the pool to search the trees on
+     * @param trees the number of trees to search in parallel
+     * @param maxNodes the maximum number of nodes in each tree
+     * @param timeBudgetMillis the maximum time per decision, in milliseconds
+     * @param seed the seed for sampling
+     */
+    public MctsSearch(ForkJoinPool pool, int trees, int maxNodes, long timeBudgetMillis, long seed) {
+        this(pool, trees, maxNodes, timeBudgetMillis, new SplittableRandom(seed));
+    }
+
+    private MctsSearch(ForkJoinPool pool, int trees, int maxNodes, long timeBudgetMillis, SplittableRandom seeds) {
+        if (trees <= 0 || maxNodes <= HandSimulation.ACTIONS || timeBudgetMillis <= 0) {
+            throw new IllegalArgumentException("Tree, node and time budgets must be positive");
+        }
+        this.pool = pool;
+        this.trees = new Tree[trees];
+        for (int i = 0; i < trees; i++) {
+            this.trees[i] = new Tree(maxNodes, seeds.split());
+        }
+        this.timeBudgetNanos = timeBudgetMillis * 1_000_000L;
+    }
+
+    /**
+     * Searches for the best action for the player whose turn it is.
+     * @param state the state of the game, which must be in a betting round
+     * @return the action to take
+     */
+    public synchronized Action search(GameState state) {
+        if (state.getRound() == Game.BettingRound.SHOWDOWN) {
+            throw new IllegalArgumentException("No one can act at showdown");
+        }
+
+        long deadline = System.nanoTime() + timeBudgetNanos;
+        for (Tree tree : trees) {
+            tree.prepare(state, deadline);
+        }
+
+        // One tree isn't worth a hand-off to the pool; a pool worker can fork the trees itself
+        if (trees.length == 1) {
+            trees[0].invoke();
+        } else if (ForkJoinTask.inForkJoinPool()) {
+            ForkJoinTask.invokeAll(trees);
+        } else {
+            pool.invoke(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    invokeAll(trees);
+                }
+            });
+        }
+
+        // Add up the root visits of every tree and take the most visited action
+        int[] visits = new int[HandSimulation.ACTIONS];
+        lastIterations = 0;
+        for (Tree tree : trees) {
+            tree.addRootVisits(visits);
+            lastIterations += tree.visits[0];
+        }
+        int best = HandSimulation.CALL;
+        for (int action = 0; action < HandSimulation.ACTIONS; action++) {
+            if (visits[action] > visits[best]) {
+                best = action;
+            }
+        }
+        HandSimulation simulation = new HandSimulation();
+        simulation.reset(state);
+        return simulation.toAction(best);
+    }
+
+    /**
+     * Gets the number of iterations in the last search, over all trees.
+     * @return the number of simulated hands
+     */
+    public synchronized int getLastIterations() {
+        return lastIterations;
+    }
+
+    /**
+     * One search tree, with its nodes in flat arrays. The children of a node are stored next
+     * to each other, so a node only needs the index of its first child and how many there are.
+     */
+    @SuppressWarnings("serial")
+    private static class Tree extends RecursiveAction {
+        private final int capacity;
+        private final int[] firstChild;
+        private final byte[] childCount;
+        private final byte[] action;
+        private final int[] visits;
+        private final double[] reward;
+        private final SplittableRandom random;
+        private final Deck deck;
+        private final HandSimulation simulation = new HandSimulation();
+        private final double[] results = new double[Game.MAX_PLAYERS];
+        private int[] path = new int[64];
+        private int[] movers = new int[64];
+        private int nodeCount;
+        private GameState state;
+        private long deadline;
+        private double scale;
+
+        Tree(int capacity, SplittableRandom random) {
+            this.capacity = capacity;
+            this.firstChild = new int[capacity];
+            this.childCount = new byte[capacity];
+            this.action = new byte[capacity];
+            this.visits = new int[capacity];
+            this.reward = new double[capacity];
+            this.random = random;
+            this.deck = new Deck(random);
+        }
+
+        /**
+         * Clears the tree for a new decision.
+         */
+        void prepare(GameState state, long deadline) {
+            this.state = state;
+            this.deadline = deadline;
+            this.scale = Math.max(state.getPot(), state.getMinBet());
+            nodeCount = 1;
+            childCount[0] = 0;
+            visits[0] = 0;
+            reinitialize();
+        }
+
+        /**
+         * Adds the visits of each root action to a total.
+         */
+        void addRootVisits(int[] totals) {
+            for (int i = 0; i < childCount[0]; i++) {
+                int child = firstChild[0] + i;
+                totals[action[child]] += visits[child];
+            }
+        }
+
+        @Override
+        protected void compute() {
+            int seat = state.getCurrentSeat();
+            long known = state.getHoleCards(seat) | state.getBoard();
+            int missing = 5 - state.getBoardCount();
+            deck.resetWithout(known);
+
+            boolean full = false;
+            while (!full && System.nanoTime() - deadline < 0) {
+                // Guess the hidden cards
+                simulation.reset(state);
+                deck.collect();
+                for (int i = 0; i < state.getPlayerCount(); i++) {
+                    if (i != seat && !state.isFolded(i)) {
+                        simulation.setHoleCards(i, deck.dealMask(2));
+                    }
+                }
+                simulation.completeBoard(deck.dealMask(missing));
+
+                // Walk down the tree, adding the children of the first leaf reached
+                int node = 0;
+                int depth = 0;
+                while (!simulation.isOver()) {
+                    if (childCount[node] == 0) {
+                        int legal = simulation.legalActions();
+                        int count = Integer.bitCount(legal);
+                        if (nodeCount + count > capacity) {
+                            full = true;
+                            break;
+                        }
+                        firstChild[node] = nodeCount;
+                        childCount[node] = (byte) count;
+                        for (int bits = legal; bits != 0; bits &= bits - 1) {
+                            int child = nodeCount++;
+                            action[child] = (byte) Integer.numberOfTrailingZeros(bits);
+                            childCount[child] = 0;
+                            visits[child] = 0;
+                            reward[child] = 0;
+                        }
+                    }
+                    int child = select(node);
+                    if (depth + 1 == path.length) {
+                        path = Arrays.copyOf(path, path.length * 2);
+                        movers = Arrays.copyOf(movers, movers.length * 2);
+                    }
+                    path[++depth] = child;
+                    movers[depth] = simulation.getCurrentSeat();
+                    simulation.apply(action[child]);
+                    node = child;
+                    if (visits[child] == 0) {
+                        break;
+                    }
+                }
+
+                // Finish the hand at random and score it for everyone on the path
+                rollout();
+                simulation.results(results);
+                visits[0]++;
+                for (int k = 1; k <= depth; k++) {
+                    double result = results[movers[k]];
+                    scale = Math.max(scale, Math.abs(result));
+                    visits[path[k]]++;
+                    reward[path[k]] += result;
+                }
+            }
+        }
+
+        /**
+         * Picks the child with the highest upper confidence bound, or an unvisited child.
+         */
+        private int select(int node) {
+            int first = firstChild[node];
+            int count = childCount[node];
+            double logVisits = Math.log(Math.max(1, visits[node]));
+            int best = first;
+            double bestScore = Double.NEGATIVE_INFINITY;
+            for (int child = first; child < first + count; child++) {
+                if (visits[child] == 0) {
+                    return child;
+                }
+                double score = reward[child] / visits[child] / scale
+                        + EXPLORATION * Math.sqrt(logVisits / visits[child]);
+                if (score > bestScore) {
+                    bestScore = score;
+                    best = child;
+                }
+            }
+            return best;
+        }
+
+        /**
+         * Plays the rest of the hand with a simple policy: facing a bet, fold a quarter of the
+         * time and raise a fifth; otherwise bet about a third of the time.
+         */
+        private void rollout() {
+            while (!simulation.isOver()) {
+                int legal = simulation.legalActions();
+                int raises = legal & ~((1 << HandSimulation.FOLD) | (1 << HandSimulation.CALL));
+                double roll = random.nextDouble();
+                int choice;
+                if ((legal & (1 << HandSimulation.FOLD)) != 0 && roll < 0.25) {
+                    choice = HandSimulation.FOLD;
+                } else if (raises != 0 && roll > 0.7) {
+                    choice = randomBit(raises);
+                } else {
+                    choice = HandSimulation.CALL;
+                }
+                simulation.apply(choice);
+            }
+        }
+
+        /**
+         * Picks one of the set bits at random.
+         */
+        private int randomBit(int bits) {
+            for (int skip = random.nextInt(Integer.bitCount(bits)); skip > 0; skip--) {
+                bits &= bits - 1;
+            }
+            return Integer.numberOfTrailingZeros(bits);
+        }
+    }
+}
@@ -0,0 +1,317 @@
+package texasholdem.model;
+
+import java.util.Arrays;
+
+/**
+ * Reads every player at a table from the actions they take, and guesses the range of hands
+ * each one holds.
+ *
+ * The game reports each action, the showdown and the end of every hand; the model keeps a
+ * few flags per seat for the hand in progress and turns them into {@link PlayerStats} once
+ * the hand is over. Everything is held in arrays sized when the model is built, so recording
+ * an action is a few field updates and allocates nothing.
+ *
+ * {@link #estimateRange(int, long, long)} turns a player's stats and what they have done this hand
+ * into a {@link Range}: a player who raised before the flop holds roughly the best
+ * pre-flop-raise share of hands, one who only called the best VPIP share, plus every kind of
+ * hand (the same ranks, suited or not) they have shown down lately. One who bets or raises after
+ * the flop holds the part of that range that is strongest on the board, narrowed less for
+ * players who bet a lot, and one who calls a continuation bet the part that is strongest by
+ * the share of c-bets they don't fold to.
+ */
+public final class OpponentModel {
+    /** Default decay: a chance 35 chances ago counts half as much as the latest one */
+    public static final float DEFAULT_DECAY = 0.98f;
+
+    /** Weight left on combos a player is unlikely to hold, so no hand is ever ruled out */
+    private static final float UNLIKELY_WEIGHT = 0.05f;
+
+    /** Smallest share of a range kept by a bet or raise after the flop */
+    private static final float MIN_BETTING_SHARE = 0.25f;
+
+    /** Smallest share of a range kept by calling a continuation bet */
+    private static final float MIN_CALLING_SHARE = 0.35f;
+
+    /** Combos from the strongest before the flop to the weakest */
+    private static final int[] PREFLOP_ORDER = preflopOrder();
+
+    private final PlayerStats[] stats;
+
+    /** What each seat has done in the hand in progress */
+    private final boolean[] dealt;
+    private final boolean[] actedPreflop;
+    private final boolean[] voluntary;
+    private final boolean[] raisedPreflop;
+    private final boolean[] aggressivePostflop;
+    private final boolean[] calledCbet;
+    private final boolean[] sawFlop;
+    private final boolean[] showedDown;
+
+    /** The last seat to raise before the flop, or -1 */
+    private int preflopAggressor = -1;
+
+    /** Whether the flop bet in front of the players is a continuation bet no one has raised */
+    private boolean facingCbet;
+
+    /** Whether a hand is in progress */
+    private boolean inHand;
+
+    /** The combos that miss the board, from the weakest on it to the strongest, for the board in orderedBoard */
+    private final long[] order = new long[Range.COMBOS];
+    private int orderCount;
+    private long orderedBoard;
+
+    /** Scratch marking the kinds of hand a player has shown, indexed by {@link PreflopEquityTable#classIndex(int, int)} */
+    private final boolean[] shownClasses = new boolean[Card.Rank.COUNT * Card.Rank.COUNT];
+
+    /**
+     * Constructs a model for a table.
+     * @param seats the number of seats
+     * @param decay how much each earlier chance counts compared with the next one, between 0 and 1
+     */
+    public OpponentModel(int seats, float decay) {
+        stats = new PlayerStats[seats];
+        for (int i = 0; i < seats; i++) {
+            stats[i] = new PlayerStats(decay);
+        }
+        dealt = new boolean[seats];
+        actedPreflop = new boolean[seats];
+        voluntary = new boolean[seats];
+        raisedPreflop = new boolean[seats];
+        aggressivePostflop = new boolean[seats];
+        calledCbet = new boolean[seats];
+        sawFlop = new boolean[seats];
+        showedDown = new boolean[seats];
+    }
+
+    /**
+     * Starts a hand.
+     * @param sittingOut a bit for each seat not dealt in
+     */
+    void startHand(int sittingOut) {
+        endHand();
+        for (int seat = 0; seat < stats.length; seat++) {
+            dealt[seat] = (sittingOut & 1 << seat) == 0;
+            actedPreflop[seat] = false;
+            voluntary[seat] = false;
+            raisedPreflop[seat] = false;
+            aggressivePostflop[seat] = false;
+            calledCbet[seat] = false;
+            sawFlop[seat] = false;
+            showedDown[seat] = false;
+            if (dealt[seat]) {
+                stats[seat].recordHand();
+            }
+        }
+        preflopAggressor = -1;
+        facingCbet = false;
+        inHand = true;
+    }
+
+    /**
+     * Records an action as it is taken.
+     * @param seat the player's seat
+     * @param round the betting round
+     * @param type what the player did; a call of nothing is a check
+     */
+    void recordAction(int seat, Game.BettingRound round, Action.Type type) {
+        boolean raising = type == Action.Type.BET || type == Action.Type.RAISE;
+        if (round == Game.BettingRound.PREFLOP) {
+            actedPreflop[seat] = true;
+            voluntary[seat] |= type == Action.Type.CALL || raising;
+            raisedPreflop[seat] |= raising;
+            if (raising) {
+                preflopAggressor = seat;
+            }
+            return;
+        }
+
+        if (raising) {
+            aggressivePostflop[seat] = true;
+        }
+        if (raising || type == Action.Type.CALL) {
+            stats[seat].recordPostflop(raising);
+        }
+        if (round == Game.BettingRound.FLOP) {
+            if (facingCbet && seat != preflopAggressor && type != Action.Type.CHECK) {
+                stats[seat].recordCbetFaced(type == Action.Type.FOLD);
+                calledCbet[seat] |= type == Action.Type.CALL;
+            }
+            if (type == Action.Type.BET) {
+                facingCbet = seat == preflopAggressor;
+            } else if (type == Action.Type.RAISE) {
+                facingCbet = false;
+            }
+        }
+    }
+
+    /**
+     * Records that the flop was dealt with a player still in the hand.
+     * @param seat the player's seat
+     */
+    void recordSawFlop(int seat) {
+        sawFlop[seat] = true;
+    }
+
+    /**
+     * Records a player's hand at showdown.
+     * @param seat the player's seat
+     * @param holeCards the mask of their hole cards
+     */
+    void recordShowdown(int seat, long holeCards) {
+        showedDown[seat] = true;
+        int first = CardMask.lowestIndex(holeCards);
+        int second = CardMask.lowestIndex(holeCards & (holeCards - 1));
+        stats[seat].recordShown(PreflopEquityTable.comboIndex(first, second));
+    }
+
+    /**
+     * Finishes the hand in progress, if there is one, and folds it into the stats.
+     */
+    void endHand() {
+        if (!inHand) {
+            return;
+        }
+        inHand = false;
+        for (int seat = 0; seat < stats.length; seat++) {
+            if (!dealt[seat]) {
+                continue;
+            }
+            if (actedPreflop[seat]) {
+                stats[seat].recordPreflop(voluntary[seat], raisedPreflop[seat]);
+            }
+            if (sawFlop[seat]) {
+                stats[seat].recordSawFlop(showedDown[seat]);
+            }
+        }
+    }
+
+    /**
+     * Gets a player's stats.
+     * @param seat the player's seat
+     * @return the stats
+     */
+    public PlayerStats getStats(int seat) {
+        return stats[seat];
+    }
+
+    /**
+     * Guesses the hands a player holds from their stats and their actions in this hand.
+     * @param seat the player's seat
+     * @param board the mask of the community cards
+     * @param deadCards the mask of other cards the player can't hold, such as the caller's own
+     * @return the range, without any combo that shares a card with the board or the dead cards
+     */
+    public Range estimateRange(int seat, long board, long deadCards) {
+        return estimateRange(seat, board, deadCards, new Range());
+    }
+
+    /**
+     * Guesses the hands a player holds into a range the caller keeps, so repeated guesses
+     * allocate nothing.
+     * @param seat the player's seat
+     * @param board the mask of the community cards
+     * @param deadCards the mask of other cards the player can't hold, such as the caller's own
+     * @param range the range to overwrite; every weight is set
+     * @return the range, without any combo that shares a card with the board or the dead cards
+     */
+    public Range estimateRange(int seat, long board, long deadCards, Range range) {
+        PlayerStats player = stats[seat];
+        float share = raisedPreflop[seat] ? player.getPfr() : voluntary[seat] ? player.getVpip() : 1f;
+        Arrays.fill(shownClasses, false);
+        for (int i = 0; i < player.getShownCount(); i++) {
+            shownClasses[handClass(player.getShownHand(i))] = true;
+        }
+        int kept = Math.max(1, Math.round(share * Range.COMBOS));
+        for (int i = 0; i < Range.COMBOS; i++) {
+            int combo = PREFLOP_ORDER[i];
+            range.setWeight(combo, i < kept || shownClasses[handClass(combo)] ? 1f : UNLIKELY_WEIGHT);
+        }
+        range.removeBlocked(board | deadCards);
+
+        if (board != 0 && aggressivePostflop[seat]) {
+            // Aggressive players bet wider
+            keepStrongest(range, board, Math.max(MIN_BETTING_SHARE, Math.min(1f, 0.3f * player.getAggressionFactor())));
+        } else if (board != 0 && calledCbet[seat]) {
+            // A player who rarely lets a c-bet go has to continue with weaker hands
+            keepStrongest(range, board, Math.max(MIN_CALLING_SHARE, 1f - player.getFoldToCbet()));
+        }
+        return range;
+    }
+
+    /**
+     * Turns down the weakest combos of a range on a board until the share left at full weight
+     * is what's asked for.
+     */
+    private void keepStrongest(Range range, long board, float share) {
+        // Every seat and every decision on a street ranks the same board, so rank it once
+        if (board != orderedBoard) {
+            orderCount = 0;
+            for (int combo = 0; combo < Range.COMBOS; combo++) {
+                long mask = Range.comboMask(combo);
+                if ((mask & board) == 0) {
+                    order[orderCount++] = (long) HandEvaluator.evaluate(mask | board) << 32 | combo;
+                }
+            }
+            Arrays.sort(order, 0, orderCount);
+            orderedBoard = board;
+        }
+
+        float[] weights = range.weights();
+        double total = range.getTotalWeight();
+        double weaker = total * (1 - share);
+        for (int i = 0; i < orderCount && weaker > 0.0; i++) {
+            int combo = (int) order[i];
+            weaker -= weights[combo];
+            weights[combo] *= UNLIKELY_WEIGHT;
+        }
+    }
+
+    /**
+     * Gets the kind of hand a combo is, the same ranks suited or not.
+     */
+    private static int handClass(int combo) {
+        return PreflopEquityTable.classIndex(Range.firstCard(combo), Range.secondCard(combo));
+    }
+
+    /**
+     * Orders the combos from strongest to weakest before the flop, by their equity against a
+     * random hand if the preflop table is available, otherwise by a simple score.
+     */
+    private static int[] preflopOrder() {
+        PreflopEquityTable table = PreflopEquityTable.getDefault();
+        long[] keys = new long[Range.COMBOS];
+        for (int combo = 0; combo < Range.COMBOS; combo++) {
+            float score = table != null ? table.getEquity(combo) : score(Range.firstCard(combo), Range.secondCard(combo));
+            // Scores are positive, so their bits sort the same way as the scores
+            keys[combo] = (long) Float.floatToIntBits(score) << 32 | combo;
+        }
+        Arrays.sort(keys);
+        int[] combos = new int[Range.COMBOS];
+        for (int i = 0; i < Range.COMBOS; i++) {
+            combos[i] = (int) keys[Range.COMBOS - 1 - i];
+        }
+        return combos;
+    }
+
+    /**
+     * Scores two cards by their ranks, with bonuses for pairs, suits and connectors.
+     */
+    private static float score(int card1, int card2) {
+        int rank1 = card1 % Card.Rank.COUNT;
+        int rank2 = card2 % Card.Rank.COUNT;
+        int high = Math.max(rank1, rank2);
+        int low = Math.min(rank1, rank2);
+        float score = high * 2 + low;
+        if (high == low) {
+            score += 20 + high;
+        }
+        if (card1 / Card.Rank.COUNT == card2 / Card.Rank.COUNT) {
+            score += 4;
+        }
+        if (high - low <= 2 && high != low) {
+            score += 3 - (high - low);
+        }
+        return score + 1;
+    }
+}
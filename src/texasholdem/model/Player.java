@@ -16,6 +16,9 @@ public class Player {
     /** The player's hole cards (2 cards in Texas Holdem) */
     private List<Card> holeCards;
     
+    /** The player's hole cards as a card mask */
+    private long holeMask;
+    
     /** The amount the player has bet in the current round */
     private int currentBet;
     
@@ -92,6 +95,15 @@ public class Player {
      */
     public void addCard(Card card) {
         holeCards.add(card);
+        holeMask |= card.getMask();
+    }
+    
+    /**
+     * Gets the player's hole cards without copying them.
+     * @return the hole card mask (see {@link CardMask})
+     */
+    public long getHoleMask() {
+        return holeMask;
     }
     
     /**
@@ -99,6 +111,7 @@ public class Player {
      */
     public void clearHand() {
         holeCards.clear();
+        holeMask = 0;
         currentBet = 0;
         hasFolded = false;
     }
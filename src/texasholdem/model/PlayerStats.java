@@ -0,0 +1,209 @@
+package texasholdem.model;
+
+/**
+ * Running statistics on how one player plays, for reading opponents.
+ *
+ * Every statistic is a pair of exponentially decayed counts: each time the player has the
+ * chance to do something, both counts are multiplied by the decay factor and the chance (and
+ * the hit, if they did it) is added. Recent hands therefore count the most, a player who
+ * changes gear is picked up within a few dozen hands, and the memory used never grows. Until
+ * a player has been seen for a while each rate leans on a typical value, as if that many
+ * chances had already been seen.
+ *
+ * The stats are updated by {@link OpponentModel} as actions go through {@link Game}; every
+ * update is a handful of multiplications on fields and allocates nothing.
+ */
+public final class PlayerStats {
+    /** Number of chances a typical value counts for before anything has been seen */
+    private static final float PRIOR_WEIGHT = 5f;
+
+    /** Number of hands shown at showdown that are remembered */
+    public static final int SHOWN_HANDS = 16;
+
+    /** How much each earlier chance counts compared with the next one */
+    private final float decay;
+
+    /** Voluntarily put money in before the flop, out of hands acted in before the flop */
+    private final Rate vpip = new Rate(0.3f);
+
+    /** Raised before the flop, out of hands acted in before the flop */
+    private final Rate pfr = new Rate(0.15f);
+
+    /** Folded to a continuation bet, out of continuation bets faced */
+    private final Rate foldToCbet = new Rate(0.45f);
+
+    /** Went to showdown, out of hands that saw the flop */
+    private final Rate wentToShowdown = new Rate(0.3f);
+
+    /** Decayed counts of bets and raises, and of calls, after the flop */
+    private float aggressive;
+    private float passive;
+
+    /** Number of hands dealt in, without decay */
+    private long hands;
+
+    /** The last hands shown at showdown, as combo indices in a ring */
+    private final int[] shownCombos = new int[SHOWN_HANDS];
+    private int shownCount;
+
+    /**
+     * Constructs stats with nothing seen yet.
+     * @param decay how much each earlier chance counts compared with the next one, between 0 and 1
+     */
+    public PlayerStats(float decay) {
+        if (!(decay > 0f && decay <= 1f)) {
+            throw new IllegalArgumentException("Decay must be in (0, 1]");
+        }
+        this.decay = decay;
+    }
+
+    /**
+     * Records a hand the player acted in before the flop.
+     */
+    void recordPreflop(boolean voluntary, boolean raised) {
+        vpip.record(voluntary, decay);
+        pfr.record(raised, decay);
+    }
+
+    /**
+     * Records a bet, raise or call after the flop.
+     */
+    void recordPostflop(boolean aggressiveAction) {
+        aggressive = aggressive * decay + (aggressiveAction ? 1f : 0f);
+        passive = passive * decay + (aggressiveAction ? 0f : 1f);
+    }
+
+    /**
+     * Records a continuation bet the player faced.
+     */
+    void recordCbetFaced(boolean folded) {
+        foldToCbet.record(folded, decay);
+    }
+
+    /**
+     * Records a hand in which the player saw the flop.
+     */
+    void recordSawFlop(boolean wentToShowdown) {
+        this.wentToShowdown.record(wentToShowdown, decay);
+    }
+
+    /**
+     * Records a hand the player was dealt into.
+     */
+    void recordHand() {
+        hands++;
+    }
+
+    /**
+     * Records the hole cards the player showed down.
+     */
+    void recordShown(int combo) {
+        shownCombos[shownCount++ % SHOWN_HANDS] = combo;
+    }
+
+    /**
+     * Gets how often the player voluntarily puts money in before the flop.
+     * @return the rate, between 0 and 1
+     */
+    public float getVpip() {
+        return vpip.get();
+    }
+
+    /**
+     * Gets how often the player raises before the flop.
+     * @return the rate, between 0 and 1
+     */
+    public float getPfr() {
+        return pfr.get();
+    }
+
+    /**
+     * Gets the aggression factor after the flop: bets and raises for each call.
+     * @return the aggression factor, 1 for a player who bets as often as they call
+     */
+    public float getAggressionFactor() {
+        return (aggressive + PRIOR_WEIGHT) / (passive + PRIOR_WEIGHT);
+    }
+
+    /**
+     * Gets how often the player folds to a continuation bet on the flop.
+     * @return the rate, between 0 and 1
+     */
+    public float getFoldToCbet() {
+        return foldToCbet.get();
+    }
+
+    /**
+     * Gets how often the player goes to showdown after seeing the flop.
+     * @return the rate, between 0 and 1
+     */
+    public float getWentToShowdown() {
+        return wentToShowdown.get();
+    }
+
+    /**
+     * Gets the number of hands the player has been dealt into.
+     * @return the hand count
+     */
+    public long getHands() {
+        return hands;
+    }
+
+    /**
+     * Gets the hands the player has shown at showdown, most recent first.
+     * @return the combo indices (see {@link PreflopEquityTable#comboIndex(int, int)}), at most
+     *         {@link #SHOWN_HANDS} of them
+     */
+    public int[] getShownHands() {
+        int[] combos = new int[getShownCount()];
+        for (int i = 0; i < combos.length; i++) {
+            combos[i] = getShownHand(i);
+        }
+        return combos;
+    }
+
+    /**
+     * Gets the number of shown hands remembered, for reading them in place with
+     * {@link #getShownHand(int)}.
+     */
+    int getShownCount() {
+        return Math.min(shownCount, SHOWN_HANDS);
+    }
+
+    /**
+     * Gets one of the hands remembered from showdown, straight from the ring.
+     * @param i 0 for the most recent, up to {@link #getShownCount()} - 1
+     */
+    int getShownHand(int i) {
+        return shownCombos[(shownCount - 1 - i) % SHOWN_HANDS];
+    }
+
+    @Override
+    public String toString() {
+        return String.format("VPIP %.0f%%, PFR %.0f%%, AF %.1f, fold to c-bet %.0f%%, WTSD %.0f%% over %d hands",
+            getVpip() * 100, getPfr() * 100, getAggressionFactor(), getFoldToCbet() * 100,
+            getWentToShowdown() * 100, hands);
+    }
+
+    /**
+     * A decayed rate that starts from a typical value.
+     */
+    private static final class Rate {
+        private final float prior;
+        private float hits;
+        private float chances;
+
+        Rate(float prior) {
+            this.prior = prior;
+        }
+
+        void record(boolean hit, float decay) {
+            hits = hits * decay + (hit ? 1f : 0f);
+            chances = chances * decay + 1f;
+        }
+
+        float get() {
+            return (hits + prior * PRIOR_WEIGHT) / (chances + PRIOR_WEIGHT);
+        }
+    }
+}
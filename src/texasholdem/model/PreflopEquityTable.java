@@ -0,0 +1,196 @@
+package texasholdem.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Precomputed preflop equities, read straight out of a memory-mapped file.
+ *
+ * The file holds a 169x169 matrix of starting-hand class equities (row class against column
+ * class) followed by the equity of each of the 1326 hole-card combos against one random hand.
+ * It is written once by {@code texasholdem.tools.PreflopTableGenerator}; at runtime the file
+ * is mapped read-only and every lookup is a single absolute read from the mapping, so nothing
+ * is computed or deserialized at startup.
+ *
+ * Starting-hand classes are numbered on a 13x13 rank grid: pairs on the diagonal, suited hands
+ * at (high, low) and offsuit hands at (low, high).
+ */
+public class PreflopEquityTable {
+    /** Number of starting-hand classes */
+    public static final int CLASSES = 169;
+    
+    /** Number of distinct hole-card combos */
+    public static final int COMBOS = 1326;
+    
+    /** Default location of the table file */
+    public static final String DEFAULT_PATH = "data/preflop-equity.bin";
+    
+    /** System property that overrides the table location */
+    public static final String PATH_PROPERTY = "texasholdem.preflopTable";
+    
+    /** File signature ("PFEQ") */
+    private static final int MAGIC = 0x50464551;
+    
+    /** File format version */
+    private static final int VERSION = 1;
+    
+    /** Size of the header: magic, version, class count, combo count */
+    private static final int HEADER_BYTES = 16;
+    
+    /** Offset of the per-combo equities */
+    private static final int COMBO_OFFSET = HEADER_BYTES + CLASSES * CLASSES * Float.BYTES;
+    
+    /** Total size of the file */
+    private static final int FILE_BYTES = COMBO_OFFSET + COMBOS * Float.BYTES;
+    
+    /** The mapped table */
+    private final ByteBuffer buffer;
+    
+    private PreflopEquityTable(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+    
+    /**
+     * Maps a table file into memory.
+     * @param path the table file
+     * @return the table
+     * @throws IOException if the file can't be read or isn't a preflop table
+     */
+    public static PreflopEquityTable load(Path path) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() != FILE_BYTES) {
+                throw new IOException("Unexpected preflop table size: " + channel.size());
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, FILE_BYTES);
+        }
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION
+                || buffer.getInt(8) != CLASSES || buffer.getInt(12) != COMBOS) {
+            throw new IOException("Not a preflop equity table: " + path);
+        }
+        return new PreflopEquityTable(buffer);
+    }
+    
+    /**
+     * Gets the table at the default location, mapping it the first time it is asked for.
+     * @return the table, or null if there is no usable table file
+     */
+    public static PreflopEquityTable getDefault() {
+        return DefaultHolder.TABLE;
+    }
+    
+    /**
+     * Lazily maps the default table (class initialization makes this thread-safe).
+     */
+    private static class DefaultHolder {
+        static final PreflopEquityTable TABLE = loadDefault();
+        
+        private static PreflopEquityTable loadDefault() {
+            Path path = Paths.get(System.getProperty(PATH_PROPERTY, DEFAULT_PATH));
+            if (!Files.isReadable(path)) {
+                return null;
+            }
+            try {
+                return load(path);
+            } catch (IOException e) {
+                System.err.println("Ignoring preflop equity table: " + e.getMessage());
+                return null;
+            }
+        }
+    }
+    
+    /**
+     * Gets the equity of one starting-hand class against another.
+     * @param heroClass the class of the hand whose equity is wanted
+     * @param villainClass the class of the opposing hand
+     * @return the expected pot share, between 0 and 1
+     */
+    public float getClassEquity(int heroClass, int villainClass) {
+        return buffer.getFloat(HEADER_BYTES + (heroClass * CLASSES + villainClass) * Float.BYTES);
+    }
+    
+    /**
+     * Gets the equity of a hole-card combo against one random hand.
+     * @param combo the combo index from {@link #comboIndex(int, int)}
+     * @return the expected pot share, between 0 and 1
+     */
+    public float getEquity(int combo) {
+        return buffer.getFloat(COMBO_OFFSET + combo * Float.BYTES);
+    }
+    
+    /**
+     * Gets the equity of two hole cards against one random hand.
+     * @param card1 the first hole card
+     * @param card2 the second hole card
+     * @return the expected pot share, between 0 and 1
+     */
+    public float getEquity(Card card1, Card card2) {
+        return getEquity(comboIndex(card1.getIndex(), card2.getIndex()));
+    }
+    
+    /**
+     * Gets the starting-hand class of two cards.
+     * @param card1 the index of the first card
+     * @param card2 the index of the second card
+     * @return the class, from 0 to 168
+     */
+    public static int classIndex(int card1, int card2) {
+        int rank1 = card1 % Card.Rank.COUNT;
+        int rank2 = card2 % Card.Rank.COUNT;
+        int high = Math.max(rank1, rank2);
+        int low = Math.min(rank1, rank2);
+        boolean suited = card1 / Card.Rank.COUNT == card2 / Card.Rank.COUNT;
+        return suited ? high * Card.Rank.COUNT + low : low * Card.Rank.COUNT + high;
+    }
+    
+    /**
+     * Gets the index of a combo of two distinct cards, regardless of their order.
+     * @param card1 the index of the first card
+     * @param card2 the index of the second card
+     * @return the combo index, from 0 to 1325
+     */
+    public static int comboIndex(int card1, int card2) {
+        int high = Math.max(card1, card2);
+        int low = Math.min(card1, card2);
+        return high * (high - 1) / 2 + low;
+    }
+    
+    /**
+     * Writes a table file.
+     * @param path the file to write
+     * @param classEquities the 169x169 class equities, row-major
+     * @param comboEquities the 1326 combo equities against a random hand
+     * @throws IOException if the file can't be written
+     */
+    public static void write(Path path, float[] classEquities, float[] comboEquities) throws IOException {
+        if (classEquities.length != CLASSES * CLASSES || comboEquities.length != COMBOS) {
+            throw new IllegalArgumentException("Wrong table dimensions");
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(FILE_BYTES);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(CLASSES).putInt(COMBOS);
+        for (float equity : classEquities) {
+            buffer.putFloat(equity);
+        }
+        for (float equity : comboEquities) {
+            buffer.putFloat(equity);
+        }
+        buffer.flip();
+        
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+}
@@ -0,0 +1,342 @@
+package texasholdem.model;
+
+import java.util.Arrays;
+
+/**
+ * A weighted set of hole-card combos, such as the hands an opponent might hold.
+ *
+ * The range is a dense {@code float[1326]} with one weight per combo, numbered by
+ * {@link PreflopEquityTable#comboIndex(int, int)}; a weight of zero means the combo is not in
+ * the range. Ranges are built from the usual notation with {@link #parse(String)}, for example
+ * {@code "AKs, TT+, A5s-A2s, KQo:0.5, AhKh"}, and combos that share a card with the board or
+ * other dead cards are taken out with {@link #removeBlocked(long)}. Equity between two ranges
+ * is calculated by {@link RangeEquity}.
+ */
+public final class Range {
+    /** Number of hole-card combos */
+    public static final int COMBOS = PreflopEquityTable.COMBOS;
+
+    /** Rank characters, from two to ace */
+    private static final String RANK_CHARS = "23456789TJQKA";
+
+    /** Suit characters, in {@link Card.Suit} order */
+    private static final String SUIT_CHARS = "hdcs";
+
+    private static final int RANKS = Card.Rank.COUNT;
+
+    /** The first card of each combo, the higher card index */
+    private static final int[] FIRST_CARDS = new int[COMBOS];
+
+    /** The second card of each combo, the lower card index */
+    private static final int[] SECOND_CARDS = new int[COMBOS];
+
+    /** The card mask of each combo */
+    private static final long[] MASKS = new long[COMBOS];
+
+    static {
+        for (int high = 1; high < Card.COUNT; high++) {
+            for (int low = 0; low < high; low++) {
+                int combo = PreflopEquityTable.comboIndex(high, low);
+                FIRST_CARDS[combo] = high;
+                SECOND_CARDS[combo] = low;
+                MASKS[combo] = CardMask.bit(high) | CardMask.bit(low);
+            }
+        }
+    }
+
+    /** The weight of each combo */
+    private final float[] weights;
+
+    /**
+     * Constructs an empty range.
+     */
+    public Range() {
+        weights = new float[COMBOS];
+    }
+
+    private Range(float[] weights) {
+        this.weights = weights;
+    }
+
+    /**
+     * Gets a range holding every combo with weight one.
+     * @return the full range
+     */
+    public static Range full() {
+        float[] weights = new float[COMBOS];
+        Arrays.fill(weights, 1f);
+        return new Range(weights);
+    }
+
+    /**
+     * Parses a range from comma-separated notation. Each part is one of:
+     * <ul>
+     * <li>a pair, suited or offsuit hand, or both: {@code TT}, {@code AKs}, {@code AKo}, {@code AK}</li>
+     * <li>the same with every better kicker (or higher pair): {@code TT+}, {@code ATs+}</li>
+     * <li>a span with the same top card, or of pairs or connectors: {@code A5s-A2s}, {@code 22-55}, {@code 98s-54s}</li>
+     * <li>one exact combo: {@code AhKh}</li>
+     * </ul>
+     * Any part can end with {@code :weight} to give its combos a weight other than one.
+     * @param notation the range, for example {@code "AKs, TT+, A5s-A2s"}
+     * @return the range
+     * @throws IllegalArgumentException if the notation can't be read
+     */
+    public static Range parse(String notation) {
+        Range range = new Range();
+        for (String part : notation.split(",")) {
+            String token = part.trim();
+            if (!token.isEmpty()) {
+                range.addToken(token);
+            }
+        }
+        return range;
+    }
+
+    /**
+     * Adds one part of a range in notation.
+     */
+    private void addToken(String token) {
+        float weight = 1f;
+        String hands = token;
+        int colon = token.indexOf(':');
+        if (colon >= 0) {
+            hands = token.substring(0, colon).trim();
+            try {
+                weight = Float.parseFloat(token.substring(colon + 1).trim());
+            } catch (NumberFormatException e) {
+                throw badNotation(token);
+            }
+            if (!(weight >= 0f)) {
+                throw badNotation(token);
+            }
+        }
+
+        // One exact combo, e.g. AhKh
+        if (hands.length() == 4 && SUIT_CHARS.indexOf(hands.charAt(1)) >= 0 && SUIT_CHARS.indexOf(hands.charAt(3)) >= 0) {
+            int card1 = cardIndex(hands.charAt(0), hands.charAt(1), token);
+            int card2 = cardIndex(hands.charAt(2), hands.charAt(3), token);
+            if (card1 == card2) {
+                throw badNotation(token);
+            }
+            weights[PreflopEquityTable.comboIndex(card1, card2)] = weight;
+            return;
+        }
+
+        int dash = hands.indexOf('-');
+        if (dash >= 0) {
+            HandClass from = HandClass.parse(hands.substring(0, dash).trim(), token);
+            HandClass to = HandClass.parse(hands.substring(dash + 1).trim(), token);
+            // Either the same top card with a span of kickers, or the same gap moved up the ranks (pairs, connectors)
+            int gap = from.high - from.low;
+            if (from.suitedness != to.suitedness || (from.high != to.high && gap != to.high - to.low)
+                    || (from.high == to.high && gap == 0)) {
+                throw badNotation(token);
+            }
+            if (from.high == to.high) {
+                for (int low = Math.min(from.low, to.low); low <= Math.max(from.low, to.low); low++) {
+                    setClass(from.high, low, from.suitedness, weight);
+                }
+            } else {
+                for (int high = Math.min(from.high, to.high); high <= Math.max(from.high, to.high); high++) {
+                    setClass(high, high - gap, from.suitedness, weight);
+                }
+            }
+            return;
+        }
+
+        boolean plus = hands.endsWith("+");
+        HandClass hand = HandClass.parse(plus ? hands.substring(0, hands.length() - 1) : hands, token);
+        if (!plus) {
+            setClass(hand.high, hand.low, hand.suitedness, weight);
+        } else if (hand.isPair()) {
+            for (int rank = hand.high; rank < RANKS; rank++) {
+                setClass(rank, rank, HandClass.ANY, weight);
+            }
+        } else {
+            for (int low = hand.low; low < hand.high; low++) {
+                setClass(hand.high, low, hand.suitedness, weight);
+            }
+        }
+    }
+
+    /**
+     * Sets the weight of every combo of a starting-hand class.
+     */
+    private void setClass(int high, int low, char suitedness, float weight) {
+        for (int suit1 = 0; suit1 < Card.Suit.COUNT; suit1++) {
+            for (int suit2 = 0; suit2 < Card.Suit.COUNT; suit2++) {
+                boolean suited = suit1 == suit2;
+                if (high == low ? suit2 <= suit1
+                        : (suitedness == HandClass.SUITED && !suited) || (suitedness == HandClass.OFFSUIT && suited)) {
+                    continue;
+                }
+                weights[PreflopEquityTable.comboIndex(suit1 * RANKS + high, suit2 * RANKS + low)] = weight;
+            }
+        }
+    }
+
+    /**
+     * Gets the index of a card written as a rank and a suit character.
+     */
+    private static int cardIndex(char rank, char suit, String token) {
+        int r = RANK_CHARS.indexOf(Character.toUpperCase(rank));
+        int s = SUIT_CHARS.indexOf(suit);
+        if (r < 0 || s < 0) {
+            throw badNotation(token);
+        }
+        return s * RANKS + r;
+    }
+
+    private static IllegalArgumentException badNotation(String token) {
+        return new IllegalArgumentException("Bad range notation: " + token);
+    }
+
+    /**
+     * Takes out every combo that shares a card with the board or other dead cards.
+     * @param deadCards the card mask of the cards no one can hold
+     * @return this range
+     */
+    public Range removeBlocked(long deadCards) {
+        for (int combo = 0; combo < COMBOS; combo++) {
+            if ((MASKS[combo] & deadCards) != 0) {
+                weights[combo] = 0f;
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Gets a copy of this range.
+     * @return the copy
+     */
+    public Range copy() {
+        return new Range(weights.clone());
+    }
+
+    /**
+     * Gets the weight of a combo.
+     * @param combo the combo index from {@link PreflopEquityTable#comboIndex(int, int)}
+     * @return the weight, zero if the combo is not in the range
+     */
+    public float getWeight(int combo) {
+        return weights[combo];
+    }
+
+    /**
+     * Gets the weight of two hole cards.
+     * @param card1 the first card
+     * @param card2 the second card
+     * @return the weight, zero if the combo is not in the range
+     */
+    public float getWeight(Card card1, Card card2) {
+        return weights[PreflopEquityTable.comboIndex(card1.getIndex(), card2.getIndex())];
+    }
+
+    /**
+     * Sets the weight of a combo.
+     * @param combo the combo index from {@link PreflopEquityTable#comboIndex(int, int)}
+     * @param weight the weight, zero to take the combo out
+     */
+    public void setWeight(int combo, float weight) {
+        weights[combo] = weight;
+    }
+
+    /**
+     * Gets the weights of all the combos, for reading in a tight loop. The array is the range
+     * itself and must not be changed.
+     * @return the weights, by combo index
+     */
+    float[] weights() {
+        return weights;
+    }
+
+    /**
+     * Gets the number of combos with a weight above zero.
+     * @return the combo count
+     */
+    public int size() {
+        int count = 0;
+        for (float weight : weights) {
+            if (weight > 0f) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Gets the sum of all the weights.
+     * @return the total weight
+     */
+    public double getTotalWeight() {
+        double total = 0.0;
+        for (float weight : weights) {
+            total += weight;
+        }
+        return total;
+    }
+
+    /**
+     * Gets the card mask of a combo.
+     * @param combo the combo index
+     * @return the mask of its two cards
+     */
+    public static long comboMask(int combo) {
+        return MASKS[combo];
+    }
+
+    /**
+     * Gets the higher card index of a combo.
+     * @param combo the combo index
+     * @return the card index, from 1 to 51
+     */
+    public static int firstCard(int combo) {
+        return FIRST_CARDS[combo];
+    }
+
+    /**
+     * Gets the lower card index of a combo.
+     * @param combo the combo index
+     * @return the card index, from 0 to 50
+     */
+    public static int secondCard(int combo) {
+        return SECOND_CARDS[combo];
+    }
+
+    /**
+     * A starting-hand class in notation, such as {@code AKs} or {@code TT}.
+     */
+    private static final class HandClass {
+        static final char ANY = ' ';
+        static final char SUITED = 's';
+        static final char OFFSUIT = 'o';
+
+        final int high;
+        final int low;
+        final char suitedness;
+
+        private HandClass(int high, int low, char suitedness) {
+            this.high = high;
+            this.low = low;
+            this.suitedness = suitedness;
+        }
+
+        boolean isPair() {
+            return high == low;
+        }
+
+        static HandClass parse(String text, String token) {
+            if (text.length() < 2 || text.length() > 3) {
+                throw badNotation(token);
+            }
+            int rank1 = RANK_CHARS.indexOf(Character.toUpperCase(text.charAt(0)));
+            int rank2 = RANK_CHARS.indexOf(Character.toUpperCase(text.charAt(1)));
+            char suitedness = text.length() == 3 ? Character.toLowerCase(text.charAt(2)) : ANY;
+            if (rank1 < 0 || rank2 < 0 || (suitedness != ANY && suitedness != SUITED && suitedness != OFFSUIT)
+                    || (rank1 == rank2 && suitedness != ANY)) {
+                throw badNotation(token);
+            }
+            return new HandClass(Math.max(rank1, rank2), Math.min(rank1, rank2), suitedness);
+        }
+    }
+}
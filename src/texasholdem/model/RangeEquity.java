@@ -0,0 +1,412 @@
+package texasholdem.model;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * Calculates the equity of one {@link Range} against another, overall and for each combo in
+ * the first range.
+ *
+ * Each runout is scored in one pass over dense arrays rather than hand against hand. Every
+ * combo live in either range is evaluated once, the opposing combos are sorted by
+ * strength, and a prefix sum of their weights gives the weight each hand beats or ties with
+ * two binary searches. The opposing combos that share a card with the hand (at most 101) are
+ * then taken back out from per-card lists, so card removal is exact. A river between two full
+ * ranges costs one evaluation per combo and one sort instead of over a million comparisons.
+ *
+ * {@link #enumerate(Range, Range, long)} walks every runout from the flop on;
+ * {@link #sample(Range, Range, long, int, long)} scores random runouts for any board, and
+ * {@link #sampleHand(long, Range, long, int, RandomGenerator)} estimates one hand's equity
+ * against a range for two evaluations a sample.
+ */
+public final class RangeEquity {
+    private static final int COMBOS = Range.COMBOS;
+
+    /** Most combos in the first range for which comparing directly beats sorting the second */
+    private static final int DIRECT_COMBOS = 8;
+
+    /** The community cards dealt so far */
+    private final long board;
+
+    /** The first range's live combos, and their weights */
+    private final int[] heroCombos;
+    private final float[] heroWeights;
+
+    /** The second range's live combos, and their weights */
+    private final int[] villainCombos;
+    private final float[] villainWeights;
+
+    /** The combos live in either range, each evaluated once per runout */
+    private final int[] evaluatedCombos;
+
+    /** For each card, the positions in the second range's arrays of the combos holding it */
+    private final int[][] villainsByCard;
+
+    /** Scratch space for one runout, reused so scoring allocates nothing */
+    private final int[] strengths = new int[COMBOS];
+    private final int[] villainStrengths;
+    private final float[] runoutWeights;
+    private final long[] order;
+    private final int[] sortedStrengths;
+    private final double[] prefix;
+
+    /** Weighted wins (ties counting half) and weighted matchups for each combo of the first range */
+    private final double[] shares = new double[COMBOS];
+    private final double[] matchups = new double[COMBOS];
+
+    /** Number of runouts scored */
+    private long runouts;
+
+    /**
+     * Sets up a calculation between two ranges on a board. Combos that share a card with the
+     * board are left out of both ranges.
+     * @param hero the range whose equity is wanted
+     * @param villain the opposing range
+     * @param board the mask of the community cards (0 to 5)
+     */
+    public RangeEquity(Range hero, Range villain, long board) {
+        if (CardMask.count(board) > 5) {
+            throw new IllegalArgumentException("Board can't have more than 5 cards");
+        }
+        this.board = board;
+
+        int[] combos = liveCombos(hero, board);
+        heroCombos = combos;
+        heroWeights = new float[combos.length];
+        for (int i = 0; i < combos.length; i++) {
+            heroWeights[i] = hero.getWeight(combos[i]);
+        }
+
+        combos = liveCombos(villain, board);
+        villainCombos = combos;
+        villainWeights = new float[combos.length];
+        int[] cardCounts = new int[Card.COUNT];
+        for (int j = 0; j < combos.length; j++) {
+            villainWeights[j] = villain.getWeight(combos[j]);
+            cardCounts[Range.firstCard(combos[j])]++;
+            cardCounts[Range.secondCard(combos[j])]++;
+        }
+        villainsByCard = new int[Card.COUNT][];
+        for (int card = 0; card < Card.COUNT; card++) {
+            villainsByCard[card] = new int[cardCounts[card]];
+            cardCounts[card] = 0;
+        }
+        for (int j = 0; j < combos.length; j++) {
+            int first = Range.firstCard(combos[j]);
+            int second = Range.secondCard(combos[j]);
+            villainsByCard[first][cardCounts[first]++] = j;
+            villainsByCard[second][cardCounts[second]++] = j;
+        }
+
+        int[] union = new int[heroCombos.length + villainCombos.length];
+        int unionCount = 0;
+        for (int combo = 0, i = 0, j = 0; combo < COMBOS; combo++) {
+            boolean inHero = i < heroCombos.length && heroCombos[i] == combo;
+            boolean inVillain = j < villainCombos.length && villainCombos[j] == combo;
+            if (inHero || inVillain) {
+                union[unionCount++] = combo;
+            }
+            i += inHero ? 1 : 0;
+            j += inVillain ? 1 : 0;
+        }
+        evaluatedCombos = Arrays.copyOf(union, unionCount);
+
+        int count = combos.length;
+        villainStrengths = new int[count];
+        runoutWeights = new float[count];
+        order = new long[count];
+        sortedStrengths = new int[count];
+        prefix = new double[count + 1];
+    }
+
+    /**
+     * Calculates the exact equity by scoring every runout.
+     * @param hero the range whose equity is wanted
+     * @param villain the opposing range
+     * @param board the mask of the community cards (3 to 5)
+     * @return the calculation
+     */
+    public static RangeEquity enumerate(Range hero, Range villain, long board) {
+        int missing = 5 - CardMask.count(board);
+        if (missing > 2) {
+            throw new IllegalArgumentException("Board needs 3 to 5 cards to enumerate");
+        }
+        RangeEquity equity = new RangeEquity(hero, villain, board);
+        long live = CardMask.FULL_DECK & ~board;
+        if (missing == 0) {
+            equity.addRunout(0L);
+        } else if (missing == 1) {
+            for (long first = live; first != 0; first &= first - 1) {
+                equity.addRunout(first & -first);
+            }
+        } else {
+            for (long first = live; first != 0; first &= first - 1) {
+                long card1 = first & -first;
+                for (long second = first & (first - 1); second != 0; second &= second - 1) {
+                    equity.addRunout(card1 | (second & -second));
+                }
+            }
+        }
+        return equity;
+    }
+
+    /**
+     * Estimates the equity by scoring random runouts.
+     * @param hero the range whose equity is wanted
+     * @param villain the opposing range
+     * @param board the mask of the community cards (0 to 5)
+     * @param runouts the number of runouts to score
+     * @param seed the seed for dealing the runouts
+     * @return the calculation
+     */
+    public static RangeEquity sample(Range hero, Range villain, long board, int runouts, long seed) {
+        RangeEquity equity = new RangeEquity(hero, villain, board);
+        Deck deck = new Deck(seed);
+        int missing = 5 - CardMask.count(board);
+        for (int i = 0; i < runouts; i++) {
+            deck.resetWithout(board);
+            equity.addRunout(deck.dealMask(missing));
+        }
+        return equity;
+    }
+
+    /**
+     * Scores one runout: every live combo of the first range against every live combo of the
+     * second that shares no card with it.
+     * @param runout the mask of the community cards still to come
+     */
+    public void addRunout(long runout) {
+        long fullBoard = board | runout;
+        for (int combo : evaluatedCombos) {
+            strengths[combo] = (Range.comboMask(combo) & runout) != 0 ? 0
+                : HandEvaluator.evaluate(Range.comboMask(combo) | fullBoard);
+        }
+        if (heroCombos.length <= DIRECT_COMBOS) {
+            addRunoutDirectly(runout);
+            return;
+        }
+        int count = villainCombos.length;
+        for (int j = 0; j < count; j++) {
+            int combo = villainCombos[j];
+            villainStrengths[j] = strengths[combo];
+            runoutWeights[j] = (Range.comboMask(combo) & runout) != 0 ? 0f : villainWeights[j];
+            // Strengths are positive and below 2^31, so this sorts by strength
+            order[j] = (long) villainStrengths[j] << 32 | j;
+        }
+        Arrays.sort(order);
+        for (int k = 0; k < count; k++) {
+            int j = (int) order[k];
+            sortedStrengths[k] = villainStrengths[j];
+            prefix[k + 1] = prefix[k] + runoutWeights[j];
+        }
+        double total = prefix[count];
+
+        for (int i = 0; i < heroCombos.length; i++) {
+            int combo = heroCombos[i];
+            if ((Range.comboMask(combo) & runout) != 0) {
+                continue;
+            }
+            int strength = strengths[combo];
+            int below = lowerBound(sortedStrengths, count, strength);
+            int notAbove = lowerBound(sortedStrengths, count, strength + 1);
+            double wins = prefix[below];
+            double ties = prefix[notAbove] - prefix[below];
+            double matched = total;
+
+            // Take out the opposing combos that share a card with this one, each once
+            int first = Range.firstCard(combo);
+            long firstBit = CardMask.bit(first);
+            for (int card = 0; card < 2; card++) {
+                int[] positions = villainsByCard[card == 0 ? first : Range.secondCard(combo)];
+                for (int j : positions) {
+                    if (card == 1 && (Range.comboMask(villainCombos[j]) & firstBit) != 0) {
+                        continue;
+                    }
+                    float weight = runoutWeights[j];
+                    matched -= weight;
+                    if (villainStrengths[j] < strength) {
+                        wins -= weight;
+                    } else if (villainStrengths[j] == strength) {
+                        ties -= weight;
+                    }
+                }
+            }
+            shares[combo] += wins + ties / 2;
+            matchups[combo] += matched;
+        }
+        runouts++;
+    }
+
+    /**
+     * Scores one runout by comparing each combo of a small first range with every combo of the
+     * second, which is cheaper than sorting the second range when there are only a few.
+     */
+    private void addRunoutDirectly(long runout) {
+        for (int combo : heroCombos) {
+            long mask = Range.comboMask(combo);
+            if ((mask & runout) != 0) {
+                continue;
+            }
+            int strength = strengths[combo];
+            double share = 0.0;
+            double matched = 0.0;
+            for (int j = 0; j < villainCombos.length; j++) {
+                int villain = villainCombos[j];
+                if ((Range.comboMask(villain) & (mask | runout)) != 0) {
+                    continue;
+                }
+                float weight = villainWeights[j];
+                matched += weight;
+                int other = strengths[villain];
+                share += strength > other ? weight : strength == other ? weight / 2 : 0f;
+            }
+            shares[combo] += share;
+            matchups[combo] += matched;
+        }
+        runouts++;
+    }
+
+    /**
+     * Estimates the equity of one hand against a range by sampling a runout and an opposing
+     * combo (drawn by weight among those that fit the runout) for each sample.
+     * @param holeCards the mask of the hand's hole cards
+     * @param villain the opposing range
+     * @param board the mask of the community cards (0 to 5)
+     * @param samples the number of samples
+     * @param random the source of randomness
+     * @return the estimated equity, between 0 and 1, or 0.5 if no combo of the range is live
+     */
+    public static double sampleHand(long holeCards, Range villain, long board, int samples, RandomGenerator random) {
+        int[] combos = liveCombos(villain, holeCards | board);
+        if (combos.length == 0) {
+            return 0.5;
+        }
+        // An alias table, to draw a combo by weight in constant time: slot i holds combo i with
+        // probability threshold[i] and its alias otherwise
+        int count = combos.length;
+        float[] threshold = new float[count];
+        int[] alias = new int[count];
+        double total = 0.0;
+        for (int combo : combos) {
+            total += villain.getWeight(combo);
+        }
+        int[] small = new int[count];
+        int[] large = new int[count];
+        int smallCount = 0;
+        int largeCount = 0;
+        for (int i = 0; i < count; i++) {
+            threshold[i] = (float) (villain.getWeight(combos[i]) * count / total);
+            if (threshold[i] < 1f) {
+                small[smallCount++] = i;
+            } else {
+                large[largeCount++] = i;
+            }
+        }
+        while (smallCount > 0 && largeCount > 0) {
+            int less = small[--smallCount];
+            int more = large[--largeCount];
+            alias[less] = more;
+            threshold[more] -= 1f - threshold[less];
+            if (threshold[more] < 1f) {
+                small[smallCount++] = more;
+            } else {
+                large[largeCount++] = more;
+            }
+        }
+        // Whatever is left is full up to rounding
+        while (largeCount > 0) {
+            threshold[large[--largeCount]] = 1f;
+        }
+        while (smallCount > 0) {
+            threshold[small[--smallCount]] = 1f;
+        }
+
+        Deck deck = new Deck(random);
+        deck.resetWithout(holeCards | board);
+        int missing = 5 - CardMask.count(board);
+        double share = 0.0;
+        int scored = 0;
+        for (int i = 0; i < samples; i++) {
+            deck.collect();
+            long fullBoard = board | deck.dealMask(missing);
+            long opponent = 0L;
+            for (int attempt = 0; attempt < 8 && opponent == 0L; attempt++) {
+                double slot = random.nextDouble() * count;
+                int index = (int) slot;
+                long mask = Range.comboMask(combos[slot - index < threshold[index] ? index : alias[index]]);
+                opponent = (mask & fullBoard) == 0 ? mask : 0L;
+            }
+            if (opponent == 0L) {
+                continue;
+            }
+            int strength = HandEvaluator.evaluate(holeCards | fullBoard);
+            int other = HandEvaluator.evaluate(opponent | fullBoard);
+            share += strength > other ? 1.0 : strength == other ? 0.5 : 0.0;
+            scored++;
+        }
+        return scored > 0 ? share / scored : 0.5;
+    }
+
+    /**
+     * Finds the first position whose value is at least a key.
+     */
+    private static int lowerBound(int[] values, int count, int key) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (values[middle] < key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Gets the combos of a range with a weight above zero that don't share a card with the board.
+     */
+    private static int[] liveCombos(Range range, long board) {
+        int[] combos = new int[COMBOS];
+        int count = 0;
+        for (int combo = 0; combo < COMBOS; combo++) {
+            if (range.getWeight(combo) > 0f && (Range.comboMask(combo) & board) == 0) {
+                combos[count++] = combo;
+            }
+        }
+        return Arrays.copyOf(combos, count);
+    }
+
+    /**
+     * Gets the equity of the first range: its expected share of the pot, weighting every
+     * matchup by both combos' weights.
+     * @return the equity, between 0 and 1, or 0.5 if the ranges have no matchups
+     */
+    public double getEquity() {
+        double share = 0.0;
+        double total = 0.0;
+        for (int i = 0; i < heroCombos.length; i++) {
+            share += heroWeights[i] * shares[heroCombos[i]];
+            total += heroWeights[i] * matchups[heroCombos[i]];
+        }
+        return total > 0.0 ? share / total : 0.5;
+    }
+
+    /**
+     * Gets the equity of one combo of the first range against the second range.
+     * @param combo the combo index from {@link PreflopEquityTable#comboIndex(int, int)}
+     * @return the equity, between 0 and 1, or NaN if the combo has no matchups
+     */
+    public double getComboEquity(int combo) {
+        return matchups[combo] > 0.0 ? shares[combo] / matchups[combo] : Double.NaN;
+    }
+
+    /**
+     * Gets the number of runouts scored.
+     * @return the runout count
+     */
+    public long getRunouts() {
+        return runouts;
+    }
+}
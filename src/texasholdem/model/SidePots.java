@@ -0,0 +1,88 @@
+package texasholdem.model;
+
+/**
+ * Settles a pot at showdown, including side pots for players who went all-in.
+ *
+ * The players still in the hand are sorted by hand strength, strongest first, and settled
+ * in a single pass. Each group of tied players wins, from every player's contribution,
+ * the part between the level already paid out and their own contribution; a level is
+ * split evenly between the tied players who reached it, and chips that don't divide evenly go
+ * to the first of them to the left of the button. Whatever no one could win (an uncalled bet
+ * from a player who then folded) goes to the strongest hand.
+ */
+final class SidePots {
+    private SidePots() {
+    }
+    
+    /**
+     * Works out what each player wins. Nothing is allocated, so search code can call this
+     * once per simulated hand.
+     * @param players the number of seats
+     * @param dealer the dealer's seat, which decides who gets odd chips
+     * @param contributions what each seat put into the pot this hand
+     * @param strengths each seat's hand strength from {@link HandEvaluator#evaluate(long)};
+     *        ignored for folded seats
+     * @param folded the folded seats, one bit per seat; at least one seat must still be in
+     * @param seats scratch space with room for every seat
+     * @param winnings receives what each seat wins, including its own contribution returned
+     */
+    static void settle(int players, int dealer, int[] contributions, int[] strengths, int folded, int[] seats, int[] winnings) {
+        // Sort the seats still in strongest first, then by contribution so tied groups are in level
+        // order; going round from the left of the button puts equal contributions in seat order
+        int count = 0;
+        int pot = 0;
+        for (int n = 1; n <= players; n++) {
+            int i = (dealer + n) % players;
+            winnings[i] = 0;
+            pot += contributions[i];
+            if ((folded & (1 << i)) == 0) {
+                int j = count++;
+                while (j > 0 && (strengths[seats[j - 1]] < strengths[i]
+                        || (strengths[seats[j - 1]] == strengths[i] && contributions[seats[j - 1]] > contributions[i]))) {
+                    seats[j] = seats[j - 1];
+                    j--;
+                }
+                seats[j] = i;
+            }
+        }
+        
+        int paidLevel = 0;
+        int paid = 0;
+        for (int start = 0; start < count; ) {
+            // Find the group of players tied with this one
+            int end = start + 1;
+            while (end < count && strengths[seats[end]] == strengths[seats[start]]) {
+                end++;
+            }
+            
+            // Pay out each level reached by the group, split among the tied players who reached it
+            for (int k = start; k < end; k++) {
+                int level = contributions[seats[k]];
+                if (level <= paidLevel) {
+                    continue;
+                }
+                int slice = 0;
+                for (int i = 0; i < players; i++) {
+                    slice += Math.min(contributions[i], level) - Math.min(contributions[i], paidLevel);
+                }
+                int sharers = end - k;
+                // Odd chips go to whichever of the tied players sits first to the left of the button
+                int first = seats[k];
+                for (int m = k + 1; m < end; m++) {
+                    if ((seats[m] - dealer - 1 + players) % players < (first - dealer - 1 + players) % players) {
+                        first = seats[m];
+                    }
+                }
+                for (int m = k; m < end; m++) {
+                    winnings[seats[m]] += slice / sharers + (seats[m] == first ? slice % sharers : 0);
+                }
+                paid += slice;
+                paidLevel = level;
+            }
+            start = end;
+        }
+        
+        // Anything left over was never matched by a player in the hand
+        winnings[seats[0]] += pot - paid;
+    }
+}
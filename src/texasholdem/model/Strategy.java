@@ -0,0 +1,14 @@
+package texasholdem.model;
+
+/**
+ * Something that can choose actions for a player without any user interface, such as a
+ * computer player. Anything that implements this can be driven by a headless game loop.
+ */
+public interface Strategy {
+    /**
+     * Chooses the next action for the player whose turn it is.
+     * @param game the game state
+     * @return the chosen action
+     */
+    Action decide(Game game);
+}
@@ -0,0 +1,72 @@
+package texasholdem.tools;
+
+import texasholdem.model.Blueprint;
+import texasholdem.model.CfrAbstraction;
+import texasholdem.model.CfrTrainer;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Trains the heads-up blueprint read by {@link Blueprint} with a {@link CfrTrainer}.
+ *
+ * Training runs in batches on every core and saves a checkpoint after each batch, so it can be
+ * stopped at any time and picks up from the checkpoint when started again. Once the requested
+ * number of iterations is reached the average strategy is written out as the blueprint, with
+ * its probabilities rounded to 8 bits (or 16 if asked for).
+ *
+ * Usage: {@code java -cp bin texasholdem.tools.BlueprintTrainer [iterations] [output] [checkpoint] [threads] [bits]}
+ */
+public class BlueprintTrainer {
+    /** Default total number of training iterations */
+    private static final long DEFAULT_ITERATIONS = 2_000_000;
+
+    /** Default location of the checkpoint */
+    private static final String DEFAULT_CHECKPOINT = "data/blueprint.ckpt";
+
+    /** Iterations between checkpoints */
+    private static final long BATCH = 100_000;
+
+    /** Chips each player starts a hand with, as in the game */
+    private static final int STACK = 1000;
+
+    /** The big blind, as in the game */
+    private static final int MIN_BET = 10;
+
+    /**
+     * Trains (or carries on training) and writes the blueprint.
+     * @param args optional total iterations, output path, checkpoint path, thread count and bits per probability
+     * @throws IOException if the checkpoint or blueprint can't be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        long total = args.length > 0 ? Long.parseLong(args[0]) : DEFAULT_ITERATIONS;
+        Path output = Paths.get(args.length > 1 ? args[1] : Blueprint.DEFAULT_PATH);
+        Path checkpoint = Paths.get(args.length > 2 ? args[2] : DEFAULT_CHECKPOINT);
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        int bits = args.length > 4 ? Integer.parseInt(args[4]) : Blueprint.DEFAULT_BITS;
+
+        long seed = System.nanoTime();
+        CfrTrainer trainer;
+        if (Files.exists(checkpoint)) {
+            trainer = CfrTrainer.load(checkpoint, seed);
+            System.out.printf("Resuming from %s at %,d iterations%n", checkpoint, trainer.getIterations());
+        } else {
+            trainer = new CfrTrainer(new CfrAbstraction(), STACK, MIN_BET, seed);
+        }
+
+        long start = System.nanoTime();
+        long startIterations = trainer.getIterations();
+        while (trainer.getIterations() < total) {
+            trainer.train(Math.min(BATCH, total - trainer.getIterations()), threads);
+            trainer.save(checkpoint);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("%,d iterations, %.0f/s%n", trainer.getIterations(),
+                (trainer.getIterations() - startIterations) / seconds);
+        }
+
+        Blueprint.write(output, trainer.getAbstraction(), trainer.getAverageStrategy(), bits);
+        System.out.printf("Wrote %s (%,d bytes)%n", output, Files.size(output));
+    }
+}
@@ -0,0 +1,166 @@
+package texasholdem.tools;
+
+import texasholdem.model.BucketFeature;
+import texasholdem.model.BucketTable;
+import texasholdem.model.Deck;
+import texasholdem.model.Game;
+import texasholdem.model.HandIndexer;
+import texasholdem.model.KMeans;
+import texasholdem.model.Range;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Generates the hand-strength bucket table for one betting round, read by {@link BucketTable}.
+ *
+ * Every hand of the round is taken once up to suits, in {@link HandIndexer} order, its
+ * {@link BucketFeature} is sampled on every core, the features are clustered with
+ * {@link KMeans}, and the buckets are renumbered from the weakest to the strongest by their
+ * average expected hand strength. On the river nothing is sampled: each board (up to suits)
+ * has the exact strength of all its hole card pairs worked out in one pass, so a hand is never
+ * put in the wrong bucket by sampling noise.
+ *
+ * Usage: {@code java -cp bin texasholdem.tools.BucketTableGenerator street [buckets] [feature] [runouts] [opponents] [output]}
+ * where street is preflop, flop, turn or river and feature is ehs, ehs2 or histogram; the
+ * river ignores runouts and opponents. The river has over 100 million distinct hands, so it
+ * needs a large heap ({@code -Xmx4g} for one-number features).
+ */
+public class BucketTableGenerator {
+    /** Default number of buckets */
+    private static final int DEFAULT_BUCKETS = 200;
+
+    /** Default feature for each round: strength before the flop and on the river, the shape of the distribution in between */
+    private static final BucketFeature[] DEFAULT_FEATURES = {
+        BucketFeature.EHS, BucketFeature.HISTOGRAM, BucketFeature.HISTOGRAM, BucketFeature.EHS
+    };
+
+    /** Default runouts per hand for each round; preflop has few hands and a lot of board to come */
+    private static final int[] DEFAULT_RUNOUTS = { 4096, 64, 32, 1 };
+
+    /** Default opposing hands per runout before the river (the river is worked out exactly) */
+    private static final int DEFAULT_OPPONENTS = 32;
+
+    /** Most k-means iterations */
+    private static final int ITERATIONS = 30;
+
+    /** Hands per parallel chunk of feature sampling */
+    private static final int CHUNK = 1024;
+
+    /** Boards per parallel chunk of river strengths */
+    private static final int BOARD_CHUNK = 64;
+
+    /** Seed for all the sampling, so a table is the same every time it is generated */
+    private static final long SEED = 0xB0C4E75L;
+
+    /**
+     * Generates a table and writes it to disk.
+     * @param args the street, then optional buckets, feature, runouts, opponents and output path
+     * @throws IOException if the table can't be written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: BucketTableGenerator preflop|flop|turn|river [buckets] [ehs|ehs2|histogram]"
+                + " [runouts] [opponents] [output]");
+            System.exit(1);
+        }
+        Game.BettingRound round = Game.BettingRound.valueOf(args[0].toUpperCase());
+        if (round == Game.BettingRound.SHOWDOWN) {
+            throw new IllegalArgumentException("No buckets at showdown");
+        }
+        int street = round.ordinal();
+        int buckets = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_BUCKETS;
+        BucketFeature feature = args.length > 2 ? BucketFeature.valueOf(args[2].toUpperCase()) : DEFAULT_FEATURES[street];
+        int runouts = args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_RUNOUTS[street];
+        int opponents = args.length > 4 ? Integer.parseInt(args[4]) : DEFAULT_OPPONENTS;
+        Path output = args.length > 5 ? Paths.get(args[5]) : BucketTable.getDefaultPath(round);
+        int boardCards = street == 0 ? 0 : street + 2;
+
+        long start = System.nanoTime();
+        HandIndexer indexer = BucketTable.getIndexer(boardCards);
+        int hands = (int) indexer.size();
+        System.out.printf("%,d distinct hands with %d board cards%n", hands, boardCards);
+
+        int dimensions = feature.getDimensions();
+        float[] features = new float[hands * dimensions];
+        float[] strengths = new float[hands];
+        if (boardCards == 5) {
+            riverStrengths(indexer, strengths);
+            IntStream.range(0, (hands + CHUNK - 1) / CHUNK).parallel().forEach(chunk -> {
+                float[] sample = new float[1];
+                for (int i = chunk * CHUNK; i < Math.min(hands, (chunk + 1) * CHUNK); i++) {
+                    sample[0] = strengths[i];
+                    feature.compute(sample, 1, features, i * dimensions);
+                }
+            });
+        } else {
+            IntStream.range(0, (hands + CHUNK - 1) / CHUNK).parallel().forEach(chunk -> {
+                Deck deck = new Deck(SEED + chunk);
+                float[] sample = new float[Math.max(1, runouts)];
+                long[] cards = new long[2];
+                for (int i = chunk * CHUNK; i < Math.min(hands, (chunk + 1) * CHUNK); i++) {
+                    indexer.unindex(i, cards);
+                    int count = BucketFeature.sampleStrengths(cards[0], cards[1], deck, runouts, opponents, sample);
+                    feature.compute(sample, count, features, i * dimensions);
+                    strengths[i] = (float) BucketFeature.mean(sample, count);
+                }
+            });
+        }
+        System.out.printf("Sampled features in %.1f s%n", (System.nanoTime() - start) / 1e9);
+
+        int[] assignments = KMeans.cluster(features, dimensions, buckets, ITERATIONS, SEED);
+        int used = renumberByStrength(assignments, strengths);
+        BucketTable.write(output, boardCards, used, assignments);
+        System.out.printf("Wrote %s with %d buckets in %.1f s%n", output, used, (System.nanoTime() - start) / 1e9);
+    }
+
+    /**
+     * Works out the exact strength of every river hand, a board at a time: every board up to
+     * suits, with all the hole card pairs that miss it. Hands that only differ by their suits
+     * are reached from more than one pair, and all write the same strength.
+     */
+    private static void riverStrengths(HandIndexer indexer, float[] strengths) {
+        HandIndexer boards = new HandIndexer(5);
+        int count = (int) boards.size();
+        IntStream.range(0, (count + BOARD_CHUNK - 1) / BOARD_CHUNK).parallel().forEach(chunk -> {
+            long[] board = new long[1];
+            long[] holeCards = new long[Range.COMBOS];
+            float[] boardStrengths = new float[Range.COMBOS];
+            for (int b = chunk * BOARD_CHUNK; b < Math.min(count, (chunk + 1) * BOARD_CHUNK); b++) {
+                boards.unindex(b, board);
+                int pairs = BucketFeature.riverStrengths(board[0], holeCards, boardStrengths);
+                for (int p = 0; p < pairs; p++) {
+                    strengths[(int) indexer.index(holeCards[p], board[0])] = boardStrengths[p];
+                }
+            }
+        });
+    }
+
+    /**
+     * Renumbers the clusters from the lowest average strength to the highest, dropping any
+     * that ended up empty.
+     * @return the number of buckets left
+     */
+    private static int renumberByStrength(int[] assignments, float[] strengths) {
+        int clusters = Arrays.stream(assignments).max().orElse(-1) + 1;
+        double[] totals = new double[clusters];
+        int[] counts = new int[clusters];
+        for (int i = 0; i < assignments.length; i++) {
+            totals[assignments[i]] += strengths[i];
+            counts[assignments[i]]++;
+        }
+        Integer[] order = IntStream.range(0, clusters).filter(c -> counts[c] > 0).boxed().toArray(Integer[]::new);
+        Arrays.sort(order, (a, b) -> Double.compare(totals[a] / counts[a], totals[b] / counts[b]));
+        int[] renumbered = new int[clusters];
+        for (int bucket = 0; bucket < order.length; bucket++) {
+            renumbered[order[bucket]] = bucket;
+        }
+        for (int i = 0; i < assignments.length; i++) {
+            assignments[i] = renumbered[assignments[i]];
+        }
+        return order.length;
+    }
+}
@@ -0,0 +1,37 @@
+package texasholdem.tools;
+
+import texasholdem.model.HandHistoryExporter;
+import texasholdem.model.HandHistoryReader;
+import texasholdem.model.HandHistoryWriter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Exports a hand history written by {@link HandHistoryWriter} as PokerStars-style text.
+ *
+ * Usage: {@code java -cp bin texasholdem.tools.HandHistoryExport [directory] [output]}.
+ * The output defaults to {@code hands.txt} in the history directory.
+ */
+public class HandHistoryExport {
+    /**
+     * Exports the history and reports how fast it went.
+     * @param args optional history directory and output file
+     * @throws IOException if the history can't be read or the output can't be written
+     */
+    public static void main(String[] args) throws IOException {
+        Path directory = args.length > 0 ? Paths.get(args[0]) : HandHistoryWriter.getDefaultDirectory();
+        Path output = args.length > 1 ? Paths.get(args[1]) : directory.resolve("hands.txt");
+
+        List<Path> segments = HandHistoryReader.findSegments(directory);
+        long start = System.nanoTime();
+        long hands = new HandHistoryExporter().export(segments, output);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("Exported %d hands from %d segments to %s (%.0f MB) in %.2f s (%.0f hands/min)%n",
+            hands, segments.size(), output, Files.size(output) / 1e6, seconds, hands / seconds * 60);
+    }
+}
@@ -0,0 +1,98 @@
+package texasholdem.tools;
+
+import texasholdem.model.CardMask;
+import texasholdem.model.GameState;
+import texasholdem.model.HandHistoryReader;
+import texasholdem.model.HandHistoryWriter;
+import texasholdem.model.HandRecord;
+import texasholdem.model.HandReplayer;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Replays hands from a hand history written by {@link HandHistoryWriter}.
+ *
+ * Usage: {@code java -cp bin texasholdem.tools.HandHistoryReplay [directory] [hand] [action]}.
+ * Without a hand number every hand in the history is replayed and checked against its record;
+ * with one, that hand is replayed up to the given action (or to the end) and the table is
+ * printed as it stood there.
+ */
+public class HandHistoryReplay {
+    /**
+     * Replays the history or one hand.
+     * @param args optional history directory, hand number and action index
+     * @throws IOException if the history can't be read
+     */
+    public static void main(String[] args) throws IOException {
+        Path directory = args.length > 0 ? Paths.get(args[0]) : HandHistoryWriter.getDefaultDirectory();
+        long hand = args.length > 1 ? Long.parseLong(args[1]) : -1;
+        int action = args.length > 2 ? Integer.parseInt(args[2]) : -1;
+
+        long start = System.nanoTime();
+        long hands = 0;
+        long failed = 0;
+        HandRecord record = new HandRecord();
+        for (Path segment : HandHistoryReader.findSegments(directory)) {
+            HandHistoryReader reader = HandHistoryReader.open(segment);
+            String[] names = reader.getPlayerNames();
+            HandReplayer replayer = new HandReplayer(names);
+            while (reader.next(record)) {
+                if (hand >= 0 && record.getHandNumber() != hand) {
+                    continue;
+                }
+                hands++;
+                try {
+                    replayer.load(record);
+                    if (hand < 0) {
+                        replayer.seek(replayer.getActionCount());
+                        for (int seat = 0; seat < names.length; seat++) {
+                            if (replayer.getGame().getLastWinnings(seat) != record.getWinnings(seat)) {
+                                throw new IllegalStateException("Hand " + record.getHandNumber() + " pays out differently");
+                            }
+                        }
+                    } else {
+                        replayer.seek(action < 0 ? replayer.getActionCount() : Math.min(action, replayer.getActionCount()));
+                        print(replayer, record, names);
+                        return;
+                    }
+                } catch (IllegalStateException e) {
+                    failed++;
+                    System.err.println(segment.getFileName() + ": " + e.getMessage());
+                }
+            }
+        }
+        if (hand >= 0) {
+            System.err.println("No hand " + hand + " in " + directory);
+            return;
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("Replayed %d hands in %.2f s (%.0f hands/s), %d didn't match their records%n",
+            hands, seconds, hands / seconds, failed);
+    }
+
+    /**
+     * Prints the actions replayed so far and the table as it stands.
+     */
+    private static void print(HandReplayer replayer, HandRecord record, String[] names) {
+        System.out.printf("Hand #%d, %s is the dealer, big blind %d%n", record.getHandNumber(),
+            names[record.getDealer()], record.getBigBlind());
+        for (int i = 0; i < replayer.getPosition(); i++) {
+            int amount = record.getActionAmount(i);
+            System.out.printf("%-8s %s %s%s%n", record.getActionRound(i), names[record.getActionSeat(i)],
+                record.getActionType(i), amount > 0 ? " " + amount : "");
+        }
+
+        GameState state = replayer.getState();
+        System.out.printf("After %d of %d actions: %s, board %s, pot %d%n", replayer.getPosition(),
+            replayer.getActionCount(), state.getRound(), CardMask.toList(state.getBoard()), state.getPot());
+        for (int seat = 0; seat < names.length; seat++) {
+            if (record.isDealt(seat)) {
+                System.out.printf("  %-12s %s %6d chips%s%s%n", names[seat], CardMask.toList(state.getHoleCards(seat)),
+                    state.getStack(seat), state.isFolded(seat) ? ", folded" : "",
+                    seat == state.getCurrentSeat() && replayer.getPosition() < replayer.getActionCount() ? ", to act" : "");
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package texasholdem.tools;
+
+import texasholdem.model.Game;
+import texasholdem.model.HandEvaluator;
+import texasholdem.model.HandHistoryQuery;
+import texasholdem.model.HandHistoryReader;
+import texasholdem.model.HandHistoryWriter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Reports win and showdown rates by position from a hand history written by
+ * {@link HandHistoryWriter}.
+ *
+ * Usage: {@code java -cp bin texasholdem.tools.HandHistoryReport [directory] [filter=value ...]}
+ * where the filters are {@code player=<name>}, {@code street=<flop|turn|river|showdown>},
+ * {@code rank=<hand rank, e.g. flush or two_pair>}, {@code minPot=<chips>} and
+ * {@code maxPot=<chips>}.
+ */
+public class HandHistoryReport {
+    /**
+     * Runs a query and prints the summary.
+     * @param args optional history directory followed by filters
+     * @throws IOException if the history can't be read
+     */
+    public static void main(String[] args) throws IOException {
+        Path directory = HandHistoryWriter.getDefaultDirectory();
+        HandHistoryQuery query = new HandHistoryQuery();
+        int minPot = 0;
+        int maxPot = Integer.MAX_VALUE;
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (equals < 0) {
+                directory = Paths.get(arg);
+                continue;
+            }
+            String value = arg.substring(equals + 1);
+            switch (arg.substring(0, equals)) {
+                case "player": query.player(value); break;
+                case "street": query.street(Game.BettingRound.valueOf(value.toUpperCase())); break;
+                case "rank": query.handRank(HandEvaluator.HandRank.valueOf(value.toUpperCase().replace(' ', '_'))); break;
+                case "minPot": minPot = Integer.parseInt(value); break;
+                case "maxPot": maxPot = Integer.parseInt(value); break;
+                default: throw new IllegalArgumentException("Unknown filter: " + arg);
+            }
+        }
+        query.pot(minPot, maxPot);
+
+        List<Path> segments = HandHistoryReader.findSegments(directory);
+        long bytes = 0;
+        for (Path segment : segments) {
+            bytes += Files.size(segment);
+        }
+        long start = System.nanoTime();
+        HandHistoryQuery.Summary summary = query.run(segments);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%d of %d hands matched in %d segments (%.0f MB) in %.2f s, average pot %.1f%n",
+            summary.getMatched(), summary.getScanned(), segments.size(), bytes / 1e6, seconds,
+            summary.getAveragePot());
+        System.out.println("Position      Hands    Won  Showdown  Won at showdown");
+        for (int position = 0; position < Game.MAX_PLAYERS; position++) {
+            if (summary.getHands(position) > 0) {
+                System.out.printf("%-10s %8d %5.1f%% %8.1f%% %15.1f%%%n",
+                    position == 0 ? "Button" : "Button+" + position, summary.getHands(position),
+                    summary.getWinRate(position) * 100, summary.getShowdownRate(position) * 100,
+                    summary.getShowdownWinRate(position) * 100);
+            }
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package texasholdem.tools;
+
+import texasholdem.model.Card;
+import texasholdem.model.CardMask;
+import texasholdem.model.Deck;
+import texasholdem.model.EquityCalculator;
+import texasholdem.model.HandEvaluator;
+import texasholdem.model.PreflopEquityTable;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Generates the preflop equity table read by {@link PreflopEquityTable}.
+ *
+ * Usage: {@code java -cp bin texasholdem.tools.PreflopTableGenerator [output] [samples]}
+ * where samples is the number of boards dealt per pair of starting-hand classes.
+ */
+public class PreflopTableGenerator {
+    /** Default number of boards per class matchup */
+    private static final int DEFAULT_SAMPLES = 20_000;
+    
+    /** Number of samples per class against a random hand */
+    private static final int RANDOM_HAND_SAMPLES = 500_000;
+    
+    /** Seed for all the sampling, so the table is the same on every build */
+    private static final long SEED = 0x5EED_7AB1EL;
+    
+    /**
+     * Generates the table and writes it to disk.
+     * @param args optional output path and samples per matchup
+     * @throws IOException if the table can't be written
+     */
+    public static void main(String[] args) throws IOException {
+        Path output = Paths.get(args.length > 0 ? args[0] : PreflopEquityTable.DEFAULT_PATH);
+        int samples = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_SAMPLES;
+        
+        long start = System.nanoTime();
+        long[][] classCombos = groupCombosByClass();
+        float[] classEquities = computeClassEquities(classCombos, samples);
+        float[] comboEquities = computeComboEquities(classCombos);
+        PreflopEquityTable.write(output, classEquities, comboEquities);
+        
+        System.out.printf("Wrote %s in %.1f s%n", output, (System.nanoTime() - start) / 1e9);
+    }
+    
+    /**
+     * Lists the hole-card masks of every combo in each starting-hand class.
+     */
+    private static long[][] groupCombosByClass() {
+        List<List<Long>> classes = new ArrayList<>();
+        for (int i = 0; i < PreflopEquityTable.CLASSES; i++) {
+            classes.add(new ArrayList<>());
+        }
+        for (int card2 = 1; card2 < Card.COUNT; card2++) {
+            for (int card1 = 0; card1 < card2; card1++) {
+                classes.get(PreflopEquityTable.classIndex(card1, card2))
+                    .add(CardMask.bit(card1) | CardMask.bit(card2));
+            }
+        }
+        
+        long[][] classCombos = new long[PreflopEquityTable.CLASSES][];
+        for (int i = 0; i < classCombos.length; i++) {
+            classCombos[i] = classes.get(i).stream().mapToLong(Long::longValue).toArray();
+        }
+        return classCombos;
+    }
+    
+    /**
+     * Computes the 169x169 class-against-class matrix. Each matchup is sampled evenly over
+     * every pair of combos that don't share a card; the lower triangle mirrors the upper one.
+     */
+    private static float[] computeClassEquities(long[][] classCombos, int samples) {
+        int classes = PreflopEquityTable.CLASSES;
+        float[] equities = new float[classes * classes];
+        
+        IntStream.range(0, classes).parallel().forEach(hero -> {
+            SplittableRandom random = new SplittableRandom(SEED + hero);
+            Deck deck = new Deck(random);
+            equities[hero * classes + hero] = 0.5f;
+            
+            for (int villain = hero + 1; villain < classes; villain++) {
+                List<long[]> matchups = new ArrayList<>();
+                for (long heroCards : classCombos[hero]) {
+                    for (long villainCards : classCombos[villain]) {
+                        if ((heroCards & villainCards) == 0) {
+                            matchups.add(new long[] { heroCards, villainCards });
+                        }
+                    }
+                }
+                
+                int perMatchup = Math.max(1, samples / matchups.size());
+                double share = 0.0;
+                long total = 0;
+                for (long[] matchup : matchups) {
+                    deck.resetWithout(matchup[0] | matchup[1]);
+                    for (int i = 0; i < perMatchup; i++) {
+                        deck.collect();
+                        long board = deck.dealMask(5);
+                        int heroStrength = HandEvaluator.evaluate(matchup[0] | board);
+                        int villainStrength = HandEvaluator.evaluate(matchup[1] | board);
+                        share += heroStrength > villainStrength ? 1.0 : heroStrength == villainStrength ? 0.5 : 0.0;
+                    }
+                    total += perMatchup;
+                }
+                
+                float equity = (float) (share / total);
+                equities[hero * classes + villain] = equity;
+                equities[villain * classes + hero] = 1.0f - equity;
+            }
+        });
+        return equities;
+    }
+    
+    /**
+     * Computes every combo's equity against a random hand. Combos in the same class are
+     * equivalent up to suits, so each class is sampled once and copied to its combos.
+     */
+    private static float[] computeComboEquities(long[][] classCombos) {
+        EquityCalculator calculator = new EquityCalculator(
+            ForkJoinPool.commonPool(), RANDOM_HAND_SAMPLES, TimeUnit.MINUTES.toMillis(10), SEED);
+        float[] equities = new float[PreflopEquityTable.COMBOS];
+        for (long[] combos : classCombos) {
+            float equity = (float) calculator.calculate(combos[0], 0L, 1).getEquity();
+            for (long combo : combos) {
+                int card1 = CardMask.lowestIndex(combo);
+                int card2 = CardMask.lowestIndex(combo & (combo - 1));
+                equities[PreflopEquityTable.comboIndex(card1, card2)] = equity;
+            }
+        }
+        return equities;
+    }
+}
@@ -0,0 +1,222 @@
+package texasholdem.tools;
+
+import texasholdem.controller.GameRunner;
+import texasholdem.model.ComputerPlayer;
+import texasholdem.model.EquityCalculator;
+import texasholdem.model.Game;
+import texasholdem.model.Player;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Plays many independent tables of computer players at once to compare AI settings.
+ *
+ * Every table is a separate Game with its own seeded deck, players and equity calculators,
+ * so tables share nothing while they run and the work spreads evenly over a fixed pool with
+ * one thread per core. Each table covers one ordered pairing of profiles (so every pairing is
+ * played from both seats), and its results are added to the profiles' LongAdder counters
+ * once the table finishes.
+ *
+ * Usage: {@code java -cp bin texasholdem.tools.TournamentSimulator [tables] [handsPerTable] [threads]}
+ */
+public class TournamentSimulator {
+    /** Chips each player starts a table with */
+    private static final int STARTING_CHIPS = 1000;
+    
+    /** The big blind */
+    private static final int MIN_BET = 10;
+    
+    /** Equity samples per AI decision */
+    private static final int EQUITY_SAMPLES = 500;
+    
+    /**
+     * An AI setting and the results it has collected.
+     */
+    public static class Profile {
+        private final int aggressiveness;
+        private final int tightness;
+        private final LongAdder hands = new LongAdder();
+        private final LongAdder chips = new LongAdder();
+        private final LongAdder tables = new LongAdder();
+        private final LongAdder tablesWon = new LongAdder();
+        
+        /**
+         * Constructs a profile.
+         * @param aggressiveness 0-100, higher = more likely to bet/raise
+         * @param tightness 0-100, higher = more likely to fold weak hands
+         */
+        public Profile(int aggressiveness, int tightness) {
+            this.aggressiveness = aggressiveness;
+            this.tightness = tightness;
+        }
+        
+        /**
+         * Gets the average chips won per 100 hands.
+         * @return the win rate
+         */
+        public double getChipsPer100Hands() {
+            long played = hands.sum();
+            return played == 0 ? 0.0 : chips.sum() * 100.0 / played;
+        }
+        
+        /**
+         * Gets the fraction of tables this profile finished ahead.
+         * @return a value between 0 and 1
+         */
+        public double getTableWinRate() {
+            long played = tables.sum();
+            return played == 0 ? 0.0 : (double) tablesWon.sum() / played;
+        }
+        
+        @Override
+        public String toString() {
+            return "aggr " + aggressiveness + "/tight " + tightness;
+        }
+    }
+    
+    /** The profiles being compared */
+    private final List<Profile> profiles;
+    
+    /** The number of hands played at each table */
+    private final long handsPerTable;
+    
+    /** The seed that every table's random state is derived from */
+    private final long seed;
+    
+    /** Total hands played over all tables */
+    private final LongAdder totalHands = new LongAdder();
+    
+    /**
+     * Constructs a simulator.
+     * @param profiles the AI settings to compare (at least two)
+     * @param handsPerTable the number of hands played at each table
+     * @param seed the seed for all tables
+     */
+    public TournamentSimulator(List<Profile> profiles, long handsPerTable, long seed) {
+        if (profiles.size() < 2) {
+            throw new IllegalArgumentException("Need at least two profiles");
+        }
+        this.profiles = profiles;
+        this.handsPerTable = handsPerTable;
+        this.seed = seed;
+    }
+    
+    /**
+     * Plays a number of tables on a fixed pool of threads and waits for them to finish. If any
+     * table fails, its results are missing from the profiles, so the first failure is thrown
+     * once every table has stopped.
+     * @param tableCount the number of tables to play
+     * @param threads the number of threads
+     * @throws InterruptedException if interrupted while waiting
+     * @throws IllegalStateException if a table failed, with the table's exception as the cause
+     */
+    public void run(int tableCount, int threads) throws InterruptedException {
+        List<Callable<Void>> tables = new ArrayList<>(tableCount);
+        for (int table = 0; table < tableCount; table++) {
+            final int tableIndex = table;
+            tables.add(() -> {
+                playTable(tableIndex);
+                return null;
+            });
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<Void>> results;
+        try {
+            results = pool.invokeAll(tables);
+        } finally {
+            pool.shutdownNow();
+        }
+        for (int table = 0; table < results.size(); table++) {
+            try {
+                results.get(table).get();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Table " + table + " failed", e.getCause());
+            }
+        }
+    }
+    
+    /**
+     * Plays one table to completion and adds its results to the profiles.
+     */
+    private void playTable(int table) {
+        // Cycle through every ordered pair of different profiles
+        int n = profiles.size();
+        int pairing = table % (n * (n - 1));
+        int first = pairing / (n - 1);
+        int second = pairing % (n - 1);
+        if (second >= first) {
+            second++;
+        }
+        Profile[] seated = { profiles.get(first), profiles.get(second) };
+        
+        SplittableRandom random = new SplittableRandom(seed + table * 0x9E3779B97F4A7C15L);
+        List<Player> players = new ArrayList<>();
+        for (int seat = 0; seat < seated.length; seat++) {
+            ComputerPlayer player = new ComputerPlayer("Seat " + seat, STARTING_CHIPS,
+                seated[seat].aggressiveness, seated[seat].tightness, random.nextLong());
+            player.setEquityCalculator(new EquityCalculator(ForkJoinPool.commonPool(), EQUITY_SAMPLES, 10, random.nextLong()));
+            players.add(player);
+        }
+        
+        GameRunner runner = new GameRunner(new Game(players, MIN_BET, random.nextLong()));
+        long played = runner.run(handsPerTable);
+        
+        for (int seat = 0; seat < seated.length; seat++) {
+            long delta = runner.getChipDelta(seat);
+            seated[seat].hands.add(played);
+            seated[seat].chips.add(delta);
+            seated[seat].tables.increment();
+            if (delta > 0) {
+                seated[seat].tablesWon.increment();
+            }
+        }
+        totalHands.add(played);
+    }
+    
+    /**
+     * Gets the total number of hands played over all tables.
+     * @return the number of hands
+     */
+    public long getTotalHands() {
+        return totalHands.sum();
+    }
+    
+    /**
+     * Compares a grid of aggressiveness and tightness settings and prints the results.
+     * @param args optional number of tables, hands per table and threads
+     * @throws InterruptedException if interrupted while waiting for the tables
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int tables = args.length > 0 ? Integer.parseInt(args[0]) : 600;
+        long handsPerTable = args.length > 1 ? Long.parseLong(args[1]) : 1_000;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        
+        List<Profile> profiles = new ArrayList<>();
+        for (int aggressiveness = 20; aggressiveness <= 80; aggressiveness += 30) {
+            for (int tightness = 20; tightness <= 80; tightness += 30) {
+                profiles.add(new Profile(aggressiveness, tightness));
+            }
+        }
+        
+        TournamentSimulator simulator = new TournamentSimulator(profiles, handsPerTable, 1L);
+        long start = System.nanoTime();
+        simulator.run(tables, threads);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        
+        System.out.printf("%d tables, %d hands on %d threads in %.1f s (%.0f hands/s)%n",
+            tables, simulator.getTotalHands(), threads, seconds, simulator.getTotalHands() / seconds);
+        for (Profile profile : profiles) {
+            System.out.printf("%-20s %+9.1f chips/100 hands, won %5.1f%% of tables%n",
+                profile, profile.getChipsPer100Hands(), profile.getTableWinRate() * 100);
+        }
+    }
+}
@@ -12,6 +12,7 @@ import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.FlowLayout;
 import java.awt.Font;
+import java.awt.GridLayout;
 import java.util.List;
 
 /**
@@ -36,6 +37,9 @@ public class PlayerView extends JPanel {
     /** Label for the player's current bet */
     private JLabel betLabel;
     
+    /** Label for the player's best hand so far, blank while their cards are hidden */
+    private JLabel handLabel;
+    
     /** Whether this player is the current player */
     private boolean isCurrentPlayer;
     
@@ -85,7 +89,16 @@ public class PlayerView extends JPanel {
         // Player bet label
         betLabel = new JLabel("Bet: 0");
         betLabel.setHorizontalAlignment(SwingConstants.CENTER);
-        infoPanel.add(betLabel, BorderLayout.SOUTH);
+        
+        // Player hand label, under the bet
+        handLabel = new JLabel(" ");
+        handLabel.setFont(new Font("SansSerif", Font.ITALIC, 12));
+        handLabel.setHorizontalAlignment(SwingConstants.CENTER);
+        JPanel southPanel = new JPanel(new GridLayout(2, 1));
+        southPanel.setOpaque(false);
+        southPanel.add(betLabel);
+        southPanel.add(handLabel);
+        infoPanel.add(southPanel, BorderLayout.SOUTH);
         
         add(infoPanel, BorderLayout.SOUTH);
         
@@ -125,6 +138,15 @@ public class PlayerView extends JPanel {
         repaint();
     }
     
+    /**
+     * Sets the description of the player's best hand so far.
+     * @param description the hand, such as "Two Pair", or null to leave it blank
+     */
+    public void setHandDescription(String description) {
+        // A space keeps the label's height when it is blank
+        handLabel.setText(description == null ? " " : description);
+    }
+    
     /**
      * Sets whether this player is the current player.
      * @param isCurrentPlayer true if this player is the current player
@@ -185,11 +207,13 @@ public class PlayerView extends JPanel {
             nameLabel.setForeground(Color.GRAY);
             chipsLabel.setForeground(Color.GRAY);
             betLabel.setForeground(Color.GRAY);
+            handLabel.setForeground(Color.GRAY);
         } else {
             setForeground(Color.BLACK);
             nameLabel.setForeground(Color.BLACK);
             chipsLabel.setForeground(Color.BLACK);
             betLabel.setForeground(Color.BLACK);
+            handLabel.setForeground(Color.BLACK);
         }
         
         repaint();